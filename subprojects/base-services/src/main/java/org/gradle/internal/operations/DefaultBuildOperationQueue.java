@@ -16,36 +16,57 @@
 
 package org.gradle.internal.operations;
 
-import com.google.common.collect.Lists;
-import com.google.common.collect.Queues;
-import com.google.common.util.concurrent.*;
 import org.gradle.internal.UncheckedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
 import java.util.Queue;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Runs the operations of a queue using the threads of a shared executor, and the thread that waits for the queue to complete.
+ *
+ * <p>The operations are held in a queue of their own, and each thread that becomes available takes the next pending operation, so that an operation is not
+ * bound to a thread until it can start. The thread that waits for completion runs pending operations too, rather than blocking while the threads of the
+ * executor are busy with the operations of other queues.</p>
+ */
 class DefaultBuildOperationQueue<T extends BuildOperation> implements BuildOperationQueue<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultBuildOperationQueue.class);
+
     private final BuildOperationWorkerRegistry.Operation owner;
-    private final ListeningExecutorService executor;
+    private final ExecutorService executor;
     private final BuildOperationWorker<T> worker;
 
-    private final List<QueuedOperation> operations;
+    private final Queue<OperationHolder> pending = new ConcurrentLinkedQueue<OperationHolder>();
+    private final SortedMap<Integer, Throwable> failures = new ConcurrentSkipListMap<Integer, Throwable>();
+    // One for each operation that has not completed, plus one that is released when waiting for completion
+    private final AtomicInteger incomplete = new AtomicInteger(1);
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private int operationCount;
 
     private String logLocation;
 
     private final AtomicBoolean waitingForCompletion = new AtomicBoolean();
     private final AtomicBoolean canceled = new AtomicBoolean();
 
+    private final long createdAt = System.nanoTime();
+    private final AtomicLong busyTime = new AtomicLong();
+    private final AtomicLong leaseWaitTime = new AtomicLong();
+    private int runByWaitingThread;
+
     DefaultBuildOperationQueue(BuildOperationWorkerRegistry.Operation owner, ExecutorService executor, BuildOperationWorker<T> worker) {
         this.owner = owner;
-        this.executor = MoreExecutors.listeningDecorator(executor);
+        this.executor = executor;
         this.worker = worker;
-        this.operations = Collections.synchronizedList(Lists.<QueuedOperation>newArrayList());
     }
 
     @Override
@@ -53,41 +74,32 @@ class DefaultBuildOperationQueue<T extends BuildOperation> implements BuildOpera
         if (waitingForCompletion.get()) {
             throw new IllegalStateException("BuildOperationQueue cannot be reused once it has started completion.");
         }
-        OperationHolder operationHolder = new OperationHolder(owner, operation);
-        ListenableFuture<?> future = executor.submit(operationHolder);
-        operations.add(new QueuedOperation(operationHolder, future));
+        incomplete.incrementAndGet();
+        pending.add(new OperationHolder(operationCount++, operation));
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                runNextOperation();
+            }
+        });
     }
 
     @Override
     public void cancel() {
         canceled.set(true);
-        for (QueuedOperation operation : operations) {
-            // Although we can cancel the future of a running operation, we have no way of knowing
-            // that the operation was canceled after it began executing (i.e. isCanceled always returns
-            // true) which is a problem because we need to know whether to wait on the result or not.
-            // So we have to maintain the running state ourselves and only cancel operations we know
-            // have not started executing.
-            if (!operation.operationHolder.isStarted()) {
-                operation.future.cancel(false);
-            }
+        // Operations that have been taken from the queue but have not started yet check for cancellation themselves
+        while (pending.poll() != null) {
+            operationCompleted();
         }
     }
 
     public void waitForCompletion() throws MultipleBuildOperationFailures {
         waitingForCompletion.set(true);
 
-        CountDownLatch finished = new CountDownLatch(operations.size());
-        Queue<Throwable> failures = Queues.newConcurrentLinkedQueue();
-
-        for (QueuedOperation operation : operations) {
-            if (operation.future.isCancelled()) {
-                // If it's canceled, we'll never get a callback, so we just remove it from
-                // operations we're waiting for.
-                finished.countDown();
-            } else {
-                Futures.addCallback(operation.future, new CompletionCallback(finished, failures));
-            }
+        while (runNextOperation()) {
+            runByWaitingThread++;
         }
+        operationCompleted();
 
         try {
             finished.await();
@@ -95,9 +107,13 @@ class DefaultBuildOperationQueue<T extends BuildOperation> implements BuildOpera
             throw UncheckedException.throwAsUncheckedException(e);
         }
 
+        if (LOGGER.isDebugEnabled()) {
+            logUtilization();
+        }
+
         // all operations are complete, check for errors
         if (!failures.isEmpty()) {
-            throw new MultipleBuildOperationFailures(getFailureMessage(failures), failures, logLocation);
+            throw new MultipleBuildOperationFailures(getFailureMessage(failures.values()), failures.values(), logLocation);
         }
     }
 
@@ -106,76 +122,71 @@ class DefaultBuildOperationQueue<T extends BuildOperation> implements BuildOpera
         this.logLocation = logLocation;
     }
 
-    private static String getFailureMessage(Collection<? extends Throwable> failures) {
-        if (failures.size() == 1) {
-            return "A build operation failed.";
+    private boolean runNextOperation() {
+        OperationHolder operationHolder = pending.poll();
+        if (operationHolder == null) {
+            return false;
         }
-        return "Multiple build operations failed.";
+        operationHolder.run();
+        return true;
     }
 
-    private static class CompletionCallback implements FutureCallback {
-        private final CountDownLatch finished;
-        private final Collection<Throwable> failures;
-
-        private CompletionCallback(CountDownLatch finished, Collection<Throwable> failures) {
-            this.finished = finished;
-            this.failures = failures;
-        }
-
-        @Override
-        public void onSuccess(Object result) {
-            finished.countDown();
-        }
-
-        @Override
-        public void onFailure(Throwable t) {
-            failures.add(t);
+    private void operationCompleted() {
+        if (incomplete.decrementAndGet() == 0) {
             finished.countDown();
         }
     }
 
-    private class QueuedOperation {
-        final OperationHolder operationHolder;
-        final ListenableFuture future;
+    private void logUtilization() {
+        long elapsed = Math.max(System.nanoTime() - createdAt, 1);
+        LOGGER.debug("{} completed {} operations in {} ms, with an average of {} operations running ({} run by the waiting thread, {} ms waiting for worker leases).",
+            worker.getDisplayName(), operationCount, TimeUnit.NANOSECONDS.toMillis(elapsed), String.format("%.2f", (double) busyTime.get() / elapsed),
+            runByWaitingThread, TimeUnit.NANOSECONDS.toMillis(leaseWaitTime.get()));
+    }
 
-        public QueuedOperation(OperationHolder operationHolder, ListenableFuture future) {
-            this.operationHolder = operationHolder;
-            this.future = future;
+    private static String getFailureMessage(Collection<? extends Throwable> failures) {
+        if (failures.size() == 1) {
+            return "A build operation failed.";
         }
+        return "Multiple build operations failed.";
     }
 
     private class OperationHolder implements Runnable {
-        private final BuildOperationWorkerRegistry.Operation owner;
+        private final int index;
         private final T operation;
-        private final AtomicBoolean started = new AtomicBoolean();
 
-        OperationHolder(BuildOperationWorkerRegistry.Operation owner, T operation) {
-            this.owner = owner;
+        OperationHolder(int index, T operation) {
+            this.index = index;
             this.operation = operation;
         }
 
         @Override
         public void run() {
-            // Don't execute if the queue has been canceled
-            started.set(!canceled.get());
-            if (started.get()) {
-                runBuildOperation();
+            try {
+                // Don't execute if the queue has been canceled
+                if (!canceled.get()) {
+                    runBuildOperation();
+                }
+            } catch (Throwable t) {
+                failures.put(index, t);
+            } finally {
+                operationCompleted();
             }
         }
 
         private void runBuildOperation() {
+            long waitStart = System.nanoTime();
             BuildOperationWorkerRegistry.Completion workerLease = owner.operationStart();
+            long start = System.nanoTime();
+            leaseWaitTime.addAndGet(start - waitStart);
             try {
                 worker.execute(operation);
             } finally {
+                busyTime.addAndGet(System.nanoTime() - start);
                 workerLease.operationFinish();
             }
         }
 
-        public boolean isStarted() {
-            return started.get();
-        }
-
         @Override
         public String toString() {
             return "Worker ".concat(worker.getDisplayName()).concat(" for operation ").concat(operation.getDescription());
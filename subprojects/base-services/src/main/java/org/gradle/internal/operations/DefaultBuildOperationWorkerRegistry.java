@@ -23,14 +23,25 @@ import org.gradle.internal.concurrent.Stoppable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Hands out a fixed number of worker leases, shared by all build operations of the build session.
+ *
+ * <p>Operations that need a lease while none is available are granted one in the order in which they asked for it. Each waiting operation is woken only when
+ * it is next in line, rather than waking all waiting operations whenever a lease is released.</p>
+ */
 public class DefaultBuildOperationWorkerRegistry implements BuildOperationWorkerRegistry, Stoppable {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultBuildOperationWorkerRegistry.class);
     private final int maxWorkerCount;
-    private final Object lock = new Object();
+    private final Lock lock = new ReentrantLock();
     private int counter = 1;
     private final ListMultimap<Thread, DefaultOperation> threads = ArrayListMultimap.create();
+    private final LinkedList<Waiter> waiting = new LinkedList<Waiter>();
     private final Root root = new Root();
 
     public DefaultBuildOperationWorkerRegistry(int maxWorkerCount) {
@@ -40,57 +51,112 @@ public class DefaultBuildOperationWorkerRegistry implements BuildOperationWorker
 
     @Override
     public Operation getCurrent() {
-        List<DefaultOperation> operations = threads.get(Thread.currentThread());
-        if (operations.isEmpty()) {
-            throw new IllegalStateException("No build operation associated with the current thread");
+        lock.lock();
+        try {
+            List<DefaultOperation> operations = threads.get(Thread.currentThread());
+            if (operations.isEmpty()) {
+                throw new IllegalStateException("No build operation associated with the current thread");
+            }
+            return operations.get(operations.size() - 1);
+        } finally {
+            lock.unlock();
         }
-        return operations.get(operations.size() - 1);
     }
 
     @Override
     public Completion operationStart() {
-        List<DefaultOperation> operations = threads.get(Thread.currentThread());
-        LeaseHolder parent = operations.isEmpty() ? root : operations.get(operations.size() - 1);
-        return doStartOperation(parent);
+        lock.lock();
+        try {
+            List<DefaultOperation> operations = threads.get(Thread.currentThread());
+            LeaseHolder parent = operations.isEmpty() ? root : operations.get(operations.size() - 1);
+            return doStartOperation(parent);
+        } finally {
+            lock.unlock();
+        }
     }
 
     private BuildOperationWorkerRegistry.Completion doStartOperation(LeaseHolder parent) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             int workerId = counter++;
             Thread ownerThread = Thread.currentThread();
 
             DefaultOperation operation = new DefaultOperation(parent, workerId, ownerThread);
-            while (!parent.grantLease()) {
+            // Don't overtake operations that are already waiting for a lease
+            if (!(parent.borrowsLease() || waiting.isEmpty()) || !parent.grantLease()) {
+                waitForLease(parent, operation);
+            }
+
+            threads.put(ownerThread, operation);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Worker {} started ({} in use).", operation.getDisplayName(), root.leasesInUse);
+            }
+            return operation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void waitForLease(LeaseHolder parent, DefaultOperation operation) {
+        Waiter waiter = new Waiter(parent, lock.newCondition());
+        waiting.add(waiter);
+        try {
+            // A child that can borrow its parent's lease does not need to wait its turn, as its parent may be waiting for it to complete
+            while (!(parent.borrowsLease() || waiting.getFirst() == waiter) || !parent.grantLease()) {
                 if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Worker {} waiting for a lease. Currently {} in use", operation.getDisplayName(), root.leasesInUse);
+                    LOGGER.debug("Worker {} waiting for a lease. Currently {} in use, {} waiting", operation.getDisplayName(), root.leasesInUse, waiting.size());
                 }
                 try {
-                    lock.wait();
+                    waiter.condition.await();
                 } catch (InterruptedException e) {
                     throw UncheckedException.throwAsUncheckedException(e);
                 }
             }
+        } finally {
+            waiting.remove(waiter);
+            // There may be more leases available for the next operation in line
+            signalNextWaiting();
+        }
+    }
 
-            threads.put(ownerThread, operation);
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Worker {} started ({} in use).", operation.getDisplayName(), root.leasesInUse);
+    private void signalNextWaiting() {
+        for (Waiter waiter : waiting) {
+            if (waiter == waiting.getFirst() || waiter.parent.borrowsLease()) {
+                waiter.condition.signal();
             }
-            return operation;
+        }
+    }
+
+    private static class Waiter {
+        final LeaseHolder parent;
+        final Condition condition;
+
+        Waiter(LeaseHolder parent, Condition condition) {
+            this.parent = parent;
+            this.condition = condition;
         }
     }
 
     @Override
     public void stop() {
-        synchronized (lock) {
+        lock.lock();
+        try {
             if (!threads.isEmpty()) {
                 throw new IllegalStateException("Some build operations have not been marked as completed.");
             }
+        } finally {
+            lock.unlock();
         }
     }
 
     private abstract class LeaseHolder {
         abstract String getDisplayName();
 
+        /**
+         * Returns true when the next lease granted by this holder is borrowed from this holder, rather than taken from the shared leases.
+         */
+        abstract boolean borrowsLease();
+
         abstract boolean grantLease();
 
         abstract void releaseLease();
@@ -103,6 +169,11 @@ public class DefaultBuildOperationWorkerRegistry implements BuildOperationWorker
             return "root";
         }
 
+        @Override
+        boolean borrowsLease() {
+            return false;
+        }
+
         @Override
         boolean grantLease() {
             if (leasesInUse >= maxWorkerCount) {
@@ -135,6 +206,11 @@ public class DefaultBuildOperationWorkerRegistry implements BuildOperationWorker
             return parent.getDisplayName() + '.' + workerId;
         }
 
+        @Override
+        boolean borrowsLease() {
+            return children == 0;
+        }
+
         @Override
         boolean grantLease() {
             if (children == 0 || root.grantLease()) {
@@ -163,10 +239,11 @@ public class DefaultBuildOperationWorkerRegistry implements BuildOperationWorker
                 // Not implemented - not yet required. Please implement if required
                 throw new UnsupportedOperationException("Must complete operation from owner thread.");
             }
-            synchronized (lock) {
+            lock.lock();
+            try {
                 parent.releaseLease();
                 threads.remove(ownerThread, this);
-                lock.notifyAll();
+                signalNextWaiting();
 
                 if (LOGGER.isDebugEnabled()) {
                     LOGGER.debug("Worker {} completed ({} in use)", getDisplayName(), root.leasesInUse);
@@ -175,6 +252,8 @@ public class DefaultBuildOperationWorkerRegistry implements BuildOperationWorker
                 if (children != 0) {
                     throw new IllegalStateException("Some child operations have not yet completed.");
                 }
+            } finally {
+                lock.unlock();
             }
         }
     }
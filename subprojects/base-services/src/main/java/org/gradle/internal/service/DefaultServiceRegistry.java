@@ -27,6 +27,8 @@ import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.reflect.JavaReflectionUtil;
 import org.gradle.internal.util.BiFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.lang.reflect.Constructor;
@@ -42,16 +44,15 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Formatter;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A hierarchical {@link ServiceRegistry} implementation.
@@ -76,6 +77,9 @@ import java.util.concurrent.ConcurrentMap;
  *
  * <p>Service instances are created on demand. {@link #getFactory(Class)} looks for a service instance which implements {@code Factory<T>} where {@code T} is the expected type.</p>
  *
+ * <p>Services are located and created while holding a lock on the registry. Once a service instance has been located, later calls to {@link #get(Class)} for the same type return it without
+ * acquiring the lock, so that many threads can use the registry at the same time. The time taken to create each service is logged at debug level.</p>
+ *
  * <p>Service instances and factories are closed when the registry that created them is closed using {@link #close()}. If a service instance or factory implements {@link java.io.Closeable} or {@link
  * org.gradle.internal.concurrent.Stoppable} then the appropriate close() or stop() method is called. Instances are closed in reverse dependency order.</p>
  *
@@ -85,14 +89,16 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
 
     private static final ConcurrentMap<Class<?>, RelevantMethods> METHODS_CACHE = new ConcurrentHashMap<Class<?>, RelevantMethods>();
     private static final ConcurrentMap<Type, BiFunction<ServiceProvider, LookupContext, Provider>> SERVICE_TYPE_PROVIDER_CACHE = new ConcurrentHashMap<Type, BiFunction<ServiceProvider, LookupContext, Provider>>();
-    private final Map<Type, ServiceProvider> providerCache = new HashMap<Type, ServiceProvider>();
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultServiceRegistry.class);
+    // Services that have already been located, so that they can be returned without holding the lock
+    private final ConcurrentMap<Type, Object> instanceCache = new ConcurrentHashMap<Type, Object>();
 
     private final Object lock = new Object();
     private final OwnServices ownServices;
     private final Provider allServices;
     private final Provider parentServices;
     private final String displayName;
-    private boolean closed;
+    private volatile boolean closed;
     private boolean mutable = true; // access under lock
 
     public DefaultServiceRegistry() {
@@ -362,6 +368,7 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
                 CompositeStoppable.stoppable(allServices).stop();
             } finally {
                 closed = true;
+                instanceCache.clear();
             }
         }
     }
@@ -416,17 +423,21 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
 
 
     private Object doGet(Type serviceType) throws IllegalArgumentException {
+        Object instance = instanceCache.get(serviceType);
+        if (instance != null && !closed) {
+            return instance;
+        }
         synchronized (lock) {
             mutable = false;
             if (closed) {
                 throw new IllegalStateException(String.format("Cannot locate service of type %s, as %s has been closed.", format(serviceType), getDisplayName()));
             }
-            ServiceProvider provider = providerCache.get(serviceType);
-            if (provider == null) {
-                provider = getServiceProvider(serviceType);
-                providerCache.put(serviceType, provider);
+            instance = instanceCache.get(serviceType);
+            if (instance == null) {
+                instance = getServiceProvider(serviceType).get();
+                instanceCache.put(serviceType, instance);
             }
-            return provider.get();
+            return instance;
         }
     }
 
@@ -587,6 +598,7 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
 
     private static abstract class ManagedObjectProvider<T> implements Provider {
         private T instance;
+        private boolean creating;
         private Set<Provider> dependents;
 
         protected void setInstance(T instance) {
@@ -595,8 +607,21 @@ public class DefaultServiceRegistry implements ServiceRegistry, Closeable {
 
         public T getInstance() {
             if (instance == null) {
-                instance = create();
+                if (creating) {
+                    throw new ServiceCreationException(String.format("Cycle in dependencies of %s, which requires itself while it is being created.", toString()));
+                }
+                creating = true;
+                long start = System.nanoTime();
+                try {
+                    instance = create();
+                } finally {
+                    creating = false;
+                }
                 assert instance != null : String.format("create() of %s returned null", toString());
+                if (LOGGER.isDebugEnabled()) {
+                    // Includes the time taken to create the services that this service requires and that have not been created yet
+                    LOGGER.debug("Created {} in {}ms.", toString(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
             }
             return instance;
         }
@@ -23,6 +23,7 @@ import spock.lang.Specification
 import spock.lang.Unroll
 
 import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
 import java.util.concurrent.Executors
 
 class DefaultBuildOperationQueueTest extends Specification {
@@ -218,6 +219,42 @@ class DefaultBuildOperationQueueTest extends Specification {
         5    | 10
     }
 
+    def "waiting thread runs operations when executor threads are busy"() {
+        given:
+        workerRegistry = new DefaultBuildOperationWorkerRegistry(2)
+        completion = workerRegistry.operationStart()
+        def busyExecutor = Mock(ExecutorService)
+        operationQueue = new DefaultBuildOperationQueue(workerRegistry.current, busyExecutor, new SimpleWorker())
+        def threads = []
+
+        when:
+        3.times { operationQueue.add(new Success() { void run() { threads << Thread.currentThread() } }) }
+        operationQueue.waitForCompletion()
+
+        then:
+        3 * busyExecutor.execute(_)
+        threads == [Thread.currentThread()] * 3
+    }
+
+    def "failures are reported in the order the operations were added"() {
+        given:
+        setupQueue(4)
+        CountDownLatch secondFailed = new CountDownLatch(1)
+        operationQueue.add(Stub(TestBuildOperation) {
+            run() >> { secondFailed.await(); throw new RuntimeException("first") }
+        })
+        operationQueue.add(Stub(TestBuildOperation) {
+            run() >> { secondFailed.countDown(); throw new RuntimeException("second") }
+        })
+
+        when:
+        operationQueue.waitForCompletion()
+
+        then:
+        MultipleBuildOperationFailures e = thrown()
+        e.getCauses()*.message == ['first', 'second']
+    }
+
     static class SynchronizedBuildOperation extends TestBuildOperation {
         final Runnable operationAction
         final CountDownLatch startedLatch
@@ -69,6 +69,84 @@ class DefaultBuildOperationWorkerRegistryTest extends ConcurrentSpec {
         registry?.stop()
     }
 
+    def "grants leases in the order they were requested"() {
+        def registry = new DefaultBuildOperationWorkerRegistry(1)
+
+        when:
+        async {
+            start {
+                def cl = registry.operationStart()
+                instant.worker1
+                thread.blockUntil.worker3Waiting
+                thread.block()
+                cl.operationFinish()
+            }
+            start {
+                thread.blockUntil.worker1
+                instant.worker2Waiting
+                def cl = registry.operationStart()
+                instant.worker2
+                cl.operationFinish()
+            }
+            start {
+                thread.blockUntil.worker2Waiting
+                thread.block()
+                instant.worker3Waiting
+                def cl = registry.operationStart()
+                instant.worker3
+                cl.operationFinish()
+            }
+        }
+
+        then:
+        instant.worker3 > instant.worker2
+
+        cleanup:
+        registry?.stop()
+    }
+
+    def "child operation that can borrow its parent lease does not wait for operations ahead of it"() {
+        def registry = new DefaultBuildOperationWorkerRegistry(1)
+
+        when:
+        async {
+            start {
+                def cl = registry.operationStart()
+                def op = registry.current
+                start {
+                    def child = op.operationStart()
+                    instant.child1Started
+                    thread.blockUntil.otherWaiting
+                    thread.block()
+                    child.operationFinish()
+                }
+                start {
+                    thread.blockUntil.child1Started
+                    // Waits for a shared lease, until the first child completes
+                    def child = op.operationStart()
+                    instant.child2Started
+                    child.operationFinish()
+                    instant.child2Finished
+                }
+                thread.blockUntil.child2Finished
+                cl.operationFinish()
+            }
+            start {
+                thread.blockUntil.child1Started
+                instant.otherWaiting
+                def cl = registry.operationStart()
+                instant.other
+                cl.operationFinish()
+            }
+        }
+
+        then:
+        instant.other > instant.child2Finished
+
+        cleanup:
+        registry?.stop()
+    }
+
     def "child operation starts immediately when there are sufficient leases available"() {
         def registry = new DefaultBuildOperationWorkerRegistry(1)
 
@@ -107,6 +107,38 @@ class DefaultServiceRegistryConcurrencyTest extends ConcurrentSpec {
         }
     }
 
+    def "threads can use a service that has been created while another service is being created"() {
+        def registry = new DefaultServiceRegistry()
+        registry.addProvider(new Object() {
+            String createString() {
+                DefaultServiceRegistryConcurrencyTest.this.instant.constructing
+                DefaultServiceRegistryConcurrencyTest.this.thread.blockUntil.located
+                DefaultServiceRegistryConcurrencyTest.this.instant.constructed
+                "hi"
+            }
+
+            Integer createInteger() {
+                return 12
+            }
+        })
+        registry.get(Integer)
+
+        when:
+        async {
+            start {
+                assert registry.get(String) == "hi"
+            }
+            start {
+                thread.blockUntil.constructing
+                assert registry.get(Integer) == 12
+                instant.located
+            }
+        }
+
+        then:
+        instant.located < instant.constructed
+    }
+
     def "close blocks while other threads are locating services"() {
         def registry = new DefaultServiceRegistry()
         registry.addProvider(new Object() {
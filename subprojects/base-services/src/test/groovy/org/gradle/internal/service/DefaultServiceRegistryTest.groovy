@@ -448,6 +448,21 @@ class DefaultServiceRegistryTest extends Specification {
         e.cause.message == 'Cycle in dependencies of service of type String.'
     }
 
+    def failsWhenAServiceRequiresItselfWhileItIsBeingCreated() {
+        def registry = new DefaultServiceRegistry()
+
+        given:
+        registry.addProvider(new ProviderWithRuntimeCycle())
+
+        when:
+        registry.get(String)
+
+        then:
+        ServiceCreationException e = thrown()
+        e.message == "Could not create service of type String using ProviderWithRuntimeCycle.createString()."
+        e.cause.message == "Cycle in dependencies of Service String at ProviderWithRuntimeCycle.createString(), which requires itself while it is being created."
+    }
+
     def failsWhenAProviderFactoryMethodReturnsNull() {
         def registry = new DefaultServiceRegistry()
 
@@ -1203,6 +1218,12 @@ class DefaultServiceRegistryTest extends Specification {
         }
     }
 
+    private static class ProviderWithRuntimeCycle {
+        String createString(ServiceRegistry services) {
+            return services.get(String)
+        }
+    }
+
     private static class NullProvider {
         String createString() {
             return null
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.filewatch.DefaultFileWatcherFactory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.SetSystemProperties
+import org.gradle.util.TestPrecondition
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+
+@UsesNativeServices
+@Requires(TestPrecondition.LINUX)
+class WatchingRetainedFileSystemStateTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties([(WatchingRetainedFileSystemState.ENABLED_PROPERTY): "true"])
+    def executorFactory = new DefaultExecutorFactory()
+    def retainedState = new WatchingRetainedFileSystemState(new DefaultFileWatcherFactory(executorFactory, TestFiles.fileSystem()))
+
+    def cleanup() {
+        retainedState.stop()
+        executorFactory.stop()
+    }
+
+    def "retains directory trees once they have been watched for a whole build"() {
+        def src = tmpDir.createDir("src")
+        src.createFile("a.txt")
+        def tree = tree(src)
+
+        when:
+        build(tree)
+
+        then:
+        retainedTree(src) == null
+
+        when:
+        build(tree)
+
+        then:
+        retainedTree(src).is(tree)
+        retainedTree(src).is(tree)
+    }
+
+    def "discards retained directory tree when a file in it changes"() {
+        def src = tmpDir.createDir("src")
+        src.createFile("a.txt")
+        def nested = src.createFile("nested/b.txt")
+        def other = tmpDir.createDir("other")
+        def srcTree = tree(src)
+        def otherTree = tree(other)
+        retain(srcTree, otherTree)
+
+        when:
+        nested.text = "changed"
+
+        then:
+        retainedTree(src) == null
+        retainedTree(other).is(otherTree)
+    }
+
+    def "discards retained directory tree when a file is added to it or removed from it"() {
+        def src = tmpDir.createDir("src")
+        def file = src.createFile("a.txt")
+        def tree = tree(src)
+
+        when:
+        retain(tree)
+        src.createFile("new/b.txt")
+
+        then:
+        retainedTree(src) == null
+
+        when:
+        retain(tree)
+        file.delete()
+
+        then:
+        retainedTree(src) == null
+    }
+
+    def "discards retained directory tree when its directory is deleted"() {
+        def src = tmpDir.createDir("src")
+        src.createFile("a.txt")
+        def tree = tree(src)
+        retain(tree)
+
+        when:
+        src.deleteDir()
+
+        then:
+        retainedTree(src) == null
+    }
+
+    def "discards retained directory tree once a build has changed it"() {
+        def src = tmpDir.createDir("src")
+        def file = src.createFile("a.txt")
+        def tree = tree(src)
+        retain(tree)
+        def session = retainedState.startSession()
+
+        expect:
+        session.getDirectoryTree(src.absolutePath).is(tree)
+
+        when:
+        file.text = "changed"
+        session.fileSystemChanged()
+
+        then:
+        session.getDirectoryTree(src.absolutePath) == null
+    }
+
+    def "does not retain directory tree that changed during the build"() {
+        def src = tmpDir.createDir("src")
+        def file = src.createFile("a.txt")
+        def tree = tree(src)
+        build(tree)
+
+        when:
+        def session = retainedState.startSession()
+        file.text = "changed"
+        session.stop([tree])
+
+        then:
+        retainedTree(src) == null
+
+        when:
+        build(tree)
+
+        then:
+        retainedTree(src).is(tree)
+    }
+
+    def "retains nothing when disabled"() {
+        def src = tmpDir.createDir("src")
+        def tree = tree(src)
+        retain(tree)
+
+        when:
+        System.setProperty(WatchingRetainedFileSystemState.ENABLED_PROPERTY, "false")
+
+        then:
+        retainedState.startSession().is(RetainedFileSystemState.NO_RETAINED_STATE)
+
+        when:
+        System.setProperty(WatchingRetainedFileSystemState.ENABLED_PROPERTY, "true")
+
+        then:
+        retainedTree(src) == null
+    }
+
+    private static DirectoryTreeDetails tree(TestFile dir) {
+        return new DirectoryTreeDetails(dir.absolutePath, [])
+    }
+
+    private void retain(DirectoryTreeDetails... trees) {
+        build(trees)
+        build(trees)
+    }
+
+    private void build(DirectoryTreeDetails... trees) {
+        retainedState.startSession().stop(trees as List)
+    }
+
+    private DirectoryTreeDetails retainedTree(TestFile dir) {
+        def session = retainedState.startSession()
+        try {
+            return session.getDirectoryTree(dir.absolutePath)
+        } finally {
+            session.stop([])
+        }
+    }
+}
@@ -1215,4 +1215,29 @@ class CopyTaskIntegrationSpec extends AbstractIntegrationSpec {
         "fileMode"           | "0600"                       | "0644"
         "filteringCharset"   | "'iso8859-1'"                | "'utf-8'"
     }
+
+    def "only copies changed files and deletes files copied from removed sources"() {
+        given:
+        file('files/a.txt').text = 'a'
+        file('files/b.txt').text = 'b'
+        file('files/c.txt').text = 'c'
+        buildScript '''
+            task (copy, type:Copy) {
+               from 'files'
+               into 'dest'
+               rename 'c.txt', 'renamed-c.txt'
+            }
+        '''.stripIndent()
+        run 'copy'
+
+        when:
+        file('files/b.txt').text = 'changed b'
+        file('files/c.txt').delete()
+        run 'copy'
+
+        then:
+        file('dest').assertHasDescendants('a.txt', 'b.txt')
+        file('dest/a.txt').text == 'a'
+        file('dest/b.txt').text == 'changed b'
+    }
 }
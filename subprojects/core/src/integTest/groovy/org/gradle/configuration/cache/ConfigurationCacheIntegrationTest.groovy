@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.cache
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+
+class ConfigurationCacheIntegrationTest extends AbstractIntegrationSpec {
+    private static final String REUSED = "Reusing configuration cache entry."
+    private static final String NOT_FOUND = "No configuration cache entry found for the requested tasks."
+
+    def setup() {
+        settingsFile << "include 'a', 'b'"
+        buildFile << """
+            subprojects {
+                task hello {
+                    doLast { println "hello from \$project.name" }
+                }
+            }
+        """
+        file("a/build.gradle") << "println 'configuring a'"
+        file("b/build.gradle") << "println 'configuring b'"
+    }
+
+    def "reuses the entry when nothing has changed"() {
+        given:
+        runWithCache(":b:hello")
+        outputDoesNotContain(REUSED)
+
+        when:
+        runWithCache(":b:hello")
+
+        then:
+        outputContains(REUSED)
+        executedAndNotSkipped(":b:hello")
+        outputContains("hello from b")
+    }
+
+    def "configures only the projects of the reused tasks"() {
+        given:
+        buildFile << """
+            gradle.projectsEvaluated { println 'projects evaluated' }
+        """
+        runWithCache(":b:hello")
+        outputContains("configuring a")
+
+        when:
+        runWithCache(":b:hello")
+
+        then:
+        outputContains(REUSED)
+        outputContains("configuring b")
+        outputDoesNotContain("configuring a")
+        outputContains("projects evaluated")
+        executedAndNotSkipped(":b:hello")
+    }
+
+    def "configures the projects of reused task dependencies"() {
+        given:
+        file("b/build.gradle") << """
+            hello.dependsOn ':a:hello'
+        """
+        runWithCache(":b:hello")
+
+        when:
+        runWithCache(":b:hello")
+
+        then:
+        outputContains(REUSED)
+        outputContains("configuring a")
+        executedAndNotSkipped(":a:hello", ":b:hello")
+    }
+
+    def "does not reuse the entry of other tasks"() {
+        given:
+        runWithCache(":a:hello")
+
+        when:
+        runWithCache(":b:hello")
+
+        then:
+        outputContains(NOT_FOUND)
+        executedAndNotSkipped(":b:hello")
+    }
+
+    def "does not reuse the entry when a build file has changed"() {
+        given:
+        runWithCache(":b:hello")
+
+        when:
+        file("a/build.gradle") << "\nprintln 'changed'"
+        runWithCache(":b:hello")
+
+        then:
+        outputContains("Configuration cache entry cannot be reused because file '${file("a/build.gradle")}' has changed.")
+        outputContains("changed")
+
+        when:
+        runWithCache(":b:hello")
+
+        then:
+        outputContains(REUSED)
+    }
+
+    def "does not reuse the entry when a gradle.properties file has changed"() {
+        given:
+        runWithCache(":b:hello")
+
+        when:
+        file("b/gradle.properties") << "greeting=hi"
+        runWithCache(":b:hello")
+
+        then:
+        outputContains("Configuration cache entry cannot be reused because file '${file("b/gradle.properties")}' has changed.")
+    }
+
+    def "does not reuse the entry of other system properties given on the command line"() {
+        given:
+        file("b/build.gradle") << "\nprintln \"greeting: \${System.properties['greeting']}\""
+        executer.withArgument("-Dgreeting=hi")
+        runWithCache(":b:hello")
+        executer.withArgument("-Dgreeting=hi")
+        runWithCache(":b:hello")
+        outputContains(REUSED)
+
+        when:
+        executer.withArgument("-Dgreeting=bye")
+        runWithCache(":b:hello")
+
+        then:
+        outputContains(NOT_FOUND)
+        outputContains("greeting: bye")
+    }
+
+    def "does not reuse the entry when the build script classpath has changed"() {
+        given:
+        file("lib/content.txt").text = "original"
+        file("lib").zipTo(file("plugin.jar"))
+        buildFile << """
+            buildscript {
+                dependencies { classpath files('plugin.jar') }
+            }
+        """
+        runWithCache(":b:hello")
+
+        when:
+        file("lib/content.txt").text = "changed"
+        file("lib").zipTo(file("plugin.jar"))
+        runWithCache(":b:hello")
+
+        then:
+        outputContains("Configuration cache entry cannot be reused because file '${file("plugin.jar")}' has changed.")
+    }
+
+    def "does not reuse the entry when an environment variable has changed"() {
+        given:
+        executer.requireGradleDistribution()
+        file("b/build.gradle") << "\nprintln \"greeting: \${System.getenv('GREETING')}\""
+        executer.withEnvironmentVars(GREETING: "hi")
+        runWithCache(":b:hello")
+        executer.withEnvironmentVars(GREETING: "hi")
+        runWithCache(":b:hello")
+        outputContains(REUSED)
+
+        when:
+        executer.withEnvironmentVars(GREETING: "bye")
+        runWithCache(":b:hello")
+
+        then:
+        outputContains("Configuration cache entry cannot be reused because the environment variables have changed.")
+        outputContains("greeting: bye")
+    }
+
+    def "discards the entry when a recorded task is no longer created"() {
+        given:
+        file("b/build.gradle") << """
+            if (file('enabled').exists()) {
+                task conditional
+            }
+        """
+        file("b/enabled").createFile()
+        runWithCache(":b:conditional")
+
+        when:
+        file("b/enabled").delete()
+        executer.withArgument("-Dorg.gradle.configuration.cache=true").withArgument("--info")
+        fails(":b:conditional")
+
+        then:
+        failure.assertHasDescription("Task ':b:conditional' from the configuration cache entry was not created when configuring the build. "
+            + "The entry has been discarded, run the build again to configure it fully.")
+
+        when:
+        file("b/enabled").createFile()
+        runWithCache(":b:conditional")
+
+        then:
+        outputContains(NOT_FOUND)
+        executedAndNotSkipped(":b:conditional")
+    }
+
+    private void runWithCache(String... tasks) {
+        // The decisions of the cache are logged at info level
+        executer.withArgument("-Dorg.gradle.configuration.cache=true").withArgument("--info")
+        succeeds(tasks)
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import com.google.common.io.Files;
+import org.apache.tools.zip.ZipEntry;
+import org.apache.tools.zip.ZipOutputStream;
+import org.gradle.api.Action;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes an archive with the layout of a distribution: a few hundred jars, which do not compress well, and a few thousand small text files, which do.
+ */
+@State(Scope.Benchmark)
+public class ZipArchiveWriterBenchmark {
+    private static final int JAR_COUNT = 200;
+    private static final int JAR_SIZE = 256 * 1024;
+    private static final int TEXT_FILE_COUNT = 4000;
+    private static final int TEXT_FILE_SIZE = 8 * 1024;
+
+    @Param({"1", "4"})
+    int threads;
+
+    private File tmpDir;
+    private List<File> files;
+    private File sourceZip;
+    private File targetZip;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void createFiles() throws IOException {
+        tmpDir = Files.createTempDir();
+        files = new ArrayList<File>();
+        Random random = new Random(1);
+        for (int i = 0; i < JAR_COUNT; i++) {
+            byte[] content = new byte[JAR_SIZE];
+            random.nextBytes(content);
+            files.add(write("lib/library-" + i + ".jar", content));
+        }
+        String[] words = {"apply", "plugin", "java", "dependencies", "compile", "task", "project", "version"};
+        for (int i = 0; i < TEXT_FILE_COUNT; i++) {
+            StringBuilder content = new StringBuilder();
+            while (content.length() < TEXT_FILE_SIZE) {
+                content.append(words[random.nextInt(words.length)]).append(random.nextBoolean() ? ' ' : '\n');
+            }
+            files.add(write("docs/page-" + i + ".html", content.toString().getBytes("UTF-8")));
+        }
+        sourceZip = new File(tmpDir, "source.zip");
+        ZipArchiveWriter writer = new ZipArchiveWriter(sourceZip, ZipOutputStream.DEFLATED, false, "UTF-8", null, tmpDir);
+        try {
+            addFiles(writer);
+            writer.finish();
+        } finally {
+            writer.close();
+        }
+        targetZip = new File(tmpDir, "target.zip");
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() {
+        executor.shutdown();
+        GFileUtils.deleteDirectory(tmpDir);
+    }
+
+    @Benchmark
+    public void antZipOutputStream() throws IOException {
+        ZipOutputStream output = new ZipOutputStream(targetZip);
+        try {
+            output.setEncoding("UTF-8");
+            for (File file : files) {
+                output.putNextEntry(new ZipEntry(relativePath(file)));
+                Files.copy(file, output);
+                output.closeEntry();
+            }
+        } finally {
+            output.close();
+        }
+    }
+
+    @Benchmark
+    public void zipArchiveWriter() throws IOException {
+        ZipArchiveWriter writer = new ZipArchiveWriter(targetZip, ZipOutputStream.DEFLATED, false, "UTF-8", threads > 1 ? executor : null, tmpDir);
+        try {
+            addFiles(writer);
+            writer.finish();
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Benchmark
+    public void copyCompressedEntries() throws IOException {
+        ZipCentralDirectory centralDirectory = new ZipCentralDirectory(sourceZip, "UTF-8");
+        org.apache.tools.zip.ZipFile source = new org.apache.tools.zip.ZipFile(sourceZip, "UTF-8");
+        ZipArchiveWriter writer = new ZipArchiveWriter(targetZip, ZipOutputStream.DEFLATED, false, "UTF-8", null, tmpDir);
+        try {
+            for (File file : files) {
+                final ZipEntry entry = source.getEntry(relativePath(file));
+                final ZipCentralDirectory entries = centralDirectory;
+                writer.addCompressedFile(entry.getName(), entry.getTime(), 0644, entry.getMethod(), entry.getCrc(), entry.getCompressedSize(), entry.getSize(), new ZipArchiveWriter.CompressedContent() {
+                    @Override
+                    public boolean writeTo(OutputStream output) throws IOException {
+                        return entries.copyCompressedTo(entry.getName(), entry.getCrc(), entry.getCompressedSize(), output);
+                    }
+                });
+            }
+            writer.finish();
+        } finally {
+            writer.close();
+            source.close();
+            centralDirectory.close();
+        }
+    }
+
+    private void addFiles(ZipArchiveWriter writer) throws IOException {
+        for (final File file : files) {
+            writer.addFile(relativePath(file), file.lastModified(), 0644, new Action<OutputStream>() {
+                @Override
+                public void execute(OutputStream output) {
+                    try {
+                        Files.copy(file, output);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        }
+    }
+
+    private String relativePath(File file) {
+        return file.getAbsolutePath().substring(tmpDir.getAbsolutePath().length() + 1).replace(File.separatorChar, '/');
+    }
+
+    private File write(String path, byte[] content) throws IOException {
+        File file = new File(tmpDir, path);
+        GFileUtils.mkdirs(file.getParentFile());
+        Files.write(content, file);
+        return file;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.metaobject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures the access patterns of a typical build script DSL: reading and writing properties of a bean, calling its methods and accessing
+ * properties and methods that are provided by another object, such as an extension, after the lookup on the bean has failed.
+ */
+@State(Scope.Benchmark)
+public class BeanDynamicObjectBenchmark {
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private DynamicObject bean;
+    private DynamicObject beanWithExtension;
+
+    @Setup
+    public void setup() {
+        bean = new BeanDynamicObject(new Bean());
+        Map<String, Object> extraProperties = new HashMap<String, Object>();
+        extraProperties.put("extra", "value");
+        beanWithExtension = new BeanWithExtensionDynamicObject(new BeanDynamicObject(new Bean()), new BeanDynamicObject(new Extension()), new BeanDynamicObject(extraProperties));
+    }
+
+    @Benchmark
+    public void getProperty(Blackhole bh) {
+        GetPropertyResult result = new GetPropertyResult();
+        bean.getProperty("version", result);
+        bh.consume(result.getValue());
+    }
+
+    @Benchmark
+    public void setProperty(Blackhole bh) {
+        SetPropertyResult result = new SetPropertyResult();
+        bean.setProperty("version", "1.0", result);
+        bh.consume(result.isFound());
+    }
+
+    @Benchmark
+    public void invokeMethod(Blackhole bh) {
+        InvokeMethodResult result = new InvokeMethodResult();
+        bean.invokeMethod("dependsOn", result, "task");
+        bh.consume(result.getResult());
+    }
+
+    @Benchmark
+    public void hasMissingProperty(Blackhole bh) {
+        bh.consume(bean.hasProperty("missing"));
+    }
+
+    @Benchmark
+    public void getExtraProperty(Blackhole bh) {
+        GetPropertyResult result = new GetPropertyResult();
+        beanWithExtension.getProperty("extra", result);
+        bh.consume(result.getValue());
+    }
+
+    @Benchmark
+    public void invokeExtensionMethod(Blackhole bh) {
+        InvokeMethodResult result = new InvokeMethodResult();
+        beanWithExtension.invokeMethod("configureExtension", result, NO_ARGS);
+        bh.consume(result.getResult());
+    }
+
+    private static class BeanWithExtensionDynamicObject extends CompositeDynamicObject {
+        BeanWithExtensionDynamicObject(DynamicObject... objects) {
+            setObjects(objects);
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "bean with extension";
+        }
+    }
+
+    public static class Bean {
+        private String version = "1.0";
+
+        public String getVersion() {
+            return version;
+        }
+
+        public void setVersion(String version) {
+            this.version = version;
+        }
+
+        public String dependsOn(Object path) {
+            return version;
+        }
+    }
+
+    public static class Extension {
+        public String configureExtension() {
+            return "extension";
+        }
+    }
+}
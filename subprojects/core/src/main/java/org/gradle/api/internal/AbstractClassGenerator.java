@@ -90,7 +90,13 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
                     type.getSimpleName()));
         }
 
-        Class<? extends T> subclass;
+        Class<? extends T> subclass = loadGenerated(type);
+        if (subclass != null) {
+            cache.put(type, subclass);
+            cache.put(subclass, subclass);
+            return subclass;
+        }
+
         try {
             ClassMetaData classMetaData = inspectType(type);
 
@@ -206,6 +212,14 @@ public abstract class AbstractClassGenerator implements ClassGenerator {
         return subclass;
     }
 
+    /**
+     * Returns a previously generated class for the given type, or null when the class needs to be generated.
+     */
+    @Nullable
+    protected <T> Class<? extends T> loadGenerated(Class<T> type) {
+        return null;
+    }
+
     protected abstract <T> ClassBuilder<T> start(Class<T> type, ClassMetaData classMetaData);
 
     private ClassMetaData inspectType(Class<?> type) {
@@ -43,6 +43,8 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Inherited;
@@ -63,10 +65,42 @@ import static org.objectweb.asm.Type.VOID_TYPE;
 public class AsmBackedClassGenerator extends AbstractClassGenerator {
 
     private static final JavaMethod<ClassLoader, Class> DEFINE_CLASS_METHOD = JavaReflectionUtil.method(ClassLoader.class, Class.class, "defineClass", String.class, byte[].class, Integer.TYPE, Integer.TYPE);
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsmBackedClassGenerator.class);
+
+    private final GeneratedClassCache generatedClassCache;
+
+    public AsmBackedClassGenerator() {
+        this(new GeneratedClassCache());
+    }
+
+    public AsmBackedClassGenerator(GeneratedClassCache generatedClassCache) {
+        this.generatedClassCache = generatedClassCache;
+    }
+
+    @Override
+    protected <T> Class<? extends T> loadGenerated(Class<T> type) {
+        byte[] bytecode = generatedClassCache.load(type, AsmBackedClassGenerator.class);
+        if (bytecode == null) {
+            return null;
+        }
+        try {
+            return DEFINE_CLASS_METHOD.invoke(type.getClassLoader(), decoratedName(type), bytecode, 0, bytecode.length);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not define previously generated class for {}, generating it again.", type.getName(), e);
+            return null;
+        } catch (LinkageError e) {
+            LOGGER.debug("Could not define previously generated class for {}, generating it again.", type.getName(), e);
+            return null;
+        }
+    }
 
     @Override
     protected <T> ClassBuilder<T> start(Class<T> type, ClassMetaData classMetaData) {
-        return new ClassBuilderImpl<T>(type, classMetaData);
+        return new ClassBuilderImpl<T>(type, classMetaData, generatedClassCache);
+    }
+
+    private static String decoratedName(Class<?> type) {
+        return type.getName() + "_Decorated";
     }
 
     private static class ClassBuilderImpl<T> implements ClassBuilder<T> {
@@ -119,6 +153,7 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
 
         private final ClassWriter visitor;
         private final Class<T> type;
+        private final GeneratedClassCache generatedClassCache;
         private final String typeName;
         private final Type generatedType;
         private final Type superclassType;
@@ -128,11 +163,12 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
         private final boolean extensible;
         private final boolean providesOwnDynamicObject;
 
-        private ClassBuilderImpl(Class<T> type, ClassMetaData classMetaData) {
+        private ClassBuilderImpl(Class<T> type, ClassMetaData classMetaData, GeneratedClassCache generatedClassCache) {
             this.type = type;
+            this.generatedClassCache = generatedClassCache;
 
             visitor = new ClassWriter(ClassWriter.COMPUTE_MAXS);
-            typeName = type.getName() + "_Decorated";
+            typeName = decoratedName(type);
             generatedType = Type.getType("L" + typeName.replaceAll("\\.", "/") + ";");
             superclassType = Type.getType(type);
             extensible = classMetaData.isExtensible();
@@ -905,7 +941,9 @@ public class AsmBackedClassGenerator extends AbstractClassGenerator {
             visitor.visitEnd();
 
             byte[] bytecode = visitor.toByteArray();
-            return DEFINE_CLASS_METHOD.invoke(type.getClassLoader(), typeName, bytecode, 0, bytecode.length);
+            Class<? extends T> generatedClass = DEFINE_CLASS_METHOD.invoke(type.getClassLoader(), typeName, bytecode, 0, bytecode.length);
+            generatedClassCache.store(type, AsmBackedClassGenerator.class, bytecode);
+            return generatedClass;
         }
 
         private void writeGenericReturnTypeFields() {
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import org.gradle.api.Nullable;
+import org.gradle.util.GradleVersion;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+/**
+ * Persists the bytecode of the classes generated by a {@link ClassGenerator}, so that later processes can define the classes without generating them again.
+ *
+ * <p>The bytecode is stored under a key made from the Gradle build and a hash of the bytecode of the class it was generated from, along with the bytecode
+ * of all of its supertypes, of the types the generator inspects in their signatures, such as the types of properties and their supertypes, and of the
+ * generator itself, including its nested classes. A change to any of these classes results in a different key.</p>
+ *
+ * <p>The bytecode is kept by the {@link GeneratedClassStore} of the Gradle user home directory in use. The cache does nothing while no store is attached,
+ * or while builds with different Gradle user home directories run in the same process, as the classes are shared by all builds of the process.</p>
+ */
+public class GeneratedClassCache {
+    private final Map<Class<?>, HashCode> classHashes = new WeakHashMap<Class<?>, HashCode>();
+    private final Set<Class<?>> unhashableClasses = Collections.newSetFromMap(new WeakHashMap<Class<?>, Boolean>());
+    private final List<GeneratedClassStore> stores = new ArrayList<GeneratedClassStore>();
+
+    synchronized void attach(GeneratedClassStore store) {
+        stores.add(store);
+    }
+
+    synchronized void detach(GeneratedClassStore store) {
+        stores.remove(store);
+    }
+
+    @Nullable
+    private synchronized GeneratedClassStore getStore() {
+        return stores.size() == 1 ? stores.get(0) : null;
+    }
+
+    /**
+     * Returns the bytecode generated by the given generator from the given class in an earlier process, or null when not available.
+     */
+    @Nullable
+    public byte[] load(Class<?> type, Class<? extends ClassGenerator> generator) {
+        GeneratedClassStore store = getStore();
+        if (store == null) {
+            return null;
+        }
+        String key = keyFor(type, generator);
+        return key == null ? null : store.load(key);
+    }
+
+    /**
+     * Stores the bytecode generated by the given generator from the given class.
+     */
+    public void store(Class<?> type, Class<? extends ClassGenerator> generator, byte[] bytecode) {
+        GeneratedClassStore store = getStore();
+        if (store == null) {
+            return;
+        }
+        String key = keyFor(type, generator);
+        if (key != null) {
+            store.store(key, bytecode);
+        }
+    }
+
+    @Nullable
+    private String keyFor(Class<?> type, Class<? extends ClassGenerator> generator) {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(System.getProperty("java.version", ""), Charsets.UTF_8);
+        // Covers the parts of the generator that cannot be hashed, such as its anonymous classes
+        GradleVersion gradleVersion = GradleVersion.current();
+        hasher.putString(gradleVersion.getVersion(), Charsets.UTF_8);
+        hasher.putString(String.valueOf(gradleVersion.getBuildTime()), Charsets.UTF_8);
+        hasher.putString(String.valueOf(gradleVersion.getRevision()), Charsets.UTF_8);
+        for (Class<?> cl = generator; ClassGenerator.class.isAssignableFrom(cl); cl = cl.getSuperclass()) {
+            if (!putNestedHashes(cl, hasher)) {
+                return null;
+            }
+        }
+        Set<Class<?>> typeHierarchy = typeHierarchy(type);
+        for (Class<?> cl : typeHierarchy) {
+            if (!putHash(cl, hasher)) {
+                return null;
+            }
+        }
+        for (Class<?> cl : signatureTypes(typeHierarchy)) {
+            if (!putHash(cl, hasher)) {
+                return null;
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private boolean putNestedHashes(Class<?> type, Hasher hasher) {
+        if (!putHash(type, hasher)) {
+            return false;
+        }
+        for (Class<?> nested : type.getDeclaredClasses()) {
+            if (!putNestedHashes(nested, hasher)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the types used by the constructors and methods of the given types, along with their own supertypes, ordered by name.
+     */
+    private static Iterable<Class<?>> signatureTypes(Set<Class<?>> typeHierarchy) {
+        Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+        for (Class<?> cl : typeHierarchy) {
+            addAnnotationTypes(cl.getDeclaredAnnotations(), types);
+            for (Constructor<?> constructor : cl.getDeclaredConstructors()) {
+                addSignatureTypes(constructor.getParameterTypes(), types);
+                addAnnotationTypes(constructor.getDeclaredAnnotations(), types);
+            }
+            for (Method method : cl.getDeclaredMethods()) {
+                addSignatureType(method.getReturnType(), types);
+                addSignatureTypes(method.getParameterTypes(), types);
+                addAnnotationTypes(method.getDeclaredAnnotations(), types);
+            }
+        }
+        // The order of reflected members is not specified, so order the types by name for a stable key
+        Map<String, Class<?>> typesByName = new TreeMap<String, Class<?>>();
+        for (Class<?> cl : types) {
+            if (!typeHierarchy.contains(cl)) {
+                typesByName.put(cl.getName(), cl);
+            }
+        }
+        return typesByName.values();
+    }
+
+    private static void addSignatureTypes(Class<?>[] signatureTypes, Set<Class<?>> types) {
+        for (Class<?> signatureType : signatureTypes) {
+            addSignatureType(signatureType, types);
+        }
+    }
+
+    private static void addSignatureType(Class<?> signatureType, Set<Class<?>> types) {
+        Class<?> type = signatureType;
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (!type.isPrimitive()) {
+            addTypeHierarchy(type, types);
+        }
+    }
+
+    private static void addAnnotationTypes(Annotation[] annotations, Set<Class<?>> types) {
+        for (Annotation annotation : annotations) {
+            addTypeHierarchy(annotation.annotationType(), types);
+        }
+    }
+
+    private static Set<Class<?>> typeHierarchy(Class<?> type) {
+        Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+        addTypeHierarchy(type, types);
+        return types;
+    }
+
+    private static void addTypeHierarchy(Class<?> type, Set<Class<?>> types) {
+        if (type == null || !types.add(type)) {
+            return;
+        }
+        addTypeHierarchy(type.getSuperclass(), types);
+        for (Class<?> superInterface : type.getInterfaces()) {
+            addTypeHierarchy(superInterface, types);
+        }
+    }
+
+    private boolean putHash(Class<?> type, Hasher hasher) {
+        hasher.putString(type.getName(), Charsets.UTF_8);
+        if (type.getClassLoader() == null) {
+            // A JVM class, covered by the Java version
+            return true;
+        }
+        HashCode hash = hashOf(type);
+        if (hash == null) {
+            return false;
+        }
+        hasher.putBytes(hash.asBytes());
+        return true;
+    }
+
+    @Nullable
+    private synchronized HashCode hashOf(Class<?> type) {
+        HashCode hash = classHashes.get(type);
+        if (hash != null || unhashableClasses.contains(type)) {
+            return hash;
+        }
+        InputStream bytecode = type.getClassLoader().getResourceAsStream(type.getName().replace('.', '/') + ".class");
+        try {
+            if (bytecode == null) {
+                // Generated at runtime, so its content is unknown
+                unhashableClasses.add(type);
+                return null;
+            }
+            try {
+                hash = Hashing.md5().hashBytes(ByteStreams.toByteArray(bytecode));
+            } finally {
+                bytecode.close();
+            }
+        } catch (IOException e) {
+            unhashableClasses.add(type);
+            return null;
+        }
+        classHashes.put(type, hash);
+        return hash;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal;
+
+import com.google.common.io.Files;
+import org.gradle.api.Nullable;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.UnusedFilesCleanup;
+import org.gradle.internal.Factory;
+import org.gradle.util.GFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+import static org.gradle.cache.internal.FileLockManager.LockMode.None;
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Keeps the bytecode of generated classes in a directory in the Gradle user home directory, on behalf of the {@link GeneratedClassCache}.
+ *
+ * <p>The store attaches itself to the cache when created and detaches itself when closed. Classes that have not been used for {@value #MAX_UNUSED_DAYS}
+ * days are removed when the store is closed.</p>
+ */
+public class GeneratedClassStore implements Closeable {
+    static final int MAX_UNUSED_DAYS = 7;
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeneratedClassStore.class);
+
+    private final GeneratedClassCache generatedClassCache;
+    private final PersistentCache cache;
+    private final UnusedFilesCleanup cleanup;
+
+    public GeneratedClassStore(CacheRepository cacheRepository, GeneratedClassCache generatedClassCache) {
+        this.generatedClassCache = generatedClassCache;
+        this.cache = cacheRepository
+            .cache("generated-classes")
+            .withDisplayName("generated classes")
+            .withLockOptions(mode(None))
+            .open();
+        this.cleanup = new UnusedFilesCleanup(cache.getBaseDir(), MAX_UNUSED_DAYS);
+        generatedClassCache.attach(this);
+    }
+
+    @Nullable
+    byte[] load(final String key) {
+        return cache.useCache(new Factory<byte[]>() {
+            @Override
+            public byte[] create() {
+                File file = getFile(key);
+                if (!file.isFile()) {
+                    return null;
+                }
+                try {
+                    byte[] bytecode = Files.toByteArray(file);
+                    cleanup.markUsed(file);
+                    return bytecode;
+                } catch (IOException e) {
+                    LOGGER.debug("Could not read generated class from {}.", file, e);
+                    return null;
+                }
+            }
+        });
+    }
+
+    void store(final String key, final byte[] bytecode) {
+        cache.useCache(new Runnable() {
+            @Override
+            public void run() {
+                File file = getFile(key);
+                if (file.isFile()) {
+                    return;
+                }
+                // Write to a temporary file and move it into place, so that other processes never see a partially written file
+                File tmpFile = null;
+                try {
+                    tmpFile = File.createTempFile(key, ".tmp", cache.getBaseDir());
+                    Files.write(bytecode, tmpFile);
+                    if (!tmpFile.renameTo(file)) {
+                        GFileUtils.deleteQuietly(tmpFile);
+                    }
+                } catch (IOException e) {
+                    LOGGER.debug("Could not write generated class to {}.", file, e);
+                    if (tmpFile != null) {
+                        GFileUtils.deleteQuietly(tmpFile);
+                    }
+                }
+            }
+        });
+    }
+
+    private File getFile(String key) {
+        return new File(cache.getBaseDir(), key + ".class");
+    }
+
+    @Override
+    public void close() {
+        generatedClassCache.detach(this);
+        try {
+            cache.useCache(new Runnable() {
+                @Override
+                public void run() {
+                    cleanup.cleanupIfDue();
+                }
+            });
+        } finally {
+            cache.close();
+        }
+    }
+}
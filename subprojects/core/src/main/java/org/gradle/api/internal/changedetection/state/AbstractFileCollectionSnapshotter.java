@@ -28,6 +28,7 @@ import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.file.FileCollectionInternal;
 import org.gradle.api.internal.file.FileCollectionVisitor;
 import org.gradle.api.internal.file.FileTreeInternal;
+import org.gradle.api.internal.file.archive.ArchiveEntryDetails;
 import org.gradle.api.internal.file.collections.DirectoryFileTree;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.api.internal.hash.FileHasher;
@@ -107,6 +108,14 @@ public abstract class AbstractFileCollectionSnapshotter implements FileCollectio
         return stringInterner.intern(file.getAbsolutePath());
     }
 
+    private String getPath(FileVisitDetails details) {
+        if (details instanceof ArchiveEntryDetails) {
+            // Identify the entry within its archive, rather than extracting it
+            return stringInterner.intern(((ArchiveEntryDetails) details).getVirtualPath());
+        }
+        return getPath(details.getFile());
+    }
+
     /**
      * Normalises the elements of a directory tree. Does not include the root directory.
      */
@@ -213,12 +222,12 @@ public abstract class AbstractFileCollectionSnapshotter implements FileCollectio
 
         @Override
         public void visitDir(FileVisitDetails dirDetails) {
-            fileTreeElements.add(new DefaultFileDetails(getPath(dirDetails.getFile()), dirDetails.getRelativePath(), Directory, false, dirSnapshot()));
+            fileTreeElements.add(new DefaultFileDetails(getPath(dirDetails), dirDetails.getRelativePath(), Directory, false, dirSnapshot()));
         }
 
         @Override
         public void visitFile(FileVisitDetails fileDetails) {
-            fileTreeElements.add(new DefaultFileDetails(getPath(fileDetails.getFile()), fileDetails.getRelativePath(), RegularFile, false, fileSnapshot(fileDetails)));
+            fileTreeElements.add(new DefaultFileDetails(getPath(fileDetails), fileDetails.getRelativePath(), RegularFile, false, fileSnapshot(fileDetails)));
         }
     }
 }
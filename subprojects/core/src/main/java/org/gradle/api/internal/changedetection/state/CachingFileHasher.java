@@ -20,6 +20,7 @@ import com.google.common.base.Objects;
 import com.google.common.hash.HashCode;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.file.archive.ArchiveEntryDetails;
 import org.gradle.api.internal.hash.FileHasher;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.internal.nativeintegration.filesystem.FileMetadataSnapshot;
@@ -35,6 +36,7 @@ import java.io.InputStream;
 
 public class CachingFileHasher implements FileHasher {
     private final PersistentIndexedCache<String, FileInfo> cache;
+    private final PersistentIndexedCache<String, FileInfo> archiveEntryCache;
     private final FileHasher delegate;
     private final FileSystem fileSystem;
     private final StringInterner stringInterner;
@@ -44,6 +46,7 @@ public class CachingFileHasher implements FileHasher {
         this.delegate = delegate;
         this.fileSystem = fileSystem;
         this.cache = store.createCache(cacheName, String.class, new FileInfoSerializer(), 400000, true);
+        this.archiveEntryCache = store.createCache(cacheName + "ArchiveEntries", String.class, new FileInfoSerializer(), 100000, true);
         this.stringInterner = stringInterner;
         this.timestampInspector = timestampInspector;
     }
@@ -87,9 +90,31 @@ public class CachingFileHasher implements FileHasher {
     }
 
     private FileInfo snapshot(FileTreeElement file) {
+        if (file instanceof ArchiveEntryDetails) {
+            return snapshot((ArchiveEntryDetails) file);
+        }
         return snapshot(file.getFile(), file.getSize(), file.getLastModified());
     }
 
+    /**
+     * Archive entries are cached by the hash of the archive that contains them, so that an archive that has not changed does not need to be read again,
+     * whatever its location. Entries of an archive that is not a file are hashed each time.
+     */
+    private FileInfo snapshot(ArchiveEntryDetails entry) {
+        File archiveFile = entry.getArchiveFile();
+        if (archiveFile == null) {
+            return new FileInfo(delegate.hash(entry), entry.getSize(), entry.getLastModified());
+        }
+        String key = hash(archiveFile).toString() + "!/" + entry.getPath();
+        FileInfo info = archiveEntryCache.get(key);
+        if (info != null && entry.getSize() == info.length && entry.getLastModified() == info.timestamp) {
+            return info;
+        }
+        info = new FileInfo(delegate.hash(entry), entry.getSize(), entry.getLastModified());
+        archiveEntryCache.put(key, info);
+        return info;
+    }
+
     private FileInfo snapshot(File file, long length, long timestamp) {
         String absolutePath = file.getAbsolutePath();
         if (timestampInspector.timestampCanBeUsedToDetectFileChange(absolutePath, timestamp)) {
@@ -18,21 +18,34 @@ package org.gradle.api.internal.changedetection.state;
 
 import org.gradle.api.Nullable;
 import org.gradle.api.internal.tasks.execution.TaskOutputsGenerationListener;
+import org.gradle.internal.concurrent.Stoppable;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
-public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputsGenerationListener {
+public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputsGenerationListener, Stoppable {
     // Map from interned absolute path for a file to known details for the file. Currently not shared with trees
     private final Map<String, FileDetails> files = new ConcurrentHashMap<String, FileDetails>();
     // Map from interned absolute path for a directory to known details for the directory.
     private final Map<String, DirectoryTreeDetails> trees = new ConcurrentHashMap<String, DirectoryTreeDetails>();
+    // Map from interned absolute path for a directory to the most recently scanned details for the directory, offered to be retained at the end of the build
+    private final Map<String, DirectoryTreeDetails> scannedTrees = new ConcurrentHashMap<String, DirectoryTreeDetails>();
+    private final RetainedFileSystemState.Session retainedState;
+
+    public DefaultFileSystemMirror() {
+        this(RetainedFileSystemState.NO_RETAINED_STATE);
+    }
+
+    public DefaultFileSystemMirror(RetainedFileSystemState.Session retainedState) {
+        this.retainedState = retainedState;
+    }
 
     @Override
     public void beforeTaskOutputsGenerated() {
         // When the task outputs are generated, throw away all cached state. This is intentionally very simple, to be improved later
         files.clear();
         trees.clear();
+        retainedState.fileSystemChanged();
     }
 
     @Nullable
@@ -49,11 +62,26 @@ public class DefaultFileSystemMirror implements FileSystemMirror, TaskOutputsGen
     @Nullable
     @Override
     public DirectoryTreeDetails getDirectoryTree(String path) {
-        return trees.get(path);
+        DirectoryTreeDetails tree = trees.get(path);
+        if (tree == null) {
+            tree = retainedState.getDirectoryTree(path);
+            if (tree != null) {
+                trees.put(path, tree);
+            }
+        }
+        return tree;
     }
 
     @Override
     public void putDirectory(DirectoryTreeDetails directory) {
         trees.put(directory.path, directory);
+        if (retainedState != RetainedFileSystemState.NO_RETAINED_STATE) {
+            scannedTrees.put(directory.path, directory);
+        }
+    }
+
+    @Override
+    public void stop() {
+        retainedState.stop(scannedTrees.values());
     }
 }
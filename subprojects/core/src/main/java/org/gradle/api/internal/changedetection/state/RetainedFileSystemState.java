@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import net.rubygrapefruit.platform.ThreadSafe;
+import org.gradle.api.Nullable;
+
+import java.util.Collection;
+
+/**
+ * Retains the state of directory trees between builds, for as long as it is known that they have not changed.
+ */
+@ThreadSafe
+public interface RetainedFileSystemState {
+    /**
+     * A session that retains nothing.
+     */
+    Session NO_RETAINED_STATE = new Session() {
+        @Nullable
+        @Override
+        public DirectoryTreeDetails getDirectoryTree(String path) {
+            return null;
+        }
+
+        @Override
+        public void fileSystemChanged() {
+        }
+
+        @Override
+        public void stop(Collection<DirectoryTreeDetails> trees) {
+        }
+    };
+
+    /**
+     * Starts a session for a build.
+     */
+    Session startSession();
+
+    @ThreadSafe
+    interface Session {
+        /**
+         * Returns the retained state of the given directory tree, or null when it is not known to be unchanged.
+         */
+        @Nullable
+        DirectoryTreeDetails getDirectoryTree(String path);
+
+        /**
+         * Notifies this session that the file system may have been changed by the build. Retained state is not used again until the changes have
+         * been accounted for.
+         */
+        void fileSystemChanged();
+
+        /**
+         * Stops this session, offering the given directory trees, as they are known at the end of the build, to be retained for later builds.
+         */
+        void stop(Collection<DirectoryTreeDetails> trees);
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.changedetection.state;
 
 import com.google.common.base.Objects;
+import com.google.common.hash.HashCode;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.internal.serialize.AbstractSerializer;
 import org.gradle.internal.serialize.Decoder;
@@ -27,15 +28,28 @@ import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Serializes the snapshots of a file collection in a compact form.
+ *
+ * <p>Each absolute path is written as the number of leading characters it shares with the path of the previous entry, followed by the remaining
+ * characters. A normalized path that is a suffix of the absolute path is written as its length only. MD5 hashes are written as 16 bytes without a
+ * length, and the kind of file snapshot and of normalization are packed into a single byte.</p>
+ */
 public class SnapshotMapSerializer extends AbstractSerializer<Map<String, NormalizedFileSnapshot>> {
-    private static final byte DIR_SNAPSHOT = 1;
-    private static final byte MISSING_FILE_SNAPSHOT = 2;
-    private static final byte REGULAR_FILE_SNAPSHOT = 3;
+    private static final int DIR_SNAPSHOT = 1;
+    private static final int MISSING_FILE_SNAPSHOT = 2;
+    private static final int REGULAR_FILE_SNAPSHOT = 3;
+    private static final int REGULAR_FILE_MD5_SNAPSHOT = 4;
+    private static final int FILE_SNAPSHOT_MASK = 0x0F;
+
+    private static final int NO_NORMALIZATION = 1 << 4;
+    private static final int DEFAULT_NORMALIZATION = 2 << 4;
+    private static final int INDEXED_NORMALIZATION = 3 << 4;
+    private static final int IGNORED_PATH_NORMALIZATION = 4 << 4;
+    private static final int SUFFIX_NORMALIZATION = 5 << 4;
+    private static final int NORMALIZATION_MASK = 0xF0;
 
-    private static final byte NO_NORMALIZATION = 1;
-    private static final byte DEFAULT_NORMALIZATION = 2;
-    private static final byte INDEXED_NORMALIZATION = 3;
-    private static final byte IGNORED_PATH_NORMALIZATION = 4;
+    private static final int MD5_LENGTH = 16;
 
     private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
     private final StringInterner stringInterner;
@@ -48,18 +62,21 @@ public class SnapshotMapSerializer extends AbstractSerializer<Map<String, Normal
     public Map<String, NormalizedFileSnapshot> read(Decoder decoder) throws Exception {
         int snapshotsCount = decoder.readSmallInt();
         Map<String, NormalizedFileSnapshot> snapshots = new LinkedHashMap<String, NormalizedFileSnapshot>(snapshotsCount);
+        String previousPath = "";
         for (int i = 0; i < snapshotsCount; i++) {
-            String absolutePath = stringInterner.intern(decoder.readString());
+            int commonPrefixLength = decoder.readSmallInt();
+            String absolutePath = stringInterner.intern(previousPath.substring(0, commonPrefixLength) + decoder.readString());
             NormalizedFileSnapshot snapshot = readSnapshot(absolutePath, decoder, stringInterner);
             snapshots.put(absolutePath, snapshot);
+            previousPath = absolutePath;
         }
         return snapshots;
     }
 
     private NormalizedFileSnapshot readSnapshot(String absolutePath, Decoder decoder, StringInterner stringInterner) throws IOException {
-        byte fileSnapshotKind = decoder.readByte();
+        int kind = decoder.readByte() & 0xFF;
         IncrementalFileSnapshot snapshot;
-        switch (fileSnapshotKind) {
+        switch (kind & FILE_SNAPSHOT_MASK) {
             case DIR_SNAPSHOT:
                 snapshot = DirSnapshot.getInstance();
                 break;
@@ -69,17 +86,25 @@ public class SnapshotMapSerializer extends AbstractSerializer<Map<String, Normal
             case REGULAR_FILE_SNAPSHOT:
                 snapshot = new FileHashSnapshot(hashCodeSerializer.read(decoder));
                 break;
+            case REGULAR_FILE_MD5_SNAPSHOT:
+                byte[] hash = new byte[MD5_LENGTH];
+                decoder.readBytes(hash);
+                snapshot = new FileHashSnapshot(HashCode.fromBytes(hash));
+                break;
             default:
                 throw new RuntimeException("Unable to read serialized file snapshot. Unrecognized value found in the data stream.");
         }
 
-        int normalizedSnapshotKind = decoder.readByte();
-        switch (normalizedSnapshotKind) {
+        switch (kind & NORMALIZATION_MASK) {
             case NO_NORMALIZATION:
                 return new NonNormalizedFileSnapshot(absolutePath, snapshot);
             case DEFAULT_NORMALIZATION:
                 String normalizedPath = stringInterner.intern(decoder.readString());
                 return new DefaultNormalizedFileSnapshot(normalizedPath, snapshot);
+            case SUFFIX_NORMALIZATION:
+                int suffixLength = decoder.readSmallInt();
+                String suffix = stringInterner.intern(absolutePath.substring(absolutePath.length() - suffixLength));
+                return new DefaultNormalizedFileSnapshot(suffix, snapshot);
             case INDEXED_NORMALIZATION:
                 int index = decoder.readSmallInt();
                 return new IndexedNormalizedFileSnapshot(absolutePath, index, snapshot);
@@ -93,11 +118,28 @@ public class SnapshotMapSerializer extends AbstractSerializer<Map<String, Normal
     @Override
     public void write(Encoder encoder, Map<String, NormalizedFileSnapshot> value) throws Exception {
         encoder.writeSmallInt(value.size());
-        for (String key : value.keySet()) {
-            encoder.writeString(key);
-            NormalizedFileSnapshot snapshot = value.get(key);
-            writeSnapshot(encoder, snapshot);
+        String previousPath = "";
+        for (Map.Entry<String, NormalizedFileSnapshot> entry : value.entrySet()) {
+            String absolutePath = entry.getKey();
+            int commonPrefixLength = commonPrefixLength(previousPath, absolutePath);
+            encoder.writeSmallInt(commonPrefixLength);
+            encoder.writeString(absolutePath.substring(commonPrefixLength));
+            writeSnapshot(encoder, absolutePath, entry.getValue());
+            previousPath = absolutePath;
+        }
+    }
+
+    private static int commonPrefixLength(String previous, String current) {
+        int maxLength = Math.min(previous.length(), current.length());
+        int length = 0;
+        while (length < maxLength && previous.charAt(length) == current.charAt(length)) {
+            length++;
+        }
+        // Do not split a surrogate pair
+        if (length > 0 && Character.isHighSurrogate(current.charAt(length - 1))) {
+            length--;
         }
+        return length;
     }
 
     @Override
@@ -115,31 +157,56 @@ public class SnapshotMapSerializer extends AbstractSerializer<Map<String, Normal
         return Objects.hashCode(super.hashCode(), hashCodeSerializer);
     }
 
-    private void writeSnapshot(Encoder encoder, NormalizedFileSnapshot value) throws IOException {
+    private void writeSnapshot(Encoder encoder, String absolutePath, NormalizedFileSnapshot value) throws IOException {
         IncrementalFileSnapshot snapshot = value.getSnapshot();
+        byte[] hash = null;
+        int kind;
         if (snapshot instanceof DirSnapshot) {
-            encoder.writeByte(DIR_SNAPSHOT);
+            kind = DIR_SNAPSHOT;
         } else if (snapshot instanceof MissingFileSnapshot) {
-            encoder.writeByte(MISSING_FILE_SNAPSHOT);
+            kind = MISSING_FILE_SNAPSHOT;
         } else if (snapshot instanceof FileHashSnapshot) {
-            encoder.writeByte(REGULAR_FILE_SNAPSHOT);
-            hashCodeSerializer.write(encoder, snapshot.getContentMd5());
+            hash = snapshot.getContentMd5().asBytes();
+            kind = hash.length == MD5_LENGTH ? REGULAR_FILE_MD5_SNAPSHOT : REGULAR_FILE_SNAPSHOT;
         } else {
             throw new AssertionError();
         }
 
         if (value instanceof NonNormalizedFileSnapshot) {
-            encoder.writeByte(NO_NORMALIZATION);
+            kind |= NO_NORMALIZATION;
         } else if (value instanceof DefaultNormalizedFileSnapshot) {
-            encoder.writeByte(DEFAULT_NORMALIZATION);
-            encoder.writeString(value.getNormalizedPath());
+            kind |= absolutePath.endsWith(value.getNormalizedPath()) ? SUFFIX_NORMALIZATION : DEFAULT_NORMALIZATION;
         } else if (value instanceof IndexedNormalizedFileSnapshot) {
-            encoder.writeByte(INDEXED_NORMALIZATION);
-            encoder.writeSmallInt(((IndexedNormalizedFileSnapshot) value).getIndex());
+            kind |= INDEXED_NORMALIZATION;
         } else if (value instanceof IgnoredPathFileSnapshot) {
-            encoder.writeByte(IGNORED_PATH_NORMALIZATION);
+            kind |= IGNORED_PATH_NORMALIZATION;
         } else {
             throw new AssertionError();
         }
+
+        encoder.writeByte((byte) kind);
+        switch (kind & FILE_SNAPSHOT_MASK) {
+            case REGULAR_FILE_SNAPSHOT:
+                hashCodeSerializer.write(encoder, snapshot.getContentMd5());
+                break;
+            case REGULAR_FILE_MD5_SNAPSHOT:
+                encoder.writeBytes(hash);
+                break;
+            default:
+                break;
+        }
+        switch (kind & NORMALIZATION_MASK) {
+            case DEFAULT_NORMALIZATION:
+                encoder.writeString(value.getNormalizedPath());
+                break;
+            case SUFFIX_NORMALIZATION:
+                encoder.writeSmallInt(value.getNormalizedPath().length());
+                break;
+            case INDEXED_NORMALIZATION:
+                encoder.writeSmallInt(((IndexedNormalizedFileSnapshot) value).getIndex());
+                break;
+            default:
+                break;
+        }
     }
 }
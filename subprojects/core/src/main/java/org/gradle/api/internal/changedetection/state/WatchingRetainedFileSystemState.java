@@ -0,0 +1,424 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.file.FileSystemSubset;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.filewatch.FileWatcher;
+import org.gradle.internal.filewatch.FileWatcherEvent;
+import org.gradle.internal.filewatch.FileWatcherFactory;
+import org.gradle.internal.filewatch.FileWatcherListener;
+import org.gradle.internal.os.OperatingSystem;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Retains directory trees between builds, using a {@link FileWatcher} to find out which of them have changed.
+ *
+ * <p>The directory trees offered at the end of a build are watched recursively. A tree is retained at the end of a later build when its directory was already
+ * watched when that build started and no change in, above or below the tree was reported during that build. A retained tree is discarded as soon as a change to
+ * it is reported, and all retained trees are discarded when the watcher reports that events have been lost.</p>
+ *
+ * <p>Events are delivered asynchronously, and the events for different directories are not necessarily delivered in the order in which the changes were made.
+ * Before retained trees are used after a change, and before trees are retained, two marker files are created one after the other in a watched directory of its
+ * own, and the event for each of them is awaited. By the time the event for the second marker has been received, the events for all changes made before the
+ * first one have been received as well. When an event does not arrive in time, everything is discarded.</p>
+ *
+ * <p>Only enabled on Linux, when the {@value #ENABLED_PROPERTY} system property is set to true.</p>
+ */
+public class WatchingRetainedFileSystemState implements RetainedFileSystemState, Stoppable {
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.retain-file-system-state";
+    private static final Logger LOGGER = Logging.getLogger(WatchingRetainedFileSystemState.class);
+    // Beyond this, the changes made during a build are not tracked and nothing is retained at the end of the build
+    private static final int MAX_CHANGES_PER_SESSION = 10000;
+    private static final long SYNC_TIMEOUT_MILLIS = 1000;
+
+    private final FileWatcherFactory fileWatcherFactory;
+    private final Object lock = new Object();
+    // All state below is guarded by lock
+    private final Map<String, DirectoryTreeDetails> retainedTrees = new HashMap<String, DirectoryTreeDetails>();
+    private final Set<String> watchedRoots = new HashSet<String>();
+    private final List<DefaultSession> sessions = new ArrayList<DefaultSession>();
+    private final Set<String> receivedMarkers = new HashSet<String>();
+    private FileWatcher fileWatcher;
+    private File markerDir;
+    private long syncsStarted;
+    private long syncsCompleted;
+    private boolean syncInProgress;
+    private boolean watchingDisabled;
+
+    public WatchingRetainedFileSystemState(FileWatcherFactory fileWatcherFactory) {
+        this.fileWatcherFactory = fileWatcherFactory;
+    }
+
+    @Override
+    public Session startSession() {
+        synchronized (lock) {
+            if (!OperatingSystem.current().isLinux() || !Boolean.getBoolean(ENABLED_PROPERTY)) {
+                if (fileWatcher != null) {
+                    discardAll("retaining file system state has been disabled");
+                }
+                return NO_RETAINED_STATE;
+            }
+            DefaultSession session = new DefaultSession(new HashSet<String>(watchedRoots), syncsStarted + 1);
+            sessions.add(session);
+            return session;
+        }
+    }
+
+    @Override
+    public void stop() {
+        synchronized (lock) {
+            watchingDisabled = true;
+            if (fileWatcher != null) {
+                discardAll("the daemon is stopping");
+            }
+        }
+    }
+
+    private void onChange(FileWatcher watcher, FileWatcherEvent event) {
+        synchronized (lock) {
+            if (watcher != fileWatcher) {
+                return;
+            }
+            File file = event.getFile();
+            if (event.getType() == FileWatcherEvent.Type.UNDEFINED || file == null) {
+                LOGGER.info("File system events have been lost, discarding all retained directory trees.");
+                retainedTrees.clear();
+                for (DefaultSession session : sessions) {
+                    session.changesLost();
+                }
+                return;
+            }
+            if (markerDir.equals(file.getParentFile())) {
+                if (event.getType() == FileWatcherEvent.Type.CREATE) {
+                    receivedMarkers.add(file.getName());
+                    lock.notifyAll();
+                }
+                return;
+            }
+
+            String path = file.getAbsolutePath();
+            for (String ancestor = path; ancestor != null; ancestor = parentOf(ancestor)) {
+                retainedTrees.remove(ancestor);
+            }
+            String prefix = path + File.separatorChar;
+            for (Iterator<String> iterator = retainedTrees.keySet().iterator(); iterator.hasNext();) {
+                if (iterator.next().startsWith(prefix)) {
+                    iterator.remove();
+                }
+            }
+            if (event.getType() == FileWatcherEvent.Type.DELETE) {
+                // A deleted root is no longer watched, even when it is created again
+                for (Iterator<String> iterator = watchedRoots.iterator(); iterator.hasNext();) {
+                    String root = iterator.next();
+                    if (root.equals(path) || root.startsWith(prefix)) {
+                        iterator.remove();
+                    }
+                }
+            }
+            for (DefaultSession session : sessions) {
+                session.changed(path);
+            }
+        }
+    }
+
+    /**
+     * Waits until all events for changes made before the given sync was requested have been received. Returns false when this cannot be done, in which case
+     * nothing is retained anymore. Must be called while holding the lock.
+     */
+    private boolean awaitSync(long requiredSync) {
+        while (syncsCompleted < requiredSync) {
+            if (fileWatcher == null) {
+                return false;
+            }
+            if (syncInProgress) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            } else {
+                sync();
+            }
+        }
+        return fileWatcher != null;
+    }
+
+    private void sync() {
+        syncInProgress = true;
+        long sync = ++syncsStarted;
+        boolean received = false;
+        try {
+            long deadline = System.currentTimeMillis() + SYNC_TIMEOUT_MILLIS;
+            // Once the event for the first marker has been received, the events for all earlier changes are queued ahead of the event for the second one
+            received = awaitMarker("sync-" + sync + "-1", deadline) && awaitMarker("sync-" + sync + "-2", deadline);
+        } catch (IOException e) {
+            LOGGER.debug("Could not create file system marker file.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            syncInProgress = false;
+            syncsCompleted = sync;
+            lock.notifyAll();
+        }
+        if (!received && fileWatcher != null) {
+            discardAll("file system events were not received in time");
+        }
+    }
+
+    private boolean awaitMarker(String marker, long deadline) throws IOException, InterruptedException {
+        File markerFile = new File(markerDir, marker);
+        if (!markerFile.createNewFile()) {
+            return false;
+        }
+        try {
+            while (fileWatcher != null && !receivedMarkers.remove(marker)) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                lock.wait(remaining);
+            }
+            return fileWatcher != null;
+        } finally {
+            GFileUtils.deleteQuietly(markerFile);
+        }
+    }
+
+    private void watch(Collection<File> roots) {
+        FileWatcher watcher;
+        FileSystemSubset.Builder subset = FileSystemSubset.builder();
+        synchronized (lock) {
+            if (watchingDisabled) {
+                return;
+            }
+            if (fileWatcher == null) {
+                try {
+                    markerDir = createMarkerDir();
+                } catch (IOException e) {
+                    LOGGER.info("Could not create a directory for file system marker files, file system state will not be retained.", e);
+                    watchingDisabled = true;
+                    return;
+                }
+                fileWatcher = fileWatcherFactory.watch(new Action<Throwable>() {
+                    @Override
+                    public void execute(Throwable throwable) {
+                        synchronized (lock) {
+                            if (fileWatcher != null) {
+                                LOGGER.debug("Failed to watch the file system.", throwable);
+                                discardAll("watching the file system failed");
+                            }
+                        }
+                    }
+                }, new FileWatcherListener() {
+                    @Override
+                    public void onChange(FileWatcher watcher, FileWatcherEvent event) {
+                        WatchingRetainedFileSystemState.this.onChange(watcher, event);
+                    }
+                });
+                subset.add(markerDir);
+            }
+            watcher = fileWatcher;
+        }
+
+        // Registers the watches without holding the lock, as events are delivered while the watcher holds a lock of its own
+        for (File root : roots) {
+            subset.add(root);
+        }
+        try {
+            watcher.watch(subset.build());
+        } catch (Exception e) {
+            LOGGER.info("Could not watch the file system, file system state will not be retained.", e);
+            synchronized (lock) {
+                watchingDisabled = true;
+                if (watcher == fileWatcher) {
+                    discardAll("watching the file system failed");
+                }
+            }
+            return;
+        }
+
+        synchronized (lock) {
+            if (watcher == fileWatcher) {
+                for (File root : roots) {
+                    if (root.isDirectory()) {
+                        watchedRoots.add(root.getAbsolutePath());
+                    }
+                }
+            }
+        }
+    }
+
+    private static File createMarkerDir() throws IOException {
+        File dir = File.createTempFile("gradle-file-system-state", "").getAbsoluteFile();
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException(String.format("Could not create directory '%s'.", dir));
+        }
+        return dir;
+    }
+
+    /**
+     * Discards all retained state and stops watching. Must be called while holding the lock.
+     */
+    private void discardAll(String reason) {
+        LOGGER.info("Discarding all retained file system state, as {}.", reason);
+        retainedTrees.clear();
+        watchedRoots.clear();
+        receivedMarkers.clear();
+        for (DefaultSession session : sessions) {
+            session.changesLost();
+        }
+        if (fileWatcher != null) {
+            fileWatcher.stop();
+            fileWatcher = null;
+        }
+        if (markerDir != null) {
+            GFileUtils.deleteQuietly(markerDir);
+            markerDir = null;
+        }
+        lock.notifyAll();
+    }
+
+    private static boolean isWithin(String path, Set<String> ancestors) {
+        for (String ancestor = path; ancestor != null; ancestor = parentOf(ancestor)) {
+            if (ancestors.contains(ancestor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    private static String parentOf(String path) {
+        int index = path.lastIndexOf(File.separatorChar);
+        return index > 0 ? path.substring(0, index) : null;
+    }
+
+    private class DefaultSession implements Session {
+        // All state is guarded by lock
+        private final Set<String> rootsAtStart;
+        private final Set<String> changes = new HashSet<String>();
+        private boolean changesLost;
+        private long requiredSync;
+        private int reusedTrees;
+        private long reusedElements;
+
+        DefaultSession(Set<String> rootsAtStart, long requiredSync) {
+            this.rootsAtStart = rootsAtStart;
+            this.requiredSync = requiredSync;
+        }
+
+        @Nullable
+        @Override
+        public DirectoryTreeDetails getDirectoryTree(String path) {
+            synchronized (lock) {
+                if (retainedTrees.isEmpty() || !awaitSync(requiredSync)) {
+                    return null;
+                }
+                DirectoryTreeDetails tree = retainedTrees.get(path);
+                if (tree != null) {
+                    reusedTrees++;
+                    reusedElements += tree.elements.size();
+                }
+                return tree;
+            }
+        }
+
+        @Override
+        public void fileSystemChanged() {
+            synchronized (lock) {
+                requiredSync = syncsStarted + 1;
+            }
+        }
+
+        @Override
+        public void stop(Collection<DirectoryTreeDetails> trees) {
+            List<File> newRoots = new ArrayList<File>();
+            synchronized (lock) {
+                int retained = 0;
+                boolean synced = !changesLost && !rootsAtStart.isEmpty() && awaitSync(syncsStarted + 1);
+                sessions.remove(this);
+                // Events may also have been lost while syncing
+                if (synced && !changesLost) {
+                    // Every changed path, and all of their ancestors
+                    Set<String> changedOrAbove = new HashSet<String>();
+                    for (String change : changes) {
+                        String ancestor = change;
+                        while (ancestor != null && changedOrAbove.add(ancestor)) {
+                            ancestor = parentOf(ancestor);
+                        }
+                    }
+                    for (DirectoryTreeDetails tree : trees) {
+                        if (isWithin(tree.path, rootsAtStart) && !changedOrAbove.contains(tree.path) && !isWithin(tree.path, changes)) {
+                            retainedTrees.put(tree.path, tree);
+                            retained++;
+                        }
+                    }
+                }
+                if (!watchingDisabled) {
+                    for (DirectoryTreeDetails tree : trees) {
+                        if (!isWithin(tree.path, watchedRoots)) {
+                            File root = new File(tree.path);
+                            if (root.isDirectory()) {
+                                newRoots.add(root);
+                            }
+                        }
+                    }
+                }
+                if (reusedTrees > 0) {
+                    LOGGER.info("Reused {} unchanged directory trees from previous builds, saving {} file system calls.", reusedTrees, reusedTrees + reusedElements);
+                }
+                LOGGER.debug("Retained {} of {} directory trees, {} directories watched, {} new directories to watch.", retained, trees.size(), watchedRoots.size(), newRoots.size());
+            }
+            if (!newRoots.isEmpty()) {
+                watch(newRoots);
+            }
+        }
+
+        void changed(String path) {
+            if (changesLost) {
+                return;
+            }
+            if (changes.size() >= MAX_CHANGES_PER_SESSION) {
+                changesLost();
+            } else {
+                changes.add(path);
+            }
+        }
+
+        void changesLost() {
+            changesLost = true;
+            changes.clear();
+        }
+    }
+}
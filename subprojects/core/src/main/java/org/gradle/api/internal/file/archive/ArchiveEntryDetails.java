@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.file.FileVisitDetails;
+
+import java.io.File;
+
+/**
+ * The details of an entry of an archive, visited by a {@link ZipFileTree} or a {@link TarFileTree}.
+ *
+ * <p>The entry is only extracted to the file system when {@link #getFile()} is called. Its content can be read, hashed and copied using {@link #open()}
+ * and {@link #copyTo(java.io.OutputStream)} without extracting it. Callers that only need to identify the entry, such as file snapshotting, should use
+ * {@link #getVirtualPath()} rather than {@link #getFile()}.</p>
+ */
+public interface ArchiveEntryDetails extends FileVisitDetails {
+    /**
+     * Returns the archive containing this entry, or null when the archive is not a local file.
+     */
+    @Nullable
+    File getArchiveFile();
+
+    /**
+     * Returns a path that identifies this entry: the absolute path of the archive, or its URI when the archive is not a local file, followed by
+     * {@code !/} and the path of the entry in the archive. This is not the path of a file, and nothing is extracted to it.
+     */
+    String getVirtualPath();
+}
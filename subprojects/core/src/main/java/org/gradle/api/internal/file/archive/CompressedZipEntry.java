@@ -0,0 +1,33 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+/**
+ * A file stored in a ZIP archive, whose compressed content can be copied to another ZIP archive without decompressing and compressing it again.
+ */
+interface CompressedZipEntry extends ZipArchiveWriter.CompressedContent {
+    int getCompressionMethod();
+
+    long getCrc();
+
+    long getCompressedSize();
+
+    /**
+     * Returns the uncompressed size of the file.
+     */
+    long getSize();
+}
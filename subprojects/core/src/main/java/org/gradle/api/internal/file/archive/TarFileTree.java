@@ -20,18 +20,15 @@ import org.apache.tools.tar.TarInputStream;
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.Nullable;
-import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
-import org.gradle.api.internal.file.DefaultFileVisitDetails;
 import org.gradle.api.internal.file.FileSystemSubset;
 import org.gradle.api.internal.file.collections.*;
 import org.gradle.api.resources.ResourceException;
 import org.gradle.api.resources.internal.ReadableResourceInternal;
 import org.gradle.internal.hash.HashUtil;
 import org.gradle.internal.nativeintegration.filesystem.Chmod;
-import org.gradle.internal.nativeintegration.filesystem.Stat;
 import org.gradle.util.GFileUtils;
 
 import java.io.File;
@@ -43,15 +40,13 @@ public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree
     private final File tarFile;
     private final ReadableResourceInternal resource;
     private final Chmod chmod;
-    private final Stat stat;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
     private final File tmpDir;
 
-    public TarFileTree(@Nullable File tarFile, ReadableResourceInternal resource, File tmpDir, Chmod chmod, Stat stat, DirectoryFileTreeFactory directoryFileTreeFactory) {
+    public TarFileTree(@Nullable File tarFile, ReadableResourceInternal resource, File tmpDir, Chmod chmod, DirectoryFileTreeFactory directoryFileTreeFactory) {
         this.tarFile = tarFile;
         this.resource = resource;
         this.chmod = chmod;
-        this.stat = stat;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
         String expandDirName = resource.getBaseName() + "_" + HashUtil.createCompactMD5(resource.getURI().toString());
         this.tmpDir = new File(tmpDir, expandDirName);
@@ -111,7 +106,7 @@ public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree
         return null;
     }
 
-    private class DetailsImpl extends AbstractFileTreeElement implements FileVisitDetails {
+    private class DetailsImpl extends AbstractFileTreeElement implements ArchiveEntryDetails {
         private final TarEntry entry;
         private final NoCloseTarInputStream tar;
         private final AtomicBoolean stopFlag;
@@ -133,6 +128,16 @@ public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree
             stopFlag.set(true);
         }
 
+        public File getArchiveFile() {
+            return getBackingFile();
+        }
+
+        public String getVirtualPath() {
+            File backingFile = getBackingFile();
+            String archivePath = backingFile != null ? backingFile.getAbsolutePath() : resource.getURI().toString();
+            return archivePath + "!/" + getRelativePath().getPathString();
+        }
+
         public File getFile() {
             if (file == null) {
                 file = new File(tmpDir, entry.getName());
@@ -203,21 +208,9 @@ public class TarFileTree implements MinimalFileTree, FileSystemMirroringFileTree
         if (backingFile!=null) {
             new SingletonFileTree(backingFile).visit(visitor);
         } else {
-            // We need to wrap the visitor so that the file seen by the visitor has already
-            // been extracted from the archive and we do not try to extract it again.
-            // It's unsafe to keep the FileVisitDetails provided by TarFileTree directly
-            // because we do not expect to visit the same paths again (after extracting everything).
-            visit(new FileVisitor() {
-                @Override
-                public void visitDir(FileVisitDetails dirDetails) {
-                    visitor.visitDir(new DefaultFileVisitDetails(dirDetails.getFile(), chmod, stat));
-                }
-
-                @Override
-                public void visitFile(FileVisitDetails fileDetails) {
-                    visitor.visitFile(new DefaultFileVisitDetails(fileDetails.getFile(), chmod, stat));
-                }
-            });
+            // The entries are not extracted, so the visitor must read the content of each entry while it is visited,
+            // for example by hashing it, and identify the entry by its virtual path.
+            visit(visitor);
         }
     }
 }
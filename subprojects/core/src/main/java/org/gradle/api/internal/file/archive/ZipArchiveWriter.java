@@ -0,0 +1,605 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.apache.tools.zip.UnixStat;
+import org.apache.tools.zip.Zip64RequiredException;
+import org.apache.tools.zip.ZipEncoding;
+import org.apache.tools.zip.ZipEncodingHelper;
+import org.apache.tools.zip.ZipOutputStream;
+import org.apache.tools.zip.ZipUtil;
+import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.internal.UncheckedException;
+import org.gradle.util.GFileUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a ZIP archive, compressing the entries using an executor so that several entries can be compressed at the same time.
+ *
+ * <p>The content of each file is read on the calling thread, and compressed by the executor. The entries are written to the archive in the order in which
+ * they were added, whatever the order in which they are compressed, so the archive is the same as one written by a single thread. When an entry must be
+ * written before the executor has started to compress it, it is compressed on the calling thread instead. Entries that are already compressed, such as
+ * entries copied from another archive, are written as they are. Content larger than {@value #IN_MEMORY_LIMIT} bytes is buffered in a temporary file in the
+ * given temporary directory rather than in memory.</p>
+ *
+ * <p>As the size and checksum of each entry are known before it is written, the archive is written sequentially, without data descriptors.</p>
+ */
+public class ZipArchiveWriter implements Closeable {
+    private static final int IN_MEMORY_LIMIT = 1024 * 1024;
+    private static final long MAX_PENDING_BYTES = 64L * 1024 * 1024;
+    private static final int MAX_PENDING_ENTRIES = 4096;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int LOCAL_FILE_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_FILE_HEADER_SIG = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIR_SIG = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIR_SIG = 0x06064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIR_LOCATOR_SIG = 0x07064b50;
+    private static final short ZIP64_EXTRA_FIELD_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_SHORT = 0xFFFF;
+    private static final int UTF8_NAMES_FLAG = 0x0800;
+    private static final int PLATFORM_UNIX = 3;
+    private static final int INITIAL_VERSION = 10;
+    private static final int DEFLATE_MIN_VERSION = 20;
+    private static final int ZIP64_MIN_VERSION = 45;
+
+    private final File temporaryDir;
+    private final OutputStream output;
+    private final int method;
+    private final boolean allowZip64;
+    private final Executor executor;
+    private final ZipEncoding zipEncoding;
+    private final boolean utf8Names;
+    private final LinkedList<Entry> pending = new LinkedList<Entry>();
+    private final List<Entry> written = new ArrayList<Entry>();
+    private long pendingBytes;
+    private long offset;
+    private boolean usedZip64;
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * @param method The compression method of the entries, either {@link ZipOutputStream#DEFLATED} or {@link ZipOutputStream#STORED}.
+     * @param encoding The encoding of the entry names, or null for the platform's default encoding.
+     * @param executor The executor to compress the entries with, or null to compress them on the calling thread.
+     * @param temporaryDir The directory to buffer large entries in.
+     */
+    public ZipArchiveWriter(File destination, int method, boolean allowZip64, @Nullable String encoding, @Nullable Executor executor, File temporaryDir) throws IOException {
+        this.temporaryDir = temporaryDir;
+        this.method = method;
+        this.allowZip64 = allowZip64;
+        this.executor = executor;
+        this.zipEncoding = ZipEncodingHelper.getZipEncoding(encoding);
+        this.utf8Names = Charset.forName("UTF-8").equals(encoding == null ? Charset.defaultCharset() : Charset.forName(encoding));
+        this.output = new BufferedOutputStream(new FileOutputStream(destination), BUFFER_SIZE);
+    }
+
+    /**
+     * Returns the compression method of the entries of the archive.
+     */
+    public int getMethod() {
+        return method;
+    }
+
+    public void addDirectory(String path, long time, int mode) throws IOException {
+        // Trailing slash in name indicates that entry is a directory
+        Entry entry = new Entry(path + '/', encode(path + '/'), time, UnixStat.DIR_FLAG | mode, true);
+        entry.method = method;
+        entry.crc = 0;
+        entry.size = 0;
+        entry.compressedSize = 0;
+        entry.data = new EntryBuffer(temporaryDir);
+        add(entry);
+    }
+
+    /**
+     * Adds a file, whose content is written by the given action. The action is run on the calling thread.
+     */
+    public void addFile(String path, long time, int mode, Action<? super OutputStream> content) throws IOException {
+        final Entry entry = new Entry(path, encode(path), time, UnixStat.FILE_FLAG | mode, false);
+        final EntryBuffer uncompressed = new EntryBuffer(temporaryDir);
+        boolean buffered = false;
+        try {
+            content.execute(uncompressed);
+            uncompressed.close();
+            buffered = true;
+        } finally {
+            if (!buffered) {
+                uncompressed.discard();
+            }
+        }
+        entry.method = method;
+        entry.data = uncompressed;
+        entry.pendingBytes = uncompressed.inMemorySize();
+        entry.compression = new FutureTask<EntryBuffer>(new Callable<EntryBuffer>() {
+            @Override
+            public EntryBuffer call() throws Exception {
+                return compress(entry, uncompressed);
+            }
+        });
+        if (executor != null) {
+            executor.execute(entry.compression);
+        } else {
+            entry.compression.run();
+        }
+        add(entry);
+    }
+
+    /**
+     * Adds a file whose content is already compressed using the given method, such as an entry of another archive. The content is written as it is,
+     * on the calling thread. Returns false when the compressed content is not available, in which case nothing is added.
+     */
+    public boolean addCompressedFile(String path, long time, int mode, int method, long crc, long compressedSize, long size, CompressedContent content) throws IOException {
+        Entry entry = new Entry(path, encode(path), time, UnixStat.FILE_FLAG | mode, false);
+        EntryBuffer compressed = new EntryBuffer(temporaryDir);
+        boolean buffered = false;
+        try {
+            if (content.writeTo(compressed)) {
+                compressed.close();
+                buffered = compressed.size() == compressedSize;
+            }
+        } finally {
+            if (!buffered) {
+                compressed.discard();
+            }
+        }
+        if (!buffered) {
+            return false;
+        }
+        entry.method = method;
+        entry.crc = crc;
+        entry.size = size;
+        entry.compressedSize = compressedSize;
+        entry.data = compressed;
+        entry.pendingBytes = compressed.inMemorySize();
+        add(entry);
+        return true;
+    }
+
+    /**
+     * The compressed content of a file.
+     */
+    public interface CompressedContent {
+        /**
+         * Writes the compressed content to the given output stream. Returns false when the compressed content is not available.
+         */
+        boolean writeTo(OutputStream output) throws IOException;
+    }
+
+    /**
+     * Writes the remaining entries and the central directory of the archive.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        writeCompletedEntries(true);
+        long centralDirectoryOffset = offset;
+        for (Entry entry : written) {
+            writeCentralFileHeader(entry);
+        }
+        writeEndOfCentralDirectory(centralDirectoryOffset, offset - centralDirectoryOffset);
+        output.flush();
+        finished = true;
+    }
+
+    /**
+     * Closes the archive, discarding any entry that has not been written. Call {@link #finish()} first to write a complete archive.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            for (Entry entry : pending) {
+                entry.discard();
+            }
+            pending.clear();
+        } finally {
+            output.close();
+        }
+    }
+
+    private byte[] encode(String name) throws IOException {
+        ByteBuffer encoded = zipEncoding.encode(name);
+        byte[] bytes = new byte[encoded.limit() - encoded.position()];
+        encoded.get(bytes);
+        return bytes;
+    }
+
+    private void add(Entry entry) throws IOException {
+        pending.add(entry);
+        pendingBytes += entry.pendingBytes;
+        writeCompletedEntries(false);
+    }
+
+    private void writeCompletedEntries(boolean all) throws IOException {
+        while (!pending.isEmpty()) {
+            Entry next = pending.getFirst();
+            boolean mustWait = all || pendingBytes > MAX_PENDING_BYTES || pending.size() > MAX_PENDING_ENTRIES;
+            if (!mustWait && !next.isCompressed()) {
+                return;
+            }
+            pending.removeFirst();
+            pendingBytes -= next.pendingBytes;
+            EntryBuffer data = next.awaitData();
+            try {
+                writeEntry(next, data);
+            } finally {
+                data.discard();
+            }
+            written.add(next);
+        }
+    }
+
+    private static EntryBuffer compress(Entry entry, EntryBuffer uncompressed) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        if (entry.method == ZipOutputStream.STORED) {
+            InputStream input = uncompressed.open();
+            try {
+                for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+                    crc.update(buffer, 0, read);
+                }
+            } finally {
+                input.close();
+            }
+            entry.crc = crc.getValue();
+            entry.size = uncompressed.size();
+            entry.compressedSize = uncompressed.size();
+            return uncompressed;
+        }
+
+        EntryBuffer compressed = new EntryBuffer(uncompressed.temporaryDir);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            InputStream input = uncompressed.open();
+            try {
+                DeflaterOutputStream deflaterOutput = new DeflaterOutputStream(compressed, deflater, BUFFER_SIZE);
+                for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+                    crc.update(buffer, 0, read);
+                    deflaterOutput.write(buffer, 0, read);
+                }
+                deflaterOutput.close();
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            compressed.discard();
+            throw e;
+        } finally {
+            deflater.end();
+            uncompressed.discard();
+        }
+        entry.crc = crc.getValue();
+        entry.size = uncompressed.size();
+        entry.compressedSize = compressed.size();
+        return compressed;
+    }
+
+    private void writeEntry(Entry entry, EntryBuffer data) throws IOException {
+        boolean zip64 = entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC;
+        if (zip64 && !allowZip64) {
+            throw new Zip64RequiredException(entry.name + "'s size exceeds the limit of 4GByte.");
+        }
+        if (offset >= ZIP64_MAGIC && !allowZip64) {
+            throw new Zip64RequiredException("archive's size exceeds the limit of 4GByte.");
+        }
+        entry.localHeaderOffset = offset;
+        ByteBuffer header = newBuffer(30 + entry.encodedName.length + (zip64 ? 20 : 0));
+        header.putInt(LOCAL_FILE_HEADER_SIG);
+        header.putShort((short) versionNeededToExtract(entry.method, zip64));
+        header.putShort((short) flags());
+        header.putShort((short) entry.method);
+        header.put(ZipUtil.toDosTime(entry.time));
+        header.putInt((int) entry.crc);
+        header.putInt((int) (zip64 ? ZIP64_MAGIC : entry.compressedSize));
+        header.putInt((int) (zip64 ? ZIP64_MAGIC : entry.size));
+        header.putShort((short) entry.encodedName.length);
+        header.putShort((short) (zip64 ? 20 : 0));
+        header.put(entry.encodedName);
+        if (zip64) {
+            header.putShort(ZIP64_EXTRA_FIELD_ID);
+            header.putShort((short) 16);
+            header.putLong(entry.size);
+            header.putLong(entry.compressedSize);
+            usedZip64 = true;
+        }
+        write(header);
+        data.writeTo(output);
+        offset += data.size();
+    }
+
+    private void writeCentralFileHeader(Entry entry) throws IOException {
+        boolean zip64 = entry.size >= ZIP64_MAGIC || entry.compressedSize >= ZIP64_MAGIC || entry.localHeaderOffset >= ZIP64_MAGIC;
+        ByteBuffer header = newBuffer(46 + entry.encodedName.length + (zip64 ? 28 : 0));
+        header.putInt(CENTRAL_FILE_HEADER_SIG);
+        header.putShort((short) ((PLATFORM_UNIX << 8) | (usedZip64 || zip64 ? ZIP64_MIN_VERSION : DEFLATE_MIN_VERSION)));
+        header.putShort((short) versionNeededToExtract(entry.method, zip64));
+        header.putShort((short) flags());
+        header.putShort((short) entry.method);
+        header.put(ZipUtil.toDosTime(entry.time));
+        header.putInt((int) entry.crc);
+        header.putInt((int) (zip64 ? ZIP64_MAGIC : entry.compressedSize));
+        header.putInt((int) (zip64 ? ZIP64_MAGIC : entry.size));
+        header.putShort((short) entry.encodedName.length);
+        header.putShort((short) (zip64 ? 28 : 0));
+        // Comment length, disk number and internal attributes
+        header.putShort((short) 0);
+        header.putShort((short) 0);
+        header.putShort((short) 0);
+        header.putInt(entry.externalAttributes());
+        header.putInt((int) (zip64 ? ZIP64_MAGIC : entry.localHeaderOffset));
+        header.put(entry.encodedName);
+        if (zip64) {
+            header.putShort(ZIP64_EXTRA_FIELD_ID);
+            header.putShort((short) 24);
+            header.putLong(entry.size);
+            header.putLong(entry.compressedSize);
+            header.putLong(entry.localHeaderOffset);
+        }
+        write(header);
+    }
+
+    private void writeEndOfCentralDirectory(long centralDirectoryOffset, long centralDirectorySize) throws IOException {
+        int entryCount = written.size();
+        boolean zip64 = entryCount >= ZIP64_MAGIC_SHORT || centralDirectoryOffset >= ZIP64_MAGIC || centralDirectorySize >= ZIP64_MAGIC;
+        if (zip64 && !allowZip64) {
+            if (entryCount >= ZIP64_MAGIC_SHORT) {
+                throw new Zip64RequiredException("archive contains more than 65535 entries.");
+            }
+            throw new Zip64RequiredException("archive's size exceeds the limit of 4GByte.");
+        }
+        if (zip64) {
+            long zip64EndOffset = offset;
+            ByteBuffer zip64End = newBuffer(56 + 20);
+            zip64End.putInt(ZIP64_END_OF_CENTRAL_DIR_SIG);
+            // Size of the remaining record
+            zip64End.putLong(44);
+            zip64End.putShort((short) ZIP64_MIN_VERSION);
+            zip64End.putShort((short) ZIP64_MIN_VERSION);
+            zip64End.putInt(0);
+            zip64End.putInt(0);
+            zip64End.putLong(entryCount);
+            zip64End.putLong(entryCount);
+            zip64End.putLong(centralDirectorySize);
+            zip64End.putLong(centralDirectoryOffset);
+            zip64End.putInt(ZIP64_END_OF_CENTRAL_DIR_LOCATOR_SIG);
+            zip64End.putInt(0);
+            zip64End.putLong(zip64EndOffset);
+            zip64End.putInt(1);
+            write(zip64End);
+        }
+        ByteBuffer end = newBuffer(22);
+        end.putInt(END_OF_CENTRAL_DIR_SIG);
+        end.putShort((short) 0);
+        end.putShort((short) 0);
+        end.putShort((short) Math.min(entryCount, ZIP64_MAGIC_SHORT));
+        end.putShort((short) Math.min(entryCount, ZIP64_MAGIC_SHORT));
+        end.putInt((int) Math.min(centralDirectorySize, ZIP64_MAGIC));
+        end.putInt((int) Math.min(centralDirectoryOffset, ZIP64_MAGIC));
+        end.putShort((short) 0);
+        write(end);
+    }
+
+    private int flags() {
+        return utf8Names ? UTF8_NAMES_FLAG : 0;
+    }
+
+    private static int versionNeededToExtract(int method, boolean zip64) {
+        if (zip64) {
+            return ZIP64_MIN_VERSION;
+        }
+        return method == ZipOutputStream.DEFLATED ? DEFLATE_MIN_VERSION : INITIAL_VERSION;
+    }
+
+    private static ByteBuffer newBuffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        output.write(buffer.array(), 0, buffer.position());
+        offset += buffer.position();
+    }
+
+    private static class Entry {
+        final String name;
+        final byte[] encodedName;
+        final long time;
+        final int mode;
+        final boolean directory;
+        int method;
+        long crc;
+        long size;
+        long compressedSize;
+        long localHeaderOffset;
+        long pendingBytes;
+        EntryBuffer data;
+        FutureTask<EntryBuffer> compression;
+
+        Entry(String name, byte[] encodedName, long time, int mode, boolean directory) {
+            this.name = name;
+            this.encodedName = encodedName;
+            this.time = time;
+            this.mode = mode;
+            this.directory = directory;
+        }
+
+        boolean isCompressed() {
+            return compression == null || compression.isDone();
+        }
+
+        EntryBuffer awaitData() throws IOException {
+            if (compression == null) {
+                return data;
+            }
+            // Compress the entry on this thread when the executor has not started it yet, rather than wait for a thread of the executor.
+            // Does nothing when the entry is being or has been compressed.
+            compression.run();
+            try {
+                return compression.get();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            }
+        }
+
+        void discard() {
+            if (compression == null || compression.cancel(false)) {
+                // Not compressed, so the buffered content is still the data of this entry
+                data.discard();
+                return;
+            }
+            try {
+                compression.get().discard();
+            } catch (Exception e) {
+                // Compression failed, and discarded its buffers
+            }
+        }
+
+        int externalAttributes() {
+            // Same layout as used by Ant: the Unix mode in the high bits, and the DOS read-only and directory flags in the low bits
+            int unixMode = mode & 0xFFFF;
+            return (unixMode << 16) | ((unixMode & 0200) == 0 ? 1 : 0) | (directory ? 0x10 : 0);
+        }
+    }
+
+    /**
+     * Buffers the content of an entry in memory, or in a temporary file once the content is larger than {@value #IN_MEMORY_LIMIT} bytes.
+     */
+    private static class EntryBuffer extends OutputStream {
+        final File temporaryDir;
+        private byte[] memory = new byte[256];
+        private int memorySize;
+        private File spillFile;
+        private OutputStream spillOutput;
+        private long size;
+
+        EntryBuffer(File temporaryDir) {
+            this.temporaryDir = temporaryDir;
+        }
+
+        long size() {
+            return size;
+        }
+
+        long inMemorySize() {
+            return spillFile == null ? memorySize : 0;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) throws IOException {
+            if (spillOutput == null && memorySize + len > IN_MEMORY_LIMIT) {
+                GFileUtils.mkdirs(temporaryDir);
+                spillFile = File.createTempFile("entry", ".tmp", temporaryDir);
+                spillOutput = new BufferedOutputStream(new FileOutputStream(spillFile), BUFFER_SIZE);
+                spillOutput.write(memory, 0, memorySize);
+                memory = null;
+            }
+            if (spillOutput != null) {
+                spillOutput.write(bytes, off, len);
+            } else {
+                if (memorySize + len > memory.length) {
+                    byte[] grown = new byte[Math.min(Math.max(memory.length * 2, memorySize + len), IN_MEMORY_LIMIT)];
+                    System.arraycopy(memory, 0, grown, 0, memorySize);
+                    memory = grown;
+                }
+                System.arraycopy(bytes, off, memory, memorySize, len);
+                memorySize += len;
+            }
+            size += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (spillOutput != null) {
+                spillOutput.close();
+            }
+        }
+
+        InputStream open() throws IOException {
+            if (spillFile != null) {
+                return new BufferedInputStream(new FileInputStream(spillFile), BUFFER_SIZE);
+            }
+            return new ByteArrayInputStream(memory, 0, memorySize);
+        }
+
+        void writeTo(OutputStream output) throws IOException {
+            if (spillFile == null) {
+                output.write(memory, 0, memorySize);
+                return;
+            }
+            InputStream input = new FileInputStream(spillFile);
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+                    output.write(buffer, 0, read);
+                }
+            } finally {
+                input.close();
+            }
+        }
+
+        void discard() {
+            memory = null;
+            if (spillFile != null) {
+                try {
+                    spillOutput.close();
+                } catch (IOException e) {
+                    // Ignore, the file is deleted anyway
+                }
+                GFileUtils.deleteQuietly(spillFile);
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.archive;
+
+import org.apache.tools.zip.ZipEncoding;
+import org.apache.tools.zip.ZipEncodingHelper;
+import org.gradle.api.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Locates the compressed content of the entries of a ZIP file, so that it can be copied to another ZIP file as it is.
+ *
+ * <p>The central directory is read when the content of an entry is first requested. Entries that cannot be located, such as entries whose name is
+ * provided by an extra field or encrypted entries, are reported as not available, and should be read using a {@link org.apache.tools.zip.ZipFile}.</p>
+ */
+class ZipCentralDirectory implements Closeable {
+    private static final int LOCAL_FILE_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_FILE_HEADER_SIG = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIR_SIG = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIR_SIG = 0x06064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIR_LOCATOR_SIG = 0x07064b50;
+    private static final int ZIP64_EXTRA_FIELD_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int END_OF_CENTRAL_DIR_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int ENCRYPTED_FLAG = 0x0001;
+    private static final int UTF8_NAMES_FLAG = 0x0800;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File zipFile;
+    private final ZipEncoding zipEncoding;
+    private RandomAccessFile file;
+    private Map<String, Location> entries;
+
+    /**
+     * @param encoding The encoding of the entry names that do not use UTF-8, or null for the platform's default encoding.
+     */
+    ZipCentralDirectory(File zipFile, @Nullable String encoding) {
+        this.zipFile = zipFile;
+        this.zipEncoding = ZipEncodingHelper.getZipEncoding(encoding);
+    }
+
+    /**
+     * Copies the compressed content of the given entry to the given output stream. Returns false when the content of the entry is not available, or
+     * when it does not have the given checksum and compressed size, in which case nothing is written.
+     */
+    boolean copyCompressedTo(String name, long crc, long compressedSize, OutputStream output) throws IOException {
+        Location location = getEntries().get(name);
+        if (location == null || location.crc != crc || location.compressedSize != compressedSize || (location.flags & ENCRYPTED_FLAG) != 0) {
+            return false;
+        }
+        ByteBuffer header = read(location.localHeaderOffset, 30);
+        if (header.getInt(0) != LOCAL_FILE_HEADER_SIG) {
+            return false;
+        }
+        long dataOffset = location.localHeaderOffset + 30 + unsignedShort(header, 26) + unsignedShort(header, 28);
+        file.seek(dataOffset);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (long remaining = compressedSize; remaining > 0;) {
+            int read = file.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new IOException(String.format("Unexpected end of ZIP file '%s'.", zipFile));
+            }
+            output.write(buffer, 0, read);
+            remaining -= read;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+            file = null;
+        }
+    }
+
+    private Map<String, Location> getEntries() throws IOException {
+        if (entries == null) {
+            file = new RandomAccessFile(zipFile, "r");
+            entries = readCentralDirectory();
+        }
+        return entries;
+    }
+
+    private Map<String, Location> readCentralDirectory() throws IOException {
+        Map<String, Location> entries = new HashMap<String, Location>();
+        long endOffset = findEndOfCentralDirectory();
+        if (endOffset < 0) {
+            return entries;
+        }
+        ByteBuffer end = read(endOffset, END_OF_CENTRAL_DIR_SIZE);
+        long centralDirectorySize = unsignedInt(end, 12);
+        long centralDirectoryOffset = unsignedInt(end, 16);
+        if ((centralDirectorySize == ZIP64_MAGIC || centralDirectoryOffset == ZIP64_MAGIC) && endOffset >= 20) {
+            ByteBuffer locator = read(endOffset - 20, 20);
+            if (locator.getInt(0) != ZIP64_END_OF_CENTRAL_DIR_LOCATOR_SIG) {
+                return entries;
+            }
+            ByteBuffer zip64End = read(locator.getLong(8), 56);
+            if (zip64End.getInt(0) != ZIP64_END_OF_CENTRAL_DIR_SIG) {
+                return entries;
+            }
+            centralDirectorySize = zip64End.getLong(40);
+            centralDirectoryOffset = zip64End.getLong(48);
+        }
+        if (centralDirectorySize > Integer.MAX_VALUE) {
+            return entries;
+        }
+
+        ByteBuffer centralDirectory = read(centralDirectoryOffset, (int) centralDirectorySize);
+        int pos = 0;
+        while (pos + 46 <= centralDirectory.limit() && centralDirectory.getInt(pos) == CENTRAL_FILE_HEADER_SIG) {
+            int flags = unsignedShort(centralDirectory, pos + 8);
+            long crc = unsignedInt(centralDirectory, pos + 16);
+            long compressedSize = unsignedInt(centralDirectory, pos + 20);
+            long size = unsignedInt(centralDirectory, pos + 24);
+            int nameLength = unsignedShort(centralDirectory, pos + 28);
+            int extraLength = unsignedShort(centralDirectory, pos + 30);
+            int commentLength = unsignedShort(centralDirectory, pos + 32);
+            long localHeaderOffset = unsignedInt(centralDirectory, pos + 42);
+
+            byte[] name = new byte[nameLength];
+            centralDirectory.position(pos + 46);
+            centralDirectory.get(name);
+
+            // Sizes and offset that do not fit are in the Zip64 extra field, in this order
+            int extraPos = pos + 46 + nameLength;
+            int extraEnd = extraPos + extraLength;
+            while (extraPos + 4 <= extraEnd) {
+                int id = unsignedShort(centralDirectory, extraPos);
+                int length = unsignedShort(centralDirectory, extraPos + 2);
+                if (id == ZIP64_EXTRA_FIELD_ID) {
+                    int fieldPos = extraPos + 4;
+                    if (size == ZIP64_MAGIC) {
+                        fieldPos += 8;
+                    }
+                    if (compressedSize == ZIP64_MAGIC) {
+                        compressedSize = centralDirectory.getLong(fieldPos);
+                        fieldPos += 8;
+                    }
+                    if (localHeaderOffset == ZIP64_MAGIC) {
+                        localHeaderOffset = centralDirectory.getLong(fieldPos);
+                    }
+                }
+                extraPos += 4 + length;
+            }
+
+            String decodedName = (flags & UTF8_NAMES_FLAG) != 0 ? new String(name, "UTF-8") : zipEncoding.decode(name);
+            entries.put(decodedName, new Location(flags, crc, compressedSize, localHeaderOffset));
+            pos += 46 + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    private long findEndOfCentralDirectory() throws IOException {
+        long length = file.length();
+        if (length < END_OF_CENTRAL_DIR_SIZE) {
+            return -1;
+        }
+        int searchLength = (int) Math.min(length, END_OF_CENTRAL_DIR_SIZE + MAX_COMMENT_SIZE);
+        ByteBuffer tail = read(length - searchLength, searchLength);
+        for (int pos = searchLength - END_OF_CENTRAL_DIR_SIZE; pos >= 0; pos--) {
+            if (tail.getInt(pos) == END_OF_CENTRAL_DIR_SIG) {
+                return length - searchLength + pos;
+            }
+        }
+        return -1;
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        file.seek(offset);
+        file.readFully(bytes);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int unsignedShort(ByteBuffer buffer, int pos) {
+        return buffer.getShort(pos) & 0xFFFF;
+    }
+
+    private static long unsignedInt(ByteBuffer buffer, int pos) {
+        return buffer.getInt(pos) & ZIP64_MAGIC;
+    }
+
+    private static class Location {
+        final int flags;
+        final long crc;
+        final long compressedSize;
+        final long localHeaderOffset;
+
+        Location(int flags, long crc, long compressedSize, long localHeaderOffset) {
+            this.flags = flags;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+}
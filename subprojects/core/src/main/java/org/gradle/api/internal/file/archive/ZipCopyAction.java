@@ -15,14 +15,13 @@
  */
 package org.gradle.api.internal.file.archive;
 
-import org.apache.tools.zip.UnixStat;
 import org.apache.tools.zip.Zip64RequiredException;
-import org.apache.tools.zip.ZipEntry;
-import org.apache.tools.zip.ZipOutputStream;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
+import org.gradle.api.Nullable;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.FileCopyDetails;
+import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
 import org.gradle.api.internal.file.copy.CopyAction;
@@ -33,38 +32,94 @@ import org.gradle.api.internal.tasks.SimpleWorkResult;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.bundling.Zip;
 import org.gradle.internal.IoActions;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.util.GUtil;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
 
+/**
+ * Writes the files of a copy spec to a ZIP archive. When a build operation processor is provided, the entries are compressed in parallel, as build
+ * operations that share the worker leases of the build. Files that are copied unchanged from another ZIP archive, and use the compression method of the
+ * archive, are copied without decompressing and compressing them again.
+ */
 public class ZipCopyAction implements CopyAction {
     private final File zipFile;
     private final ZipCompressor compressor;
     private final DocumentationRegistry documentationRegistry;
     private final String encoding;
     private final boolean preserveFileTimestamps;
+    private final File temporaryDir;
+    private final BuildOperationProcessor buildOperationProcessor;
+
+    public ZipCopyAction(File zipFile, ZipCompressor compressor, DocumentationRegistry documentationRegistry, String encoding, boolean preserveFileTimestamps, File temporaryDir) {
+        this(zipFile, compressor, documentationRegistry, encoding, preserveFileTimestamps, temporaryDir, null);
+    }
 
-    public ZipCopyAction(File zipFile, ZipCompressor compressor, DocumentationRegistry documentationRegistry, String encoding, boolean preserveFileTimestamps) {
+    public ZipCopyAction(File zipFile, ZipCompressor compressor, DocumentationRegistry documentationRegistry, String encoding, boolean preserveFileTimestamps,
+                         File temporaryDir, @Nullable BuildOperationProcessor buildOperationProcessor) {
         this.zipFile = zipFile;
         this.compressor = compressor;
         this.documentationRegistry = documentationRegistry;
         this.encoding = encoding;
         this.preserveFileTimestamps = preserveFileTimestamps;
+        this.temporaryDir = temporaryDir;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
     public WorkResult execute(final CopyActionProcessingStream stream) {
-        final ZipOutputStream zipOutStr;
+        if (buildOperationProcessor == null) {
+            write(stream, null);
+        } else {
+            writeInParallel(stream);
+        }
+        return new SimpleWorkResult(true);
+    }
+
+    private void writeInParallel(final CopyActionProcessingStream stream) {
+        final RuntimeException[] failure = new RuntimeException[1];
+        buildOperationProcessor.run(new Action<BuildOperationQueue<CompressEntry>>() {
+            public void execute(final BuildOperationQueue<CompressEntry> queue) {
+                try {
+                    write(stream, new Executor() {
+                        public void execute(Runnable compression) {
+                            queue.add(new CompressEntry(compression));
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    // Rethrow the failure as it is, rather than as a failure to populate the queue
+                    failure[0] = e;
+                    queue.cancel();
+                }
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    private void write(final CopyActionProcessingStream stream, @Nullable Executor executor) {
+        final ZipArchiveWriter writer;
 
         try {
-            zipOutStr = compressor.createArchiveOutputStream(zipFile);
+            writer = compressor.createArchiveWriter(zipFile, encoding, executor, temporaryDir);
         } catch (Exception e) {
             throw new GradleException(String.format("Could not create ZIP '%s'.", zipFile), e);
         }
 
         try {
-            IoActions.withResource(zipOutStr, new Action<ZipOutputStream>() {
-                public void execute(ZipOutputStream outputStream) {
-                    stream.process(new StreamAction(outputStream, encoding));
+            IoActions.withResource(writer, new Action<ZipArchiveWriter>() {
+                public void execute(ZipArchiveWriter writer) {
+                    stream.process(new StreamAction(writer));
+                    try {
+                        writer.finish();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
                 }
             });
         } catch (UncheckedIOException e) {
@@ -73,19 +128,15 @@ public class ZipCopyAction implements CopyAction {
                         String.format("%s\n\nTo build this archive, please enable the zip64 extension.\nSee: %s", e.getCause().getMessage(), documentationRegistry.getDslRefForProperty(Zip.class, "zip64"))
                 );
             }
+            throw e;
         }
-
-        return new SimpleWorkResult(true);
     }
 
     private class StreamAction implements CopyActionProcessingStreamAction {
-        private final ZipOutputStream zipOutStr;
+        private final ZipArchiveWriter writer;
 
-        public StreamAction(ZipOutputStream zipOutStr, String encoding) {
-            this.zipOutStr = zipOutStr;
-            if (encoding != null) {
-                this.zipOutStr.setEncoding(encoding);
-            }
+        public StreamAction(ZipArchiveWriter writer) {
+            this.writer = writer;
         }
 
         public void processFile(FileCopyDetailsInternal details) {
@@ -96,14 +147,23 @@ public class ZipCopyAction implements CopyAction {
             }
         }
 
-        private void visitFile(FileCopyDetails fileDetails) {
+        private void visitFile(final FileCopyDetailsInternal fileDetails) {
             try {
-                ZipEntry archiveEntry = new ZipEntry(fileDetails.getRelativePath().getPathString());
-                archiveEntry.setTime(getArchiveTimeFor(fileDetails));
-                archiveEntry.setUnixMode(UnixStat.FILE_FLAG | fileDetails.getMode());
-                zipOutStr.putNextEntry(archiveEntry);
-                fileDetails.copyTo(zipOutStr);
-                zipOutStr.closeEntry();
+                String path = fileDetails.getRelativePath().getPathString();
+                long time = getArchiveTimeFor(fileDetails);
+                FileVisitDetails source = fileDetails.getUnfilteredSource();
+                if (source instanceof CompressedZipEntry) {
+                    CompressedZipEntry entry = (CompressedZipEntry) source;
+                    if (entry.getCompressionMethod() == writer.getMethod()
+                        && writer.addCompressedFile(path, time, fileDetails.getMode(), entry.getCompressionMethod(), entry.getCrc(), entry.getCompressedSize(), entry.getSize(), entry)) {
+                        return;
+                    }
+                }
+                writer.addFile(path, time, fileDetails.getMode(), new Action<OutputStream>() {
+                    public void execute(OutputStream outputStream) {
+                        fileDetails.copyTo(outputStream);
+                    }
+                });
             } catch (Exception e) {
                 throw new GradleException(String.format("Could not add %s to ZIP '%s'.", fileDetails, zipFile), e);
             }
@@ -111,12 +171,7 @@ public class ZipCopyAction implements CopyAction {
 
         private void visitDir(FileCopyDetails dirDetails) {
             try {
-                // Trailing slash in name indicates that entry is a directory
-                ZipEntry archiveEntry = new ZipEntry(dirDetails.getRelativePath().getPathString() + '/');
-                archiveEntry.setTime(getArchiveTimeFor(dirDetails));
-                archiveEntry.setUnixMode(UnixStat.DIR_FLAG | dirDetails.getMode());
-                zipOutStr.putNextEntry(archiveEntry);
-                zipOutStr.closeEntry();
+                writer.addDirectory(dirDetails.getRelativePath().getPathString(), getArchiveTimeFor(dirDetails), dirDetails.getMode());
             } catch (Exception e) {
                 throw new GradleException(String.format("Could not add %s to ZIP '%s'.", dirDetails, zipFile), e);
             }
@@ -126,4 +181,23 @@ public class ZipCopyAction implements CopyAction {
     private long getArchiveTimeFor(FileCopyDetails details) {
         return preserveFileTimestamps ? details.getLastModified() : GUtil.CONSTANT_TIME_FOR_ZIP_ENTRIES;
     }
+
+    private class CompressEntry implements RunnableBuildOperation {
+        private final Runnable compression;
+
+        CompressEntry(Runnable compression) {
+            this.compression = compression;
+        }
+
+        @Override
+        public void run() {
+            // Does nothing when the writer has already compressed the entry on its own thread
+            compression.run();
+        }
+
+        @Override
+        public String getDescription() {
+            return "Compress entry of ZIP '" + zipFile + "'";
+        }
+    }
 }
@@ -20,7 +20,6 @@ import org.apache.tools.zip.ZipFile;
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.UncheckedIOException;
-import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.AbstractFileTreeElement;
@@ -33,6 +32,7 @@ import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.Map;
@@ -73,6 +73,7 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
 
         try {
             ZipFile zip = new ZipFile(zipFile);
+            ZipCentralDirectory centralDirectory = new ZipCentralDirectory(zipFile, null);
             try {
                 // The iteration order of zip.getEntries() is based on the hash of the zip entry. This isn't much use
                 // to us. So, collect the entries in a map and iterate over them in alphabetical order.
@@ -86,12 +87,13 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
                 while (!stopFlag.get() && sortedEntries.hasNext()) {
                     ZipEntry entry = sortedEntries.next();
                     if (entry.isDirectory()) {
-                        visitor.visitDir(new DetailsImpl(entry, zip, stopFlag, chmod));
+                        visitor.visitDir(new DetailsImpl(entry, zip, centralDirectory, stopFlag, chmod));
                     } else {
-                        visitor.visitFile(new DetailsImpl(entry, zip, stopFlag, chmod));
+                        visitor.visitFile(new DetailsImpl(entry, zip, centralDirectory, stopFlag, chmod));
                     }
                 }
             } finally {
+                centralDirectory.close();
                 zip.close();
             }
         } catch (Exception e) {
@@ -103,16 +105,18 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
         return zipFile;
     }
 
-    private class DetailsImpl extends AbstractFileTreeElement implements FileVisitDetails {
+    private class DetailsImpl extends AbstractFileTreeElement implements ArchiveEntryDetails, CompressedZipEntry {
         private final ZipEntry entry;
         private final ZipFile zip;
+        private final ZipCentralDirectory centralDirectory;
         private final AtomicBoolean stopFlag;
         private File file;
 
-        public DetailsImpl(ZipEntry entry, ZipFile zip, AtomicBoolean stopFlag, Chmod chmod) {
+        public DetailsImpl(ZipEntry entry, ZipFile zip, ZipCentralDirectory centralDirectory, AtomicBoolean stopFlag, Chmod chmod) {
             super(chmod);
             this.entry = entry;
             this.zip = zip;
+            this.centralDirectory = centralDirectory;
             this.stopFlag = stopFlag;
         }
 
@@ -124,6 +128,14 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
             stopFlag.set(true);
         }
 
+        public File getArchiveFile() {
+            return zipFile;
+        }
+
+        public String getVirtualPath() {
+            return zipFile.getAbsolutePath() + "!/" + getRelativePath().getPathString();
+        }
+
         public File getFile() {
             if (file == null) {
                 file = new File(tmpDir, entry.getName());
@@ -155,6 +167,22 @@ public class ZipFileTree implements MinimalFileTree, FileSystemMirroringFileTree
             }
         }
 
+        public int getCompressionMethod() {
+            return entry.getMethod();
+        }
+
+        public long getCrc() {
+            return entry.getCrc();
+        }
+
+        public long getCompressedSize() {
+            return entry.getCompressedSize();
+        }
+
+        public boolean writeTo(OutputStream output) throws IOException {
+            return centralDirectory.copyCompressedTo(entry.getName(), entry.getCrc(), entry.getCompressedSize(), output);
+        }
+
         public RelativePath getRelativePath() {
             return new RelativePath(!entry.isDirectory(), entry.getName().split("/"));
         }
@@ -19,9 +19,11 @@ import org.apache.commons.io.IOUtils;
 import org.apache.tools.zip.Zip64Mode;
 import org.apache.tools.zip.ZipOutputStream;
 import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.file.archive.ZipArchiveWriter;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 public class DefaultZipCompressor implements ZipCompressor {
     private final int entryCompressionMethod;
@@ -45,4 +47,8 @@ public class DefaultZipCompressor implements ZipCompressor {
         }
     }
 
+    public ZipArchiveWriter createArchiveWriter(File destination, String encoding, Executor executor, File temporaryDir) throws IOException {
+        return new ZipArchiveWriter(destination, entryCompressionMethod, zip64Mode != Zip64Mode.Never, encoding, executor, temporaryDir);
+    }
+
 }
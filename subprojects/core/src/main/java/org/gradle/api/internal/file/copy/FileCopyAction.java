@@ -15,36 +15,188 @@
  */
 package org.gradle.api.internal.file.copy;
 
+import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.api.internal.file.DefaultFileTreeElement;
 import org.gradle.api.internal.tasks.SimpleWorkResult;
 import org.gradle.api.tasks.WorkResult;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.file.PathToFileResolver;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.util.GFileUtils;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
+/**
+ * Copies the files of a copy spec to a destination directory. When a build operation processor is provided, the files that are copied unchanged from
+ * the file system are copied in parallel, as build operations that share the worker leases of the build. Other files, such as filtered files, are copied
+ * on the calling thread. A file is never copied before an earlier file with the same destination.
+ */
 public class FileCopyAction implements CopyAction {
+    private static final int MAX_PENDING_COPIES = 256;
 
     private final PathToFileResolver fileResolver;
+    private final BuildOperationProcessor buildOperationProcessor;
 
     public FileCopyAction(PathToFileResolver fileResolver) {
+        this(fileResolver, null);
+    }
+
+    public FileCopyAction(PathToFileResolver fileResolver, @Nullable BuildOperationProcessor buildOperationProcessor) {
         this.fileResolver = fileResolver;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
-    public WorkResult execute(CopyActionProcessingStream stream) {
-        FileCopyDetailsInternalAction action = new FileCopyDetailsInternalAction();
-        stream.process(action);
-        return new SimpleWorkResult(action.didWork);
+    public WorkResult execute(final CopyActionProcessingStream stream) {
+        if (buildOperationProcessor == null) {
+            FileCopyDetailsInternalAction action = new FileCopyDetailsInternalAction(null);
+            stream.process(action);
+            return new SimpleWorkResult(action.didWork);
+        }
+
+        final boolean[] didWork = new boolean[1];
+        final RuntimeException[] failure = new RuntimeException[1];
+        buildOperationProcessor.run(new Action<BuildOperationQueue<CopyFile>>() {
+            public void execute(BuildOperationQueue<CopyFile> queue) {
+                FileCopyDetailsInternalAction action = new FileCopyDetailsInternalAction(queue);
+                try {
+                    stream.process(action);
+                    action.waitForPendingCopies(0);
+                    didWork[0] = action.didWork;
+                } catch (RuntimeException e) {
+                    // Rethrow the failure as it is, rather than as a failure to populate the queue
+                    failure[0] = e;
+                    action.cancelPendingCopies();
+                    queue.cancel();
+                }
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return new SimpleWorkResult(didWork[0]);
     }
 
     private class FileCopyDetailsInternalAction implements CopyActionProcessingStreamAction {
+        private final BuildOperationQueue<CopyFile> queue;
+        private final LinkedList<PendingCopy> pendingCopies = new LinkedList<PendingCopy>();
+        private final Map<File, PendingCopy> pendingCopiesByTarget = new HashMap<File, PendingCopy>();
+        private final Set<File> createdDirs = new HashSet<File>();
         private boolean didWork;
 
-        public void processFile(FileCopyDetailsInternal details) {
-            File target = fileResolver.resolve(details.getRelativePath().getPathString());
-            boolean copied = details.copyTo(target);
+        FileCopyDetailsInternalAction(@Nullable BuildOperationQueue<CopyFile> queue) {
+            this.queue = queue;
+        }
+
+        public void processFile(final FileCopyDetailsInternal details) {
+            final File target = fileResolver.resolve(details.getRelativePath().getPathString());
+            PendingCopy previousCopy = pendingCopiesByTarget.get(target);
+            if (previousCopy != null) {
+                complete(previousCopy);
+            }
+            if (queue != null && canCopyInParallel(details)) {
+                // Directories are created here, once each, rather than by each copy
+                createParentDir(target);
+                PendingCopy copy = new PendingCopy(target, new Callable<Boolean>() {
+                    public Boolean call() {
+                        return details.copyTo(target);
+                    }
+                });
+                pendingCopies.add(copy);
+                pendingCopiesByTarget.put(target, copy);
+                queue.add(new CopyFile(copy));
+                waitForPendingCopies(MAX_PENDING_COPIES);
+            } else {
+                boolean copied = details.copyTo(target);
+                if (copied) {
+                    didWork = true;
+                }
+                if (details.isDirectory()) {
+                    createdDirs.add(target);
+                }
+            }
+        }
+
+        private boolean canCopyInParallel(FileCopyDetailsInternal details) {
+            FileVisitDetails source = details.getUnfilteredSource();
+            return source instanceof DefaultFileTreeElement && !source.isDirectory();
+        }
+
+        private void createParentDir(File target) {
+            File parent = target.getParentFile();
+            if (createdDirs.add(parent)) {
+                GFileUtils.mkdirs(parent);
+            }
+        }
+
+        void waitForPendingCopies(int maxPendingCopies) {
+            while (pendingCopies.size() > maxPendingCopies) {
+                complete(pendingCopies.getFirst());
+            }
+        }
+
+        void cancelPendingCopies() {
+            for (PendingCopy copy : pendingCopies) {
+                copy.cancel(false);
+            }
+        }
+
+        private void complete(PendingCopy copy) {
+            // Copies the file on this thread when no worker has started copying it yet
+            copy.run();
+            boolean copied;
+            try {
+                copied = copy.get();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } catch (ExecutionException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            }
+            pendingCopies.remove(copy);
+            pendingCopiesByTarget.remove(copy.target);
             if (copied) {
                 didWork = true;
             }
         }
     }
+
+    private static class PendingCopy extends FutureTask<Boolean> {
+        private final File target;
+
+        PendingCopy(File target, Callable<Boolean> copy) {
+            super(copy);
+            this.target = target;
+        }
+    }
+
+    private static class CopyFile implements RunnableBuildOperation {
+        private final PendingCopy copy;
+
+        CopyFile(PendingCopy copy) {
+            this.copy = copy;
+        }
+
+        @Override
+        public void run() {
+            // Does nothing when the file has already been copied on the thread of the task
+            copy.run();
+        }
+
+        @Override
+        public String getDescription() {
+            return "Copy " + copy.target;
+        }
+    }
 }
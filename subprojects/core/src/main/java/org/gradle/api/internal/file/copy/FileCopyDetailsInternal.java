@@ -16,10 +16,27 @@
 
 package org.gradle.api.internal.file.copy;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileCopyDetails;
+import org.gradle.api.file.FileVisitDetails;
+
+import java.io.File;
 
 public interface FileCopyDetailsInternal extends FileCopyDetails {
 
     boolean isIncludeEmptyDirs();
 
+    /**
+     * Returns the source file when this file has the same content, that is, when no filters are applied to it. Returns null otherwise.
+     */
+    @Nullable
+    FileVisitDetails getUnfilteredSource();
+
+    /**
+     * Returns the file in the file system that this file is copied from, whether or not filters are applied to it. Returns null when this file is not copied
+     * from a file in the file system, for example when it is copied from an archive.
+     */
+    @Nullable
+    File getSourceFile();
+
 }
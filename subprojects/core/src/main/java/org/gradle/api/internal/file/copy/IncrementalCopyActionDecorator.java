@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.io.Files;
+import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction;
+import org.gradle.api.internal.tasks.SimpleWorkResult;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
+import org.gradle.api.tasks.incremental.InputFileDetails;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Only copies the files whose source has changed since the previous execution of a task, when the task is executed incrementally.
+ *
+ * <p>A file is copied again when it is not copied from a file in the file system, when its source has been added or modified, when its destination does not
+ * exist or when another file is copied to the same destination. When a record file is provided, the destinations of the copied files are written to it, and
+ * destinations that were copied by the previous execution but not by this one are deleted when some source files have been removed.</p>
+ */
+public class IncrementalCopyActionDecorator implements CopyAction {
+    private final File baseDestDir;
+    private final IncrementalTaskInputs inputs;
+    private final File copiedFilesRecord;
+    private final CopyAction delegate;
+
+    public IncrementalCopyActionDecorator(File baseDestDir, IncrementalTaskInputs inputs, @Nullable File copiedFilesRecord, CopyAction delegate) {
+        this.baseDestDir = baseDestDir;
+        this.inputs = inputs;
+        this.copiedFilesRecord = copiedFilesRecord;
+        this.delegate = delegate;
+    }
+
+    public WorkResult execute(final CopyActionProcessingStream stream) {
+        final Set<File> changedSourceFiles = new HashSet<File>();
+        final Set<File> removedSourceFiles = new HashSet<File>();
+        if (inputs.isIncremental()) {
+            inputs.outOfDate(new Action<InputFileDetails>() {
+                public void execute(InputFileDetails details) {
+                    changedSourceFiles.add(details.getFile().getAbsoluteFile());
+                }
+            });
+            inputs.removed(new Action<InputFileDetails>() {
+                public void execute(InputFileDetails details) {
+                    removedSourceFiles.add(details.getFile().getAbsoluteFile());
+                }
+            });
+        }
+
+        final Set<String> destinations = new HashSet<String>();
+        WorkResult didWork = delegate.execute(new CopyActionProcessingStream() {
+            public void process(final CopyActionProcessingStreamAction action) {
+                stream.process(new CopyActionProcessingStreamAction() {
+                    public void processFile(FileCopyDetailsInternal details) {
+                        String destination = details.getRelativePath().getPathString();
+                        boolean firstCopyToDestination = destinations.add(destination);
+                        if (inputs.isIncremental() && firstCopyToDestination && isUpToDate(details, changedSourceFiles)) {
+                            return;
+                        }
+                        action.processFile(details);
+                    }
+                });
+            }
+        });
+
+        boolean deletedFiles = false;
+        if (copiedFilesRecord != null) {
+            if (!removedSourceFiles.isEmpty()) {
+                deletedFiles = deleteStaleFiles(destinations);
+            }
+            writeRecord(destinations);
+        }
+        return new SimpleWorkResult(didWork.getDidWork() || deletedFiles);
+    }
+
+    private boolean isUpToDate(FileCopyDetailsInternal details, Set<File> changedSourceFiles) {
+        if (details.isDirectory()) {
+            return false;
+        }
+        File sourceFile = details.getSourceFile();
+        return sourceFile != null
+            && !changedSourceFiles.contains(sourceFile.getAbsoluteFile())
+            && details.getRelativePath().getFile(baseDestDir).isFile();
+    }
+
+    private boolean deleteStaleFiles(Set<String> destinations) {
+        boolean deletedFiles = false;
+        for (String previousDestination : readRecord()) {
+            if (!destinations.contains(previousDestination)) {
+                File staleFile = new File(baseDestDir, previousDestination);
+                if (staleFile.isFile()) {
+                    GFileUtils.deleteQuietly(staleFile);
+                    deletedFiles = true;
+                }
+            }
+        }
+        return deletedFiles;
+    }
+
+    private List<String> readRecord() {
+        if (!copiedFilesRecord.isFile()) {
+            return Collections.emptyList();
+        }
+        try {
+            return Files.readLines(copiedFilesRecord, Charsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not read copied files from '%s'.", copiedFilesRecord), e);
+        }
+    }
+
+    private void writeRecord(Set<String> destinations) {
+        try {
+            GFileUtils.mkdirs(copiedFilesRecord.getParentFile());
+            Files.write(Joiner.on('\n').join(destinations), copiedFilesRecord, Charsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not write copied files to '%s'.", copiedFilesRecord), e);
+        }
+    }
+}
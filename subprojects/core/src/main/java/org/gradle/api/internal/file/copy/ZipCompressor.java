@@ -16,13 +16,22 @@
 package org.gradle.api.internal.file.copy;
 
 import org.apache.tools.zip.ZipOutputStream;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.file.archive.ZipArchiveWriter;
 import org.gradle.api.internal.file.archive.compression.ArchiveOutputStreamFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 public interface ZipCompressor extends ArchiveOutputStreamFactory {
 
     ZipOutputStream createArchiveOutputStream(File destination) throws IOException;
 
+    /**
+     * Creates a writer for the given archive, which compresses the entries using the given executor, or on the calling thread when the executor is null.
+     * Large entries are buffered in the given temporary directory.
+     */
+    ZipArchiveWriter createArchiveWriter(File destination, @Nullable String encoding, @Nullable Executor executor, File temporaryDir) throws IOException;
+
 }
@@ -21,6 +21,7 @@ import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.internal.file.archive.ArchiveEntryDetails;
 import org.gradle.internal.nativeintegration.filesystem.FileMetadataSnapshot;
 import org.gradle.internal.resource.TextResource;
 
@@ -102,6 +103,10 @@ public class DefaultFileHasher implements FileHasher {
 
     @Override
     public HashCode hash(FileTreeElement fileDetails) {
+        if (fileDetails instanceof ArchiveEntryDetails) {
+            // Read the entry from the archive, rather than extracting it first
+            return hash(fileDetails.open());
+        }
         return hash(fileDetails.getFile());
     }
 
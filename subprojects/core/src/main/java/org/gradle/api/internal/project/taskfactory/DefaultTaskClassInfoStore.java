@@ -30,6 +30,7 @@ import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.internal.Factory;
+import org.gradle.internal.reflect.JavaMethod;
 import org.gradle.internal.reflect.JavaReflectionUtil;
 
 import java.lang.reflect.Method;
@@ -38,11 +39,17 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * Caches the information about task types. This is a global service, so that the information is reused by later builds in the same process
+ * for as long as the task types are still loaded.
+ */
 public class DefaultTaskClassInfoStore implements TaskClassInfoStore {
     private final TaskClassValidatorExtractor validatorExtractor;
 
+    // The information about a type references the type itself, so the values are softly referenced to allow the types of previous builds to be collected
     private final LoadingCache<Class<? extends Task>, TaskClassInfo> classInfos = CacheBuilder.newBuilder()
         .weakKeys()
+        .softValues()
         .build(new CacheLoader<Class<? extends Task>, TaskClassInfo>() {
             @Override
             public TaskClassInfo load(Class<? extends Task> type) throws Exception {
@@ -122,23 +129,25 @@ public class DefaultTaskClassInfoStore implements TaskClassInfoStore {
 
     private static class StandardTaskAction implements ClassLoaderAwareTaskAction {
         private final Method method;
+        protected final JavaMethod<Object, Object> javaMethod;
 
         public StandardTaskAction(Method method) {
             this.method = method;
+            this.javaMethod = JavaReflectionUtil.method(Object.class, method);
         }
 
         public void execute(Task task) {
             ClassLoader original = Thread.currentThread().getContextClassLoader();
             Thread.currentThread().setContextClassLoader(method.getDeclaringClass().getClassLoader());
             try {
-                doExecute(task, method.getName());
+                doExecute(task);
             } finally {
                 Thread.currentThread().setContextClassLoader(original);
             }
         }
 
-        protected void doExecute(Task task, String methodName) {
-            JavaReflectionUtil.method(task, Object.class, methodName).invoke(task);
+        protected void doExecute(Task task) {
+            javaMethod.invoke(task);
         }
 
         @Override
@@ -159,8 +168,8 @@ public class DefaultTaskClassInfoStore implements TaskClassInfoStore {
             this.taskArtifactState = context == null ? null : context.getTaskArtifactState();
         }
 
-        protected void doExecute(Task task, String methodName) {
-            JavaReflectionUtil.method(task, Object.class, methodName, IncrementalTaskInputs.class).invoke(task, taskArtifactState.getInputChanges());
+        protected void doExecute(Task task) {
+            javaMethod.invoke(task, taskArtifactState.getInputChanges());
             taskArtifactState = null;
         }
     }
@@ -18,6 +18,7 @@ package org.gradle.api.internal.project.taskfactory;
 
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.internal.Factory;
+import org.gradle.internal.reflect.JavaMethod;
 import org.gradle.internal.reflect.JavaReflectionUtil;
 import org.gradle.util.DeprecationLogger;
 
@@ -50,7 +51,7 @@ public class TaskPropertyInfo implements Comparable<TaskPropertyInfo> {
     private final TaskPropertyInfo parent;
     private final String propertyName;
     private final Class<? extends Annotation> propertyType;
-    private final Method method;
+    private final JavaMethod<Object, Object> getter;
     private final ValidationAction validationAction;
     private final UpdateAction configureAction;
     private final boolean optional;
@@ -59,7 +60,8 @@ public class TaskPropertyInfo implements Comparable<TaskPropertyInfo> {
         this.parent = parent;
         this.propertyName = propertyName;
         this.propertyType = propertyType;
-        this.method = method;
+        // Look up the getter once, rather than on each read of the property value
+        this.getter = JavaReflectionUtil.method(Object.class, method);
         this.validationAction = validationAction == null ? NO_OP_VALIDATION_ACTION : validationAction;
         this.configureAction = configureAction == null ? NO_OP_CONFIGURATION_ACTION : configureAction;
         this.optional = optional;
@@ -96,7 +98,7 @@ public class TaskPropertyInfo implements Comparable<TaskPropertyInfo> {
 
         final Object value = DeprecationLogger.whileDisabled(new Factory<Object>() {
             public Object create() {
-                return JavaReflectionUtil.method(Object.class, method).invoke(bean);
+                return getter.invoke(bean);
             }
         });
 
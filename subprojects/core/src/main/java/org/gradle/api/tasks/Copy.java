@@ -16,12 +16,16 @@
 
 package org.gradle.api.tasks;
 
+import org.gradle.api.Incubating;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.CopySpecInternal;
 import org.gradle.api.internal.file.copy.DestinationRootCopySpec;
 import org.gradle.api.internal.file.copy.FileCopyAction;
+import org.gradle.api.internal.file.copy.IncrementalCopyActionDecorator;
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.internal.reflect.Instantiator;
 
 import java.io.File;
@@ -69,6 +73,23 @@ import java.io.File;
  */
 @ParallelizableTask
 public class Copy extends AbstractCopyTask {
+    private IncrementalTaskInputs inputs;
+
+    /**
+     * Copies the files. When the task is executed incrementally, only the files whose source has changed since the previous execution are copied.
+     *
+     * @since 3.5
+     */
+    @Incubating
+    @TaskAction
+    protected void copy(IncrementalTaskInputs inputs) {
+        this.inputs = inputs;
+        try {
+            copy();
+        } finally {
+            this.inputs = null;
+        }
+    }
 
     @Override
     protected CopyAction createCopyAction() {
@@ -76,7 +97,15 @@ public class Copy extends AbstractCopyTask {
         if (destinationDir == null) {
             throw new InvalidUserDataException("No copy destination directory has been specified, use 'into' to specify a target directory.");
         }
-        return new FileCopyAction(getFileLookup().getFileResolver(destinationDir));
+        // Copy files in parallel only when other workers may run, as the thread of the task keeps visiting the files meanwhile
+        boolean parallel = getProject().getGradle().getStartParameter().getMaxWorkerCount() > 1;
+        BuildOperationProcessor buildOperationProcessor = parallel ? getServices().get(BuildOperationProcessor.class) : null;
+        CopyAction copyAction = new FileCopyAction(getFileLookup().getFileResolver(destinationDir), buildOperationProcessor);
+        if (inputs != null) {
+            // Remember the copied files, so that the files copied from removed sources can be deleted
+            copyAction = new IncrementalCopyActionDecorator(destinationDir, inputs, new File(getTemporaryDir(), "copied-files.txt"), copyAction);
+        }
+        return copyAction;
     }
 
     @Override
@@ -24,9 +24,12 @@ import org.gradle.api.internal.file.copy.CopyAction;
 import org.gradle.api.internal.file.copy.CopySpecInternal;
 import org.gradle.api.internal.file.copy.DestinationRootCopySpec;
 import org.gradle.api.internal.file.copy.FileCopyAction;
+import org.gradle.api.internal.file.copy.IncrementalCopyActionDecorator;
 import org.gradle.api.internal.file.copy.SyncCopyActionDecorator;
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.internal.reflect.Instantiator;
 
 import java.io.File;
@@ -67,6 +70,23 @@ import java.io.File;
 public class Sync extends AbstractCopyTask {
 
     private final PatternFilterable preserveInDestination = new PatternSet();
+    private IncrementalTaskInputs inputs;
+
+    /**
+     * Copies the files. When the task is executed incrementally, only the files whose source has changed since the previous execution are copied.
+     *
+     * @since 3.5
+     */
+    @Incubating
+    @TaskAction
+    protected void copy(IncrementalTaskInputs inputs) {
+        this.inputs = inputs;
+        try {
+            copy();
+        } finally {
+            this.inputs = null;
+        }
+    }
 
     @Override
     protected CopyAction createCopyAction() {
@@ -74,7 +94,15 @@ public class Sync extends AbstractCopyTask {
         if (destinationDir == null) {
             throw new InvalidUserDataException("No copy destination directory has been specified, use 'into' to specify a target directory.");
         }
-        return new SyncCopyActionDecorator(destinationDir, new FileCopyAction(getFileLookup().getFileResolver(destinationDir)), preserveInDestination);
+        // Copy files in parallel only when other workers may run, as the thread of the task keeps visiting the files meanwhile
+        boolean parallel = getProject().getGradle().getStartParameter().getMaxWorkerCount() > 1;
+        BuildOperationProcessor buildOperationProcessor = parallel ? getServices().get(BuildOperationProcessor.class) : null;
+        CopyAction copyAction = new FileCopyAction(getFileLookup().getFileResolver(destinationDir), buildOperationProcessor);
+        if (inputs != null) {
+            // Files that are no longer copied are deleted when synchronizing the destination directory
+            copyAction = new IncrementalCopyActionDecorator(destinationDir, inputs, null, copyAction);
+        }
+        return new SyncCopyActionDecorator(destinationDir, copyAction, preserveInDestination);
     }
 
     @Override
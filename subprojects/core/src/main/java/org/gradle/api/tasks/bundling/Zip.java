@@ -26,6 +26,7 @@ import org.gradle.api.internal.file.copy.ZipCompressor;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.Optional;
+import org.gradle.internal.operations.BuildOperationProcessor;
 
 import java.nio.charset.Charset;
 
@@ -60,7 +61,10 @@ public class Zip extends AbstractArchiveTask {
     @Override
     protected CopyAction createCopyAction() {
         DocumentationRegistry documentationRegistry = getServices().get(DocumentationRegistry.class);
-        return new ZipCopyAction(getArchivePath(), getCompressor(), documentationRegistry, metadataCharset, isPreserveFileTimestamps());
+        // Compress entries in parallel only when other workers may run, as the thread of the task keeps reading the files meanwhile
+        boolean parallel = getProject().getGradle().getStartParameter().getMaxWorkerCount() > 1;
+        BuildOperationProcessor buildOperationProcessor = parallel ? getServices().get(BuildOperationProcessor.class) : null;
+        return new ZipCopyAction(getArchivePath(), getCompressor(), documentationRegistry, metadataCharset, isPreserveFileTimestamps(), getTemporaryDir(), buildOperationProcessor);
     }
 
     /**
@@ -15,6 +15,8 @@
  */
 package org.gradle.cache.internal;
 
+import org.gradle.api.Nullable;
+import org.gradle.api.Transformer;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.cache.internal.filelock.*;
@@ -29,6 +31,9 @@ import org.gradle.internal.Factory;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.id.IdGenerator;
 import org.gradle.internal.id.RandomLongIdGenerator;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.progress.BuildOperationDetails;
+import org.gradle.internal.progress.BuildOperationExecutor;
 import org.gradle.util.GFileUtils;
 
 import java.io.File;
@@ -52,21 +57,35 @@ public class DefaultFileLockManager implements FileLockManager {
     private final FileLockContentionHandler fileLockContentionHandler;
     private final long shortTimeoutMs = 10000;
     private final TimeProvider timeProvider = new TrueTimeProvider();
+    private final BuildOperationExecutor buildOperationExecutor;
 
     public DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, FileLockContentionHandler fileLockContentionHandler) {
         this(metaDataProvider, DEFAULT_LOCK_TIMEOUT, fileLockContentionHandler);
     }
 
+    /**
+     * Creates a lock manager that reports the time spent waiting for a contended lock as a build operation, using the given executor.
+     */
+    public DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, FileLockContentionHandler fileLockContentionHandler, BuildOperationExecutor buildOperationExecutor) {
+        this(metaDataProvider, DEFAULT_LOCK_TIMEOUT, fileLockContentionHandler, new RandomLongIdGenerator(), buildOperationExecutor);
+    }
+
     public DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, int lockTimeoutMs, FileLockContentionHandler fileLockContentionHandler) {
         this(metaDataProvider, lockTimeoutMs, fileLockContentionHandler, new RandomLongIdGenerator());
     }
 
     DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, int lockTimeoutMs, FileLockContentionHandler fileLockContentionHandler,
                            IdGenerator<Long> generator) {
+        this(metaDataProvider, lockTimeoutMs, fileLockContentionHandler, generator, null);
+    }
+
+    DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, int lockTimeoutMs, FileLockContentionHandler fileLockContentionHandler,
+                           IdGenerator<Long> generator, @Nullable BuildOperationExecutor buildOperationExecutor) {
         this.metaDataProvider = metaDataProvider;
         this.lockTimeoutMs = lockTimeoutMs;
         this.fileLockContentionHandler = fileLockContentionHandler;
         this.generator = generator;
+        this.buildOperationExecutor = buildOperationExecutor;
     }
 
     public FileLock lock(File target, LockOptions options, String targetDisplayName) throws LockTimeoutException {
@@ -317,7 +336,29 @@ public class DefaultFileLockManager implements FileLockManager {
             return out;
         }
 
-        private java.nio.channels.FileLock lockStateRegion(LockMode lockMode, final CountdownTimer timer) throws IOException, InterruptedException {
+        private java.nio.channels.FileLock lockStateRegion(final LockMode lockMode, final CountdownTimer timer) throws IOException, InterruptedException {
+            java.nio.channels.FileLock fileLock = lockFileAccess.tryLockState(lockMode == LockMode.Shared);
+            if (fileLock != null) {
+                return fileLock;
+            }
+            if (buildOperationExecutor == null) {
+                return waitForStateRegion(lockMode, timer);
+            }
+            // The lock is held by someone else, so make the time spent waiting for it visible
+            BuildOperationDetails operationDetails = BuildOperationDetails.displayName("Wait for lock on " + displayName).progressDisplayName("Waiting for lock on " + displayName).build();
+            return buildOperationExecutor.run(operationDetails, new Transformer<java.nio.channels.FileLock, BuildOperationContext>() {
+                @Override
+                public java.nio.channels.FileLock transform(BuildOperationContext context) {
+                    try {
+                        return waitForStateRegion(lockMode, timer);
+                    } catch (Exception e) {
+                        throw throwAsUncheckedException(e);
+                    }
+                }
+            });
+        }
+
+        private java.nio.channels.FileLock waitForStateRegion(LockMode lockMode, CountdownTimer timer) throws IOException, InterruptedException {
             do {
                 java.nio.channels.FileLock fileLock = lockFileAccess.tryLockState(lockMode == LockMode.Shared);
                 if (fileLock != null) {
@@ -332,7 +373,6 @@ public class DefaultFileLockManager implements FileLockManager {
                         LOGGER.debug("The file lock is held by a different Gradle process. I was unable to read on which port the owner listens for lock access requests.");
                     }
                 }
-                //TODO SF we should inform on the progress/status bar that we're waiting
                 Thread.sleep(200L);
             } while (!timer.hasExpired());
             return null;
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import com.google.common.hash.Hashing;
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.util.GFileUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * A {@link PersistentIndexedCache} that stores each entry in a file of its own, named after a hash of the key, which is never modified once it has been
+ * written.
+ *
+ * <p>An entry is written to a new file that is then renamed into place, replacing any previous file for the key. Readers see either the previous or the new
+ * file, never a partially written one, so entries can be read and written by several threads and processes at the same time without holding any lock. When
+ * several writers put the same key at the same time, the last one to rename its file wins.</p>
+ */
+@ThreadSafe
+public class ImmutableFilePersistentIndexedCache<K, V> implements PersistentIndexedCache<K, V> {
+    private static final Logger LOGGER = Logging.getLogger(ImmutableFilePersistentIndexedCache.class);
+    private static final String IN_PROGRESS_FILE_SUFFIX = ".part";
+
+    private final File baseDir;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+
+    public ImmutableFilePersistentIndexedCache(File baseDir, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this.baseDir = baseDir;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+    }
+
+    @Override
+    public V get(K key) {
+        byte[] keyBytes = toBytes(key);
+        File file = getFile(keyBytes);
+        FileInputStream inputStream;
+        try {
+            inputStream = new FileInputStream(file);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        KryoBackedDecoder decoder = new KryoBackedDecoder(inputStream);
+        try {
+            if (!Arrays.equals(decoder.readBinary(), keyBytes)) {
+                // Another key with the same hash
+                return null;
+            }
+            return valueSerializer.read(decoder);
+        } catch (Exception e) {
+            LOGGER.debug("Could not read cache entry from '{}', ignoring it.", file, e);
+            return null;
+        } finally {
+            try {
+                decoder.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close cache entry '{}'.", file, e);
+            }
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        byte[] keyBytes = toBytes(key);
+        File file = getFile(keyBytes);
+        GFileUtils.mkdirs(file.getParentFile());
+        File inProgressFile = new File(file.getParentFile(), file.getName() + "." + UUID.randomUUID() + IN_PROGRESS_FILE_SUFFIX);
+        try {
+            KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(inProgressFile));
+            try {
+                encoder.writeBinary(keyBytes);
+                valueSerializer.write(encoder, value);
+            } finally {
+                encoder.close();
+            }
+            if (!inProgressFile.renameTo(file)) {
+                // Not all platforms replace an existing file when renaming
+                file.delete();
+                if (!inProgressFile.renameTo(file)) {
+                    throw new IOException(String.format("Could not rename '%s' to '%s'.", inProgressFile, file));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not write cache entry '%s'.", file), e);
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            inProgressFile.delete();
+        }
+    }
+
+    @Override
+    public void remove(K key) {
+        getFile(toBytes(key)).delete();
+    }
+
+    private File getFile(byte[] keyBytes) {
+        String hash = Hashing.md5().hashBytes(keyBytes).toString();
+        return new File(baseDir, hash.substring(0, 2) + File.separator + hash);
+    }
+
+    private byte[] toBytes(K key) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(bytes);
+        try {
+            keySerializer.write(encoder, key);
+            encoder.flush();
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public String toString() {
+        return "cache entries in " + baseDir;
+    }
+}
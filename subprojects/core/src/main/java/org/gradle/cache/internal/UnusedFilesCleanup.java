@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes the files of a cache directory that have not been used for some time.
+ *
+ * <p>A file counts as used when it is written or {@link #markUsed(File) marked as used}. Files are marked at most once per cleanup interval, so that
+ * using a file does not normally write to the file system. The caller is responsible for holding the lock of the cache while using this class.</p>
+ */
+public class UnusedFilesCleanup {
+    private static final long INTERVAL = TimeUnit.DAYS.toMillis(1);
+    private static final String MARKER_FILE_NAME = "gc.properties";
+
+    private final File dir;
+    private final long maxUnusedMillis;
+
+    public UnusedFilesCleanup(File dir, int maxUnusedDays) {
+        this.dir = dir;
+        this.maxUnusedMillis = TimeUnit.DAYS.toMillis(maxUnusedDays);
+    }
+
+    /**
+     * Records that the given file of the cache directory has been used.
+     */
+    public void markUsed(File file) {
+        long now = System.currentTimeMillis();
+        if (now - file.lastModified() > INTERVAL) {
+            file.setLastModified(now);
+        }
+    }
+
+    /**
+     * Removes the files that have not been used for the maximum number of days, unless the cache directory has been cleaned up within the last day.
+     */
+    public void cleanupIfDue() {
+        long now = System.currentTimeMillis();
+        File marker = new File(dir, MARKER_FILE_NAME);
+        if (marker.isFile() && now - marker.lastModified() < INTERVAL) {
+            return;
+        }
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (isCacheMetaData(file)) {
+                continue;
+            }
+            if (now - file.lastModified() > maxUnusedMillis) {
+                GFileUtils.deleteQuietly(file);
+            }
+        }
+        GFileUtils.touch(marker);
+    }
+
+    private static boolean isCacheMetaData(File file) {
+        String name = file.getName();
+        return name.equals(MARKER_FILE_NAME) || name.equals("cache.properties") || name.endsWith(".lock");
+    }
+}
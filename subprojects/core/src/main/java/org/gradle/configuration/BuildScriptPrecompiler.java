@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration;
+
+import org.gradle.StartParameter;
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.initialization.ClassLoaderScope;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.groovy.scripts.BasicScript;
+import org.gradle.groovy.scripts.ScriptCompilerFactory;
+import org.gradle.groovy.scripts.ScriptRunner;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.internal.Actions;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.progress.BuildOperationExecutor;
+import org.gradle.model.dsl.internal.transform.ClosureCreationInterceptingVerifier;
+import org.gradle.plugin.use.internal.PluginRequests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compiles the build scripts of the projects of a build on a pool of worker threads once the projects have been loaded, when enabled by the
+ * {@value #PRECOMPILE_PROPERTY} system property. The compiled classes end up in the usual script caches, where they are found when the
+ * projects are evaluated.
+ *
+ * <p>The classpath pass of a build script is always compiled against the export class loader of the build root class loader scope, so it is
+ * compiled for every project. The body pass is compiled against the class loader of the project, which is only known once the buildscript {}
+ * and plugins {} blocks of the project and its ancestors have been applied. It is compiled up front for the projects where none of these
+ * scripts declare a classpath or plugins, as the class loader of such a project is the export class loader of the build root scope. When the
+ * class loader of a project turns out to be different, for example because an init script adds to its classpath, the body is compiled again
+ * when the project is evaluated.</p>
+ *
+ * <p>Compilation failures are ignored here and reported when the project is evaluated.</p>
+ */
+public class BuildScriptPrecompiler {
+    public static final String PRECOMPILE_PROPERTY = "org.gradle.precompile.scripts";
+    private static final Logger LOGGER = Logging.getLogger(BuildScriptPrecompiler.class);
+
+    private final ScriptCompilerFactory scriptCompilerFactory;
+    private final CompileOperationFactory compileOperationFactory;
+    private final ExecutorFactory executorFactory;
+    private final BuildOperationExecutor buildOperationExecutor;
+
+    public BuildScriptPrecompiler(ScriptCompilerFactory scriptCompilerFactory, CompileOperationFactory compileOperationFactory, ExecutorFactory executorFactory, BuildOperationExecutor buildOperationExecutor) {
+        this.scriptCompilerFactory = scriptCompilerFactory;
+        this.compileOperationFactory = compileOperationFactory;
+        this.executorFactory = executorFactory;
+        this.buildOperationExecutor = buildOperationExecutor;
+    }
+
+    public void precompile(GradleInternal gradle, ClassLoaderScope buildRootClassLoaderScope) {
+        if (!isEnabled(gradle.getStartParameter())) {
+            return;
+        }
+        final List<ProjectInternal> projects = new ArrayList<ProjectInternal>();
+        for (Project project : gradle.getRootProject().getAllprojects()) {
+            ScriptSource source = ((ProjectInternal) project).getBuildScriptSource();
+            if (source.getFileName().endsWith(".gradle") && source.getResource().getExists()) {
+                projects.add((ProjectInternal) project);
+            }
+        }
+        if (projects.isEmpty()) {
+            return;
+        }
+
+        final ClassLoader classLoader = buildRootClassLoaderScope.getExportClassLoader();
+        final int workerCount = Math.min(gradle.getStartParameter().getMaxWorkerCount(), projects.size());
+        buildOperationExecutor.run("Compile build scripts", new Action<BuildOperationContext>() {
+            @Override
+            public void execute(BuildOperationContext buildOperationContext) {
+                precompile(projects, classLoader, workerCount);
+            }
+        });
+    }
+
+    private static boolean isEnabled(StartParameter startParameter) {
+        String value = startParameter.getSystemPropertiesArgs().get(PRECOMPILE_PROPERTY);
+        return value != null ? Boolean.parseBoolean(value) : Boolean.getBoolean(PRECOMPILE_PROPERTY);
+    }
+
+    private void precompile(List<ProjectInternal> projects, final ClassLoader classLoader, int workerCount) {
+        final Set<ProjectInternal> declaringClasspath = Collections.newSetFromMap(new ConcurrentHashMap<ProjectInternal, Boolean>());
+        compileInParallel(projects, workerCount, new Action<ProjectInternal>() {
+            @Override
+            public void execute(ProjectInternal project) {
+                if (compileClasspathPass(project, classLoader)) {
+                    declaringClasspath.add(project);
+                }
+            }
+        });
+
+        List<ProjectInternal> withKnownClassLoader = new ArrayList<ProjectInternal>();
+        for (ProjectInternal project : projects) {
+            if (!declaresClasspath(project, declaringClasspath)) {
+                withKnownClassLoader.add(project);
+            }
+        }
+        final AtomicInteger compiledBodies = new AtomicInteger();
+        compileInParallel(withKnownClassLoader, workerCount, new Action<ProjectInternal>() {
+            @Override
+            public void execute(ProjectInternal project) {
+                if (compileBodyPass(project, classLoader)) {
+                    compiledBodies.incrementAndGet();
+                }
+            }
+        });
+        LOGGER.info("Compiled {} build scripts ahead of project evaluation, including the body of {} of them.", projects.size(), compiledBodies.get());
+    }
+
+    private static boolean declaresClasspath(ProjectInternal project, Set<ProjectInternal> declaringClasspath) {
+        for (ProjectInternal current = project; current != null; current = current.getParent()) {
+            if (declaringClasspath.contains(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void compileInParallel(List<ProjectInternal> projects, int maxWorkerCount, final Action<ProjectInternal> action) {
+        if (projects.isEmpty()) {
+            return;
+        }
+        final Queue<ProjectInternal> queue = new ConcurrentLinkedQueue<ProjectInternal>(projects);
+        int workerCount = Math.min(maxWorkerCount, projects.size());
+        StoppableExecutor executor = executorFactory.create("Compile build scripts", workerCount);
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        ProjectInternal project;
+                        while ((project = queue.poll()) != null) {
+                            action.execute(project);
+                        }
+                    }
+                });
+            }
+        } finally {
+            executor.stop();
+        }
+    }
+
+    /**
+     * Returns true when the project declares a classpath or plugins, or when this cannot be determined.
+     */
+    private boolean compileClasspathPass(ProjectInternal project, ClassLoader classLoader) {
+        ScriptSource source = project.getBuildScriptSource();
+        ScriptTarget target = new ProjectScriptTarget(project);
+        try {
+            ScriptRunner<? extends BasicScript, PluginRequests> runner = scriptCompilerFactory.createCompiler(source)
+                .compile(target.getScriptClass(), compileOperationFactory.getPluginsBlockCompileOperation(source, target), classLoader, Actions.doNothing());
+            return runner.getRunDoesSomething() || !runner.getData().isEmpty();
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not compile the classpath of {} ahead of project evaluation.", source.getDisplayName(), e);
+            return true;
+        }
+    }
+
+    private boolean compileBodyPass(ProjectInternal project, ClassLoader classLoader) {
+        ScriptSource source = project.getBuildScriptSource();
+        ScriptTarget target = new ProjectScriptTarget(project);
+        try {
+            scriptCompilerFactory.createCompiler(source)
+                .compile(target.getScriptClass(), compileOperationFactory.getScriptCompileOperation(source, target), classLoader, ClosureCreationInterceptingVerifier.INSTANCE);
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not compile {} ahead of project evaluation.", source.getDisplayName(), e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration;
+
+import org.gradle.api.internal.DocumentationRegistry;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.groovy.scripts.internal.BuildScriptData;
+import org.gradle.groovy.scripts.internal.BuildScriptDataSerializer;
+import org.gradle.groovy.scripts.internal.BuildScriptTransformer;
+import org.gradle.groovy.scripts.internal.CompileOperation;
+import org.gradle.groovy.scripts.internal.FactoryBackedCompileOperation;
+import org.gradle.groovy.scripts.internal.InitialPassStatementTransformer;
+import org.gradle.groovy.scripts.internal.SubsetScriptTransformer;
+import org.gradle.plugin.use.internal.PluginRequests;
+import org.gradle.plugin.use.internal.PluginRequestsSerializer;
+
+/**
+ * Creates the operations used to compile the two passes of a script.
+ */
+public class CompileOperationFactory {
+    private static final StringInterner INTERNER = new StringInterner();
+
+    private final DocumentationRegistry documentationRegistry;
+    private final BuildScriptDataSerializer buildScriptDataSerializer = new BuildScriptDataSerializer();
+    private final PluginRequestsSerializer pluginRequestsSerializer = new PluginRequestsSerializer();
+
+    public CompileOperationFactory(DocumentationRegistry documentationRegistry) {
+        this.documentationRegistry = documentationRegistry;
+    }
+
+    /**
+     * The first pass, which extracts the plugin requests and the buildscript {} block, ignoring (i.e. not even compiling) anything else.
+     */
+    public CompileOperation<PluginRequests> getPluginsBlockCompileOperation(ScriptSource scriptSource, ScriptTarget initialPassScriptTarget) {
+        InitialPassStatementTransformer initialPassStatementTransformer = new InitialPassStatementTransformer(scriptSource, initialPassScriptTarget, documentationRegistry);
+        SubsetScriptTransformer initialTransformer = new SubsetScriptTransformer(initialPassStatementTransformer);
+        String id = INTERNER.intern("cp_" + initialPassScriptTarget.getId());
+        return new FactoryBackedCompileOperation<PluginRequests>(id, initialTransformer, initialPassStatementTransformer, pluginRequestsSerializer);
+    }
+
+    /**
+     * The second pass, which compiles everything except the buildscript {} block, the pluginRepositories {} block and the plugin requests.
+     */
+    public CompileOperation<BuildScriptData> getScriptCompileOperation(ScriptSource scriptSource, ScriptTarget scriptTarget) {
+        BuildScriptTransformer buildScriptTransformer = new BuildScriptTransformer(scriptSource, scriptTarget);
+        String operationId = scriptTarget.getId();
+        return new FactoryBackedCompileOperation<BuildScriptData>(operationId, buildScriptTransformer, buildScriptTransformer, buildScriptDataSerializer);
+    }
+}
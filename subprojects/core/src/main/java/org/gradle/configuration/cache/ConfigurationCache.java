@@ -0,0 +1,361 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.cache;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.gradle.StartParameter;
+import org.gradle.api.GradleException;
+import org.gradle.api.Nullable;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.initialization.dsl.ScriptHandler;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.SettingsInternal;
+import org.gradle.api.internal.hash.FileHasher;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.specs.Spec;
+import org.gradle.execution.ProjectConfigurer;
+import org.gradle.execution.TaskGraphExecuter;
+import org.gradle.groovy.scripts.Script;
+import org.gradle.groovy.scripts.ScriptExecutionListener;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.resource.TextResource;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.FlushableEncoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.GradleVersion;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Reuses the result of configuring a build, when enabled by the {@value #CONFIGURATION_CACHE_PROPERTY} system property.
+ *
+ * <p>When a build is configured, the tasks of the resulting execution plan are recorded along with the inputs that may have affected them: the content
+ * of the init, settings, build and applied scripts, of the {@code gradle.properties} files, of the {@code buildSrc} build script and jars and of the
+ * resolved build script classpath of each project, and the values of all environment variables. The entry is stored in the project cache directory,
+ * keyed by the requested tasks, the system properties given on the command line and the other build parameters.</p>
+ *
+ * <p>When a later build with the same parameters finds that none of the recorded inputs has changed, it configures only the root project, the projects
+ * that own the recorded tasks and their parent projects, in the same way as a build that is configured on demand, and schedules the recorded tasks
+ * without selecting them again. The scripts of the other projects do not run.</p>
+ *
+ * <p>Inputs that build logic reads in other ways, such as arbitrary files, system properties that are not given on the command line or dependencies
+ * with a changing version on the classpath of the settings and init scripts, are not tracked. A change to such an input is only noticed when it
+ * causes a recorded task to no longer be created.</p>
+ */
+public class ConfigurationCache implements ScriptExecutionListener {
+    public static final String CONFIGURATION_CACHE_PROPERTY = "org.gradle.configuration.cache";
+    private static final Logger LOGGER = Logging.getLogger(ConfigurationCache.class);
+    private static final int ENTRY_VERSION = 3;
+
+    private final FileHasher fileHasher;
+    private final ProjectConfigurer projectConfigurer;
+    private final Set<File> scripts = new LinkedHashSet<File>();
+    private ConfigurationInputs inputs;
+    private String notCacheableReason;
+    private File entryFile;
+    private SettingsInternal settings;
+    private Entry reusedEntry;
+
+    public ConfigurationCache(FileHasher fileHasher, ProjectConfigurer projectConfigurer) {
+        this.fileHasher = fileHasher;
+        this.projectConfigurer = projectConfigurer;
+    }
+
+    /**
+     * Starts recording the inputs of the configuration of the given build. Should be called before any script of the build runs.
+     */
+    public void startRecording(GradleInternal gradle) {
+        if (gradle.getParent() != null || !isEnabled(gradle.getStartParameter())) {
+            return;
+        }
+        inputs = new ConfigurationInputs();
+    }
+
+    /**
+     * Loads the entry for the given build, once its settings have been loaded. Returns true when the entry is up-to-date, in which case the build
+     * should be configured using {@link #configure(GradleInternal)} and its task graph populated using {@link #populateTaskGraph(GradleInternal)}.
+     */
+    public boolean load(GradleInternal gradle, SettingsInternal settings) {
+        if (inputs == null) {
+            return false;
+        }
+        this.settings = settings;
+        StartParameter startParameter = gradle.getStartParameter();
+        entryFile = new File(startParameter.getProjectCacheDir() != null ? startParameter.getProjectCacheDir() : new File(settings.getRootDir(), ".gradle"),
+            "configuration-cache/" + entryKey(startParameter) + ".bin");
+        for (String taskName : startParameter.getTaskNames()) {
+            if (taskName.startsWith("-")) {
+                notCacheableReason = "task options are used";
+            }
+        }
+        if (notCacheableReason != null || startParameter.isRecompileScripts() || startParameter.isRefreshDependencies()) {
+            return false;
+        }
+
+        Entry entry = readEntry();
+        if (entry == null) {
+            LOGGER.info("No configuration cache entry found for the requested tasks.");
+            return false;
+        }
+        String change = entry.inputs.findChange(fileHasher, System.getenv());
+        if (change != null) {
+            LOGGER.info("Configuration cache entry cannot be reused because {}.", change);
+            return false;
+        }
+
+        reusedEntry = entry;
+        LOGGER.info("Reusing configuration cache entry.");
+        return true;
+    }
+
+    /**
+     * Configures the projects needed by the reused entry: the root project, then each project that owns a task of the entry after its parent projects.
+     */
+    public void configure(GradleInternal gradle) {
+        ProjectInternal rootProject = gradle.getRootProject();
+        projectConfigurer.configure(rootProject);
+        for (String taskPath : reusedEntry.tasks) {
+            ProjectInternal project = rootProject.findProject(projectPath(taskPath));
+            if (project != null) {
+                configureWithParents(project);
+            }
+        }
+    }
+
+    private void configureWithParents(ProjectInternal project) {
+        if (project.getParent() != null) {
+            configureWithParents(project.getParent());
+        }
+        projectConfigurer.configure(project);
+    }
+
+    /**
+     * Adds the tasks of the reused entry to the task graph, in their recorded order.
+     */
+    public void populateTaskGraph(GradleInternal gradle) {
+        final Set<String> taskPaths = reusedEntry.tasks;
+        TaskGraphExecuter taskGraph = gradle.getTaskGraph();
+        taskGraph.useFilter(new Spec<Task>() {
+            @Override
+            public boolean isSatisfiedBy(Task task) {
+                return taskPaths.contains(task.getPath());
+            }
+        });
+        for (String taskPath : taskPaths) {
+            ProjectInternal project = gradle.getRootProject().findProject(projectPath(taskPath));
+            Task task = project == null ? null : project.getTasks().findByName(taskPath.substring(taskPath.lastIndexOf(':') + 1));
+            if (task == null) {
+                GFileUtils.deleteQuietly(entryFile);
+                throw new GradleException(String.format("Task '%s' from the configuration cache entry was not created when configuring the build. "
+                    + "The entry has been discarded, run the build again to configure it fully.", taskPath));
+            }
+            // Each task is added on its own, so that the plan keeps the recorded order of the tasks
+            taskGraph.addTasks(Collections.singleton(task));
+        }
+    }
+
+    /**
+     * Stores an entry for the given build, once its task graph has been populated.
+     */
+    public void store(GradleInternal gradle) {
+        if (inputs == null || settings == null) {
+            return;
+        }
+        if (notCacheableReason != null) {
+            LOGGER.info("Not storing a configuration cache entry because {}.", notCacheableReason);
+            return;
+        }
+
+        inputs.allEnvironmentVariables(System.getenv());
+        for (File script : scripts) {
+            inputs.file(script, fileHasher);
+        }
+        File settingsFile = settings.getSettingsScript().getResource().getFile();
+        if (settingsFile != null) {
+            inputs.file(settingsFile, fileHasher);
+        }
+        inputs.file(new File(gradle.getStartParameter().getGradleUserHomeDir(), "gradle.properties"), fileHasher);
+        File buildSrcDir = new File(settings.getRootDir(), "buildSrc");
+        inputs.file(new File(buildSrcDir, "build.gradle"), fileHasher);
+        inputs.file(new File(buildSrcDir, "settings.gradle"), fileHasher);
+        File[] buildSrcLibs = new File(buildSrcDir, "build/libs").listFiles();
+        if (buildSrcLibs != null) {
+            for (File buildSrcLib : buildSrcLibs) {
+                inputs.file(buildSrcLib, fileHasher);
+            }
+        }
+        for (Project project : gradle.getRootProject().getAllprojects()) {
+            inputs.file(project.getBuildFile(), fileHasher);
+            inputs.file(new File(project.getProjectDir(), "gradle.properties"), fileHasher);
+            // Only a classpath that has already been resolved can have contributed to the configuration
+            Configuration classpath = project.getBuildscript().getConfigurations().findByName(ScriptHandler.CLASSPATH_CONFIGURATION);
+            if (classpath != null && classpath.getState() == Configuration.State.RESOLVED) {
+                for (File file : classpath.getFiles()) {
+                    inputs.file(file, fileHasher);
+                }
+            }
+        }
+
+        Set<String> tasks = new LinkedHashSet<String>();
+        for (Task task : gradle.getTaskGraph().getAllTasks()) {
+            tasks.add(task.getPath());
+        }
+        writeEntry(new Entry(inputs, tasks));
+    }
+
+    @Override
+    public void scriptClassLoaded(ScriptSource source, Class<? extends Script> scriptClass) {
+        if (inputs == null) {
+            return;
+        }
+        TextResource resource = source.getResource();
+        URI uri = resource.getLocation().getURI();
+        synchronized (scripts) {
+            if (resource.getFile() != null) {
+                scripts.add(resource.getFile());
+            } else if (uri != null && !"file".equals(uri.getScheme())) {
+                notCacheableReason = String.format("the build applies the remote script '%s'", uri);
+            }
+        }
+    }
+
+    private static String entryKey(StartParameter startParameter) {
+        Hasher hasher = Hashing.md5().newHasher();
+        putStrings(hasher, GradleVersion.current().getVersion());
+        putStrings(hasher, startParameter.getCurrentDir().getAbsolutePath(), String.valueOf(startParameter.getBuildFile()), String.valueOf(startParameter.getSettingsFile()));
+        putStrings(hasher, startParameter.getTaskNames());
+        putStrings(hasher, new ArrayList<String>(new TreeMap<String, String>(startParameter.getProjectProperties()).keySet()));
+        putStrings(hasher, new ArrayList<String>(new TreeMap<String, String>(startParameter.getProjectProperties()).values()));
+        putStrings(hasher, new ArrayList<String>(new TreeMap<String, String>(startParameter.getSystemPropertiesArgs()).keySet()));
+        putStrings(hasher, new ArrayList<String>(new TreeMap<String, String>(startParameter.getSystemPropertiesArgs()).values()));
+        putStrings(hasher, new ArrayList<String>(startParameter.getExcludedTaskNames()));
+        for (File initScript : startParameter.getAllInitScripts()) {
+            putStrings(hasher, initScript.getAbsolutePath());
+        }
+        putStrings(hasher, String.valueOf(startParameter.isOffline()), String.valueOf(startParameter.isBuildProjectDependencies()), String.valueOf(startParameter.isSearchUpwards()));
+        return hasher.hash().toString();
+    }
+
+    private static void putStrings(Hasher hasher, String... values) {
+        for (String value : values) {
+            hasher.putString(value, Charsets.UTF_8);
+            hasher.putByte((byte) 0);
+        }
+    }
+
+    private static void putStrings(Hasher hasher, List<String> values) {
+        putStrings(hasher, values.toArray(new String[0]));
+        hasher.putByte((byte) 1);
+    }
+
+    @Nullable
+    private Entry readEntry() {
+        if (!entryFile.isFile()) {
+            return null;
+        }
+        try {
+            InputStream inputStream = new FileInputStream(entryFile);
+            try {
+                Decoder decoder = new KryoBackedDecoder(inputStream);
+                if (decoder.readSmallInt() != ENTRY_VERSION) {
+                    return null;
+                }
+                ConfigurationInputs entryInputs = new ConfigurationInputs.Serializer().read(decoder);
+                return new Entry(entryInputs, readStrings(decoder));
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.info("Could not read configuration cache entry {}.", entryFile, e);
+            return null;
+        }
+    }
+
+    private void writeEntry(Entry entry) {
+        try {
+            entryFile.getParentFile().mkdirs();
+            OutputStream outputStream = new FileOutputStream(entryFile);
+            try {
+                FlushableEncoder encoder = new KryoBackedEncoder(outputStream);
+                encoder.writeSmallInt(ENTRY_VERSION);
+                new ConfigurationInputs.Serializer().write(encoder, entry.inputs);
+                writeStrings(encoder, entry.tasks);
+                encoder.flush();
+            } finally {
+                outputStream.close();
+            }
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static Set<String> readStrings(Decoder decoder) throws Exception {
+        int count = decoder.readSmallInt();
+        Set<String> values = new LinkedHashSet<String>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(decoder.readString());
+        }
+        return values;
+    }
+
+    private static void writeStrings(FlushableEncoder encoder, Set<String> values) throws Exception {
+        encoder.writeSmallInt(values.size());
+        for (String value : values) {
+            encoder.writeString(value);
+        }
+    }
+
+    private static String projectPath(String taskPath) {
+        int separator = taskPath.lastIndexOf(':');
+        return separator == 0 ? ":" : taskPath.substring(0, separator);
+    }
+
+    private static boolean isEnabled(StartParameter startParameter) {
+        String value = startParameter.getSystemPropertiesArgs().get(CONFIGURATION_CACHE_PROPERTY);
+        return value != null ? Boolean.parseBoolean(value) : Boolean.getBoolean(CONFIGURATION_CACHE_PROPERTY);
+    }
+
+    private static class Entry {
+        final ConfigurationInputs inputs;
+        final Set<String> tasks;
+
+        Entry(ConfigurationInputs inputs, Set<String> tasks) {
+            this.inputs = inputs;
+            this.tasks = tasks;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.cache;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.hash.FileHasher;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The files and environment variables that may have affected the configuration of a build, along with their values at the time.
+ */
+public class ConfigurationInputs {
+    private final Map<File, HashCode> files = new LinkedHashMap<File, HashCode>();
+    private HashCode environmentHash;
+
+    /**
+     * Records the current content of the given file, which may not exist.
+     */
+    public synchronized void file(File file, FileHasher hasher) {
+        File absoluteFile = file.getAbsoluteFile();
+        if (!files.containsKey(absoluteFile)) {
+            files.put(absoluteFile, hash(absoluteFile, hasher));
+        }
+    }
+
+    /**
+     * Records the current value of every environment variable.
+     */
+    public synchronized void allEnvironmentVariables(Map<String, String> environment) {
+        environmentHash = hash(environment);
+    }
+
+    public synchronized Map<File, HashCode> getFiles() {
+        return files;
+    }
+
+    /**
+     * Returns a description of the first input that has changed since it was recorded, or null when all inputs are unchanged.
+     */
+    @Nullable
+    public synchronized String findChange(FileHasher hasher, Map<String, String> environment) {
+        if (environmentHash != null && !environmentHash.equals(hash(environment))) {
+            return "the environment variables have changed";
+        }
+        for (Map.Entry<File, HashCode> entry : files.entrySet()) {
+            if (!Objects.equal(entry.getValue(), hash(entry.getKey(), hasher))) {
+                return String.format("file '%s' has changed", entry.getKey());
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static HashCode hash(File file, FileHasher hasher) {
+        return file.isFile() ? hasher.hash(file) : null;
+    }
+
+    private static HashCode hash(Map<String, String> environment) {
+        Hasher hasher = Hashing.md5().newHasher();
+        for (Map.Entry<String, String> entry : new TreeMap<String, String>(environment).entrySet()) {
+            hasher.putString(entry.getKey(), Charsets.UTF_8);
+            hasher.putByte((byte) 0);
+            hasher.putString(entry.getValue(), Charsets.UTF_8);
+            hasher.putByte((byte) 0);
+        }
+        return hasher.hash();
+    }
+
+    public static class Serializer implements org.gradle.internal.serialize.Serializer<ConfigurationInputs> {
+        private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
+
+        @Override
+        public ConfigurationInputs read(Decoder decoder) throws Exception {
+            ConfigurationInputs inputs = new ConfigurationInputs();
+            int fileCount = decoder.readSmallInt();
+            for (int i = 0; i < fileCount; i++) {
+                File file = new File(decoder.readString());
+                inputs.files.put(file, decoder.readBoolean() ? hashCodeSerializer.read(decoder) : null);
+            }
+            if (decoder.readBoolean()) {
+                inputs.environmentHash = hashCodeSerializer.read(decoder);
+            }
+            return inputs;
+        }
+
+        @Override
+        public void write(Encoder encoder, ConfigurationInputs inputs) throws Exception {
+            synchronized (inputs) {
+                encoder.writeSmallInt(inputs.files.size());
+                for (Map.Entry<File, HashCode> entry : inputs.files.entrySet()) {
+                    encoder.writeString(entry.getKey().getPath());
+                    encoder.writeBoolean(entry.getValue() != null);
+                    if (entry.getValue() != null) {
+                        hashCodeSerializer.write(encoder, entry.getValue());
+                    }
+                }
+                encoder.writeBoolean(inputs.environmentHash != null);
+                if (inputs.environmentHash != null) {
+                    hashCodeSerializer.write(encoder, inputs.environmentHash);
+                }
+            }
+        }
+    }
+}
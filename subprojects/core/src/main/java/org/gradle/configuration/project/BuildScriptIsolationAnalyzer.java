@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.project;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.internal.resource.TextResource;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Inspects the text of a project's build script, and the local scripts it applies, for accesses to the configuration of projects outside of the
+ * project's own hierarchy. A project whose script has no such accesses can be configured in parallel with other such projects, once its parent
+ * project has been configured.
+ *
+ * <p>The analysis is textual and conservative: it can report an access that is not made at runtime, for example in a comment, but it does not
+ * detect accesses made by plugins or by code in other scripts.</p>
+ */
+public class BuildScriptIsolationAnalyzer {
+    private static final Pattern EVALUATION_DEPENDENCY = Pattern.compile("\\bevaluationDependsOn(Children)?\\b|\\bfindProject\\b");
+    private static final Pattern CONFIGURE_PROJECTS = Pattern.compile("(?<![.\\w])configure\\s*\\(");
+    private static final Pattern ANCESTOR_ACCESS = Pattern.compile(
+        "(\\brootProject|(?<![.\\w])parent|\\bproject\\s*\\.\\s*parent|\\bgetRootProject\\(\\)|\\bgetParent\\(\\))\\s*\\.\\s*"
+            + "(?:(?:ext\\s*\\.\\s*)?\\w+\\s*=(?!=)|(?:allprojects|subprojects|project|configure|evaluationDependsOn|afterEvaluate|beforeEvaluate|apply|task|tasks|configurations|dependencies|repositories|plugins|extensions|ext\\s*[{.]\\s*set))");
+    private static final Pattern GRADLE_ACCESS = Pattern.compile("(?:(?<![.\\w])gradle|\\bgetGradle\\(\\))\\s*\\.\\s*(?!startParameter\\b|gradleVersion\\b|gradleHomeDir\\b|gradleUserHomeDir\\b)\\w+");
+    private static final Pattern PROJECT_ACCESS = Pattern.compile("\\bproject\\s*\\(\\s*(?:(['\"])([^'\"]*)\\1|([^)'\"]+))\\s*\\)\\s*[.{]");
+    private static final Pattern APPLY_FROM = Pattern.compile("\\bfrom\\s*:\\s*(?:(['\"])([^'\"]*)\\1|([^,)\\s]+))");
+    private static final Pattern SYSTEM_PROPERTY = Pattern.compile("\\bSystem\\s*\\.\\s*setProperty\\b");
+
+    /**
+     * Analyses the build script of the given project.
+     */
+    public Result analyze(ProjectInternal project) {
+        TextResource resource = project.getBuildScriptSource().getResource();
+        if (!resource.getExists()) {
+            return new Result(null, Collections.<String>emptySet());
+        }
+        Set<String> referencedProjects = new LinkedHashSet<String>();
+        String reason = analyze(project.getPath(), resource.getText(), resource.getFile(), referencedProjects, new HashSet<File>());
+        return new Result(reason, referencedProjects);
+    }
+
+    @Nullable
+    private String analyze(String projectPath, String text, @Nullable File scriptFile, Set<String> referencedProjects, Set<File> visitedScripts) {
+        if (EVALUATION_DEPENDENCY.matcher(text).find()) {
+            return "its build script depends on the evaluation of other projects";
+        }
+        if (CONFIGURE_PROJECTS.matcher(text).find()) {
+            return "its build script uses 'configure()'";
+        }
+        if (ANCESTOR_ACCESS.matcher(text).find()) {
+            return "its build script configures the root project or the parent project";
+        }
+        Matcher gradleAccess = GRADLE_ACCESS.matcher(text);
+        if (gradleAccess.find()) {
+            return "its build script uses '" + gradleAccess.group() + "'";
+        }
+        if (SYSTEM_PROPERTY.matcher(text).find()) {
+            return "its build script sets system properties";
+        }
+
+        Matcher projectAccess = PROJECT_ACCESS.matcher(text);
+        while (projectAccess.find()) {
+            String path = projectAccess.group(2);
+            if (path == null || path.contains("$")) {
+                return "its build script accesses a project whose path is not a literal";
+            }
+            String absolutePath = absolutePath(projectPath, path);
+            if (!isInHierarchy(projectPath, absolutePath)) {
+                referencedProjects.add(absolutePath);
+            }
+        }
+
+        Matcher applyFrom = APPLY_FROM.matcher(text);
+        while (applyFrom.find()) {
+            String script = applyFrom.group(2);
+            File appliedFile = script == null || script.contains("$") || script.contains(":") || scriptFile == null ? null : new File(scriptFile.getParentFile(), script);
+            if (appliedFile == null || !appliedFile.isFile()) {
+                return "its build script applies a script that cannot be analysed";
+            }
+            if (visitedScripts.add(appliedFile.getAbsoluteFile())) {
+                String reason = analyze(projectPath, GFileUtils.readFile(appliedFile), appliedFile, referencedProjects, visitedScripts);
+                if (reason != null) {
+                    return reason.replace("its build script", "the applied script '" + script + "'");
+                }
+            }
+        }
+
+        if (!referencedProjects.isEmpty()) {
+            return "its build script accesses " + (referencedProjects.size() == 1 ? "project " : "projects ") + referencedProjects;
+        }
+        return null;
+    }
+
+    private static String absolutePath(String projectPath, String path) {
+        if (path.startsWith(":")) {
+            return path;
+        }
+        return projectPath.equals(":") ? ":" + path : projectPath + ":" + path;
+    }
+
+    private static boolean isInHierarchy(String projectPath, String path) {
+        return path.equals(projectPath) || path.startsWith(projectPath.equals(":") ? ":" : projectPath + ":");
+    }
+
+    public static class Result {
+        private final String reason;
+        private final Set<String> referencedProjects;
+
+        Result(@Nullable String reason, Set<String> referencedProjects) {
+            this.reason = reason;
+            this.referencedProjects = referencedProjects;
+        }
+
+        /**
+         * Returns true when the build script does not access projects outside of the project's hierarchy.
+         */
+        public boolean isIsolated() {
+            return reason == null;
+        }
+
+        /**
+         * Returns why the build script is not isolated, or null when it is.
+         */
+        @Nullable
+        public String getReason() {
+            return reason;
+        }
+
+        /**
+         * Returns the paths of the projects outside of the project's hierarchy that are accessed by the build script.
+         */
+        public Set<String> getReferencedProjects() {
+            return referencedProjects;
+        }
+    }
+}
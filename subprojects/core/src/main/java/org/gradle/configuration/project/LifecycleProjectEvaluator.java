@@ -35,16 +35,19 @@ public class LifecycleProjectEvaluator implements ProjectEvaluator {
 
     private final BuildOperationExecutor buildOperationExecutor;
     private final ProjectEvaluator delegate;
+    private final ProjectConfigurationIsolation isolation;
 
-    public LifecycleProjectEvaluator(BuildOperationExecutor buildOperationExecutor, ProjectEvaluator delegate) {
+    public LifecycleProjectEvaluator(BuildOperationExecutor buildOperationExecutor, ProjectEvaluator delegate, ProjectConfigurationIsolation isolation) {
         this.buildOperationExecutor = buildOperationExecutor;
         this.delegate = delegate;
+        this.isolation = isolation;
     }
 
     public void evaluate(final ProjectInternal project, final ProjectStateInternal state) {
         if (state.getExecuted() || state.getExecuting()) {
             return;
         }
+        isolation.checkCanEvaluate(project);
 
         String displayName = "project " + project.getIdentityPath().toString();
         buildOperationExecutor.run(BuildOperationDetails.displayName("Configure " + displayName).name(StringUtils.capitalize(displayName)).build(), new Action<BuildOperationContext>() {
@@ -56,10 +59,15 @@ public class LifecycleProjectEvaluator implements ProjectEvaluator {
         });
     }
 
-    private void doConfigure(ProjectInternal project, ProjectStateInternal state) {
-        ProjectEvaluationListener listener = project.getProjectEvaluationBroadcaster();
+    private void doConfigure(final ProjectInternal project, ProjectStateInternal state) {
+        final ProjectEvaluationListener listener = project.getProjectEvaluationBroadcaster();
         try {
-            listener.beforeEvaluate(project);
+            isolation.notifyListeners(new Runnable() {
+                @Override
+                public void run() {
+                    listener.beforeEvaluate(project);
+                }
+            });
         } catch (Exception e) {
             addConfigurationFailure(project, state, e);
             return;
@@ -77,9 +85,14 @@ public class LifecycleProjectEvaluator implements ProjectEvaluator {
         }
     }
 
-    private void notifyAfterEvaluate(ProjectEvaluationListener listener, ProjectInternal project, ProjectStateInternal state) {
+    private void notifyAfterEvaluate(final ProjectEvaluationListener listener, final ProjectInternal project, final ProjectStateInternal state) {
         try {
-            listener.afterEvaluate(project, state);
+            isolation.notifyListeners(new Runnable() {
+                @Override
+                public void run() {
+                    listener.afterEvaluate(project, state);
+                }
+            });
         } catch (Exception e) {
             if (state.hasFailure()) {
                 // Just log this failure, and pass the existing failure out in the project state
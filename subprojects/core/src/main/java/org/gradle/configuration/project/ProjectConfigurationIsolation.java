@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.project;
+
+import org.gradle.api.InvalidUserCodeException;
+import org.gradle.api.internal.project.ProjectInternal;
+
+/**
+ * Tracks the project that the current thread is configuring when projects are configured in parallel, and rejects the evaluation of other projects
+ * from that thread. There is one instance per build, so that the evaluation listeners of separate builds, such as the builds of a composite, are not
+ * serialized against each other.
+ */
+public class ProjectConfigurationIsolation {
+    private final ThreadLocal<ProjectInternal> isolatedProject = new ThreadLocal<ProjectInternal>();
+    private final Object listenerLock = new Object();
+
+    /**
+     * Runs the given action, which configures the given project in parallel with other projects. The action must not evaluate any other project.
+     */
+    public void runIsolated(ProjectInternal project, Runnable action) {
+        ProjectInternal previous = isolatedProject.get();
+        isolatedProject.set(project);
+        try {
+            action.run();
+        } finally {
+            isolatedProject.set(previous);
+        }
+    }
+
+    /**
+     * Runs the given action, which notifies the evaluation listeners of a project. When the project is configured in parallel with other projects,
+     * the listeners are notified for one project at a time, as listeners registered by the root project, init scripts and plugins are shared by
+     * all projects and are not expected to be thread-safe.
+     */
+    public void notifyListeners(Runnable notification) {
+        if (isolatedProject.get() == null) {
+            notification.run();
+            return;
+        }
+        synchronized (listenerLock) {
+            notification.run();
+        }
+    }
+
+    /**
+     * Fails when the current thread configures another project in parallel with other projects.
+     */
+    public void checkCanEvaluate(ProjectInternal project) {
+        ProjectInternal current = isolatedProject.get();
+        if (current != null && current != project) {
+            throw new InvalidUserCodeException(String.format("Cannot evaluate %s while configuring %s in parallel with other projects. "
+                + "Remove the access to %s from %s, or disable parallel project configuration.", project, current, project, current));
+        }
+    }
+}
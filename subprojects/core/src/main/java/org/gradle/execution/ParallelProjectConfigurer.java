@@ -0,0 +1,317 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+import org.gradle.StartParameter;
+import org.gradle.api.Action;
+import org.gradle.api.BuildCancelledException;
+import org.gradle.api.Project;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.configuration.project.BuildScriptIsolationAnalyzer;
+import org.gradle.configuration.project.ProjectConfigurationIsolation;
+import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.BuildOperationWorkerRegistry;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.progress.BuildOperationDetails;
+import org.gradle.internal.progress.BuildOperationExecutor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Configures the projects of a hierarchy on a pool of worker threads, when enabled by the {@value #PARALLEL_CONFIGURATION_PROPERTY} system property.
+ *
+ * <p>The root of the hierarchy is configured first, on the calling thread. The projects whose build scripts only access their own hierarchy, as
+ * determined by {@link BuildScriptIsolationAnalyzer}, are then configured concurrently, each once its parent project has been configured. These
+ * projects are configured by build operations of the {@link BuildOperationProcessor}, so that each holds a worker lease. Finally,
+ * the remaining projects are configured on the calling thread, in the usual order. These are the projects whose build scripts access other
+ * projects, the projects they access, and the subprojects of either.</p>
+ *
+ * <p>The build scripts of the projects configured in parallel, and the plugins they apply, run concurrently. The evaluation listeners of a project
+ * are shared with other projects when they are registered by the root project, for example using {@code subprojects { afterEvaluate { } }}, or by
+ * init scripts and plugins using {@link org.gradle.api.invocation.Gradle#addProjectEvaluationListener}. These listeners are therefore notified for
+ * one project at a time, see {@link ProjectConfigurationIsolation#notifyListeners(Runnable)}.</p>
+ */
+public class ParallelProjectConfigurer implements ProjectConfigurer {
+    public static final String PARALLEL_CONFIGURATION_PROPERTY = "org.gradle.parallel.configuration";
+    private static final Logger LOGGER = Logging.getLogger(ParallelProjectConfigurer.class);
+
+    private final ProjectConfigurer delegate;
+    private final BuildOperationProcessor buildOperationProcessor;
+    private final BuildOperationWorkerRegistry buildOperationWorkerRegistry;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private final BuildScriptIsolationAnalyzer isolationAnalyzer;
+    private final ProjectConfigurationIsolation isolation;
+    private final BuildCancellationToken cancellationToken;
+
+    public ParallelProjectConfigurer(ProjectConfigurer delegate, BuildOperationProcessor buildOperationProcessor, BuildOperationWorkerRegistry buildOperationWorkerRegistry, BuildOperationExecutor buildOperationExecutor,
+                                     BuildScriptIsolationAnalyzer isolationAnalyzer, ProjectConfigurationIsolation isolation, BuildCancellationToken cancellationToken) {
+        this.delegate = delegate;
+        this.buildOperationProcessor = buildOperationProcessor;
+        this.buildOperationWorkerRegistry = buildOperationWorkerRegistry;
+        this.buildOperationExecutor = buildOperationExecutor;
+        this.isolationAnalyzer = isolationAnalyzer;
+        this.isolation = isolation;
+        this.cancellationToken = cancellationToken;
+    }
+
+    @Override
+    public void configure(ProjectInternal project) {
+        delegate.configure(project);
+    }
+
+    @Override
+    public void configureFully(ProjectInternal project) {
+        delegate.configureFully(project);
+    }
+
+    @Override
+    public void configureHierarchy(ProjectInternal project) {
+        if (isEnabled(project.getGradle().getStartParameter())) {
+            configureInParallel(project);
+        }
+        delegate.configureHierarchy(project);
+    }
+
+    @Override
+    public void configureHierarchyFully(ProjectInternal project) {
+        if (isEnabled(project.getGradle().getStartParameter())) {
+            configureInParallel(project);
+        }
+        delegate.configureHierarchyFully(project);
+    }
+
+    private static boolean isEnabled(StartParameter startParameter) {
+        String value = startParameter.getSystemPropertiesArgs().get(PARALLEL_CONFIGURATION_PROPERTY);
+        return value != null ? Boolean.parseBoolean(value) : Boolean.getBoolean(PARALLEL_CONFIGURATION_PROPERTY);
+    }
+
+    private void configureInParallel(ProjectInternal root) {
+        delegate.configure(root);
+
+        Map<ProjectInternal, String> serialReasons = new LinkedHashMap<ProjectInternal, String>();
+        Set<String> accessedProjects = new HashSet<String>();
+        for (Project subproject : root.getSubprojects()) {
+            ProjectInternal project = (ProjectInternal) subproject;
+            if (project.getState().getExecuted()) {
+                continue;
+            }
+            BuildScriptIsolationAnalyzer.Result result = isolationAnalyzer.analyze(project);
+            if (!result.isIsolated()) {
+                serialReasons.put(project, result.getReason());
+                accessedProjects.addAll(result.getReferencedProjects());
+            }
+        }
+
+        // A project can be configured in parallel once its parent has been configured, so the subprojects of serially configured projects are also serial
+        Set<ProjectInternal> parallelProjects = new HashSet<ProjectInternal>();
+        Multimap<ProjectInternal, ProjectInternal> waitingForParent = ArrayListMultimap.create();
+        List<ProjectInternal> ready = new ArrayList<ProjectInternal>();
+        int serialCount = 0;
+        for (Project subproject : root.getSubprojects()) {
+            ProjectInternal project = (ProjectInternal) subproject;
+            ProjectInternal parent = project.getParent();
+            if (project.getState().getExecuted()) {
+                continue;
+            }
+            if (serialReasons.containsKey(project) || accessedProjects.contains(project.getPath()) || !parentProjectAvailable(parent, parallelProjects)) {
+                serialCount++;
+                continue;
+            }
+            parallelProjects.add(project);
+            if (parallelProjects.contains(parent)) {
+                waitingForParent.put(parent, project);
+            } else {
+                ready.add(project);
+            }
+        }
+
+        LOGGER.info("Configuring {} projects in parallel and {} projects serially.", parallelProjects.size(), serialCount);
+        for (Map.Entry<ProjectInternal, String> entry : serialReasons.entrySet()) {
+            LOGGER.info("{} is configured serially because {}.", capitalize(entry.getKey().getDisplayName()), entry.getValue());
+        }
+        if (parallelProjects.isEmpty()) {
+            return;
+        }
+
+        final ConfigurationQueue queue = new ConfigurationQueue(ready, waitingForParent, parallelProjects.size());
+        final BuildOperationExecutor.Operation parentOperation = buildOperationExecutor.getCurrentOperation();
+        final int workerCount = Math.min(root.getGradle().getStartParameter().getMaxWorkerCount(), parallelProjects.size());
+        // The calling thread runs some of the operations while waiting for them to complete, so it needs a worker lease of its own
+        BuildOperationWorkerRegistry.Completion workerLease = buildOperationWorkerRegistry.operationStart();
+        try {
+            buildOperationProcessor.run(new Action<BuildOperationQueue<ConfigureProjects>>() {
+                @Override
+                public void execute(BuildOperationQueue<ConfigureProjects> operations) {
+                    for (int i = 0; i < workerCount; i++) {
+                        operations.add(new ConfigureProjects(queue, parentOperation));
+                    }
+                }
+            });
+        } finally {
+            workerLease.operationFinish();
+        }
+        // Rethrow the failure as it is, rather than as a failed build operation
+        queue.rethrowFailure();
+    }
+
+    private static boolean parentProjectAvailable(ProjectInternal parent, Set<ProjectInternal> parallelProjects) {
+        return parallelProjects.contains(parent) || parent.getState().getExecuted();
+    }
+
+    private void configureProjects(ConfigurationQueue queue) {
+        ProjectInternal project;
+        while ((project = queue.take()) != null) {
+            boolean successful = false;
+            try {
+                if (cancellationToken.isCancellationRequested()) {
+                    throw new BuildCancelledException();
+                }
+                final ProjectInternal projectToConfigure = project;
+                isolation.runIsolated(project, new Runnable() {
+                    @Override
+                    public void run() {
+                        delegate.configure(projectToConfigure);
+                    }
+                });
+                successful = true;
+            } catch (RuntimeException e) {
+                queue.failed(e);
+            } finally {
+                queue.finished(project, successful);
+            }
+        }
+    }
+
+    private static String capitalize(String displayName) {
+        return Character.toUpperCase(displayName.charAt(0)) + displayName.substring(1);
+    }
+
+    /**
+     * Takes projects from the queue and configures them until there are no more projects to configure.
+     */
+    private class ConfigureProjects implements RunnableBuildOperation {
+        private final ConfigurationQueue queue;
+        private final BuildOperationExecutor.Operation parentOperation;
+
+        ConfigureProjects(ConfigurationQueue queue, BuildOperationExecutor.Operation parentOperation) {
+            this.queue = queue;
+            this.parentOperation = parentOperation;
+        }
+
+        @Override
+        public void run() {
+            buildOperationExecutor.run(BuildOperationDetails.displayName("Configure projects in parallel").parent(parentOperation).build(), new Action<BuildOperationContext>() {
+                @Override
+                public void execute(BuildOperationContext buildOperationContext) {
+                    configureProjects(queue);
+                }
+            });
+        }
+
+        @Override
+        public String getDescription() {
+            return "Configure projects in parallel";
+        }
+    }
+
+    private static class ConfigurationQueue {
+        private final Lock lock = new ReentrantLock();
+        private final Condition stateChanged = lock.newCondition();
+        private final LinkedList<ProjectInternal> ready;
+        private final Multimap<ProjectInternal, ProjectInternal> waitingForParent;
+        private int remaining;
+        private boolean failed;
+        private RuntimeException failure;
+
+        ConfigurationQueue(List<ProjectInternal> ready, Multimap<ProjectInternal, ProjectInternal> waitingForParent, int projectCount) {
+            this.ready = new LinkedList<ProjectInternal>(ready);
+            this.waitingForParent = waitingForParent;
+            this.remaining = projectCount;
+        }
+
+        /**
+         * Returns the next project to configure, or null when there are no more projects to configure.
+         */
+        ProjectInternal take() {
+            lock.lock();
+            try {
+                while (!failed && ready.isEmpty()) {
+                    if (remaining == 0) {
+                        return null;
+                    }
+                    stateChanged.awaitUninterruptibly();
+                }
+                return failed ? null : ready.removeFirst();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void failed(RuntimeException e) {
+            lock.lock();
+            try {
+                if (failure == null) {
+                    failure = e;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void rethrowFailure() {
+            lock.lock();
+            try {
+                if (failure != null) {
+                    throw failure;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void finished(ProjectInternal project, boolean successful) {
+            lock.lock();
+            try {
+                remaining--;
+                if (successful) {
+                    ready.addAll(waitingForParent.removeAll(project));
+                } else {
+                    failed = true;
+                }
+                stateChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -15,7 +15,6 @@
  */
 package org.gradle.groovy.scripts.internal;
 
-import com.google.common.collect.Maps;
 import groovy.lang.Script;
 import org.codehaus.groovy.ast.ClassNode;
 import org.gradle.api.Action;
@@ -24,16 +23,22 @@ import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.internal.Cast;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * This in-memory cache is responsible for caching compiled build scripts during a build session.
  * If the compiled script is not found in this cache, it will try to find it in the global cache,
  * which will use the delegate script class compiler in case of a miss.
+ *
+ * Build scripts may be compiled concurrently, when projects are configured in parallel or when build scripts are compiled ahead of
+ * project evaluation. A miss for a given script and operation is handled once, while misses for other scripts are compiled concurrently.
  */
 public class BuildScopeInMemoryCachingScriptClassCompiler implements ScriptClassCompiler {
     private final CrossBuildInMemoryCachingScriptClassCache cache;
     private final ScriptClassCompiler scriptClassCompiler;
-    private final Map<ScriptCacheKey, CompiledScript<?, ?>> cachedCompiledScripts = Maps.newHashMap();
+    private final Map<ScriptCacheKey, CompiledScript<?, ?>> cachedCompiledScripts = new ConcurrentHashMap<ScriptCacheKey, CompiledScript<?, ?>>();
+    private final ConcurrentMap<ScriptCacheKey, Object> compileLocks = new ConcurrentHashMap<ScriptCacheKey, Object>();
 
     public BuildScopeInMemoryCachingScriptClassCompiler(CrossBuildInMemoryCachingScriptClassCache cache, ScriptClassCompiler scriptClassCompiler) {
         this.cache = cache;
@@ -45,10 +50,20 @@ public class BuildScopeInMemoryCachingScriptClassCompiler implements ScriptClass
         ScriptCacheKey key = new ScriptCacheKey(source.getClassName(), classLoader, operation.getId());
         CompiledScript<T, M> compiledScript = Cast.uncheckedCast(cachedCompiledScripts.get(key));
         if (compiledScript == null) {
-            compiledScript = cache.getOrCompile(source, classLoader, classLoaderId, operation, scriptBaseClass, verifier, scriptClassCompiler);
-            cachedCompiledScripts.put(key, compiledScript);
+            synchronized (compileLockFor(key)) {
+                compiledScript = Cast.uncheckedCast(cachedCompiledScripts.get(key));
+                if (compiledScript == null) {
+                    compiledScript = cache.getOrCompile(source, classLoader, classLoaderId, operation, scriptBaseClass, verifier, scriptClassCompiler);
+                    cachedCompiledScripts.put(key, compiledScript);
+                }
+            }
         }
         return compiledScript;
     }
 
+    private Object compileLockFor(ScriptCacheKey key) {
+        Object lock = new Object();
+        Object existing = compileLocks.putIfAbsent(key, lock);
+        return existing != null ? existing : lock;
+    }
 }
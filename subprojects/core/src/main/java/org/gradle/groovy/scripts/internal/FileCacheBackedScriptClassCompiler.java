@@ -23,6 +23,7 @@ import org.gradle.api.Action;
 import org.gradle.api.internal.hash.FileHasher;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderId;
+import org.gradle.api.internal.project.ProjectScript;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.CacheValidator;
 import org.gradle.cache.PersistentCache;
@@ -50,6 +51,9 @@ import java.net.URI;
 
 /**
  * A {@link ScriptClassCompiler} which compiles scripts to a cache directory, and loads them from there.
+ *
+ * <p>The compiled classes of project scripts are also loaded from and stored in the build cache, when it is enabled. Other scripts are compiled
+ * before the build cache is configured, so they only use the cache directory.</p>
  */
 public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler, Closeable {
     private final ScriptCompilationHandler scriptCompilationHandler;
@@ -59,10 +63,11 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
     private final FileHasher hasher;
     private final ClassLoaderCache classLoaderCache;
     private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
+    private final ScriptClassBuildCache buildCache;
 
     public FileCacheBackedScriptClassCompiler(CacheRepository cacheRepository, CacheValidator validator, ScriptCompilationHandler scriptCompilationHandler,
                                               ProgressLoggerFactory progressLoggerFactory, FileHasher hasher, ClassLoaderCache classLoaderCache,
-                                              ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
+                                              ClassLoaderHierarchyHasher classLoaderHierarchyHasher, ScriptClassBuildCache buildCache) {
         this.cacheRepository = cacheRepository;
         this.validator = validator;
         this.scriptCompilationHandler = scriptCompilationHandler;
@@ -70,6 +75,7 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
         this.hasher = hasher;
         this.classLoaderCache = classLoaderCache;
         this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
+        this.buildCache = buildCache;
     }
 
     @Override
@@ -137,10 +143,14 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
         private final ClassLoader classLoader;
         private final CompileOperation<?> transformer;
         private final ScriptSource source;
+        private final String sourceHash;
+        private final String classpathHash;
 
         public <T extends Script> CompileToCrossBuildCacheAction(ScriptSource source, ClassLoader classLoader, CompileOperation<?> transformer,
-                                                                 Action<? super ClassNode> verifier, Class<T> scriptBaseClass) {
+                                                                 Action<? super ClassNode> verifier, Class<T> scriptBaseClass, String sourceHash, String classpathHash) {
             this.source = source;
+            this.sourceHash = sourceHash;
+            this.classpathHash = classpathHash;
             this.classLoader = classLoader;
             this.transformer = transformer;
             this.verifier = verifier;
@@ -150,7 +160,14 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
         public void execute(PersistentCache cache) {
             File classesDir = classesDir(cache);
             File metadataDir = metadataDir(cache);
+            boolean useBuildCache = buildCache.isEnabled() && ProjectScript.class.isAssignableFrom(scriptBaseClass);
+            if (useBuildCache && buildCache.load(sourceHash, transformer.getId(), classpathHash, classesDir, metadataDir)) {
+                return;
+            }
             scriptCompilationHandler.compileToDir(source, classLoader, classesDir, metadataDir, transformer, scriptBaseClass, verifier);
+            if (useBuildCache) {
+                buildCache.store(sourceHash, transformer.getId(), classpathHash, classesDir, metadataDir);
+            }
         }
     }
 
@@ -351,7 +368,7 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler,
                 .withDisplayName(dslId + " generic class cache for " + source.getDisplayName())
                 .withInitializer(new ProgressReportingInitializer(
                     progressLoggerFactory,
-                    new CompileToCrossBuildCacheAction(remapped, classLoader, operation, verifier, scriptBaseClass),
+                    new CompileToCrossBuildCacheAction(remapped, classLoader, operation, verifier, scriptBaseClass, sourceHash, classpathHash),
                     "Compiling script into cache",
                     "Compiling " + source.getDisplayName() + " to cross build script cache"))
                 .open();
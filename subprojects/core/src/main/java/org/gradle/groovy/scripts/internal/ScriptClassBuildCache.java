@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.groovy.scripts.internal;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.gradle.api.Nullable;
+import org.gradle.caching.BuildCacheEntryReader;
+import org.gradle.caching.BuildCacheEntryWriter;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.BuildCacheService;
+import org.gradle.internal.Factory;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.GradleVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Loads and stores the generic compiled classes of scripts using the build cache, so that they can be shared between machines.
+ *
+ * <p>The cache key is made of the hash of the script content, the DSL and the hash of the contents of the script's compile classpath. None of
+ * these depend on the location of the script or of the Gradle user home directory, so an entry can be reused by any checkout of the build.</p>
+ */
+public class ScriptClassBuildCache {
+    public static final ScriptClassBuildCache DISABLED = new ScriptClassBuildCache(null);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScriptClassBuildCache.class);
+    private static final String CLASSES_PREFIX = "classes/";
+    private static final String METADATA_PREFIX = "metadata/";
+
+    private final Factory<? extends BuildCacheService> buildCacheFactory;
+    private BuildCacheService buildCache;
+
+    /**
+     * @param buildCacheFactory Creates the build cache once it has been configured, when it is first used.
+     */
+    public ScriptClassBuildCache(@Nullable Factory<? extends BuildCacheService> buildCacheFactory) {
+        this.buildCacheFactory = buildCacheFactory;
+    }
+
+    public boolean isEnabled() {
+        return buildCacheFactory != null;
+    }
+
+    /**
+     * Loads the classes and metadata for the given script into the given directories. Returns false when there is no entry in the cache,
+     * in which case the directories are empty.
+     */
+    public boolean load(String sourceHash, String dslId, String classpathHash, final File classesDir, final File metadataDir) {
+        BuildCacheKey key = new ScriptClassCacheKey(sourceHash, dslId, classpathHash);
+        try {
+            return getBuildCache().load(key, new BuildCacheEntryReader() {
+                @Override
+                public void readFrom(InputStream input) throws IOException {
+                    unpack(input, classesDir, metadataDir);
+                }
+            });
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not load compiled script classes for cache key {} from {}: {}", key, getBuildCache().getDescription(), e.getMessage());
+            GFileUtils.deleteDirectory(classesDir);
+            GFileUtils.deleteDirectory(metadataDir);
+            return false;
+        }
+    }
+
+    /**
+     * Stores the classes and metadata for the given script from the given directories.
+     */
+    public void store(String sourceHash, String dslId, String classpathHash, final File classesDir, final File metadataDir) {
+        BuildCacheKey key = new ScriptClassCacheKey(sourceHash, dslId, classpathHash);
+        try {
+            getBuildCache().store(key, new BuildCacheEntryWriter() {
+                @Override
+                public void writeTo(OutputStream output) throws IOException {
+                    pack(classesDir, metadataDir, output);
+                }
+            });
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not store compiled script classes for cache key {} in {}: {}", key, getBuildCache().getDescription(), e.getMessage());
+        }
+    }
+
+    private synchronized BuildCacheService getBuildCache() {
+        if (buildCache == null) {
+            buildCache = buildCacheFactory.create();
+        }
+        return buildCache;
+    }
+
+    private static void pack(File classesDir, File metadataDir, OutputStream output) throws IOException {
+        ZipOutputStream zipOutput = new ZipOutputStream(output);
+        packDir(classesDir, CLASSES_PREFIX, zipOutput);
+        packDir(metadataDir, METADATA_PREFIX, zipOutput);
+        zipOutput.finish();
+    }
+
+    private static void packDir(File dir, String prefix, ZipOutputStream zipOutput) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                packDir(file, prefix + file.getName() + "/", zipOutput);
+            } else {
+                zipOutput.putNextEntry(new ZipEntry(prefix + file.getName()));
+                Files.copy(file, zipOutput);
+                zipOutput.closeEntry();
+            }
+        }
+    }
+
+    private static void unpack(InputStream input, File classesDir, File metadataDir) throws IOException {
+        GFileUtils.mkdirs(classesDir);
+        GFileUtils.mkdirs(metadataDir);
+        ZipInputStream zipInput = new ZipInputStream(input);
+        for (ZipEntry entry = zipInput.getNextEntry(); entry != null; entry = zipInput.getNextEntry()) {
+            String name = entry.getName();
+            if (name.contains("..")) {
+                throw new IOException(String.format("Invalid entry '%s' in compiled script classes.", name));
+            }
+            File file;
+            if (name.startsWith(CLASSES_PREFIX)) {
+                file = new File(classesDir, name.substring(CLASSES_PREFIX.length()));
+            } else if (name.startsWith(METADATA_PREFIX)) {
+                file = new File(metadataDir, name.substring(METADATA_PREFIX.length()));
+            } else {
+                throw new IOException(String.format("Unexpected entry '%s' in compiled script classes.", name));
+            }
+            GFileUtils.mkdirs(file.getParentFile());
+            OutputStream output = new FileOutputStream(file);
+            try {
+                ByteStreams.copy(zipInput, output);
+            } finally {
+                output.close();
+            }
+        }
+    }
+
+    private static class ScriptClassCacheKey implements BuildCacheKey {
+        private final String hashCode;
+
+        ScriptClassCacheKey(String sourceHash, String dslId, String classpathHash) {
+            Hasher hasher = Hashing.md5().newHasher();
+            for (String value : new String[]{"compiled-script", GradleVersion.current().getVersion(), sourceHash, dslId, classpathHash}) {
+                hasher.putString(value, Charsets.UTF_8);
+                hasher.putByte((byte) 0);
+            }
+            this.hashCode = hasher.hash().toString();
+        }
+
+        @Override
+        public String getHashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return hashCode;
+        }
+    }
+}
@@ -24,6 +24,7 @@ import org.gradle.api.internal.SettingsInternal;
 import org.gradle.api.internal.changedetection.state.TaskHistoryStore;
 import org.gradle.api.logging.StandardOutputListener;
 import org.gradle.configuration.BuildConfigurer;
+import org.gradle.configuration.cache.ConfigurationCache;
 import org.gradle.execution.BuildConfigurationActionExecuter;
 import org.gradle.execution.BuildExecuter;
 import org.gradle.internal.concurrent.CompositeStoppable;
@@ -51,11 +52,13 @@ public class DefaultGradleLauncher implements GradleLauncher {
     private final BuildOperationExecutor buildOperationExecutor;
     private final BuildConfigurationActionExecuter buildConfigurationActionExecuter;
     private final BuildExecuter buildExecuter;
+    private final ConfigurationCache configurationCache;
     private final BuildScopeServices buildServices;
     private final List<?> servicesToStop;
     private GradleInternal gradle;
     private SettingsInternal settings;
     private Stage stage;
+    private boolean reuseConfiguration;
 
     public DefaultGradleLauncher(GradleInternal gradle, InitScriptHandler initScriptHandler, SettingsLoader settingsLoader,
                                  BuildConfigurer buildConfigurer, ExceptionAnalyser exceptionAnalyser,
@@ -63,7 +66,7 @@ public class DefaultGradleLauncher implements GradleLauncher {
                                  ModelConfigurationListener modelConfigurationListener,
                                  BuildCompletionListener buildCompletionListener, BuildOperationExecutor operationExecutor,
                                  BuildConfigurationActionExecuter buildConfigurationActionExecuter, BuildExecuter buildExecuter,
-                                 BuildScopeServices buildServices, List<?> servicesToStop) {
+                                 ConfigurationCache configurationCache, BuildScopeServices buildServices, List<?> servicesToStop) {
         this.gradle = gradle;
         this.initScriptHandler = initScriptHandler;
         this.settingsLoader = settingsLoader;
@@ -76,6 +79,7 @@ public class DefaultGradleLauncher implements GradleLauncher {
         this.buildConfigurationActionExecuter = buildConfigurationActionExecuter;
         this.buildExecuter = buildExecuter;
         this.buildCompletionListener = buildCompletionListener;
+        this.configurationCache = configurationCache;
         this.buildServices = buildServices;
         this.servicesToStop = servicesToStop;
         loggingManager.start();
@@ -136,6 +140,8 @@ public class DefaultGradleLauncher implements GradleLauncher {
         }
 
         if (stage == null) {
+            configurationCache.startRecording(gradle);
+
             // Evaluate init scripts
             initScriptHandler.executeScripts(gradle);
 
@@ -150,6 +156,9 @@ public class DefaultGradleLauncher implements GradleLauncher {
         }
 
         if (stage == Stage.Load) {
+            // Reuse the configuration of a previous build, when only tasks are to be run and nothing it depends on has changed
+            reuseConfiguration = upTo == Stage.Build && configurationCache.load(gradle, settings);
+
             // Configure build
             buildOperationExecutor.run("Configure build", new ConfigureBuildAction());
             stage = Stage.Configure;
@@ -212,9 +221,13 @@ public class DefaultGradleLauncher implements GradleLauncher {
     private class ConfigureBuildAction implements Action<BuildOperationContext> {
         @Override
         public void execute(BuildOperationContext buildOperationContext) {
-            buildConfigurer.configure(gradle);
+            if (reuseConfiguration) {
+                configurationCache.configure(gradle);
+            } else {
+                buildConfigurer.configure(gradle);
+            }
 
-            if (!isConfigureOnDemand()) {
+            if (!reuseConfiguration && !isConfigureOnDemand()) {
                 projectsEvaluated();
             }
 
@@ -225,10 +238,17 @@ public class DefaultGradleLauncher implements GradleLauncher {
     private class CalculateTaskGraphAction implements Action<BuildOperationContext> {
         @Override
         public void execute(BuildOperationContext buildOperationContext) {
+            if (reuseConfiguration) {
+                // Only the projects of the reused tasks have been configured, as when configuring on demand
+                configurationCache.populateTaskGraph(gradle);
+                projectsEvaluated();
+                return;
+            }
             buildConfigurationActionExecuter.select(gradle);
             if (isConfigureOnDemand()) {
                 projectsEvaluated();
             }
+            configurationCache.store(gradle);
         }
     }
 
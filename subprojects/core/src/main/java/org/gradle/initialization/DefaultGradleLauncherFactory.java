@@ -26,9 +26,11 @@ import org.gradle.api.logging.StandardOutputListener;
 import org.gradle.api.logging.configuration.ShowStacktrace;
 import org.gradle.caching.internal.tasks.TaskExecutionStatisticsEventAdapter;
 import org.gradle.configuration.BuildConfigurer;
+import org.gradle.configuration.cache.ConfigurationCache;
 import org.gradle.deployment.internal.DeploymentRegistry;
 import org.gradle.execution.BuildConfigurationActionExecuter;
 import org.gradle.execution.BuildExecuter;
+import org.gradle.internal.FileUtils;
 import org.gradle.internal.buildevents.BuildLogger;
 import org.gradle.internal.buildevents.CacheStatisticsReporter;
 import org.gradle.internal.buildevents.TaskExecutionLogger;
@@ -42,6 +44,8 @@ import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
 import org.gradle.internal.logging.text.StyledTextOutputFactory;
 import org.gradle.internal.progress.BuildOperationExecutor;
+import org.gradle.internal.progress.BuildOperationService;
+import org.gradle.internal.progress.BuildOperationTrace;
 import org.gradle.internal.progress.BuildProgressFilter;
 import org.gradle.internal.progress.BuildProgressLogger;
 import org.gradle.internal.progress.LoggerProvider;
@@ -58,6 +62,7 @@ import org.gradle.profile.ProfileEventAdapter;
 import org.gradle.profile.ReportGeneratingProfileListener;
 import org.gradle.util.DeprecationLogger;
 
+import java.io.File;
 import java.util.List;
 
 public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
@@ -96,12 +101,23 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
         }
         BuildSessionScopeServices sessionScopeServices = (BuildSessionScopeServices) parentRegistry;
 
-        DefaultGradleLauncher launcher = doNewInstance(startParameter, null, requestContext.getCancellationToken(), requestContext, requestContext.getEventConsumer(), sessionScopeServices, ImmutableList.of(new Stoppable() {
+        ImmutableList.Builder<Stoppable> servicesToStop = ImmutableList.builder();
+        servicesToStop.add(new Stoppable() {
             @Override
             public void stop() {
                 rootBuild = null;
             }
-        }));
+        });
+        String tracePath = startParameter.getSystemPropertiesArgs().get(BuildOperationTrace.TRACE_PROPERTY);
+        if (tracePath != null) {
+            File traceFile = new File(tracePath);
+            if (!traceFile.isAbsolute()) {
+                traceFile = FileUtils.canonicalize(new File(startParameter.getCurrentDir(), tracePath));
+            }
+            servicesToStop.add(startBuildOperationTrace(traceFile, parentRegistry.get(BuildOperationService.class)));
+        }
+
+        DefaultGradleLauncher launcher = doNewInstance(startParameter, null, requestContext.getCancellationToken(), requestContext, requestContext.getEventConsumer(), sessionScopeServices, servicesToStop.build());
         rootBuild = launcher;
 
         DeploymentRegistry deploymentRegistry = parentRegistry.get(DeploymentRegistry.class);
@@ -113,6 +129,18 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
         return launcher;
     }
 
+    private static Stoppable startBuildOperationTrace(File traceFile, final BuildOperationService buildOperationService) {
+        final BuildOperationTrace trace = new BuildOperationTrace(traceFile);
+        buildOperationService.addListener(trace);
+        return new Stoppable() {
+            @Override
+            public void stop() {
+                buildOperationService.removeListener(trace);
+                trace.stop();
+            }
+        };
+    }
+
     private DefaultGradleLauncher doNewInstance(StartParameter startParameter, GradleLauncher parent,
                                                 BuildCancellationToken cancellationToken, BuildRequestMetaData requestMetaData, BuildEventConsumer buildEventConsumer, final BuildSessionScopeServices sessionScopeServices, List<?> servicesToStop) {
         BuildScopeServices serviceRegistry = BuildScopeServices.forSession(sessionScopeServices);
@@ -193,6 +221,7 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
             serviceRegistry.get(BuildOperationExecutor.class),
             gradle.getServices().get(BuildConfigurationActionExecuter.class),
             gradle.getServices().get(BuildExecuter.class),
+            serviceRegistry.get(ConfigurationCache.class),
             serviceRegistry,
             servicesToStop
         );
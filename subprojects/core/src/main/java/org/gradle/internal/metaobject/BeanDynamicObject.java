@@ -51,6 +51,8 @@ import java.util.Map;
  * <p>Uses some deep hacks to avoid some expensive reflections and the use of exceptions when a particular property or method cannot be found,
  * for example, when a decorated object is used as the delegate of a configuration closure. Also uses some hacks to insert some customised type
  * coercion and error reporting. Enjoy.
+ *
+ * <p>The results of looking up properties and methods in the meta-class, including failed lookups, are remembered for each type by {@link MetaClassDispatchCache}.
  */
 public class BeanDynamicObject extends AbstractDynamicObject {
     private static final Method META_PROP_METHOD;
@@ -177,6 +179,8 @@ public class BeanDynamicObject extends AbstractDynamicObject {
     }
 
     private class MetaClassAdapter {
+        private MetaClassDispatchCache dispatchCache;
+
         protected String getDisplayName() {
             return BeanDynamicObject.this.getDisplayName();
         }
@@ -185,7 +189,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
             if (!includeProperties) {
                 return false;
             }
-            if (lookupProperty(getMetaClass(), name) != null) {
+            if (findProperty(getMetaClass(), name) != null) {
                 return true;
             }
             if (bean instanceof PropertyMixIn) {
@@ -203,7 +207,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
             MetaClass metaClass = getMetaClass();
 
             // First look for a property known to the meta-class
-            MetaProperty property = lookupProperty(metaClass, name);
+            MetaProperty property = findProperty(metaClass, name);
             if (property != null) {
                 if (property instanceof MetaBeanProperty && ((MetaBeanProperty) property).getGetter() == null) {
                     throw getWriteOnlyProperty(name);
@@ -232,7 +236,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
             }
 
             // Fall back to propertyMissing, if available
-            MetaMethod propertyMissing = findGetPropertyMissingMethod(metaClass);
+            MetaMethod propertyMissing = findMissingHandler(metaClass, MetaClassDispatchCache.PROPERTY_MISSING_GET);
             if (propertyMissing != null) {
                 try {
                     result.result(propertyMissing.invoke(bean, new Object[]{name}));
@@ -250,6 +254,72 @@ public class BeanDynamicObject extends AbstractDynamicObject {
         protected void getOpaqueProperty(String name, GetPropertyResult result) {
         }
 
+        /**
+         * Returns the cache to use for lookups in the given meta-class, or null when lookups should not be cached.
+         */
+        @Nullable
+        protected MetaClassDispatchCache getDispatchCache(MetaClass metaClass) {
+            MetaClassDispatchCache cache = dispatchCache;
+            if (cache == null || !cache.isFor(metaClass)) {
+                cache = MetaClassDispatchCache.forMetaClass(metaClass);
+                dispatchCache = cache;
+            }
+            return cache;
+        }
+
+        @Nullable
+        private MetaProperty findProperty(MetaClass metaClass, String name) {
+            MetaClassDispatchCache cache = getDispatchCache(metaClass);
+            if (cache == null) {
+                return lookupProperty(metaClass, name);
+            }
+            Object cached = cache.getProperty(name);
+            if (cached != MetaClassDispatchCache.UNKNOWN) {
+                return (MetaProperty) cached;
+            }
+            MetaProperty property = lookupProperty(metaClass, name);
+            cache.putProperty(name, property);
+            return property;
+        }
+
+        @Nullable
+        private MetaMethod findMethod(MetaClass metaClass, String name, Class[] arguments) {
+            MetaClassDispatchCache cache = getDispatchCache(metaClass);
+            if (cache == null) {
+                return lookupMethod(metaClass, name, arguments);
+            }
+            Object cached = cache.getMethod(name, arguments);
+            if (cached != MetaClassDispatchCache.UNKNOWN) {
+                return (MetaMethod) cached;
+            }
+            MetaMethod method = lookupMethod(metaClass, name, arguments);
+            cache.putMethod(name, arguments, method);
+            return method;
+        }
+
+        @Nullable
+        private MetaMethod findMissingHandler(MetaClass metaClass, int handler) {
+            MetaClassDispatchCache cache = getDispatchCache(metaClass);
+            if (cache != null) {
+                Object cached = cache.getMissingHandler(handler);
+                if (cached != MetaClassDispatchCache.UNKNOWN) {
+                    return (MetaMethod) cached;
+                }
+            }
+            MetaMethod method;
+            if (handler == MetaClassDispatchCache.PROPERTY_MISSING_GET) {
+                method = findGetPropertyMissingMethod(metaClass);
+            } else if (handler == MetaClassDispatchCache.PROPERTY_MISSING_SET) {
+                method = findSetPropertyMissingMethod(metaClass);
+            } else {
+                method = findMethodMissingMethod(metaClass);
+            }
+            if (cache != null) {
+                cache.putMissingHandler(handler, method);
+            }
+            return method;
+        }
+
         @Nullable
         private MetaMethod findGetPropertyMissingMethod(MetaClass metaClass) {
             if (metaClass instanceof MetaClassImpl) {
@@ -331,7 +401,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
             }
 
             MetaClass metaClass = getMetaClass();
-            MetaProperty property = lookupProperty(metaClass, name);
+            MetaProperty property = findProperty(metaClass, name);
             if (property != null) {
                 if (property instanceof MultipleSetterProperty) {
                     // Invoke the setter method, to pick up type coercion
@@ -379,7 +449,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
                 return;
             }
 
-            MetaMethod propertyMissingMethod = findSetPropertyMissingMethod(metaClass);
+            MetaMethod propertyMissingMethod = findMissingHandler(metaClass, MetaClassDispatchCache.PROPERTY_MISSING_SET);
             if (propertyMissingMethod != null) {
                 try {
                     propertyMissingMethod.invoke(bean, new Object[]{name, value});
@@ -431,7 +501,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
         }
 
         public boolean hasMethod(final String name, final Object... arguments) {
-            if (lookupMethod(getMetaClass(), name, inferTypes(arguments)) != null) {
+            if (findMethod(getMetaClass(), name, inferTypes(arguments)) != null) {
                 return true;
             }
             if (bean instanceof MethodMixIn) {
@@ -459,23 +529,29 @@ public class BeanDynamicObject extends AbstractDynamicObject {
 
         public void invokeMethod(String name, InvokeMethodResult result, Object... arguments) {
             MetaClass metaClass = getMetaClass();
-            MetaMethod metaMethod = lookupMethod(metaClass, name, inferTypes(arguments));
+            MetaMethod metaMethod = findMethod(metaClass, name, inferTypes(arguments));
             if (metaMethod != null) {
                 result.result(metaMethod.doMethodInvoke(bean, arguments));
                 return;
             }
 
-            List<MetaMethod> metaMethods = metaClass.respondsTo(bean, name);
-            for (MetaMethod method : metaMethods) {
-                if (method.getParameterTypes().length != arguments.length) {
-                    continue;
+            MetaClassDispatchCache cache = getDispatchCache(metaClass);
+            if (cache == null || !cache.hasNoMethods(name)) {
+                List<MetaMethod> metaMethods = metaClass.respondsTo(bean, name);
+                if (metaMethods.isEmpty() && cache != null) {
+                    cache.noMethods(name);
                 }
-                Object[] transformed = argsTransformer.transform(method.getParameterTypes(), arguments);
-                if (transformed == arguments) {
-                    continue;
+                for (MetaMethod method : metaMethods) {
+                    if (method.getParameterTypes().length != arguments.length) {
+                        continue;
+                    }
+                    Object[] transformed = argsTransformer.transform(method.getParameterTypes(), arguments);
+                    if (transformed == arguments) {
+                        continue;
+                    }
+                    result.result(method.doMethodInvoke(bean, transformed));
+                    return;
                 }
-                result.result(method.doMethodInvoke(bean, transformed));
-                return;
             }
 
             if (bean instanceof MethodMixIn) {
@@ -498,7 +574,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
         }
 
         protected void invokeOpaqueMethod(MetaClass metaClass, String name, Object[] arguments, InvokeMethodResult result) {
-            MetaMethod methodMissingMethod = findMethodMissingMethod(metaClass);
+            MetaMethod methodMissingMethod = findMissingHandler(metaClass, MetaClassDispatchCache.METHOD_MISSING);
             if (methodMissingMethod != null) {
                 try {
                     try {
@@ -607,6 +683,13 @@ public class BeanDynamicObject extends AbstractDynamicObject {
             classMetaData = GroovySystem.getMetaClassRegistry().getMetaClass(cl);
         }
 
+        @Nullable
+        @Override
+        protected MetaClassDispatchCache getDispatchCache(MetaClass metaClass) {
+            // The meta-class of every class is the meta-class of java.lang.Class, whereas the static members differ for each class
+            return null;
+        }
+
         @Nullable
         @Override
         protected MetaProperty lookupProperty(MetaClass metaClass, String name) {
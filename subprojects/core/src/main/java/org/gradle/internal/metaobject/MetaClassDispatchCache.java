@@ -0,0 +1,198 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.metaobject;
+
+import groovy.lang.MetaClass;
+import groovy.lang.MetaClassImpl;
+import groovy.lang.MetaMethod;
+import groovy.lang.MetaProperty;
+import org.gradle.api.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Remembers the properties and methods found by looking them up in the meta-class of a type, by name, including the names for which nothing
+ * was found. Used by {@link BeanDynamicObject} so that repeated dynamic access to the same names on objects of the same type does not query
+ * the meta-class again.
+ *
+ * <p>Only plain {@link MetaClassImpl} instances are cached, as other implementations, such as {@link groovy.lang.ExpandoMetaClass}, can change
+ * after they have been initialized. The entries for a type are discarded when its meta-class is replaced. The meta-class, its members and the
+ * argument types are all weakly referenced, so that the cache does not keep classes alive.</p>
+ */
+class MetaClassDispatchCache {
+    static final Object UNKNOWN = new Object();
+    static final int PROPERTY_MISSING_GET = 0;
+    static final int PROPERTY_MISSING_SET = 1;
+    static final int METHOD_MISSING = 2;
+
+    private static final Object NOT_FOUND = new Object();
+    private static final Map<Class<?>, MetaClassDispatchCache> CACHES = new WeakHashMap<Class<?>, MetaClassDispatchCache>();
+
+    private final WeakReference<MetaClass> metaClass;
+    private final ConcurrentMap<String, Object> properties = new ConcurrentHashMap<String, Object>();
+    private final ConcurrentMap<MethodKey, Object> methods = new ConcurrentHashMap<MethodKey, Object>();
+    private final ConcurrentMap<String, Boolean> namesWithoutMethods = new ConcurrentHashMap<String, Boolean>();
+    private final AtomicReferenceArray<Object> missingHandlers = new AtomicReferenceArray<Object>(3);
+
+    private MetaClassDispatchCache(MetaClass metaClass) {
+        this.metaClass = new WeakReference<MetaClass>(metaClass);
+    }
+
+    /**
+     * Returns the cache for the given meta-class, or null when the lookups of the meta-class cannot be cached.
+     */
+    @Nullable
+    static MetaClassDispatchCache forMetaClass(MetaClass metaClass) {
+        if (metaClass.getClass() != MetaClassImpl.class) {
+            return null;
+        }
+        Class<?> type = metaClass.getTheClass();
+        synchronized (CACHES) {
+            MetaClassDispatchCache cache = CACHES.get(type);
+            if (cache == null || !cache.isFor(metaClass)) {
+                cache = new MetaClassDispatchCache(metaClass);
+                CACHES.put(type, cache);
+            }
+            return cache;
+        }
+    }
+
+    boolean isFor(MetaClass metaClass) {
+        return this.metaClass.get() == metaClass;
+    }
+
+    /**
+     * Returns the property with the given name, null when the meta-class has no such property, or {@link #UNKNOWN} when it has not been looked up yet.
+     */
+    Object getProperty(String name) {
+        return unpack(properties.get(name));
+    }
+
+    void putProperty(String name, @Nullable MetaProperty property) {
+        properties.put(name, pack(property));
+    }
+
+    /**
+     * Returns the method with the given name and argument types, null when the meta-class has no such method, or {@link #UNKNOWN} when it has not been
+     * looked up yet.
+     */
+    Object getMethod(String name, Class[] argumentTypes) {
+        return unpack(methods.get(new MethodKey(name, argumentTypes, false)));
+    }
+
+    void putMethod(String name, Class[] argumentTypes, @Nullable MetaMethod method) {
+        methods.put(new MethodKey(name, argumentTypes, true), pack(method));
+    }
+
+    /**
+     * Returns true when it is known that the meta-class has no method with the given name, whatever the arguments.
+     */
+    boolean hasNoMethods(String name) {
+        return namesWithoutMethods.containsKey(name);
+    }
+
+    void noMethods(String name) {
+        namesWithoutMethods.put(name, Boolean.TRUE);
+    }
+
+    /**
+     * Returns the given missing property or missing method handler, null when the meta-class has no such handler, or {@link #UNKNOWN} when it has not
+     * been looked up yet.
+     */
+    Object getMissingHandler(int handler) {
+        return unpack(missingHandlers.get(handler));
+    }
+
+    void putMissingHandler(int handler, @Nullable MetaMethod method) {
+        missingHandlers.set(handler, pack(method));
+    }
+
+    private static Object pack(@Nullable Object value) {
+        return value == null ? NOT_FOUND : new WeakReference<Object>(value);
+    }
+
+    private static Object unpack(@Nullable Object value) {
+        if (value == null) {
+            return UNKNOWN;
+        }
+        if (value == NOT_FOUND) {
+            return null;
+        }
+        Object referent = ((WeakReference<?>) value).get();
+        return referent == null ? UNKNOWN : referent;
+    }
+
+    /**
+     * The name and argument types of a method. The keys stored in the cache reference the argument types weakly, while the keys used to query the
+     * cache reference them directly.
+     */
+    private static class MethodKey {
+        private final String name;
+        private final Object[] argumentTypes;
+        private final int hashCode;
+
+        MethodKey(String name, Class[] argumentTypes, boolean stored) {
+            this.name = name;
+            this.argumentTypes = new Object[argumentTypes.length];
+            int hashCode = name.hashCode();
+            for (int i = 0; i < argumentTypes.length; i++) {
+                Class type = argumentTypes[i];
+                this.argumentTypes[i] = stored && type != null ? new WeakReference<Class>(type) : type;
+                hashCode = 31 * hashCode + System.identityHashCode(type);
+            }
+            this.hashCode = hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey other = (MethodKey) obj;
+            if (hashCode != other.hashCode || !name.equals(other.name) || argumentTypes.length != other.argumentTypes.length) {
+                return false;
+            }
+            for (int i = 0; i < argumentTypes.length; i++) {
+                Class type = typeAt(i);
+                if (type != other.typeAt(i) || type == null && (argumentTypes[i] != null || other.argumentTypes[i] != null)) {
+                    // Different types, or a type that has been collected
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Nullable
+        private Class typeAt(int index) {
+            Object type = argumentTypes[index];
+            return type instanceof WeakReference ? (Class) ((WeakReference<?>) type).get() : (Class) type;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.progress;
+
+import com.google.common.base.Charsets;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.Stoppable;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Writes each build operation to a file in the Chrome trace event format, so that it can be viewed with {@code chrome://tracing} or analysed offline.
+ *
+ * <p>Each finished operation is written as a complete event that records the thread it ran on, its start time and duration in nanoseconds,
+ * and, when the JVM supports it, the CPU time used and the bytes allocated by that thread while the operation was running. The CPU time and
+ * allocations of an operation include those of the operations nested in it on the same thread.</p>
+ *
+ * <p>A trace is written when the {@value #TRACE_PROPERTY} system property is set to the path of the trace file.</p>
+ */
+public class BuildOperationTrace implements BuildOperationListener, Stoppable {
+    public static final String TRACE_PROPERTY = "org.gradle.internal.operations.trace";
+    private static final Logger LOGGER = Logging.getLogger(BuildOperationTrace.class);
+
+    private final ConcurrentMap<Object, StartedOperation> runningOperations = new ConcurrentHashMap<Object, StartedOperation>();
+    private final Set<Long> namedThreads = new HashSet<Long>();
+    private final ThreadUsage threadUsage = ThreadUsage.create();
+    private final long traceStartNanos = System.nanoTime();
+    private final File traceFile;
+    private final Writer writer;
+    private boolean hasEvents;
+
+    public BuildOperationTrace(File traceFile) {
+        this.traceFile = traceFile;
+        try {
+            traceFile.getAbsoluteFile().getParentFile().mkdirs();
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(traceFile), Charsets.UTF_8));
+            writer.write("[");
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not create build operation trace file '%s'.", traceFile), e);
+        }
+    }
+
+    @Override
+    public void started(BuildOperationInternal buildOperation, OperationStartEvent startEvent) {
+        runningOperations.put(buildOperation.getId(), new StartedOperation(System.nanoTime(), threadUsage.getCpuTime(), threadUsage.getAllocatedBytes()));
+    }
+
+    @Override
+    public void finished(BuildOperationInternal buildOperation, OperationResult finishEvent) {
+        long endNanos = System.nanoTime();
+        long endCpuTime = threadUsage.getCpuTime();
+        long endAllocatedBytes = threadUsage.getAllocatedBytes();
+        StartedOperation started = runningOperations.remove(buildOperation.getId());
+        if (started == null) {
+            return;
+        }
+
+        Thread thread = Thread.currentThread();
+        StringBuilder event = new StringBuilder(256);
+        event.append("{\"name\":");
+        appendString(event, buildOperation.getDisplayName());
+        event.append(",\"cat\":\"operation\",\"ph\":\"X\",\"pid\":1,\"tid\":").append(thread.getId());
+        event.append(",\"ts\":");
+        appendMicros(event, started.startNanos - traceStartNanos);
+        event.append(",\"dur\":");
+        appendMicros(event, endNanos - started.startNanos);
+        event.append(",\"args\":{\"id\":").append(buildOperation.getId());
+        if (buildOperation.getParentId() != null) {
+            event.append(",\"parentId\":").append(buildOperation.getParentId());
+        }
+        event.append(",\"startNanos\":").append(started.startNanos - traceStartNanos);
+        event.append(",\"endNanos\":").append(endNanos - traceStartNanos);
+        if (started.cpuTime >= 0 && endCpuTime >= 0) {
+            event.append(",\"cpuNanos\":").append(endCpuTime - started.cpuTime);
+        }
+        if (started.allocatedBytes >= 0 && endAllocatedBytes >= 0) {
+            event.append(",\"allocatedBytes\":").append(endAllocatedBytes - started.allocatedBytes);
+        }
+        if (finishEvent.getFailure() != null) {
+            event.append(",\"failed\":true");
+        }
+        event.append("}}");
+        write(thread, event);
+    }
+
+    private synchronized void write(Thread thread, CharSequence event) {
+        try {
+            if (namedThreads.add(thread.getId())) {
+                StringBuilder metadata = new StringBuilder(128);
+                metadata.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(thread.getId()).append(",\"args\":{\"name\":");
+                appendString(metadata, thread.getName());
+                metadata.append("}}");
+                append(metadata);
+            }
+            append(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not write to build operation trace file '%s'.", traceFile), e);
+        }
+    }
+
+    private void append(CharSequence event) throws IOException {
+        writer.append(hasEvents ? ",\n" : "\n").append(event);
+        hasEvents = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        try {
+            writer.write("\n]\n");
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not write to build operation trace file '%s'.", traceFile), e);
+        }
+        LOGGER.lifecycle("Build operation trace written to {}", traceFile);
+    }
+
+    private static void appendMicros(StringBuilder builder, long nanos) {
+        builder.append(nanos / 1000).append('.');
+        long fraction = nanos % 1000;
+        if (fraction < 100) {
+            builder.append('0');
+        }
+        if (fraction < 10) {
+            builder.append('0');
+        }
+        builder.append(fraction);
+    }
+
+    private static void appendString(StringBuilder builder, String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (ch < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        builder.append(ch);
+                    }
+            }
+        }
+        builder.append('"');
+    }
+
+    private static class StartedOperation {
+        final long startNanos;
+        final long cpuTime;
+        final long allocatedBytes;
+
+        StartedOperation(long startNanos, long cpuTime, long allocatedBytes) {
+            this.startNanos = startNanos;
+            this.cpuTime = cpuTime;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    /**
+     * Measures the resources used by the current thread, returning -1 for the measurements that are not supported by the JVM.
+     */
+    private static class ThreadUsage {
+        private final ThreadMXBean threadBean;
+        private final boolean cpuTimeEnabled;
+        private final boolean allocatedBytesEnabled;
+
+        private ThreadUsage(ThreadMXBean threadBean, boolean cpuTimeEnabled, boolean allocatedBytesEnabled) {
+            this.threadBean = threadBean;
+            this.cpuTimeEnabled = cpuTimeEnabled;
+            this.allocatedBytesEnabled = allocatedBytesEnabled;
+        }
+
+        static ThreadUsage create() {
+            ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+            boolean cpuTimeEnabled = threadBean.isCurrentThreadCpuTimeSupported() && threadBean.isThreadCpuTimeEnabled();
+            boolean allocatedBytesEnabled;
+            try {
+                allocatedBytesEnabled = threadBean instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()
+                    && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemoryEnabled();
+            } catch (LinkageError e) {
+                // Not a HotSpot based JVM
+                allocatedBytesEnabled = false;
+            }
+            return new ThreadUsage(threadBean, cpuTimeEnabled, allocatedBytesEnabled);
+        }
+
+        long getCpuTime() {
+            return cpuTimeEnabled ? threadBean.getCurrentThreadCpuTime() : -1;
+        }
+
+        long getAllocatedBytes() {
+            return allocatedBytesEnabled ? ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+        }
+    }
+}
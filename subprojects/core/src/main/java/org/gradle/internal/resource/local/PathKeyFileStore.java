@@ -27,9 +27,11 @@ import org.gradle.api.internal.file.delete.Deleter;
 import org.gradle.util.GFileUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.UUID;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
@@ -41,20 +43,23 @@ import static org.gradle.internal.FileUtils.hasExtension;
  * There is always at most one entry for a given key for this file store. If an entry already exists at the given path, it will be overwritten.
  * Paths can contain directory components, which will be created on demand.
  * <p>
- * This file store is self repairing in so far that any files partially written before a fatal error will be ignored and
- * removed at a later time.
+ * An entry is written to a file of its own, which is then renamed into place. An entry can therefore be read while it is being replaced, and files partially
+ * written before a fatal error are never used. Files marked as partially written by earlier versions are ignored and removed at a later time.
  * <p>
  * This file store also provides searching via relative ant path patterns.
  */
 public class PathKeyFileStore implements FileStore<String>, FileStoreSearcher<String> {
 
     /*
-        When writing a file into the filestore a marker file with this suffix is written alongside,
+        When writing a file into the filestore a marker file with this suffix used to be written alongside,
         then removed after the write. This is used to detect partially written files (due to a serious crash)
         and to silently clean them.
      */
     public static final String IN_PROGRESS_MARKER_FILE_SUFFIX = ".fslck";
 
+    // Suffix of the files that entries are written to before they are renamed into place
+    private static final String IN_PROGRESS_FILE_SUFFIX = ".part";
+
     private File baseDir;
     private final Deleter deleter;
 
@@ -114,9 +119,9 @@ public class PathKeyFileStore implements FileStore<String>, FileStoreSearcher<St
         return doAdd(destination, error, new Action<File>() {
             public void execute(File file) {
                 if (isMove) {
-                    GFileUtils.moveFile(source, destination);
+                    GFileUtils.moveFile(source, file);
                 } else {
-                    GFileUtils.copyFile(source, destination);
+                    GFileUtils.copyFile(source, file);
                 }
             }
         });
@@ -125,16 +130,25 @@ public class PathKeyFileStore implements FileStore<String>, FileStoreSearcher<St
     protected LocallyAvailableResource doAdd(File destination, String failureDescription, Action<File> action) {
         try {
             GFileUtils.parentMkdirs(destination);
-            File inProgressMarkerFile = getInProgressMarkerFile(destination);
-            GFileUtils.touch(inProgressMarkerFile);
+            File inProgressFile = new File(destination.getParentFile(), destination.getName() + "." + UUID.randomUUID() + IN_PROGRESS_FILE_SUFFIX);
             try {
-                deleter.delete(destination);
-                action.execute(destination);
-            } catch (Throwable t) {
-                deleter.delete(destination);
-                throw t;
+                action.execute(inProgressFile);
+                File inProgressMarkerFile = getInProgressMarkerFile(destination);
+                if (inProgressMarkerFile.exists()) {
+                    deleter.delete(destination);
+                    deleter.delete(inProgressMarkerFile);
+                }
+                if (!inProgressFile.exists()) {
+                    deleter.delete(destination);
+                } else if (!inProgressFile.renameTo(destination)) {
+                    // Not all platforms replace an existing file when renaming
+                    deleter.delete(destination);
+                    if (!inProgressFile.renameTo(destination)) {
+                        throw new IOException(String.format("Could not rename '%s' to '%s'.", inProgressFile, destination));
+                    }
+                }
             } finally {
-                deleter.delete(inProgressMarkerFile);
+                deleter.delete(inProgressFile);
             }
         } catch (Throwable t) {
             throw new GradleException(failureDescription, t);
@@ -153,7 +167,7 @@ public class PathKeyFileStore implements FileStore<String>, FileStoreSearcher<St
                 final File file = fileDetails.getFile();
                 // We cannot clean in progress markers, or in progress files here because
                 // the file system visitor stuff can't handle the file system mutating while visiting
-                if (!isInProgressMarkerFile(file) && !isInProgressFile(file)) {
+                if (!isInProgressMarkerFile(file) && !isInProgressFile(file) && !hasExtension(file, IN_PROGRESS_FILE_SUFFIX)) {
                     entries.add(entryAt(file));
                 }
             }
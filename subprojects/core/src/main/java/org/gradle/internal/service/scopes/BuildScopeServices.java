@@ -56,36 +56,43 @@ import org.gradle.api.internal.project.ProjectRegistry;
 import org.gradle.api.internal.project.ProjectTaskLister;
 import org.gradle.api.internal.project.antbuilder.DefaultIsolatedAntBuilder;
 import org.gradle.api.internal.project.taskfactory.AnnotationProcessingTaskFactory;
-import org.gradle.api.internal.project.taskfactory.DefaultTaskClassInfoStore;
-import org.gradle.api.internal.project.taskfactory.DefaultTaskClassValidatorExtractor;
 import org.gradle.api.internal.project.taskfactory.DependencyAutoWireTaskFactory;
 import org.gradle.api.internal.project.taskfactory.ITaskFactory;
-import org.gradle.api.internal.project.taskfactory.PropertyAnnotationHandler;
 import org.gradle.api.internal.project.taskfactory.TaskClassInfoStore;
-import org.gradle.api.internal.project.taskfactory.TaskClassValidatorExtractor;
 import org.gradle.api.internal.project.taskfactory.TaskFactory;
 import org.gradle.api.logging.configuration.LoggingConfiguration;
 import org.gradle.api.logging.configuration.ShowStacktrace;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.CacheValidator;
+import org.gradle.caching.BuildCacheService;
 import org.gradle.caching.configuration.internal.BuildCacheConfigurationInternal;
 import org.gradle.caching.configuration.internal.BuildCacheServiceFactoryRegistry;
 import org.gradle.caching.configuration.internal.DefaultBuildCacheConfiguration;
+import org.gradle.caching.internal.BuildOperationFiringBuildCacheServiceDecorator;
+import org.gradle.caching.internal.LenientBuildCacheServiceDecorator;
+import org.gradle.caching.internal.LoggingBuildCacheServiceDecorator;
+import org.gradle.caching.internal.ShortCircuitingErrorHandlerBuildCacheServiceDecorator;
 import org.gradle.caching.internal.tasks.TaskExecutionStatisticsEventAdapter;
 import org.gradle.caching.internal.tasks.statistics.TaskExecutionStatisticsListener;
 import org.gradle.configuration.BuildConfigurer;
+import org.gradle.configuration.BuildScriptPrecompiler;
+import org.gradle.configuration.CompileOperationFactory;
 import org.gradle.configuration.DefaultBuildConfigurer;
 import org.gradle.configuration.DefaultInitScriptProcessor;
 import org.gradle.configuration.DefaultScriptPluginFactory;
 import org.gradle.configuration.ImportsReader;
 import org.gradle.configuration.ScriptPluginFactory;
 import org.gradle.configuration.ScriptPluginFactorySelector;
+import org.gradle.configuration.cache.ConfigurationCache;
+import org.gradle.configuration.project.BuildScriptIsolationAnalyzer;
 import org.gradle.configuration.project.BuildScriptProcessor;
 import org.gradle.configuration.project.ConfigureActionsProjectEvaluator;
 import org.gradle.configuration.project.DelayedConfigurationActions;
 import org.gradle.configuration.project.LifecycleProjectEvaluator;
 import org.gradle.configuration.project.PluginsProjectConfigureActions;
+import org.gradle.configuration.project.ProjectConfigurationIsolation;
 import org.gradle.configuration.project.ProjectEvaluator;
+import org.gradle.execution.ParallelProjectConfigurer;
 import org.gradle.execution.ProjectConfigurer;
 import org.gradle.execution.TaskPathProjectEvaluator;
 import org.gradle.groovy.scripts.DefaultScriptCompilerFactory;
@@ -96,9 +103,11 @@ import org.gradle.groovy.scripts.internal.CrossBuildInMemoryCachingScriptClassCa
 import org.gradle.groovy.scripts.internal.DefaultScriptCompilationHandler;
 import org.gradle.groovy.scripts.internal.DefaultScriptRunnerFactory;
 import org.gradle.groovy.scripts.internal.FileCacheBackedScriptClassCompiler;
+import org.gradle.groovy.scripts.internal.ScriptClassBuildCache;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.initialization.BuildLoader;
 import org.gradle.initialization.BuildRequestMetaData;
+import org.gradle.initialization.BuildScriptPrecompilingBuildLoader;
 import org.gradle.initialization.ClassLoaderRegistry;
 import org.gradle.initialization.ClassLoaderScopeRegistry;
 import org.gradle.initialization.DefaultClassLoaderScopeRegistry;
@@ -124,6 +133,7 @@ import org.gradle.initialization.buildsrc.BuildSourceBuilder;
 import org.gradle.initialization.buildsrc.BuildSrcBuildListenerFactory;
 import org.gradle.initialization.buildsrc.BuildSrcProjectConfigurationAction;
 import org.gradle.initialization.layout.BuildLayoutFactory;
+import org.gradle.internal.Factory;
 import org.gradle.internal.actor.ActorFactory;
 import org.gradle.internal.actor.internal.DefaultActorFactory;
 import org.gradle.internal.authentication.AuthenticationSchemeRegistry;
@@ -137,6 +147,8 @@ import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationWorkerRegistry;
 import org.gradle.internal.operations.logging.BuildOperationLoggerFactory;
 import org.gradle.internal.operations.logging.DefaultBuildOperationLoggerFactory;
 import org.gradle.internal.progress.BuildOperationExecutor;
@@ -215,27 +227,25 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         return new DefaultGradlePropertiesLoader(get(StartParameter.class));
     }
 
-    protected BuildLoader createBuildLoader() {
-        return new ProjectPropertySettingBuildLoader(
-            get(IGradlePropertiesLoader.class),
-            new InstantiatingBuildLoader(get(IProjectFactory.class)));
+    protected BuildLoader createBuildLoader(ScriptCompilerFactory scriptCompilerFactory, DocumentationRegistry documentationRegistry, ExecutorFactory executorFactory, BuildOperationExecutor buildOperationExecutor) {
+        return new BuildScriptPrecompilingBuildLoader(
+            new ProjectPropertySettingBuildLoader(
+                get(IGradlePropertiesLoader.class),
+                new InstantiatingBuildLoader(get(IProjectFactory.class))),
+            new BuildScriptPrecompiler(scriptCompilerFactory, new CompileOperationFactory(documentationRegistry), executorFactory, buildOperationExecutor));
     }
 
-    protected ProjectEvaluator createProjectEvaluator(BuildOperationExecutor buildOperationExecutor, CachingServiceLocator cachingServiceLocator, ScriptPluginFactory scriptPluginFactory) {
+    protected ProjectConfigurationIsolation createProjectConfigurationIsolation() {
+        return new ProjectConfigurationIsolation();
+    }
+
+    protected ProjectEvaluator createProjectEvaluator(BuildOperationExecutor buildOperationExecutor, CachingServiceLocator cachingServiceLocator, ScriptPluginFactory scriptPluginFactory, ProjectConfigurationIsolation isolation) {
         ConfigureActionsProjectEvaluator withActionsEvaluator = new ConfigureActionsProjectEvaluator(
             PluginsProjectConfigureActions.from(cachingServiceLocator),
             new BuildScriptProcessor(scriptPluginFactory),
             new DelayedConfigurationActions()
         );
-        return new LifecycleProjectEvaluator(buildOperationExecutor, withActionsEvaluator);
-    }
-
-    protected TaskClassValidatorExtractor createTaskClassValidatorExtractor(ServiceRegistry registry) {
-        return new DefaultTaskClassValidatorExtractor(registry.getAll(PropertyAnnotationHandler.class));
-    }
-
-    protected TaskClassInfoStore createTaskClassInfoStore(TaskClassValidatorExtractor validatorExtractor) {
-        return new DefaultTaskClassInfoStore(validatorExtractor);
+        return new LifecycleProjectEvaluator(buildOperationExecutor, withActionsEvaluator, isolation);
     }
 
     protected ITaskFactory createITaskFactory(TaskClassInfoStore taskClassInfoStore) {
@@ -264,7 +274,7 @@ public class BuildScopeServices extends DefaultServiceRegistry {
     protected FileCacheBackedScriptClassCompiler createFileCacheBackedScriptClassCompiler(
         CacheRepository cacheRepository, final StartParameter startParameter,
         ProgressLoggerFactory progressLoggerFactory, ClassLoaderCache classLoaderCache, ImportsReader importsReader,
-        FileHasher hasher, ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
+        FileHasher hasher, ClassLoaderHierarchyHasher classLoaderHierarchyHasher, ScriptClassBuildCache scriptClassBuildCache) {
         CacheValidator scriptCacheInvalidator = new CacheValidator() {
             public boolean isValid() {
                 return !startParameter.isRecompileScripts();
@@ -277,7 +287,8 @@ public class BuildScopeServices extends DefaultServiceRegistry {
             progressLoggerFactory,
             hasher,
             classLoaderCache,
-            classLoaderHierarchyHasher);
+            classLoaderHierarchyHasher,
+            scriptClassBuildCache);
     }
 
     protected ScriptPluginFactory createScriptPluginFactory() {
@@ -366,14 +377,22 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         );
     }
 
-    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken) {
-        return new TaskPathProjectEvaluator(cancellationToken);
+    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken, BuildOperationProcessor buildOperationProcessor, BuildOperationWorkerRegistry buildOperationWorkerRegistry,
+                                                        BuildOperationExecutor buildOperationExecutor, ProjectConfigurationIsolation isolation) {
+        return new ParallelProjectConfigurer(new TaskPathProjectEvaluator(cancellationToken), buildOperationProcessor, buildOperationWorkerRegistry, buildOperationExecutor,
+            new BuildScriptIsolationAnalyzer(), isolation, cancellationToken);
     }
 
     protected BuildConfigurer createBuildConfigurer(ProjectConfigurer projectConfigurer) {
         return new DefaultBuildConfigurer(projectConfigurer);
     }
 
+    protected ConfigurationCache createConfigurationCache(ListenerManager listenerManager, FileHasher fileHasher, ProjectConfigurer projectConfigurer) {
+        ConfigurationCache configurationCache = new ConfigurationCache(fileHasher, projectConfigurer);
+        listenerManager.addListener(configurationCache);
+        return configurationCache;
+    }
+
     protected ProjectAccessListener createProjectAccessListener() {
         return new DefaultProjectAccessListener();
     }
@@ -446,4 +465,34 @@ public class BuildScopeServices extends DefaultServiceRegistry {
     BuildCacheConfigurationInternal createBuildCacheConfiguration(StartParameter startParameter, Instantiator instantiator, BuildCacheServiceFactoryRegistry buildCacheFactoryRegistry) {
         return instantiator.newInstance(DefaultBuildCacheConfiguration.class, startParameter, buildCacheFactoryRegistry);
     }
+
+    BuildCacheService createBuildCacheService(StartParameter startParameter, BuildCacheConfigurationInternal buildCacheConfiguration, BuildOperationExecutor buildOperationExecutor) {
+        if (startParameter.isTaskOutputCacheEnabled()) {
+            return new LenientBuildCacheServiceDecorator(
+                new ShortCircuitingErrorHandlerBuildCacheServiceDecorator(
+                    3,
+                    new LoggingBuildCacheServiceDecorator(
+                        new BuildOperationFiringBuildCacheServiceDecorator(
+                            buildOperationExecutor,
+                            buildCacheConfiguration.build()
+                        )
+                    )
+                )
+            );
+        } else {
+            return BuildCacheService.NO_OP;
+        }
+    }
+
+    ScriptClassBuildCache createScriptClassBuildCache(StartParameter startParameter) {
+        if (!startParameter.isTaskOutputCacheEnabled() || startParameter.isRecompileScripts()) {
+            return ScriptClassBuildCache.DISABLED;
+        }
+        return new ScriptClassBuildCache(new Factory<BuildCacheService>() {
+            @Override
+            public BuildCacheService create() {
+                return get(BuildCacheService.class);
+            }
+        });
+    }
 }
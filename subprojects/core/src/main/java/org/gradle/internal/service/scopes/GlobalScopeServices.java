@@ -27,9 +27,12 @@ import org.gradle.api.internal.DefaultClassPathRegistry;
 import org.gradle.api.internal.DependencyInjectingInstantiator;
 import org.gradle.api.internal.DocumentationRegistry;
 import org.gradle.api.internal.DynamicModulesClassPathProvider;
+import org.gradle.api.internal.GeneratedClassCache;
 import org.gradle.api.internal.cache.CrossBuildInMemoryCacheFactory;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
+import org.gradle.api.internal.changedetection.state.RetainedFileSystemState;
+import org.gradle.api.internal.changedetection.state.WatchingRetainedFileSystemState;
 import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.DefaultPluginModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
@@ -43,6 +46,11 @@ import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.internal.file.TmpDirTemporaryFileProvider;
 import org.gradle.api.internal.file.collections.DefaultDirectoryFileTreeFactory;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
+import org.gradle.api.internal.project.taskfactory.DefaultTaskClassInfoStore;
+import org.gradle.api.internal.project.taskfactory.DefaultTaskClassValidatorExtractor;
+import org.gradle.api.internal.project.taskfactory.PropertyAnnotationHandler;
+import org.gradle.api.internal.project.taskfactory.TaskClassInfoStore;
+import org.gradle.api.internal.project.taskfactory.TaskClassValidatorExtractor;
 import org.gradle.api.tasks.util.PatternSet;
 import org.gradle.api.tasks.util.internal.CachingPatternSpecFactory;
 import org.gradle.api.tasks.util.internal.PatternSets;
@@ -252,8 +260,12 @@ public class GlobalScopeServices {
         return messagingServices.get(InetAddressFactory.class);
     }
 
-    ClassGenerator createClassGenerator() {
-        return new AsmBackedClassGenerator();
+    GeneratedClassCache createGeneratedClassCache() {
+        return new GeneratedClassCache();
+    }
+
+    ClassGenerator createClassGenerator(GeneratedClassCache generatedClassCache) {
+        return new AsmBackedClassGenerator(generatedClassCache);
     }
 
     Instantiator createInstantiator(ClassGenerator classGenerator) {
@@ -264,11 +276,12 @@ public class GlobalScopeServices {
         return new DefaultExecutorFactory();
     }
 
-    FileLockManager createFileLockManager(ProcessEnvironment processEnvironment, FileLockContentionHandler fileLockContentionHandler) {
+    FileLockManager createFileLockManager(ProcessEnvironment processEnvironment, FileLockContentionHandler fileLockContentionHandler, BuildOperationExecutor buildOperationExecutor) {
         return new DefaultFileLockManager(
             new DefaultProcessMetaDataProvider(
                 processEnvironment),
-            fileLockContentionHandler);
+            fileLockContentionHandler,
+            buildOperationExecutor);
     }
 
     CrossBuildInMemoryCacheFactory createCrossBuildInMemoryCacheFactory(ListenerManager listenerManager) {
@@ -332,6 +345,14 @@ public class GlobalScopeServices {
         return new DefaultStructBindingsStore(schemaStore);
     }
 
+    protected TaskClassValidatorExtractor createTaskClassValidatorExtractor(ServiceRegistry registry) {
+        return new DefaultTaskClassValidatorExtractor(registry.getAll(PropertyAnnotationHandler.class));
+    }
+
+    protected TaskClassInfoStore createTaskClassInfoStore(TaskClassValidatorExtractor validatorExtractor) {
+        return new DefaultTaskClassInfoStore(validatorExtractor);
+    }
+
     protected ModelRuleSourceDetector createModelRuleSourceDetector() {
         return new ModelRuleSourceDetector();
     }
@@ -344,6 +365,10 @@ public class GlobalScopeServices {
         return new DefaultFileWatcherFactory(executorFactory, fileSystem);
     }
 
+    RetainedFileSystemState createRetainedFileSystemState(FileWatcherFactory fileWatcherFactory) {
+        return new WatchingRetainedFileSystemState(fileWatcherFactory);
+    }
+
     StringInterner createStringInterner() {
         return new StringInterner();
     }
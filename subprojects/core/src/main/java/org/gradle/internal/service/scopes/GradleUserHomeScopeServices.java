@@ -16,6 +16,8 @@
 
 package org.gradle.internal.service.scopes;
 
+import org.gradle.api.internal.GeneratedClassCache;
+import org.gradle.api.internal.GeneratedClassStore;
 import org.gradle.api.internal.cache.CrossBuildInMemoryCacheFactory;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.CachingFileHasher;
@@ -64,6 +66,10 @@ public class GradleUserHomeScopeServices {
         }
     }
 
+    GeneratedClassStore createGeneratedClassStore(CacheRepository cacheRepository, GeneratedClassCache generatedClassCache) {
+        return new GeneratedClassStore(cacheRepository, generatedClassCache);
+    }
+
     CrossBuildFileHashCache createCrossBuildFileHashCache(CacheRepository cacheRepository, InMemoryTaskArtifactCache inMemoryTaskArtifactCache) {
         return new CrossBuildFileHashCache(cacheRepository, inMemoryTaskArtifactCache);
     }
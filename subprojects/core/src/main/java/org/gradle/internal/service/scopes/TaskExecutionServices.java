@@ -44,6 +44,7 @@ import org.gradle.api.internal.changedetection.state.GenericFileCollectionSnapsh
 import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
 import org.gradle.api.internal.changedetection.state.JvmClassHasher;
 import org.gradle.api.internal.changedetection.state.OutputFilesSnapshotter;
+import org.gradle.api.internal.changedetection.state.RetainedFileSystemState;
 import org.gradle.api.internal.changedetection.state.TaskHistoryRepository;
 import org.gradle.api.internal.changedetection.state.TaskHistoryStore;
 import org.gradle.api.internal.file.FileCollectionFactory;
@@ -70,11 +71,6 @@ import org.gradle.cache.CacheRepository;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.internal.CacheScopeMapping;
 import org.gradle.caching.BuildCacheService;
-import org.gradle.caching.configuration.internal.BuildCacheConfigurationInternal;
-import org.gradle.caching.internal.BuildOperationFiringBuildCacheServiceDecorator;
-import org.gradle.caching.internal.LenientBuildCacheServiceDecorator;
-import org.gradle.caching.internal.LoggingBuildCacheServiceDecorator;
-import org.gradle.caching.internal.ShortCircuitingErrorHandlerBuildCacheServiceDecorator;
 import org.gradle.caching.internal.tasks.GZipTaskOutputPacker;
 import org.gradle.caching.internal.tasks.OutputPreparingTaskOutputPacker;
 import org.gradle.caching.internal.tasks.TarTaskOutputPacker;
@@ -93,7 +89,6 @@ import org.gradle.internal.id.RandomLongIdGenerator;
 import org.gradle.internal.nativeplatform.filesystem.FileSystem;
 import org.gradle.internal.operations.BuildOperationWorkerRegistry;
 import org.gradle.internal.os.OperatingSystem;
-import org.gradle.internal.progress.BuildOperationExecutor;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.remote.internal.inet.InetAddressFactory;
 import org.gradle.internal.serialize.DefaultSerializerRegistry;
@@ -171,8 +166,8 @@ public class TaskExecutionServices {
         return new CachingFileHasher(new DefaultFileHasher(), cacheAccess, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem);
     }
 
-    FileSystemMirror createFileSystemMirror(ListenerManager listenerManager) {
-        DefaultFileSystemMirror fileSystemMirror = new DefaultFileSystemMirror();
+    FileSystemMirror createFileSystemMirror(ListenerManager listenerManager, RetainedFileSystemState retainedFileSystemState) {
+        DefaultFileSystemMirror fileSystemMirror = new DefaultFileSystemMirror(retainedFileSystemState.startSession());
         listenerManager.addListener(fileSystemMirror);
         return fileSystemMirror;
     }
@@ -245,22 +240,4 @@ public class TaskExecutionServices {
         File rootDir = gradleInternal.getRootProject().getRootDir();
         return new TaskOutputOriginFactory(timeProvider, inetAddressFactory, rootDir, SystemProperties.getInstance().getUserName(), OperatingSystem.current().getName(), GradleVersion.current());
     }
-
-    BuildCacheService createBuildCacheService(StartParameter startParameter, BuildCacheConfigurationInternal buildCacheConfiguration, BuildOperationExecutor buildOperationExecutor) {
-        if (startParameter.isTaskOutputCacheEnabled()) {
-            return new LenientBuildCacheServiceDecorator(
-                new ShortCircuitingErrorHandlerBuildCacheServiceDecorator(
-                    3,
-                    new LoggingBuildCacheServiceDecorator(
-                        new BuildOperationFiringBuildCacheServiceDecorator(
-                            buildOperationExecutor,
-                            buildCacheConfiguration.build()
-                        )
-                    )
-                )
-            );
-        } else {
-            return BuildCacheService.NO_OP;
-        }
-    }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.gradle.cache.internal.DefaultCacheScopeMapping;
+import org.gradle.cache.internal.VersionStrategy;
+import org.gradle.internal.FileUtils;
+import org.gradle.internal.jvm.Jvm;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.GradleVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Provides the JVM arguments that let a Gradle process, such as the daemon or a worker process, use a class data sharing archive, so that the
+ * classes loaded when the process starts do not need to be loaded and verified from the jars again.
+ *
+ * <p>An archive is created by the first process started for a given Gradle version, JVM, process type and classpath, and written when that process
+ * exits. Later processes with the same key use the archive. Archives are only used when the process runs on the same JVM as the current process, and
+ * that JVM supports dynamic archives, which is the case from Java 13.</p>
+ */
+public class ClassDataSharing {
+    public static final String ENABLED_PROPERTY = "org.gradle.classdatasharing";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClassDataSharing.class);
+    private static final int DYNAMIC_ARCHIVE_JAVA_VERSION = 13;
+    // An archive is written when the JVM that creates it exits, which takes well under this time
+    private static final long ARCHIVE_WRITE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    // A process that creates an archive may run for a long time before it exits
+    private static final long STALE_CREATION_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final File archiveDir;
+
+    public ClassDataSharing(File gradleUserHomeDir) {
+        this.archiveDir = new DefaultCacheScopeMapping(gradleUserHomeDir, null, GradleVersion.current()).getBaseDirectory(null, "class-data-sharing", VersionStrategy.CachePerVersion);
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Returns the JVM arguments to use to start a process of the given type with the given Java executable and classpath. Returns an empty list when
+     * class data sharing cannot be used for the process.
+     */
+    public List<String> jvmArgsFor(String processType, String javaExecutable, Iterable<File> classpath) {
+        if (!isSupportedBy(javaExecutable)) {
+            return Collections.emptyList();
+        }
+        String key = processType.replaceAll("[^A-Za-z0-9]+", "-").toLowerCase() + "-" + keyFor(processType, classpath);
+        File archive = new File(archiveDir, key + ".jsa");
+        File pendingArchive = new File(archiveDir, key + ".jsa.tmp");
+        File creationMarker = new File(archiveDir, key + ".lock");
+        try {
+            if (!archive.isFile() && pendingArchive.isFile() && System.currentTimeMillis() - pendingArchive.lastModified() > ARCHIVE_WRITE_MILLIS) {
+                // The process that created the archive has finished writing it
+                if (pendingArchive.renameTo(archive)) {
+                    GFileUtils.deleteQuietly(creationMarker);
+                }
+            }
+            if (archive.isFile()) {
+                return asList("-XX:SharedArchiveFile=" + archive.getAbsolutePath(), "-Xshare:auto", "-Xlog:cds*=off");
+            }
+            if (!pendingArchive.exists() && startCreation(creationMarker)) {
+                LOGGER.debug("Creating class data sharing archive {}.", archive);
+                return asList("-XX:ArchiveClassesAtExit=" + pendingArchive.getAbsolutePath(), "-Xlog:cds*=off");
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Could not use class data sharing archive {}.", archive, e);
+        }
+        return Collections.emptyList();
+    }
+
+    private boolean startCreation(File creationMarker) throws IOException {
+        GFileUtils.mkdirs(archiveDir);
+        if (creationMarker.createNewFile()) {
+            return true;
+        }
+        // The process that was creating the archive has probably been killed before it could write the archive
+        return System.currentTimeMillis() - creationMarker.lastModified() > STALE_CREATION_MILLIS && creationMarker.setLastModified(System.currentTimeMillis());
+    }
+
+    private static boolean isSupportedBy(String javaExecutable) {
+        Jvm current = Jvm.current();
+        if (!FileUtils.canonicalize(new File(javaExecutable)).equals(FileUtils.canonicalize(current.getJavaExecutable()))) {
+            return false;
+        }
+        String specificationVersion = System.getProperty("java.specification.version", "");
+        if (specificationVersion.startsWith("1.")) {
+            return false;
+        }
+        try {
+            return Integer.parseInt(specificationVersion) >= DYNAMIC_ARCHIVE_JAVA_VERSION;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static String keyFor(String processType, Iterable<File> classpath) {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(processType, Charsets.UTF_8);
+        hasher.putString(System.getProperty("java.home", ""), Charsets.UTF_8);
+        hasher.putString(System.getProperty("java.vm.version", ""), Charsets.UTF_8);
+        for (File file : classpath) {
+            hasher.putString(file.getAbsolutePath(), Charsets.UTF_8);
+            hasher.putLong(file.lastModified());
+        }
+        return hasher.hash().toString();
+    }
+}
@@ -25,6 +25,7 @@ import org.gradle.internal.remote.ConnectionAcceptor;
 import org.gradle.internal.remote.MessagingServer;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.process.ExecResult;
+import org.gradle.process.internal.ClassDataSharing;
 import org.gradle.process.internal.ExecHandle;
 import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.JavaExecHandleFactory;
@@ -192,6 +193,9 @@ public class DefaultWorkerProcessBuilder implements WorkerProcessBuilder {
         javaCommand.setDisplayName(displayName);
 
         workerFactory.prepareJavaCommand(id, displayName, this, implementationClassPath, localAddress, javaCommand, shouldPublishJvmMemoryInfo);
+        if (gradleUserHomeDir != null && ClassDataSharing.isEnabled()) {
+            javaCommand.jvmArgs(new ClassDataSharing(gradleUserHomeDir).jvmArgsFor(getBaseName(), javaCommand.getExecutable(), javaCommand.getClasspath()));
+        }
 
         javaCommand.args("'" + displayName + "'");
         ExecHandle execHandle = javaCommand.build();
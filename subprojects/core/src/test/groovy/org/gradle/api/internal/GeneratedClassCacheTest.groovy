@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal
+
+import org.codehaus.groovy.control.CompilationUnit
+import org.codehaus.groovy.control.CompilerConfiguration
+import org.gradle.cache.CacheBuilder
+import org.gradle.cache.CacheRepository
+import org.gradle.cache.PersistentCache
+import org.gradle.internal.Factory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class GeneratedClassCacheTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cache = new GeneratedClassCache()
+
+    def "loads the bytecode stored for a type"() {
+        def bytecode = [1, 2, 3] as byte[]
+        def store = store(tmpDir.file("classes"))
+
+        when:
+        cache.store(TestJavaObject, AsmBackedClassGenerator, bytecode)
+
+        then:
+        cache.load(TestJavaObject, AsmBackedClassGenerator) == bytecode
+
+        when:
+        store.close()
+        def other = new GeneratedClassCache()
+        store(tmpDir.file("classes"), other)
+
+        then:
+        other.load(TestJavaObject, AsmBackedClassGenerator) == bytecode
+    }
+
+    def "does not load the bytecode stored for another type"() {
+        store(tmpDir.file("classes"))
+
+        when:
+        cache.store(TestJavaObject, AsmBackedClassGenerator, [1, 2, 3] as byte[])
+
+        then:
+        cache.load(ConventionAwareHelper, AsmBackedClassGenerator) == null
+    }
+
+    def "does nothing when no store is attached"() {
+        when:
+        cache.store(TestJavaObject, AsmBackedClassGenerator, [1, 2, 3] as byte[])
+
+        then:
+        cache.load(TestJavaObject, AsmBackedClassGenerator) == null
+    }
+
+    def "does nothing once the store has been closed"() {
+        def store = store(tmpDir.file("classes"))
+        cache.store(TestJavaObject, AsmBackedClassGenerator, [1, 2, 3] as byte[])
+
+        when:
+        store.close()
+
+        then:
+        cache.load(TestJavaObject, AsmBackedClassGenerator) == null
+    }
+
+    def "does nothing while stores of several Gradle user home directories are attached"() {
+        def store = store(tmpDir.file("classes-1"))
+        store(tmpDir.file("classes-2"))
+
+        when:
+        cache.store(TestJavaObject, AsmBackedClassGenerator, [1, 2, 3] as byte[])
+
+        then:
+        cache.load(TestJavaObject, AsmBackedClassGenerator) == null
+        tmpDir.file("classes-1").list().length == 0
+        tmpDir.file("classes-2").list().length == 0
+
+        when:
+        store.close()
+        cache.store(TestJavaObject, AsmBackedClassGenerator, [1, 2, 3] as byte[])
+
+        then:
+        cache.load(TestJavaObject, AsmBackedClassGenerator) == [1, 2, 3] as byte[]
+        tmpDir.file("classes-2").list().length == 1
+    }
+
+    def "does not store types whose bytecode is not available"() {
+        def type = new AsmBackedClassGenerator().generate(TestJavaObject)
+        store(tmpDir.file("classes"))
+
+        when:
+        cache.store(type, AsmBackedClassGenerator, [1, 2, 3] as byte[])
+
+        then:
+        cache.load(type, AsmBackedClassGenerator) == null
+        tmpDir.file("classes").list().length == 0
+    }
+
+    def "does not load the bytecode stored for a type whose property types have changed"() {
+        def original = tmpDir.file("original")
+        def changed = tmpDir.file("changed")
+        compile(original, "class PropertyType {}; class TypeWithProperty { PropertyType value }")
+        original.copyTo(changed)
+        compile(changed, "class PropertyType implements Serializable {}")
+        def originalType = loader(original).loadClass("TypeWithProperty")
+        def changedType = loader(changed).loadClass("TypeWithProperty")
+        store(tmpDir.file("classes"))
+
+        when:
+        cache.store(originalType, AsmBackedClassGenerator, [1, 2, 3] as byte[])
+
+        then:
+        cache.load(originalType, AsmBackedClassGenerator) == [1, 2, 3] as byte[]
+        cache.load(changedType, AsmBackedClassGenerator) == null
+    }
+
+    def "removes classes that have not been used recently when the store is closed"() {
+        def dir = tmpDir.file("classes")
+        def store = store(dir)
+        cache.store(TestJavaObject, AsmBackedClassGenerator, [1, 2, 3] as byte[])
+        def stale = dir.file("stale.class").createFile()
+        stale.lastModified = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(GeneratedClassStore.MAX_UNUSED_DAYS + 1)
+
+        when:
+        store.close()
+
+        then:
+        !stale.exists()
+        dir.listFiles().findAll { it.name.endsWith(".class") }.size() == 1
+    }
+
+    private GeneratedClassStore store(TestFile dir, GeneratedClassCache generatedClassCache = cache) {
+        dir.createDir()
+        def persistentCache = Stub(PersistentCache) {
+            getBaseDir() >> dir
+            useCache(_ as Factory) >> { Factory factory -> factory.create() }
+            useCache(_ as Runnable) >> { Runnable action -> action.run() }
+        }
+        def cacheBuilder = Stub(CacheBuilder)
+        cacheBuilder.withDisplayName(_) >> cacheBuilder
+        cacheBuilder.withLockOptions(_) >> cacheBuilder
+        cacheBuilder.open() >> persistentCache
+        def cacheRepository = Stub(CacheRepository) {
+            cache("generated-classes") >> cacheBuilder
+        }
+        return new GeneratedClassStore(cacheRepository, generatedClassCache)
+    }
+
+    private static void compile(TestFile dir, String source) {
+        def unit = new CompilationUnit(new CompilerConfiguration(targetDirectory: dir))
+        unit.addSource("Types.groovy", source)
+        unit.compile()
+    }
+
+    private ClassLoader loader(TestFile dir) {
+        return new URLClassLoader([dir.toURI().toURL()] as URL[], getClass().classLoader)
+    }
+}
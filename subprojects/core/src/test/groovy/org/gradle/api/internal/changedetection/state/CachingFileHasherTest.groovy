@@ -22,6 +22,7 @@ import org.gradle.api.file.FileTreeElement
 import org.gradle.api.internal.cache.StringInterner
 import org.gradle.api.internal.changedetection.state.CachingFileHasher.FileInfo
 import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.file.archive.ArchiveEntryDetails
 import org.gradle.api.internal.hash.FileHasher
 import org.gradle.cache.PersistentIndexedCache
 import org.gradle.internal.nativeintegration.filesystem.DefaultFileMetadata
@@ -35,6 +36,7 @@ class CachingFileHasherTest extends Specification {
     TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
     def target = Mock(FileHasher)
     def cache = Mock(PersistentIndexedCache)
+    def archiveEntryCache = Mock(PersistentIndexedCache)
     def cacheAccess = Mock(TaskHistoryStore)
     def timeStampInspector = Mock(FileTimeStampInspector)
     def hash = Hashing.md5().hashString("hello", Charsets.UTF_8)
@@ -46,6 +48,7 @@ class CachingFileHasherTest extends Specification {
     def setup() {
         file.write("some-content")
         1 * cacheAccess.createCache("fileHashes", _, _, _, _) >> cache
+        1 * cacheAccess.createCache("fileHashesArchiveEntries", _, _, _, _) >> archiveEntryCache
         hasher = new CachingFileHasher(target, cacheAccess, new StringInterner(), timeStampInspector, "fileHashes", fileSystem)
     }
 
@@ -173,6 +176,82 @@ class CachingFileHasherTest extends Specification {
         0 * _._
     }
 
+    def hashesArchiveEntryWithoutExtractingIt() {
+        def stat = fileSystem.stat(file)
+        def entry = Mock(ArchiveEntryDetails)
+        def key = oldHash.toString() + "!/dir/entry.class"
+
+        when:
+        def result = hasher.hash(entry)
+
+        then:
+        result == hash
+
+        and:
+        _ * entry.archiveFile >> file
+        _ * entry.path >> "dir/entry.class"
+        _ * entry.lastModified >> 123l
+        _ * entry.size >> 321l
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * cache.get(file.absolutePath) >> new FileInfo(oldHash, stat.length, stat.lastModified)
+        1 * archiveEntryCache.get(key) >> null
+        1 * target.hash(entry) >> hash
+        1 * archiveEntryCache.put(key, _) >> { String k, FileInfo fileInfo ->
+            assert fileInfo.hash == hash
+            assert fileInfo.length == 321l
+            assert fileInfo.timestamp == 123l
+        }
+        0 * _._
+    }
+
+    def doesNotHashArchiveEntryWhenArchiveHasNotChanged() {
+        def stat = fileSystem.stat(file)
+        def entry = Mock(ArchiveEntryDetails)
+        def key = oldHash.toString() + "!/dir/entry.class"
+
+        when:
+        def result = hasher.hash(entry)
+
+        then:
+        result == hash
+
+        and:
+        _ * entry.archiveFile >> file
+        _ * entry.path >> "dir/entry.class"
+        _ * entry.lastModified >> 123l
+        _ * entry.size >> 321l
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * cache.get(file.absolutePath) >> new FileInfo(oldHash, stat.length, stat.lastModified)
+        1 * archiveEntryCache.get(key) >> new FileInfo(hash, 321l, 123l)
+        0 * _._
+    }
+
+    def doesNotHashArchiveEntryWhenArchiveHasBeenMoved() {
+        def moved = tmpDir.createFile("moved")
+        moved.write("some-content")
+        def stat = fileSystem.stat(moved)
+        def entry = Mock(ArchiveEntryDetails)
+        def key = oldHash.toString() + "!/dir/entry.class"
+
+        when:
+        def result = hasher.hash(entry)
+
+        then:
+        result == hash
+
+        and:
+        _ * entry.archiveFile >> moved
+        _ * entry.path >> "dir/entry.class"
+        _ * entry.lastModified >> 123l
+        _ * entry.size >> 321l
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(moved.absolutePath, stat.lastModified) >> true
+        1 * cache.get(moved.absolutePath) >> null
+        1 * target.hash(moved) >> oldHash
+        1 * cache.put(moved.absolutePath, _)
+        1 * archiveEntryCache.get(key) >> new FileInfo(hash, 321l, 123l)
+        0 * _._
+    }
+
     def hashesGivenFileMetadataSnapshot() {
         long lastModified = 123l
         long length = 321l
@@ -45,7 +45,7 @@ class DefaultFileCollectionSnapshotSerializerTest extends SerializerSpec {
         out.snapshots['/2'].snapshot instanceof MissingFileSnapshot
         out.snapshots['/3'].normalizedPath == "3"
         out.snapshots['/3'].snapshot instanceof FileHashSnapshot
-        out.snapshots['/3'].snapshot.hash == hash
+        out.snapshots['/3'].snapshot.contentMd5 == hash
         out.compareStrategy == UNORDERED
         out.pathIsAbsolute
     }
@@ -62,4 +62,50 @@ class DefaultFileCollectionSnapshotSerializerTest extends SerializerSpec {
         then:
         out.snapshots.keySet() as List == ['/3', '/2', '/1']
     }
+
+    def "reads and writes each kind of normalized snapshot"() {
+        when:
+        def md5 = Hashing.md5().hashString("foo", Charsets.UTF_8)
+        def sha1 = Hashing.sha1().hashString("foo", Charsets.UTF_8)
+        DefaultFileCollectionSnapshot out = serialize(new DefaultFileCollectionSnapshot([
+            "/dir/a/1": new DefaultNormalizedFileSnapshot("a/1", new FileHashSnapshot(md5)),
+            "/dir/a/2": new DefaultNormalizedFileSnapshot("other", new FileHashSnapshot(sha1)),
+            "/dir/b": new NonNormalizedFileSnapshot("/dir/b", DirSnapshot.getInstance()),
+            "/dir/b/3": new IndexedNormalizedFileSnapshot("/dir/b/3", 5, MissingFileSnapshot.getInstance()),
+            "/other/4": new IgnoredPathFileSnapshot(new FileHashSnapshot(md5))
+        ], ORDERED, true), serializer)
+
+        then:
+        out.snapshots.keySet() as List == ['/dir/a/1', '/dir/a/2', '/dir/b', '/dir/b/3', '/other/4']
+        out.snapshots['/dir/a/1'] instanceof DefaultNormalizedFileSnapshot
+        out.snapshots['/dir/a/1'].normalizedPath == "a/1"
+        out.snapshots['/dir/a/1'].snapshot.contentMd5 == md5
+        out.snapshots['/dir/a/2'] instanceof DefaultNormalizedFileSnapshot
+        out.snapshots['/dir/a/2'].normalizedPath == "other"
+        out.snapshots['/dir/a/2'].snapshot.contentMd5 == sha1
+        out.snapshots['/dir/b'] instanceof NonNormalizedFileSnapshot
+        out.snapshots['/dir/b'].normalizedPath == "/dir/b"
+        out.snapshots['/dir/b'].snapshot instanceof DirSnapshot
+        out.snapshots['/dir/b/3'] instanceof IndexedNormalizedFileSnapshot
+        out.snapshots['/dir/b/3'].index == 5
+        out.snapshots['/dir/b/3'].snapshot instanceof MissingFileSnapshot
+        out.snapshots['/other/4'] instanceof IgnoredPathFileSnapshot
+        out.snapshots['/other/4'].snapshot.contentMd5 == md5
+    }
+
+    def "writes only the part of a path that differs from the previous path"() {
+        def hash = Hashing.md5().hashString("foo", Charsets.UTF_8)
+        def snapshots = [:]
+        (1..100).each {
+            def path = "/some/long/path/to/the/sources/of/the/project/File${it}.java"
+            snapshots[path] = new DefaultNormalizedFileSnapshot("File${it}.java", new FileHashSnapshot(hash))
+        }
+
+        when:
+        def bytes = toBytes(new DefaultFileCollectionSnapshot(snapshots, UNORDERED, true), serializer)
+
+        then:
+        bytes.length < 100 * 32
+        fromBytes(bytes, serializer).snapshots.keySet() as List == snapshots.keySet() as List
+    }
 }
@@ -17,6 +17,8 @@ package org.gradle.api.internal.file.archive
 
 import org.apache.tools.zip.Zip64RequiredException
 import org.apache.tools.zip.ZipOutputStream
+import org.gradle.api.file.EmptyFileVisitor
+import org.gradle.api.file.FileVisitDetails
 import org.gradle.api.file.RelativePath
 import org.gradle.api.internal.DocumentationRegistry
 import org.gradle.api.internal.file.CopyActionProcessingStreamAction
@@ -24,6 +26,10 @@ import org.gradle.api.internal.file.copy.CopyActionProcessingStream
 import org.gradle.api.internal.file.copy.DefaultZipCompressor
 import org.gradle.api.internal.file.copy.FileCopyDetailsInternal
 import org.gradle.api.tasks.bundling.Zip
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
+import org.gradle.internal.operations.DefaultBuildOperationQueueFactory
+import org.gradle.internal.operations.DefaultBuildOperationWorkerRegistry
 import org.gradle.test.fixtures.archive.ZipTestFixture
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -31,6 +37,10 @@ import org.junit.Rule
 import org.junit.Test
 import spock.lang.Specification
 
+import java.util.concurrent.Executor
+
+import static org.gradle.api.internal.file.TestFiles.directoryFileTreeFactory
+import static org.gradle.api.internal.file.TestFiles.fileSystem
 import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit
 import static org.hamcrest.Matchers.equalTo
 
@@ -41,11 +51,13 @@ class ZipCopyActionTest extends Specification {
 
     ZipCopyAction visitor
     TestFile zipFile
+    TestFile temporaryDir
     def encoding = 'UTF-8'
 
     def setup() {
         zipFile = tmpDir.getTestDirectory().file("test.zip")
-        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.STORED), new DocumentationRegistry(), encoding, false)
+        temporaryDir = tmpDir.getTestDirectory().file("tmp")
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.STORED), new DocumentationRegistry(), encoding, false, temporaryDir)
     }
 
     void createsZipFile() {
@@ -74,6 +86,93 @@ class ZipCopyActionTest extends Specification {
         expandDir.file("file2").assertContents(equalTo("contents of file2"))
     }
 
+    void compressesEntriesInParallelAndWritesThemInOrder() {
+        given:
+        def workerRegistry = new DefaultBuildOperationWorkerRegistry(4)
+        def executorFactory = new DefaultExecutorFactory()
+        def buildOperationProcessor = new DefaultBuildOperationProcessor(new DefaultBuildOperationQueueFactory(workerRegistry), executorFactory, 4)
+        def taskOperation = workerRegistry.operationStart()
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false, temporaryDir, buildOperationProcessor)
+        def files = (1..100).collect { file("dir/file$it") }
+
+        when:
+        zip(([dir("dir")] + files) as FileCopyDetailsInternal[])
+
+        then:
+        def zipFixture = new ZipTestFixture(zipFile)
+        zipFixture.hasDescendantsInOrder((1..100).collect { "dir/file$it" } as String[])
+        zipFixture.assertFileContent("dir/file42", "contents of dir/file42")
+
+        cleanup:
+        taskOperation.operationFinish()
+        executorFactory.stop()
+    }
+
+    void rethrowsFailureToAddElementWhenCompressingEntriesInParallel() {
+        given:
+        def workerRegistry = new DefaultBuildOperationWorkerRegistry(4)
+        def executorFactory = new DefaultExecutorFactory()
+        def buildOperationProcessor = new DefaultBuildOperationProcessor(new DefaultBuildOperationQueueFactory(workerRegistry), executorFactory, 4)
+        def taskOperation = workerRegistry.operationStart()
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false, temporaryDir, buildOperationProcessor)
+        def failure = new RuntimeException("broken")
+        def brokenFile = brokenFile("dir/file2", failure)
+
+        when:
+        zip(file("dir/file1"), brokenFile)
+
+        then:
+        def e = thrown(Exception)
+        e.message == String.format("Could not add $brokenFile to ZIP '%s'.", zipFile)
+        e.cause.is(failure)
+
+        cleanup:
+        taskOperation.operationFinish()
+        executorFactory.stop()
+    }
+
+    void buffersLargeEntriesInTheTemporaryDirectory() {
+        given:
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false, temporaryDir)
+        def content = "0123456789abcdef" * (128 * 1024)
+
+        when:
+        zip(file("large", content))
+
+        then:
+        new ZipTestFixture(zipFile).assertFileContent("large", content)
+        temporaryDir.isDirectory()
+        temporaryDir.list().length == 0
+        zipFile.parentFile.list().findAll { it.endsWith(".tmp") }.empty
+    }
+
+    void copiesEntriesOfAnotherZipWithoutCompressingThemAgain() {
+        given:
+        def sourceDir = tmpDir.createDir("source")
+        sourceDir.file("dir/file1").text = "contents of dir/file1"
+        sourceDir.file("file2").text = "contents of file2"
+        def sourceZip = sourceDir.zipTo(tmpDir.file("source.zip"))
+        def sourceTree = new ZipFileTree(sourceZip, tmpDir.file("expanded"), fileSystem(), directoryFileTreeFactory())
+        visitor = new ZipCopyAction(zipFile, new DefaultZipCompressor(false, ZipOutputStream.DEFLATED), new DocumentationRegistry(), encoding, false, temporaryDir)
+
+        when:
+        visitor.execute(new CopyActionProcessingStream() {
+            void process(CopyActionProcessingStreamAction action) {
+                sourceTree.visit(new EmptyFileVisitor() {
+                    @Override
+                    void visitFile(FileVisitDetails details) {
+                        action.processFile(unfilteredFile(details))
+                    }
+                })
+            }
+        })
+
+        then:
+        def zipFixture = new ZipTestFixture(zipFile)
+        zipFixture.assertFileContent("dir/file1", "contents of dir/file1")
+        zipFixture.assertFileContent("file2", "contents of file2")
+    }
+
     void zipFileContainsExpectedPermissions() {
         given:
         zip(dir("dir"), file("file"))
@@ -87,7 +186,7 @@ class ZipCopyActionTest extends Specification {
     void wrapsFailureToOpenOutputFile() {
         given:
         def invalidZipFile = tmpDir.createDir("test.zip")
-        visitor = new ZipCopyAction(invalidZipFile, new DefaultZipCompressor(false, ZipOutputStream.STORED), new DocumentationRegistry(), encoding, false)
+        visitor = new ZipCopyAction(invalidZipFile, new DefaultZipCompressor(false, ZipOutputStream.STORED), new DocumentationRegistry(), encoding, false, temporaryDir)
 
         when:
         visitor.execute(new CopyActionProcessingStream() {
@@ -103,15 +202,15 @@ class ZipCopyActionTest extends Specification {
 
     void wrapsZip64Failure() {
         given:
-        def zipOutputStream = Mock(ZipOutputStream)
-        zipOutputStream.close() >> {
+        def writer = Mock(ZipArchiveWriter)
+        writer.finish() >> {
             throw new Zip64RequiredException("xyz")
         }
 
         def compressor = new DefaultZipCompressor(false, ZipOutputStream.STORED) {
             @Override
-            ZipOutputStream createArchiveOutputStream(File destination) {
-                zipOutputStream
+            ZipArchiveWriter createArchiveWriter(File destination, String encoding, Executor executor, File temporaryDir) {
+                writer
             }
         }
 
@@ -119,7 +218,7 @@ class ZipCopyActionTest extends Specification {
         1 * docRegistry.getDslRefForProperty(Zip, "zip64") >> "doc url"
         0 * docRegistry._
 
-        visitor = new ZipCopyAction(zipFile, compressor, docRegistry, encoding, false)
+        visitor = new ZipCopyAction(zipFile, compressor, docRegistry, encoding, false, temporaryDir)
 
         when:
         zip(file("file2"))
@@ -154,14 +253,27 @@ class ZipCopyActionTest extends Specification {
         })
     }
 
-    private FileCopyDetailsInternal file(final String path) {
+    private FileCopyDetailsInternal file(final String path, final String content = "contents of $path") {
         def mock = Mock(FileCopyDetailsInternal)
         mock.getRelativePath() >> RelativePath.parse(false, path)
         mock.getLastModified() >> 1000L
         mock.isDirectory() >> false
         mock.getMode() >> 1
         mock.copyTo(_ as OutputStream) >> { OutputStream out ->
-            out << "contents of $path"
+            out << content
+        }
+        mock
+    }
+
+    private FileCopyDetailsInternal unfilteredFile(final FileVisitDetails source) {
+        def mock = Mock(FileCopyDetailsInternal)
+        mock.getRelativePath() >> source.relativePath
+        mock.getLastModified() >> 1000L
+        mock.isDirectory() >> false
+        mock.getMode() >> 1
+        mock.getUnfilteredSource() >> source
+        mock.copyTo(_ as OutputStream) >> {
+            throw new AssertionError("should copy the compressed content")
         }
         mock
     }
@@ -17,6 +17,9 @@ package org.gradle.api.internal.file.archive;
 
 import org.gradle.api.GradleException;
 import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.internal.hash.DefaultFileHasher;
 import org.gradle.test.fixtures.file.TestFile;
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider;
 import org.gradle.util.Resources;
@@ -32,6 +35,7 @@ import static org.gradle.api.internal.file.TestFiles.fileSystem;
 import static org.gradle.api.tasks.AntBuilderAwareUtil.assertSetContainsForAllTypes;
 import static org.gradle.util.WrapUtil.toList;
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
@@ -58,6 +62,26 @@ public class ZipFileTreeTest {
         assertSetContainsForAllTypes(tree, toList("subdir/file1.txt", "subdir2/file2.txt"));
     }
 
+    @Test
+    public void hashesAndIdentifiesEntriesWithoutExtractingThem() {
+        rootDir.file("subdir/file1.txt").write("content");
+        rootDir.file("subdir2/file2.txt").write("other content");
+        rootDir.zipTo(zipFile);
+
+        final DefaultFileHasher hasher = new DefaultFileHasher();
+        tree.visit(new FileVisitor() {
+            public void visitDir(FileVisitDetails dirDetails) {
+            }
+
+            public void visitFile(FileVisitDetails fileDetails) {
+                assertThat(hasher.hash(fileDetails), equalTo(hasher.hash(rootDir.file(fileDetails.getPath()))));
+                assertThat(((ArchiveEntryDetails) fileDetails).getVirtualPath(), equalTo(zipFile.getAbsolutePath() + "!/" + fileDetails.getPath()));
+            }
+        });
+
+        assertFalse(expandDir.exists());
+    }
+
     @Test
     public void canStopVisitingFiles() {
         rootDir.file("subdir/file1.txt").write("content");
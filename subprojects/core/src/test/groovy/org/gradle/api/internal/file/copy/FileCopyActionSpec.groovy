@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy
+
+import org.gradle.api.GradleException
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.DefaultFileVisitDetails
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
+import org.gradle.internal.operations.DefaultBuildOperationQueueFactory
+import org.gradle.internal.operations.DefaultBuildOperationWorkerRegistry
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.CopyOnWriteArraySet
+
+import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit
+
+class FileCopyActionSpec extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def destDir = tmpDir.file("dest")
+    def executorFactory = new DefaultExecutorFactory()
+    def workerRegistry = new DefaultBuildOperationWorkerRegistry(4)
+    def buildOperationProcessor = new DefaultBuildOperationProcessor(new DefaultBuildOperationQueueFactory(workerRegistry), executorFactory, 4)
+    def taskOperation = workerRegistry.operationStart()
+    def action = new FileCopyAction(TestFiles.resolver(destDir), buildOperationProcessor)
+
+    def cleanup() {
+        taskOperation.operationFinish()
+        executorFactory.stop()
+    }
+
+    def "copies unfiltered files as build operations and other files on the calling thread"() {
+        def threads = new CopyOnWriteArraySet<Thread>()
+        def files = (1..20).collect { unfilteredFile("dir$it/file.txt", threads) }
+        def filtered = Mock(FileCopyDetailsInternal)
+        def filteredThreads = []
+
+        when:
+        def result = visit(action, files + filtered)
+
+        then:
+        _ * filtered.relativePath >> RelativePath.parse(true, "filtered.txt")
+        _ * filtered.unfilteredSource >> null
+        1 * filtered.copyTo(destDir.file("filtered.txt")) >> { filteredThreads << Thread.currentThread(); true }
+
+        and:
+        result.didWork
+        filteredThreads == [Thread.currentThread()]
+        (1..20).every { destDir.file("dir$it").directory }
+    }
+
+    def "copies files with the same destination in order"() {
+        def copies = new ConcurrentLinkedQueue<String>()
+        def first = unfilteredFile("file.txt", new CopyOnWriteArraySet<Thread>()) { Thread.sleep(100); copies << "first" }
+        def second = unfilteredFile("file.txt", new CopyOnWriteArraySet<Thread>()) { copies << "second" }
+
+        when:
+        visit(action, first, second)
+
+        then:
+        copies as List == ["first", "second"]
+    }
+
+    def "rethrows failure to copy a file"() {
+        def failure = new GradleException("broken")
+        def file = unfilteredFile("file.txt", new CopyOnWriteArraySet<Thread>()) { throw failure }
+
+        when:
+        visit(action, file)
+
+        then:
+        def e = thrown(GradleException)
+        e.is(failure)
+    }
+
+    def "copies all files on the calling thread when no build operation processor is provided"() {
+        def threads = new CopyOnWriteArraySet<Thread>()
+        def files = (1..5).collect { unfilteredFile("dir$it/file.txt", threads) }
+
+        when:
+        def result = visit(new FileCopyAction(TestFiles.resolver(destDir)), files)
+
+        then:
+        result.didWork
+        threads as List == [Thread.currentThread()]
+    }
+
+    private FileCopyDetailsInternal unfilteredFile(String path, Set<Thread> threads, Closure copy = {}) {
+        def source = tmpDir.createFile("source/$path")
+        def relativePath = RelativePath.parse(true, path)
+        def details = Mock(FileCopyDetailsInternal)
+        _ * details.relativePath >> relativePath
+        _ * details.directory >> false
+        _ * details.unfilteredSource >> new DefaultFileVisitDetails(source, relativePath, null, TestFiles.fileSystem(), TestFiles.fileSystem(), false)
+        1 * details.copyTo(destDir.file(path)) >> {
+            threads << Thread.currentThread()
+            copy.call()
+            true
+        }
+        return details
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.copy
+
+import org.gradle.api.Action
+import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.CopyActionProcessingStreamAction
+import org.gradle.api.tasks.WorkResult
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs
+import org.gradle.api.tasks.incremental.InputFileDetails
+import org.gradle.test.fixtures.file.WorkspaceTest
+
+import static org.gradle.api.internal.file.copy.CopyActionExecuterUtil.visit
+
+class IncrementalCopyActionDecoratorTest extends WorkspaceTest {
+    def inputs = Mock(IncrementalTaskInputs)
+    def delegate = Mock(CopyAction)
+    def copied = []
+
+    def setup() {
+        _ * delegate.execute(_) >> { CopyActionProcessingStream stream ->
+            stream.process({ FileCopyDetailsInternal details -> copied << details.relativePath.pathString } as CopyActionProcessingStreamAction)
+            return { true } as WorkResult
+        }
+    }
+
+    def "copies all files when not executed incrementally"() {
+        given:
+        def record = file("record.txt")
+        def action = new IncrementalCopyActionDecorator(file("dest"), inputs, record, delegate)
+        _ * inputs.incremental >> false
+        file("dest/a.txt").createFile()
+
+        when:
+        visit(action, details("src/a.txt", "a.txt"), details("src/b.txt", "b.txt"))
+
+        then:
+        copied == ["a.txt", "b.txt"]
+        record.readLines() as Set == ["a.txt", "b.txt"] as Set
+    }
+
+    def "copies only the files whose source has changed when executed incrementally"() {
+        given:
+        def action = new IncrementalCopyActionDecorator(file("dest"), inputs, null, delegate)
+        _ * inputs.incremental >> true
+        _ * inputs.outOfDate(_) >> { Action action -> action.execute(inputFile("src/b.txt")) }
+        file("dest/a.txt").createFile()
+        file("dest/b.txt").createFile()
+
+        when:
+        visit(action, details("src/a.txt", "a.txt"), details("src/b.txt", "b.txt"), details("src/c.txt", "c.txt"), details(null, "d.txt"))
+
+        then:
+        copied == ["b.txt", "c.txt", "d.txt"]
+    }
+
+    def "copies unchanged file again when another file is copied to the same destination"() {
+        given:
+        def action = new IncrementalCopyActionDecorator(file("dest"), inputs, null, delegate)
+        _ * inputs.incremental >> true
+        _ * inputs.outOfDate(_) >> { Action action -> action.execute(inputFile("src/a.txt")) }
+        file("dest/a.txt").createFile()
+
+        when:
+        visit(action, details("src/a.txt", "a.txt"), details("src/other/a.txt", "a.txt"))
+
+        then:
+        copied == ["a.txt", "a.txt"]
+    }
+
+    def "deletes files copied from removed sources"() {
+        given:
+        def record = file("record.txt")
+        record.text = "a.txt\nrenamed-b.txt"
+        def action = new IncrementalCopyActionDecorator(file("dest"), inputs, record, delegate)
+        _ * inputs.incremental >> true
+        _ * inputs.removed(_) >> { Action action -> action.execute(inputFile("src/b.txt")) }
+        file("dest/a.txt").createFile()
+        file("dest/renamed-b.txt").createFile()
+
+        when:
+        def result = visit(action, details("src/a.txt", "a.txt"))
+
+        then:
+        result.didWork
+        copied == []
+        file("dest").assertHasDescendants("a.txt")
+        record.readLines() == ["a.txt"]
+    }
+
+    private FileCopyDetailsInternal details(String sourcePath, String path) {
+        def details = Mock(FileCopyDetailsInternal)
+        _ * details.relativePath >> RelativePath.parse(true, path)
+        _ * details.directory >> false
+        _ * details.sourceFile >> (sourcePath == null ? null : file(sourcePath))
+        return details
+    }
+
+    private InputFileDetails inputFile(String path) {
+        def inputFile = file(path)
+        return [getFile: { inputFile }] as InputFileDetails
+    }
+}
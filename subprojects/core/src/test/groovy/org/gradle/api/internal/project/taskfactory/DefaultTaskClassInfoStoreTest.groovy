@@ -61,6 +61,11 @@ class DefaultTaskClassInfoStoreTest extends Specification {
         info.nonAnnotatedPropertyNames.empty
     }
 
+    def "reuses the information about a task type"() {
+        expect:
+        taskClassInfoStore.getTaskClassInfo(SimpleTask).is(taskClassInfoStore.getTaskClassInfo(SimpleTask))
+    }
+
     @CacheableTask
     private static class MyCacheableTask extends DefaultTask {}
 
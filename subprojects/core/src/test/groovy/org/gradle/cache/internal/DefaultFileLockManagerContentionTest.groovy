@@ -22,6 +22,7 @@ import org.gradle.cache.internal.locklistener.DefaultFileLockContentionHandler
 import org.gradle.cache.internal.locklistener.FileLockContentionHandler
 import org.gradle.internal.concurrent.CompositeStoppable
 import org.gradle.internal.id.LongIdGenerator
+import org.gradle.internal.progress.TestBuildOperationExecutor
 import org.gradle.internal.remote.internal.inet.InetAddressFactory
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -37,7 +38,8 @@ class DefaultFileLockManagerContentionTest extends ConcurrentSpec {
     FileLockContentionHandler contentionHandler = new DefaultFileLockContentionHandler(executorFactory, new InetAddressFactory())
     FileLockContentionHandler contentionHandler2 = new DefaultFileLockContentionHandler(executorFactory, new InetAddressFactory())
     FileLockManager manager = new DefaultFileLockManager(Stub(ProcessMetaDataProvider), 2000, contentionHandler, new LongIdGenerator())
-    FileLockManager manager2 = new DefaultFileLockManager(Stub(ProcessMetaDataProvider), 2000, contentionHandler2, new LongIdGenerator())
+    TestBuildOperationExecutor buildOperationExecutor = new TestBuildOperationExecutor()
+    FileLockManager manager2 = new DefaultFileLockManager(Stub(ProcessMetaDataProvider), 2000, contentionHandler2, new LongIdGenerator(), buildOperationExecutor)
 
     List<Closeable> openedLocks = []
 
@@ -83,6 +85,32 @@ class DefaultFileLockManagerContentionTest extends ConcurrentSpec {
         lockMode << [Exclusive, Shared]
     }
 
+    def "reports waiting for a contended lock as a build operation"() {
+        given:
+        def file = tmpDir.file("lock-file.bin")
+        def lock = createLock(Exclusive, file)
+        manager.allowContention(lock, { lock.close() } as Runnable)
+
+        when:
+        createLock(Exclusive, file, manager2)
+
+        then:
+        buildOperationExecutor.operations.size() == 1
+        buildOperationExecutor.operations[0].displayName == "Wait for lock on foo"
+        buildOperationExecutor.operations[0].progressDisplayName == "Waiting for lock on foo"
+    }
+
+    def "does not report a build operation when lock is not contended"() {
+        given:
+        def file = tmpDir.file("lock-file.bin")
+
+        when:
+        createLock(Exclusive, file, manager2)
+
+        then:
+        buildOperationExecutor.operations.empty
+    }
+
     FileLock createLock(LockMode lockMode, File file, FileLockManager lockManager = manager) {
         def lock = lockManager.lock(file, LockOptionsBuilder.mode(lockMode), "foo", "operation")
         openedLocks << lock
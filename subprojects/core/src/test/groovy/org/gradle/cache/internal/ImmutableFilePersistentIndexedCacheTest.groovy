@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.internal.serialize.BaseSerializerFactory.INTEGER_SERIALIZER
+import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER
+
+class ImmutableFilePersistentIndexedCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cacheDir = tmpDir.file("cache")
+    def cache = new ImmutableFilePersistentIndexedCache<String, Integer>(cacheDir, STRING_SERIALIZER, INTEGER_SERIALIZER)
+
+    def "returns null for missing entry"() {
+        expect:
+        cache.get("a") == null
+    }
+
+    def "can put, replace and remove entries"() {
+        when:
+        cache.put("a", 1)
+        cache.put("b", 2)
+
+        then:
+        cache.get("a") == 1
+        cache.get("b") == 2
+
+        when:
+        cache.put("a", 3)
+
+        then:
+        cache.get("a") == 3
+
+        when:
+        cache.remove("a")
+
+        then:
+        cache.get("a") == null
+        cache.get("b") == 2
+    }
+
+    def "entries are visible to other instances using the same directory"() {
+        when:
+        cache.put("a", 1)
+
+        then:
+        new ImmutableFilePersistentIndexedCache<String, Integer>(cacheDir, STRING_SERIALIZER, INTEGER_SERIALIZER).get("a") == 1
+    }
+
+    def "leaves no partially written files behind"() {
+        when:
+        cache.put("a", 1)
+        cache.put("a", 2)
+
+        then:
+        def files = []
+        cacheDir.eachFileRecurse { if (it.file) { files << it } }
+        files.size() == 1
+        !files[0].name.endsWith(".part")
+    }
+
+    def "ignores corrupt entry"() {
+        given:
+        cache.put("a", 1)
+        def file
+        cacheDir.eachFileRecurse { if (it.file) { file = it } }
+
+        when:
+        file.text = ""
+
+        then:
+        cache.get("a") == null
+
+        when:
+        cache.put("a", 2)
+
+        then:
+        cache.get("a") == 2
+    }
+}
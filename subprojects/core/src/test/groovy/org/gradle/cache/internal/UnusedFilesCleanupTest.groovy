@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class UnusedFilesCleanupTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def dir = tmpDir.createDir("cache")
+    def cleanup = new UnusedFilesCleanup(dir, 7)
+
+    def "removes files that have not been used for the maximum number of days"() {
+        def unused = daysOld(dir.file("unused").createFile(), 8)
+        def recent = daysOld(dir.file("recent").createFile(), 6)
+        def unusedDir = daysOld(dir.file("unused-dir").createDir(), 8)
+        unusedDir.file("content").createFile()
+
+        when:
+        cleanup.cleanupIfDue()
+
+        then:
+        !unused.exists()
+        !unusedDir.exists()
+        recent.exists()
+    }
+
+    def "does not remove the files of the cache itself"() {
+        def properties = daysOld(dir.file("cache.properties").createFile(), 8)
+        def lock = daysOld(dir.file("cache.lock").createFile(), 8)
+
+        when:
+        cleanup.cleanupIfDue()
+
+        then:
+        properties.exists()
+        lock.exists()
+    }
+
+    def "does not remove files that have been marked as used"() {
+        def file = daysOld(dir.file("file").createFile(), 8)
+
+        when:
+        cleanup.markUsed(file)
+        cleanup.cleanupIfDue()
+
+        then:
+        file.exists()
+    }
+
+    def "cleans up at most once a day"() {
+        cleanup.cleanupIfDue()
+        def unused = daysOld(dir.file("unused").createFile(), 8)
+
+        when:
+        cleanup.cleanupIfDue()
+
+        then:
+        unused.exists()
+
+        when:
+        daysOld(dir.file("gc.properties"), 2)
+        cleanup.cleanupIfDue()
+
+        then:
+        !unused.exists()
+    }
+
+    private static TestFile daysOld(TestFile file, int days) {
+        file.lastModified = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days)
+        return file
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration
+
+import org.gradle.StartParameter
+import org.gradle.api.internal.DocumentationRegistry
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.initialization.ClassLoaderScope
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectScript
+import org.gradle.groovy.scripts.ScriptCompiler
+import org.gradle.groovy.scripts.ScriptCompilerFactory
+import org.gradle.groovy.scripts.ScriptRunner
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.progress.TestBuildOperationExecutor
+import org.gradle.internal.resource.TextResource
+import org.gradle.plugin.use.internal.PluginRequests
+import spock.lang.Specification
+
+class BuildScriptPrecompilerTest extends Specification {
+    def scriptCompilerFactory = Mock(ScriptCompilerFactory)
+    def executorFactory = new DefaultExecutorFactory()
+    def startParameter = new StartParameter()
+    def classLoader = Mock(ClassLoader)
+    def baseScope = Stub(ClassLoaderScope) {
+        getExportClassLoader() >> classLoader
+    }
+    def compilers = [:]
+    def allProjects = new LinkedHashSet()
+    def precompiler = new BuildScriptPrecompiler(scriptCompilerFactory, new CompileOperationFactory(new DocumentationRegistry()), executorFactory, new TestBuildOperationExecutor())
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "does nothing when not enabled"() {
+        def root = project("root", null)
+
+        when:
+        precompiler.precompile(gradle(root), baseScope)
+
+        then:
+        0 * scriptCompilerFactory._
+    }
+
+    def "compiles the body of build scripts whose class loader is known"() {
+        def root = project("root", null)
+        def withClasspath = project("withClasspath", root)
+        def child = project("child", withClasspath)
+        def other = project("other", root)
+        def missing = project("missing", root, false)
+        startParameter.systemPropertiesArgs[BuildScriptPrecompiler.PRECOMPILE_PROPERTY] = "true"
+
+        when:
+        precompiler.precompile(gradle(root), baseScope)
+
+        then:
+        1 * compilers[root].compile(ProjectScript, { it.id == "cp_proj" }, classLoader, _) >> classpathRunner(false)
+        1 * compilers[withClasspath].compile(ProjectScript, { it.id == "cp_proj" }, classLoader, _) >> classpathRunner(true)
+        1 * compilers[child].compile(ProjectScript, { it.id == "cp_proj" }, classLoader, _) >> classpathRunner(false)
+        1 * compilers[other].compile(ProjectScript, { it.id == "cp_proj" }, classLoader, _) >> classpathRunner(false)
+
+        then:
+        1 * compilers[root].compile(ProjectScript, { it.id == "proj" }, classLoader, _)
+        1 * compilers[other].compile(ProjectScript, { it.id == "proj" }, classLoader, _)
+        0 * compilers[withClasspath].compile(_, _, _, _)
+        0 * compilers[child].compile(_, _, _, _)
+        0 * compilers[missing]._
+    }
+
+    def "ignores compilation failures"() {
+        def root = project("root", null)
+        def child = project("child", root)
+        startParameter.systemPropertiesArgs[BuildScriptPrecompiler.PRECOMPILE_PROPERTY] = "true"
+
+        when:
+        precompiler.precompile(gradle(root), baseScope)
+
+        then:
+        1 * compilers[root].compile(ProjectScript, { it.id == "cp_proj" }, classLoader, _) >> { throw new RuntimeException("broken") }
+        1 * compilers[child].compile(ProjectScript, { it.id == "cp_proj" }, classLoader, _) >> classpathRunner(false)
+        0 * compilers[root].compile(_, _, _, _)
+        0 * compilers[child].compile(_, _, _, _)
+        noExceptionThrown()
+    }
+
+    private ScriptRunner classpathRunner(boolean declaresClasspath) {
+        return Stub(ScriptRunner) {
+            getRunDoesSomething() >> declaresClasspath
+            getData() >> Stub(PluginRequests) {
+                isEmpty() >> true
+            }
+        }
+    }
+
+    private GradleInternal gradle(ProjectInternal root) {
+        return Stub(GradleInternal) {
+            getStartParameter() >> startParameter
+            getRootProject() >> root
+        }
+    }
+
+    private ProjectInternal project(String name, ProjectInternal parent, boolean exists = true) {
+        def source = Stub(ScriptSource) {
+            getFileName() >> "${name}.gradle"
+            getDisplayName() >> name
+            getResource() >> Stub(TextResource) {
+                getExists() >> exists
+            }
+        }
+        def compiler = Mock(ScriptCompiler)
+        scriptCompilerFactory.createCompiler(source) >> compiler
+        def project = Stub(ProjectInternal) {
+            getName() >> name
+            getParent() >> parent
+            getBuildScriptSource() >> source
+            getAllprojects() >> allProjects
+        }
+        allProjects << project
+        compilers[project] = compiler
+        return project
+    }
+}
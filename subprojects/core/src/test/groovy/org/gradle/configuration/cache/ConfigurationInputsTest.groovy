@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.cache
+
+import org.gradle.api.internal.hash.DefaultFileHasher
+import org.gradle.internal.serialize.SerializerSpec
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+
+class ConfigurationInputsTest extends SerializerSpec {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def hasher = new DefaultFileHasher()
+    def inputs = new ConfigurationInputs()
+
+    def "inputs are unchanged when nothing has changed"() {
+        def file = tmpDir.file("build.gradle") << "apply plugin: 'java'"
+
+        when:
+        inputs.file(file, hasher)
+        inputs.file(tmpDir.file("missing.gradle"), hasher)
+        inputs.allEnvironmentVariables([SOME_VARIABLE: "value", OTHER_VARIABLE: "other"])
+
+        then:
+        inputs.findChange(hasher, [OTHER_VARIABLE: "other", SOME_VARIABLE: "value"]) == null
+    }
+
+    def "detects changed file"() {
+        def file = tmpDir.file("build.gradle") << "apply plugin: 'java'"
+        def missing = tmpDir.file("missing.gradle")
+        inputs.file(file, hasher)
+        inputs.file(missing, hasher)
+
+        when:
+        file << "\napply plugin: 'groovy'"
+
+        then:
+        inputs.findChange(hasher, [:]) == "file '${file}' has changed"
+
+        when:
+        file.text = "apply plugin: 'java'"
+        missing.createFile()
+
+        then:
+        inputs.findChange(hasher, [:]) == "file '${missing}' has changed"
+    }
+
+    def "detects changed environment variables"() {
+        inputs.allEnvironmentVariables([SOME_VARIABLE: "value", OTHER_VARIABLE: "other"])
+
+        expect:
+        inputs.findChange(hasher, [SOME_VARIABLE: "value", OTHER_VARIABLE: "changed"]) == "the environment variables have changed"
+        inputs.findChange(hasher, [SOME_VARIABLE: "value"]) == "the environment variables have changed"
+        inputs.findChange(hasher, [SOME_VARIABLE: "value", OTHER_VARIABLE: "other", NEW_VARIABLE: "new"]) == "the environment variables have changed"
+    }
+
+    def "serializes inputs"() {
+        def file = tmpDir.file("build.gradle") << "apply plugin: 'java'"
+        def missing = tmpDir.file("missing.gradle")
+        inputs.file(file, hasher)
+        inputs.file(missing, hasher)
+        inputs.allEnvironmentVariables([SOME_VARIABLE: "value"])
+
+        when:
+        def result = serialize(inputs, new ConfigurationInputs.Serializer())
+
+        then:
+        result.files == inputs.files
+        result.findChange(hasher, [SOME_VARIABLE: "value"]) == null
+        result.findChange(hasher, [SOME_VARIABLE: "other"]) == "the environment variables have changed"
+    }
+}
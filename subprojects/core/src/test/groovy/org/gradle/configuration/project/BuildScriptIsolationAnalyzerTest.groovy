@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.project
+
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.internal.resource.TextResource
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class BuildScriptIsolationAnalyzerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def analyzer = new BuildScriptIsolationAnalyzer()
+
+    @Unroll
+    def "script is isolated: #script"() {
+        expect:
+        def result = analyzer.analyze(project(":a", script))
+        result.isolated
+        result.reason == null
+        result.referencedProjects.empty
+
+        where:
+        script << [
+            "",
+            "apply plugin: 'java'\ndependencies { compile project(':b') }",
+            "dependencies { compile project(path: ':b', configuration: 'x') }",
+            "project(':a:c') { apply plugin: 'java' }",
+            "project('c').version = '1.0'",
+            "subprojects { apply plugin: 'java' }",
+            "version = rootProject.version",
+            "println rootProject.ext.versions.junit",
+            "if (gradle.startParameter.offline) { }",
+            "def f = file('x'); f.parentFile.mkdirs(); f.parent.length()",
+            "task copy(type: Copy) { from 'src'; into 'build.gradle' }",
+        ]
+    }
+
+    @Unroll
+    def "script is not isolated: #script"() {
+        expect:
+        def result = analyzer.analyze(project(":a", script))
+        !result.isolated
+        result.reason == reason
+
+        where:
+        script                                 | reason
+        "evaluationDependsOn(':b')"            | "its build script depends on the evaluation of other projects"
+        "def p = findProject(':b')"            | "its build script depends on the evaluation of other projects"
+        "configure(rootProject) { }"           | "its build script uses 'configure()'"
+        "rootProject.ext.shared = 1"           | "its build script configures the root project or the parent project"
+        "parent.tasks.create('x')"             | "its build script configures the root project or the parent project"
+        "gradle.taskGraph.whenReady { }"       | "its build script uses 'gradle.taskGraph'"
+        "System.setProperty('a', 'b')"         | "its build script sets system properties"
+        "project(':b').ext.shared = 1"         | "its build script accesses project [:b]"
+        "project(':b') { version = 1 }"        | "its build script accesses project [:b]"
+        "project(\":\${x}\").version = 1"      | "its build script accesses a project whose path is not a literal"
+        "project(name).version = 1"            | "its build script accesses a project whose path is not a literal"
+        "apply from: 'http://host/script'"     | "its build script applies a script that cannot be analysed"
+        "apply from: 'missing.gradle'"         | "its build script applies a script that cannot be analysed"
+    }
+
+    def "reports accessed projects"() {
+        expect:
+        def result = analyzer.analyze(project(":a", "project(':b').version = 1\nproject(':c') { }\nproject(':a:d') { }"))
+        result.referencedProjects == [":b", ":c"] as Set
+    }
+
+    def "analyses applied local scripts"() {
+        given:
+        tmpDir.file("shared.gradle") << "gradle.buildFinished { }"
+
+        expect:
+        def result = analyzer.analyze(project(":a", "apply from: 'shared.gradle'"))
+        result.reason == "the applied script 'shared.gradle' uses 'gradle.buildFinished'"
+    }
+
+    def "project without build script is isolated"() {
+        def resource = Stub(TextResource) {
+            getExists() >> false
+        }
+
+        expect:
+        analyzer.analyze(project(":a", resource)).isolated
+    }
+
+    private ProjectInternal project(String path, String script) {
+        def scriptFile = tmpDir.file("build.gradle")
+        scriptFile.text = script
+        def resource = Stub(TextResource) {
+            getExists() >> true
+            getText() >> script
+            getFile() >> scriptFile
+        }
+        return project(path, resource)
+    }
+
+    private ProjectInternal project(String path, TextResource resource) {
+        def source = Stub(ScriptSource) {
+            getResource() >> resource
+        }
+        return Stub(ProjectInternal) {
+            getPath() >> path
+            getBuildScriptSource() >> source
+        }
+    }
+}
@@ -29,7 +29,7 @@ class LifecycleProjectEvaluatorTest extends Specification {
     private listener = Mock(ProjectEvaluationListener)
     private delegate = Mock(ProjectEvaluator)
     private buildOperationExecutor = new TestBuildOperationExecutor()
-    private evaluator = new LifecycleProjectEvaluator(buildOperationExecutor, delegate)
+    private evaluator = new LifecycleProjectEvaluator(buildOperationExecutor, delegate, new ProjectConfigurationIsolation())
     private state = Mock(ProjectStateInternal)
 
     void setup() {
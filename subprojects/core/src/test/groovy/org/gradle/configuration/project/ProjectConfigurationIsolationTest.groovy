@@ -0,0 +1,168 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration.project
+
+import org.gradle.api.InvalidUserCodeException
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+class ProjectConfigurationIsolationTest extends ConcurrentSpec {
+    def isolation = new ProjectConfigurationIsolation()
+    def a = project(":a")
+    def b = project(":b")
+
+    def "can evaluate any project when not configuring projects in parallel"() {
+        when:
+        isolation.checkCanEvaluate(a)
+        isolation.checkCanEvaluate(b)
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "can evaluate the project being configured in parallel"() {
+        when:
+        isolation.runIsolated(a, {
+            isolation.checkCanEvaluate(a)
+        })
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "cannot evaluate another project while configuring a project in parallel"() {
+        when:
+        isolation.runIsolated(a, {
+            isolation.checkCanEvaluate(b)
+        })
+
+        then:
+        def e = thrown(InvalidUserCodeException)
+        e.message == "Cannot evaluate project ':b' while configuring project ':a' in parallel with other projects. " +
+            "Remove the access to project ':b' from project ':a', or disable parallel project configuration."
+    }
+
+    def "can evaluate other projects once the project has been configured"() {
+        given:
+        isolation.runIsolated(a, {})
+
+        when:
+        isolation.checkCanEvaluate(b)
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "can evaluate other projects after the configuration of a project fails"() {
+        given:
+        def failure = new RuntimeException()
+
+        when:
+        isolation.runIsolated(a, { throw failure })
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+
+        when:
+        isolation.checkCanEvaluate(b)
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "notifies listeners for one project at a time when configuring projects in parallel"() {
+        when:
+        async {
+            start {
+                isolation.runIsolated(a, {
+                    isolation.notifyListeners {
+                        instant.notifyingA
+                        thread.block()
+                        instant.notifiedA
+                    }
+                })
+            }
+            start {
+                thread.blockUntil.notifyingA
+                isolation.runIsolated(b, {
+                    isolation.notifyListeners {
+                        instant.notifyingB
+                    }
+                })
+            }
+        }
+
+        then:
+        instant.notifyingB > instant.notifiedA
+    }
+
+    def "notifies listeners concurrently when not configuring projects in parallel"() {
+        when:
+        async {
+            start {
+                isolation.notifyListeners {
+                    instant.notifyingA
+                    thread.blockUntil.notifiedB
+                }
+            }
+            start {
+                thread.blockUntil.notifyingA
+                isolation.notifyListeners {
+                    instant.notifiedB
+                }
+            }
+        }
+
+        then:
+        instant.notifiedB > instant.notifyingA
+    }
+
+    def "notifies listeners of separate builds concurrently"() {
+        given:
+        def otherBuild = new ProjectConfigurationIsolation()
+
+        when:
+        async {
+            start {
+                isolation.runIsolated(a, {
+                    isolation.notifyListeners {
+                        instant.notifyingA
+                        thread.blockUntil.notifiedB
+                    }
+                })
+            }
+            start {
+                thread.blockUntil.notifyingA
+                otherBuild.runIsolated(b, {
+                    otherBuild.notifyListeners {
+                        instant.notifiedB
+                    }
+                })
+            }
+        }
+
+        then:
+        instant.notifiedB > instant.notifyingA
+    }
+
+    private ProjectInternal project(String path) {
+        return Stub(ProjectInternal) {
+            toString() >> "project '$path'"
+        }
+    }
+}
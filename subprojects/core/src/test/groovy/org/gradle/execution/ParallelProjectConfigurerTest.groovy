@@ -0,0 +1,245 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.StartParameter
+import org.gradle.api.BuildCancelledException
+import org.gradle.api.InvalidUserCodeException
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectStateInternal
+import org.gradle.configuration.project.BuildScriptIsolationAnalyzer
+import org.gradle.configuration.project.ProjectConfigurationIsolation
+import org.gradle.initialization.BuildCancellationToken
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.BuildOperationWorkerRegistry
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
+import org.gradle.internal.operations.DefaultBuildOperationQueueFactory
+import org.gradle.internal.operations.DefaultBuildOperationWorkerRegistry
+import org.gradle.internal.progress.TestBuildOperationExecutor
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+class ParallelProjectConfigurerTest extends Specification {
+    def startParameter = new StartParameter()
+    def gradle = Stub(GradleInternal) {
+        getStartParameter() >> startParameter
+    }
+    def delegate = Mock(ProjectConfigurer)
+    def isolationAnalyzer = Stub(BuildScriptIsolationAnalyzer)
+    def cancellationToken = Stub(BuildCancellationToken)
+    def workerRegistry = new DefaultBuildOperationWorkerRegistry(4)
+    def buildOperationProcessor = new DefaultBuildOperationProcessor(new DefaultBuildOperationQueueFactory(workerRegistry), new DefaultExecutorFactory(), 4)
+    def isolation = new ProjectConfigurationIsolation()
+    def configurer = new ParallelProjectConfigurer(delegate, buildOperationProcessor, workerRegistry, new TestBuildOperationExecutor(), isolationAnalyzer, isolation, cancellationToken)
+    def configured = new CopyOnWriteArrayList<String>()
+    def configuredThreads = new CopyOnWriteArrayList<Thread>()
+    def workerLeases = new CopyOnWriteArrayList<BuildOperationWorkerRegistry.Operation>()
+    Map<String, ProjectInternal> projects = [:]
+    Map<String, BuildScriptIsolationAnalyzer.Result> analysisResults = [:]
+    Map<String, Closure> configureActions = [:]
+    ProjectInternal root
+
+    def setup() {
+        startParameter.systemPropertiesArgs = [(ParallelProjectConfigurer.PARALLEL_CONFIGURATION_PROPERTY): "true"]
+        startParameter.maxWorkerCount = 4
+        isolationAnalyzer.analyze(_) >> { ProjectInternal project -> analysisResults[project.path] ?: isolated() }
+        root = project(":", null)
+        delegate.configure(_) >> { ProjectInternal project -> (configureActions[project.path] ?: this.&configure).call(project) }
+    }
+
+    def cleanup() {
+        buildOperationProcessor.stop()
+        workerRegistry.stop()
+    }
+
+    def "does not configure projects in parallel when not enabled"() {
+        given:
+        startParameter.systemPropertiesArgs = [:]
+        project(":a")
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * delegate.configureHierarchy(root)
+        0 * delegate.configure(_)
+    }
+
+    def "configures the root project first and each project after its parent"() {
+        given:
+        project(":a")
+        project(":a:b")
+        project(":a:b:c")
+        project(":d")
+        project(":d:e")
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * delegate.configureHierarchy(root)
+        configured[0] == ":"
+        configured as Set == [":", ":a", ":a:b", ":a:b:c", ":d", ":d:e"] as Set
+        configured.indexOf(":a") < configured.indexOf(":a:b")
+        configured.indexOf(":a:b") < configured.indexOf(":a:b:c")
+        configured.indexOf(":d") < configured.indexOf(":d:e")
+        configuredThreads[0] == Thread.currentThread()
+    }
+
+    def "configures projects in parallel while holding a worker lease"() {
+        given:
+        project(":a")
+        project(":b")
+        project(":c")
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * delegate.configureHierarchy(root)
+        configured as Set == [":", ":a", ":b", ":c"] as Set
+        workerLeases.size() == 3
+    }
+
+    def "leaves projects that access other projects, the projects they access and their subprojects to be configured serially"() {
+        given:
+        project(":a")
+        project(":a:child")
+        project(":b")
+        project(":c")
+        analysisResults[":a"] = notIsolated(":b")
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * delegate.configureHierarchy(root)
+        configured as Set == [":", ":c"] as Set
+    }
+
+    def "falls back to serial configuration when no project can be configured in parallel"() {
+        given:
+        project(":a")
+        project(":b")
+        analysisResults[":a"] = notIsolated()
+        analysisResults[":b"] = notIsolated()
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * delegate.configureHierarchy(root)
+        configured == [":"]
+    }
+
+    def "does not configure projects that have already been configured"() {
+        given:
+        project(":a").state.executed()
+        project(":a:b")
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * delegate.configureHierarchy(root)
+        configured as Set == [":", ":a:b"] as Set
+    }
+
+    def "propagates failure to configure a project and does not configure its subprojects"() {
+        given:
+        def failure = new RuntimeException("broken")
+        project(":a")
+        project(":a:b")
+        configureActions[":a"] = { throw failure }
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        def e = thrown(RuntimeException)
+        e.is(failure)
+        0 * delegate.configureHierarchy(_)
+        !configured.contains(":a:b")
+    }
+
+    def "stops configuring projects when the build is cancelled"() {
+        given:
+        project(":a")
+        project(":b")
+        cancellationToken.isCancellationRequested() >> true
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        thrown(BuildCancelledException)
+        0 * delegate.configureHierarchy(_)
+        configured == [":"]
+    }
+
+    def "fails when a project configured in parallel evaluates another project"() {
+        given:
+        project(":a")
+        def b = project(":b")
+        configureActions[":a"] = { isolation.checkCanEvaluate(b) }
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        def e = thrown(InvalidUserCodeException)
+        e.message.startsWith("Cannot evaluate project ':b' while configuring project ':a' in parallel with other projects.")
+    }
+
+    private void configure(ProjectInternal project) {
+        configured << project.path
+        configuredThreads << Thread.currentThread()
+        if (project != root) {
+            workerLeases << workerRegistry.current
+        }
+        project.state.executed()
+    }
+
+    private ProjectInternal project(String path, ProjectInternal parent = null) {
+        if (parent == null && path != ":") {
+            def parentPath = path.substring(0, path.lastIndexOf(':'))
+            parent = projects[parentPath ?: ":"]
+        }
+        def state = new ProjectStateInternal()
+        def project = Stub(ProjectInternal) {
+            getPath() >> path
+            getDisplayName() >> "project '$path'"
+            toString() >> "project '$path'"
+            getParent() >> parent
+            getState() >> state
+            getGradle() >> gradle
+            getSubprojects() >> { projects.values().findAll { it.path != ":" && it.path.startsWith(path == ":" ? ":" : path + ":") } as Set }
+        }
+        projects[path] = project
+        return project
+    }
+
+    private static BuildScriptIsolationAnalyzer.Result isolated() {
+        return new BuildScriptIsolationAnalyzer.Result(null, [] as Set)
+    }
+
+    private static BuildScriptIsolationAnalyzer.Result notIsolated(String... referencedProjects) {
+        return new BuildScriptIsolationAnalyzer.Result("its build script accesses other projects", referencedProjects as Set)
+    }
+}
@@ -20,6 +20,7 @@ import org.gradle.api.Action
 import org.gradle.api.internal.hash.FileHasher
 import org.gradle.api.internal.initialization.ClassLoaderIds
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache
+import org.gradle.api.internal.project.ProjectScript
 import org.gradle.cache.CacheBuilder
 import org.gradle.cache.CacheRepository
 import org.gradle.cache.CacheValidator
@@ -48,6 +49,7 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
     final CompileOperation<?> operation = Mock()
     final FileHasher hasher = Mock()
     final ClassLoaderCache classLoaderCache = Mock()
+    final ScriptClassBuildCache buildCache = Mock()
     final classLoaderHierarchyHasher = Mock(ClassLoaderHierarchyHasher) {
         getClassLoaderHash(classLoader) >> HashCode.fromLong(9999)
     }
@@ -55,7 +57,7 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
     final File globalDir = new File("global-dir")
     final File classesDir = new File(globalDir, "classes")
     final File metadataDir = new File(globalDir, "metadata")
-    final FileCacheBackedScriptClassCompiler compiler = new FileCacheBackedScriptClassCompiler(cacheRepository, validator, scriptCompilationHandler, Stub(ProgressLoggerFactory), hasher, classLoaderCache, classLoaderHierarchyHasher)
+    final FileCacheBackedScriptClassCompiler compiler = new FileCacheBackedScriptClassCompiler(cacheRepository, validator, scriptCompilationHandler, Stub(ProgressLoggerFactory), hasher, classLoaderCache, classLoaderHierarchyHasher, buildCache)
     final Action verifier = Stub()
     final CompiledScript compiledScript = Stub() {
         loadClass() >> Script
@@ -166,6 +168,85 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
         0 * scriptCompilationHandler._
     }
 
+    def "loads classes of project scripts from the build cache when they are not in the cache directory"() {
+        given:
+        _ * hasher.hash(resource) >> HashCode.fromString("0123")
+        _ * buildCache.enabled >> true
+        expectCompileIntoCaches()
+
+        when:
+        compiler.compile(source, classLoader, classLoaderId, operation, ProjectScript, verifier)
+
+        then:
+        1 * buildCache.load(_, "TransformerId", { it =~ "TransformerId\\p{XDigit}+" }, classesDir, metadataDir) >> true
+        0 * buildCache.store(*_)
+        1 * scriptCompilationHandler.loadFromDir(source, _, classLoader, new File(localDir, 'classes'), new File(localDir, 'metadata'), operation, ProjectScript, classLoaderId) >> compiledScript
+        0 * scriptCompilationHandler._
+    }
+
+    def "stores classes of project scripts in the build cache when they are not in the build cache"() {
+        given:
+        _ * hasher.hash(resource) >> HashCode.fromString("0123")
+        _ * buildCache.enabled >> true
+        expectCompileIntoCaches()
+
+        when:
+        compiler.compile(source, classLoader, classLoaderId, operation, ProjectScript, verifier)
+
+        then:
+        1 * buildCache.load(_, "TransformerId", _, classesDir, metadataDir) >> false
+
+        then:
+        1 * scriptCompilationHandler.compileToDir({ it instanceof RemappingScriptSource }, classLoader, classesDir, metadataDir, operation, ProjectScript, verifier)
+
+        then:
+        1 * buildCache.store(_, "TransformerId", _, classesDir, metadataDir)
+        1 * scriptCompilationHandler.loadFromDir(source, _, classLoader, _, _, operation, ProjectScript, classLoaderId) >> compiledScript
+        0 * scriptCompilationHandler._
+    }
+
+    def "does not use the build cache for scripts other than project scripts"() {
+        given:
+        _ * hasher.hash(resource) >> HashCode.fromString("0123")
+        _ * buildCache.enabled >> true
+        expectCompileIntoCaches()
+
+        when:
+        compiler.compile(source, classLoader, classLoaderId, operation, Script, verifier)
+
+        then:
+        1 * scriptCompilationHandler.compileToDir({ it instanceof RemappingScriptSource }, classLoader, classesDir, metadataDir, operation, Script, verifier)
+        1 * scriptCompilationHandler.loadFromDir(source, _, classLoader, _, _, operation, Script, classLoaderId) >> compiledScript
+        0 * buildCache.load(*_)
+        0 * buildCache.store(*_)
+    }
+
+    private void expectCompileIntoCaches() {
+        def initializer, globalInitializer
+        _ * cacheRepository.cache({ it.startsWith("scripts-remapped/") }) >> localCacheBuilder
+        _ * localCacheBuilder.withInitializer(!null) >> { args ->
+            initializer = args[0]
+            localCacheBuilder
+        }
+        _ * localCacheBuilder.withDisplayName(!null) >> localCacheBuilder
+        _ * localCacheBuilder.withValidator(!null) >> localCacheBuilder
+        _ * localCacheBuilder.open() >> {
+            initializer.execute(localCache)
+            localCache
+        }
+        _ * cacheRepository.cache({ it.startsWith("scripts/") }) >> globalCacheBuilder
+        _ * globalCacheBuilder.withDisplayName(!null) >> globalCacheBuilder
+        _ * globalCacheBuilder.withInitializer(!null) >> { args ->
+            globalInitializer = args[0]
+            globalCacheBuilder
+        }
+        _ * globalCacheBuilder.withValidator(!null) >> globalCacheBuilder
+        _ * globalCacheBuilder.open() >> {
+            globalInitializer.execute(globalCache)
+            globalCache
+        }
+    }
+
     def "reports compilation progress even in case of a failure"() {
         def factory = Mock(ProgressLoggerFactory)
         def delegate = Mock(Action)
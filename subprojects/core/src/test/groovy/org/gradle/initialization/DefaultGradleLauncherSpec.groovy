@@ -28,6 +28,7 @@ import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.internal.initialization.ClassLoaderScope
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.configuration.BuildConfigurer
+import org.gradle.configuration.cache.ConfigurationCache
 import org.gradle.execution.BuildConfigurationActionExecuter
 import org.gradle.execution.BuildExecuter
 import org.gradle.execution.TaskGraphExecuter
@@ -49,6 +50,7 @@ class DefaultGradleLauncherSpec extends Specification {
     def buildBroadcaster = Mock(BuildListener.class);
     def buildExecuter = Mock(BuildExecuter.class);
     def buildConfigurationActionExecuter = Mock(BuildConfigurationActionExecuter.class);
+    def configurationCache = Mock(ConfigurationCache)
     def buildScopeServices = Mock(ServiceRegistry)
     def taskArtifactStateCacheAccess = Mock(TaskHistoryStore)
 
@@ -111,7 +113,7 @@ class DefaultGradleLauncherSpec extends Specification {
         return new DefaultGradleLauncher(gradleMock, initScriptHandlerMock, settingsLoaderMock,
             buildConfigurerMock, exceptionAnalyserMock, loggingManagerMock, buildBroadcaster,
             modelListenerMock, buildCompletionListener, buildOperationExecutor, buildConfigurationActionExecuter, buildExecuter,
-            buildServices, [otherService]);
+            configurationCache, buildServices, [otherService]);
     }
 
     public void testRun() {
@@ -235,6 +237,33 @@ class DefaultGradleLauncherSpec extends Specification {
         t.cause == transformedException
     }
 
+    public void testReusesConfigurationFromCache() {
+        given:
+        expectLoggingStarted();
+        expectInitScriptsExecuted();
+        expectSettingsBuilt();
+        expectTasksRun();
+        1 * buildBroadcaster.buildStarted(gradleMock)
+        1 * configurationCache.load(gradleMock, settingsMock) >> true
+        1 * buildBroadcaster.buildFinished({BuildResult result -> result.failure == null})
+
+        when:
+        launcher().run();
+
+        then:
+        1 * configurationCache.configure(gradleMock)
+        1 * modelListenerMock.onConfigure(gradleMock)
+
+        then:
+        1 * configurationCache.populateTaskGraph(gradleMock)
+
+        then:
+        1 * buildBroadcaster.projectsEvaluated(gradleMock)
+        0 * buildConfigurerMock._
+        0 * buildConfigurationActionExecuter._
+        0 * configurationCache.store(_)
+    }
+
     public void testCleansUpOnStop() throws IOException {
         given:
         expectLoggingStarted();
@@ -513,6 +513,51 @@ class BeanDynamicObjectTest extends Specification {
         dynamicObject.invokeMethod("methodWithValue", [0] as Object[]) == Number
     }
 
+    def "remembers the properties and methods looked up for each type"() {
+        def dynamicObject = new BeanDynamicObject(new Bean(prop: "value"))
+        def other = new BeanDynamicObject(new Bean(prop: "other"))
+
+        when:
+        dynamicObject.hasProperty("prop")
+        dynamicObject.hasProperty("unknown")
+        dynamicObject.hasMethod("m", [12] as Object[])
+        dynamicObject.hasMethod("unknown", [12] as Object[])
+
+        then:
+        def cache = MetaClassDispatchCache.forMetaClass(new Bean().metaClass)
+        cache.getProperty("prop").name == "prop"
+        cache.getProperty("unknown") == null
+        cache.getProperty("readOnly") == MetaClassDispatchCache.UNKNOWN
+        cache.getMethod("m", [Integer] as Class[]).name == "m"
+        cache.getMethod("unknown", [Integer] as Class[]) == null
+        cache.getMethod("m", [String] as Class[]) == MetaClassDispatchCache.UNKNOWN
+
+        and:
+        other.getProperty("prop") == "other"
+        other.invokeMethod("m", [12] as Object[]) == "[13]"
+        !other.hasProperty("unknown")
+    }
+
+    def "discards remembered lookups when the meta-class of a type is replaced"() {
+        def dynamicObject = new BeanDynamicObject(new BeanWithReplacedMetaClass())
+
+        expect:
+        !dynamicObject.hasProperty("added")
+        !dynamicObject.hasMethod("added", [] as Object[])
+
+        when:
+        BeanWithReplacedMetaClass.metaClass.getAdded = { -> "value" }
+        BeanWithReplacedMetaClass.metaClass.added = { -> "result" }
+        dynamicObject = new BeanDynamicObject(new BeanWithReplacedMetaClass())
+
+        then:
+        dynamicObject.getProperty("added") == "value"
+        dynamicObject.invokeMethod("added", [] as Object[]) == "result"
+
+        cleanup:
+        GroovySystem.metaClassRegistry.removeMetaClass(BeanWithReplacedMetaClass)
+    }
+
     def "can check for methods of groovy object"() {
         def bean = new Bean()
         def dynamicObject = new BeanDynamicObject(bean)
@@ -747,6 +792,10 @@ class BeanDynamicObjectTest extends Specification {
         }
     }
 
+    static class BeanWithReplacedMetaClass {
+        String prop
+    }
+
     static class Bean {
         String prop
 
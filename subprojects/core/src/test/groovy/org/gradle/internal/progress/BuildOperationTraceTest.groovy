@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.progress
+
+import groovy.json.JsonSlurper
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class BuildOperationTraceTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def traceFile = tmpDir.file("trace/operations.json")
+    def trace = new BuildOperationTrace(traceFile)
+
+    def "writes finished operations as complete trace events"() {
+        def parent = new BuildOperationInternal(1, null, "parent", "Parent \"operation\"", null)
+        def child = new BuildOperationInternal(2, 1, "child", "Child operation", null)
+
+        when:
+        trace.started(parent, new OperationStartEvent(0))
+        trace.started(child, new OperationStartEvent(0))
+        trace.finished(child, new OperationResult(0, 0, new RuntimeException()))
+        trace.finished(parent, new OperationResult(0, 0, null))
+        trace.stop()
+
+        then:
+        def events = new JsonSlurper().parse(traceFile)
+        events.size() == 3
+
+        def metadata = events[0]
+        metadata.ph == "M"
+        metadata.name == "thread_name"
+        metadata.tid == Thread.currentThread().id
+        metadata.args.name == Thread.currentThread().name
+
+        def childEvent = events[1]
+        childEvent.ph == "X"
+        childEvent.name == "Child operation"
+        childEvent.tid == Thread.currentThread().id
+        childEvent.args.id == 2
+        childEvent.args.parentId == 1
+        childEvent.args.failed
+
+        def parentEvent = events[2]
+        parentEvent.name == 'Parent "operation"'
+        parentEvent.args.id == 1
+        parentEvent.args.parentId == null
+        !parentEvent.args.failed
+        parentEvent.ts <= childEvent.ts
+        parentEvent.dur >= childEvent.dur
+        parentEvent.args.endNanos - parentEvent.args.startNanos >= childEvent.args.endNanos - childEvent.args.startNanos
+    }
+
+    def "writes empty trace when no operations finish"() {
+        when:
+        trace.started(new BuildOperationInternal(1, null, "op", "Operation", null), new OperationStartEvent(0))
+        trace.stop()
+
+        then:
+        new JsonSlurper().parse(traceFile) == []
+    }
+}
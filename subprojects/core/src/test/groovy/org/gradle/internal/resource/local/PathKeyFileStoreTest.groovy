@@ -79,6 +79,37 @@ class PathKeyFileStoreTest extends Specification {
         !fsBase.file("a.fslock").exists()
     }
 
+    def "does not replace entry until the new file has been written"() {
+        given:
+        store.add("a", { File f -> f.text = "abc"} as Action<File>)
+
+        when:
+        store.add("a", { File f ->
+            assert fsBase.file("a").text == "abc"
+            f.text = "def"
+        } as Action<File>)
+
+        then:
+        fsBase.file("a").text == "def"
+        fsBase.listFiles()*.name == ["a"]
+    }
+
+    def "keeps previous entry when adding fails"() {
+        given:
+        store.add("a", { File f -> f.text = "abc"} as Action<File>)
+
+        when:
+        store.add("a", { File f ->
+            f.text = "partial"
+            throw new Exception("TestException")
+        } as Action<File>)
+
+        then:
+        thrown(GradleException)
+        fsBase.file("a").text == "abc"
+        fsBase.listFiles()*.name == ["a"]
+    }
+
     def "can get from filestore"() {
         when:
         createFile("abc", "fs/a")
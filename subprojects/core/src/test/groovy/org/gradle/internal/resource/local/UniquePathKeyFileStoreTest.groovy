@@ -42,7 +42,8 @@ class UniquePathKeyFileStoreTest extends Specification {
 
         then:
         fileInStore.file == file
-        1 * action.execute(file) >> { File f -> f.text = 'hi' }
+        1 * action.execute({ it.parentFile == file.parentFile }) >> { File f -> f.text = 'hi' }
+        file.text == 'hi'
     }
 
     def "add skips action if file already exists"() {
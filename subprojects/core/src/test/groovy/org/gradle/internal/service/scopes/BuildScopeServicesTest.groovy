@@ -52,6 +52,7 @@ import org.gradle.groovy.scripts.internal.CrossBuildInMemoryCachingScriptClassCa
 import org.gradle.initialization.BuildCancellationToken
 import org.gradle.initialization.BuildLoader
 import org.gradle.initialization.BuildRequestMetaData
+import org.gradle.initialization.BuildScriptPrecompilingBuildLoader
 import org.gradle.initialization.ClassLoaderRegistry
 import org.gradle.initialization.DefaultExceptionAnalyser
 import org.gradle.initialization.DefaultGradlePropertiesLoader
@@ -59,13 +60,13 @@ import org.gradle.initialization.IGradlePropertiesLoader
 import org.gradle.initialization.InitScriptHandler
 import org.gradle.initialization.MultipleBuildFailuresExceptionAnalyser
 import org.gradle.initialization.NotifyingSettingsProcessor
-import org.gradle.initialization.ProjectPropertySettingBuildLoader
 import org.gradle.initialization.SettingsProcessor
 import org.gradle.initialization.StackTraceSanitizingExceptionAnalyser
 import org.gradle.internal.Factory
 import org.gradle.internal.classloader.ClassLoaderFactory
 import org.gradle.internal.classloader.ClassLoaderHierarchyHasher
 import org.gradle.internal.classloader.ClassPathSnapshotter
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.event.DefaultListenerManager
 import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.installation.CurrentGradleInstallation
@@ -298,8 +299,12 @@ public class BuildScopeServicesTest extends Specification {
     def providesABuildLoader() {
         setup:
         expectParentServiceLocated(Instantiator)
+        expectListenerManagerCreated()
+        expectParentServiceLocated(CacheFactory)
+        expectParentServiceLocated(ExecutorFactory)
+        expectParentServiceLocated(BuildOperationExecutor)
         expect:
-        assertThat(registry.get(BuildLoader), instanceOf(ProjectPropertySettingBuildLoader))
+        assertThat(registry.get(BuildLoader), instanceOf(BuildScriptPrecompilingBuildLoader))
         assertThat(registry.get(BuildLoader), sameInstance(registry.get(BuildLoader)))
     }
 
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal
+
+import org.gradle.internal.jvm.Jvm
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.IgnoreIf
+import spock.lang.Specification
+
+class ClassDataSharingTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def classDataSharing = new ClassDataSharing(tmpDir.file("user-home"))
+    def classpath = [tmpDir.file("lib/launcher.jar").createFile()]
+
+    def "does not use an archive for another JVM"() {
+        expect:
+        classDataSharing.jvmArgsFor("daemon", tmpDir.file("other-jvm/bin/java").absolutePath, classpath).empty
+    }
+
+    @IgnoreIf({ ClassDataSharingTest.supportsDynamicArchives() })
+    def "does not use an archive on a JVM without dynamic archives"() {
+        expect:
+        classDataSharing.jvmArgsFor("daemon", Jvm.current().javaExecutable.absolutePath, classpath).empty
+    }
+
+    @IgnoreIf({ !ClassDataSharingTest.supportsDynamicArchives() })
+    def "creates an archive once and uses it when it has been written"() {
+        def java = Jvm.current().javaExecutable.absolutePath
+
+        when:
+        def createArgs = classDataSharing.jvmArgsFor("daemon", java, classpath)
+
+        then:
+        createArgs[0].startsWith("-XX:ArchiveClassesAtExit=")
+        classDataSharing.jvmArgsFor("daemon", java, classpath).empty
+
+        when:
+        def pendingArchive = new File(createArgs[0].substring("-XX:ArchiveClassesAtExit=".length()))
+        pendingArchive.text = "archive"
+        pendingArchive.lastModified = System.currentTimeMillis() - 120000
+
+        then:
+        classDataSharing.jvmArgsFor("daemon", java, classpath)[0].startsWith("-XX:SharedArchiveFile=")
+    }
+
+    static boolean supportsDynamicArchives() {
+        def version = System.getProperty("java.specification.version")
+        return !version.startsWith("1.") && version.toInteger() >= 13
+    }
+}
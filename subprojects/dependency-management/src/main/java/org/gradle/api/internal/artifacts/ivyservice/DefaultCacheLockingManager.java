@@ -21,17 +21,34 @@ import org.gradle.cache.PersistentCache;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentIndexedCacheParameters;
 import org.gradle.cache.internal.FileLockManager;
+import org.gradle.cache.internal.ImmutableFilePersistentIndexedCache;
 import org.gradle.internal.Factory;
 import org.gradle.internal.serialize.Serializer;
 
 import java.io.Closeable;
+import java.io.File;
 
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
+/**
+ * Provides access to the artifact cache, which is locked across processes while it is in use.
+ *
+ * <p>When the {@value #LOCK_FREE_PROPERTY} system property is set to true, the cache is never locked. Each entry of the indexed caches is then stored in an
+ * immutable file of its own, see {@link ImmutableFilePersistentIndexedCache}, and the file stores rename new files into place. This relies on all processes
+ * that use the same artifact cache doing the same.</p>
+ */
 public class DefaultCacheLockingManager implements CacheLockingManager, Closeable {
+    public static final String LOCK_FREE_PROPERTY = "org.gradle.internal.artifact-cache.lock-free";
+
     private final PersistentCache cache;
+    private final boolean lockFree;
 
     public DefaultCacheLockingManager(CacheRepository cacheRepository, ArtifactCacheMetaData cacheMetaData) {
+        this(cacheRepository, cacheMetaData, Boolean.getBoolean(LOCK_FREE_PROPERTY));
+    }
+
+    DefaultCacheLockingManager(CacheRepository cacheRepository, ArtifactCacheMetaData cacheMetaData, boolean lockFree) {
+        this.lockFree = lockFree;
         cache = cacheRepository
                 .cache(cacheMetaData.getCacheDir())
                 .withCrossVersionCache(CacheBuilder.LockTarget.CacheDirectory)
@@ -47,27 +64,45 @@ public class DefaultCacheLockingManager implements CacheLockingManager, Closeabl
 
     @Override
     public void longRunningOperation(final Runnable action) {
-        cache.longRunningOperation(action);
+        if (lockFree) {
+            action.run();
+        } else {
+            cache.longRunningOperation(action);
+        }
     }
 
     @Override
     public <T> T useCache(Factory<? extends T> action) {
+        if (lockFree) {
+            return action.create();
+        }
         return cache.useCache(action);
     }
 
     @Override
     public void useCache(Runnable action) {
-        cache.useCache(action);
+        if (lockFree) {
+            action.run();
+        } else {
+            cache.useCache(action);
+        }
     }
 
     @Override
     public <T> T longRunningOperation(Factory<? extends T> action) {
+        if (lockFree) {
+            return action.create();
+        }
         return cache.longRunningOperation(action);
     }
 
     @Override
     public <K, V> PersistentIndexedCache<K, V> createCache(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
         String cacheFileInMetaDataStore = CacheLayout.META_DATA.getKey() + "/" + cacheName;
+        if (lockFree) {
+            // Uses a directory next to the file of the locked cache, so that both kinds of cache can be kept in the same metadata store
+            return new ImmutableFilePersistentIndexedCache<K, V>(new File(cache.getBaseDir(), cacheFileInMetaDataStore), keySerializer, valueSerializer);
+        }
         return cache.createCache(new PersistentIndexedCacheParameters<K, V>(cacheFileInMetaDataStore, keySerializer, valueSerializer));
     }
 }
@@ -16,10 +16,12 @@
 
 package org.gradle.language.nativeplatform.internal;
 
+import com.google.common.hash.HashCode;
 import org.gradle.api.internal.changedetection.changes.DiscoveredInputRecorder;
 import org.gradle.internal.operations.logging.BuildOperationLogger;
 import org.gradle.nativeplatform.internal.AbstractBinaryToolSpec;
 import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec;
+import org.gradle.nativeplatform.toolchain.internal.ObjectFileCache;
 
 import java.io.File;
 import java.util.*;
@@ -39,6 +41,8 @@ public abstract class AbstractNativeCompileSpec extends AbstractBinaryToolSpec i
     private Map<File, IncludeDirectives> sourceFileIncludeDirectives;
     private String preCompiledHeader;
     private DiscoveredInputRecorder discoveredInputRecorder;
+    private Map<File, HashCode> sourceFileInputHashes = Collections.emptyMap();
+    private ObjectFileCache objectFileCache;
 
     @Override
     public List<File> getIncludeRoots() {
@@ -202,4 +206,24 @@ public abstract class AbstractNativeCompileSpec extends AbstractBinaryToolSpec i
     public DiscoveredInputRecorder getDiscoveredInputRecorder() {
         return discoveredInputRecorder;
     }
+
+    @Override
+    public Map<File, HashCode> getSourceFileInputHashes() {
+        return sourceFileInputHashes;
+    }
+
+    @Override
+    public void setSourceFileInputHashes(Map<File, HashCode> map) {
+        this.sourceFileInputHashes = map;
+    }
+
+    @Override
+    public ObjectFileCache getObjectFileCache() {
+        return objectFileCache;
+    }
+
+    @Override
+    public void setObjectFileCache(ObjectFileCache objectFileCache) {
+        this.objectFileCache = objectFileCache;
+    }
 }
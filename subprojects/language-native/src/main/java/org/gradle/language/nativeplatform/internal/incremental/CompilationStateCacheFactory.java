@@ -17,7 +17,13 @@
 package org.gradle.language.nativeplatform.internal.incremental;
 
 import org.gradle.cache.PersistentStateCache;
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.CSourceParser;
 
 public interface CompilationStateCacheFactory {
     PersistentStateCache<CompilationState> create(String taskPath);
+
+    /**
+     * Creates a parser that reuses the include directives parsed from files with the same content by earlier tasks and builds.
+     */
+    CSourceParser createSourceParser();
 }
@@ -166,7 +166,7 @@ public class CompilationStateSerializer extends AbstractSerializer<CompilationSt
         }
     }
 
-    private static class SourceIncludesSerializer extends AbstractSerializer<IncludeDirectives> {
+    static class SourceIncludesSerializer extends AbstractSerializer<IncludeDirectives> {
         private final Serializer<Include> includeSerializer = new IncludeSerializer();
         private final ListSerializer<Include> includeListSerializer = new ListSerializer<Include>(includeSerializer);
 
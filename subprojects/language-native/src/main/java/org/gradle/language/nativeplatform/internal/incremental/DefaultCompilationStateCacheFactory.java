@@ -16,7 +16,9 @@
 
 package org.gradle.language.nativeplatform.internal.incremental;
 
+import com.google.common.hash.HashCode;
 import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
+import org.gradle.api.internal.hash.FileHasher;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.PersistentCache;
@@ -24,6 +26,11 @@ import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentIndexedCacheParameters;
 import org.gradle.cache.PersistentStateCache;
 import org.gradle.cache.internal.FileLockManager;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.language.nativeplatform.internal.IncludeDirectives;
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.CSourceParser;
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.CachingCSourceParser;
+import org.gradle.language.nativeplatform.internal.incremental.sourceparser.DefaultCSourceParser;
 
 import java.io.Closeable;
 
@@ -32,9 +39,12 @@ import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 public class DefaultCompilationStateCacheFactory implements CompilationStateCacheFactory, Closeable {
 
     private final PersistentIndexedCache<String, CompilationState> compilationStateIndexedCache;
+    private final PersistentIndexedCache<HashCode, IncludeDirectives> includeDirectivesCache;
     private final PersistentCache cache;
+    private final FileHasher hasher;
 
-    public DefaultCompilationStateCacheFactory(CacheRepository cacheRepository, Gradle gradle, InMemoryTaskArtifactCache inMemoryTaskArtifactCache) {
+    public DefaultCompilationStateCacheFactory(CacheRepository cacheRepository, Gradle gradle, InMemoryTaskArtifactCache inMemoryTaskArtifactCache, FileHasher hasher) {
+        this.hasher = hasher;
         cache = cacheRepository
                 .cache(gradle, "nativeCompile")
                 .withDisplayName("native compile cache")
@@ -44,6 +54,11 @@ public class DefaultCompilationStateCacheFactory implements CompilationStateCach
                 .cacheDecorator(inMemoryTaskArtifactCache.decorator(2000, false));
 
         compilationStateIndexedCache = cache.createCache(parameters);
+
+        // Keyed by the hash of the content of the parsed file
+        PersistentIndexedCacheParameters<HashCode, IncludeDirectives> includeDirectivesParameters = new PersistentIndexedCacheParameters<HashCode, IncludeDirectives>("includeDirectives", new HashCodeSerializer(), new CompilationStateSerializer.SourceIncludesSerializer())
+                .cacheDecorator(inMemoryTaskArtifactCache.decorator(20000, true));
+        includeDirectivesCache = cache.createCache(includeDirectivesParameters);
     }
 
     @Override
@@ -56,6 +71,11 @@ public class DefaultCompilationStateCacheFactory implements CompilationStateCach
         return new PersistentCompilationStateCache(taskPath, compilationStateIndexedCache);
     }
 
+    @Override
+    public CSourceParser createSourceParser() {
+        return new CachingCSourceParser(new DefaultCSourceParser(), hasher, includeDirectivesCache);
+    }
+
     private static class PersistentCompilationStateCache implements PersistentStateCache<CompilationState> {
         private final String taskPath;
         private final PersistentIndexedCache<String, CompilationState> compilationStateIndexedCache;
@@ -22,11 +22,19 @@ import org.gradle.language.nativeplatform.internal.IncludeDirectives;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+/**
+ * Resolves include directives against the include path. The result of searching for a given include is remembered, so that a header included by many
+ * source files is only searched for once: per include for system includes, and per include and directory of the including file for quoted includes.
+ */
 public class DefaultSourceIncludesResolver implements SourceIncludesResolver {
     private final List<File> includePaths;
+    private final Map<String, IncludeLookup> systemIncludeLookups = new HashMap<String, IncludeLookup>();
+    private final Map<File, Map<String, IncludeLookup>> quotedIncludeLookups = new HashMap<File, Map<String, IncludeLookup>>();
 
     public DefaultSourceIncludesResolver(List<File> includePaths) {
         this.includePaths = includePaths;
@@ -35,8 +43,13 @@ public class DefaultSourceIncludesResolver implements SourceIncludesResolver {
     @Override
     public ResolvedSourceIncludes resolveIncludes(File sourceFile, IncludeDirectives includes) {
         BuildableResolvedSourceIncludes resolvedSourceIncludes = new BuildableResolvedSourceIncludes();
-        searchForDependencies(prependSourceDir(sourceFile, includePaths), includes.getQuotedIncludes(), resolvedSourceIncludes);
-        searchForDependencies(includePaths, includes.getSystemIncludes(), resolvedSourceIncludes);
+        File sourceDir = sourceFile.getParentFile();
+        for (Include include : includes.getQuotedIncludes()) {
+            quotedIncludeLookup(sourceDir, include.getValue()).applyTo(resolvedSourceIncludes);
+        }
+        for (Include include : includes.getSystemIncludes()) {
+            systemIncludeLookup(include.getValue()).applyTo(resolvedSourceIncludes);
+        }
         if (!includes.getMacroIncludes().isEmpty()) {
             resolvedSourceIncludes.resolved(includes.getMacroIncludes().get(0).getValue(), null);
         }
@@ -44,20 +57,38 @@ public class DefaultSourceIncludesResolver implements SourceIncludesResolver {
         return resolvedSourceIncludes;
     }
 
-    private List<File> prependSourceDir(File sourceFile, List<File> includePaths) {
-        List<File> quotedSearchPath = new ArrayList<File>(includePaths.size() + 1);
-        quotedSearchPath.add(sourceFile.getParentFile());
-        quotedSearchPath.addAll(includePaths);
-        return quotedSearchPath;
+    private IncludeLookup quotedIncludeLookup(File sourceDir, String include) {
+        Map<String, IncludeLookup> lookups = quotedIncludeLookups.get(sourceDir);
+        if (lookups == null) {
+            lookups = new HashMap<String, IncludeLookup>();
+            quotedIncludeLookups.put(sourceDir, lookups);
+        }
+        IncludeLookup lookup = lookups.get(include);
+        if (lookup == null) {
+            lookup = searchForDependency(prependSourceDir(sourceDir, includePaths), include);
+            lookups.put(include, lookup);
+        }
+        return lookup;
     }
 
-    private void searchForDependencies(List<File> searchPath, List<Include> includes, BuildableResolvedSourceIncludes dependencies) {
-        for (Include include : includes) {
-            searchForDependency(searchPath, include.getValue(), dependencies);
+    private IncludeLookup systemIncludeLookup(String include) {
+        IncludeLookup lookup = systemIncludeLookups.get(include);
+        if (lookup == null) {
+            lookup = searchForDependency(includePaths, include);
+            systemIncludeLookups.put(include, lookup);
         }
+        return lookup;
     }
 
-    private void searchForDependency(List<File> searchPath, String include, BuildableResolvedSourceIncludes dependencies) {
+    private List<File> prependSourceDir(File sourceDir, List<File> includePaths) {
+        List<File> quotedSearchPath = new ArrayList<File>(includePaths.size() + 1);
+        quotedSearchPath.add(sourceDir);
+        quotedSearchPath.addAll(includePaths);
+        return quotedSearchPath;
+    }
+
+    private IncludeLookup searchForDependency(List<File> searchPath, String include) {
+        List<File> searched = new ArrayList<File>(searchPath.size());
         for (File searchDir : searchPath) {
             File candidate = new File(searchDir, include);
             // TODO: SLG This isn't correct, we need to consider directories too
@@ -66,11 +97,32 @@ public class DefaultSourceIncludesResolver implements SourceIncludesResolver {
             // and /B/type_trait is the header we want.
             // We need /A/type_trait to be recorded as a directory in case it becomes a file later.
             if (!candidate.isDirectory()) {
-                dependencies.searched(candidate);
+                searched.add(candidate);
             }
             if (candidate.isFile()) {
-                dependencies.resolved(include, candidate);
-                return;
+                return new IncludeLookup(include, searched, FileUtils.canonicalize(candidate));
+            }
+        }
+        return new IncludeLookup(include, searched, null);
+    }
+
+    private static class IncludeLookup {
+        private final String include;
+        private final List<File> searched;
+        private final File resolved;
+
+        IncludeLookup(String include, List<File> searched, File resolved) {
+            this.include = include;
+            this.searched = searched;
+            this.resolved = resolved;
+        }
+
+        void applyTo(BuildableResolvedSourceIncludes dependencies) {
+            for (File candidate : searched) {
+                dependencies.searched(candidate);
+            }
+            if (resolved != null) {
+                dependencies.resolved(include, resolved);
             }
         }
     }
@@ -84,8 +136,7 @@ public class DefaultSourceIncludesResolver implements SourceIncludesResolver {
         }
 
         void resolved(String rawInclude, File resolved) {
-            File dependencyFile = resolved == null ? null : FileUtils.canonicalize(resolved);
-            dependencies.add(new ResolvedInclude(rawInclude, dependencyFile));
+            dependencies.add(new ResolvedInclude(rawInclude, resolved));
         }
 
         @Override
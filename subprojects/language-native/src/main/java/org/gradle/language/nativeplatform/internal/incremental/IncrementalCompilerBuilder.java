@@ -15,25 +15,30 @@
  */
 package org.gradle.language.nativeplatform.internal.incremental;
 
+import org.gradle.StartParameter;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.api.internal.hash.FileHasher;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.gradle.nativeplatform.toolchain.NativeToolChain;
 import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec;
+import org.gradle.nativeplatform.toolchain.internal.ObjectFileCache;
 
 public class IncrementalCompilerBuilder {
     private final FileHasher hasher;
     private final CompilationStateCacheFactory compilationStateCacheFactory;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
+    private final ObjectFileCache objectFileCache;
 
-    public IncrementalCompilerBuilder(FileHasher hasher, CompilationStateCacheFactory compilationStateCacheFactory, DirectoryFileTreeFactory directoryFileTreeFactory) {
+    public IncrementalCompilerBuilder(FileHasher hasher, CompilationStateCacheFactory compilationStateCacheFactory, DirectoryFileTreeFactory directoryFileTreeFactory, ObjectFileCache objectFileCache, StartParameter startParameter) {
         this.hasher = hasher;
         this.compilationStateCacheFactory = compilationStateCacheFactory;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
+        // Object files are only reused when task outputs are cached too
+        this.objectFileCache = startParameter.isTaskOutputCacheEnabled() ? objectFileCache : null;
     }
 
     public <T extends NativeCompileSpec> Compiler<T> createIncrementalCompiler(TaskInternal task, Compiler<T> compiler, NativeToolChain toolchain) {
-        return new IncrementalNativeCompiler<T>(task, hasher, compilationStateCacheFactory, compiler, toolchain, directoryFileTreeFactory);
+        return new IncrementalNativeCompiler<T>(task, hasher, compilationStateCacheFactory, objectFileCache, compiler, toolchain, directoryFileTreeFactory);
     }
 }
@@ -15,6 +15,11 @@
  */
 package org.gradle.language.nativeplatform.internal.incremental;
 
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.gradle.api.Nullable;
 import org.gradle.api.Transformer;
 import org.gradle.api.file.EmptyFileVisitor;
 import org.gradle.api.file.FileVisitDetails;
@@ -31,17 +36,18 @@ import org.gradle.cache.PersistentStateCache;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.gradle.language.base.internal.tasks.SimpleStaleClassCleaner;
 import org.gradle.language.nativeplatform.internal.IncludeDirectives;
-import org.gradle.language.nativeplatform.internal.incremental.sourceparser.CSourceParser;
-import org.gradle.language.nativeplatform.internal.incremental.sourceparser.RegexBackedCSourceParser;
 import org.gradle.nativeplatform.toolchain.Clang;
 import org.gradle.nativeplatform.toolchain.Gcc;
 import org.gradle.nativeplatform.toolchain.NativeToolChain;
 import org.gradle.nativeplatform.toolchain.internal.NativeCompileSpec;
+import org.gradle.nativeplatform.toolchain.internal.ObjectFileCache;
 import org.gradle.util.CollectionUtils;
 
 import java.io.File;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements Compiler<T> {
     private static final Logger LOGGER = Logging.getLogger(IncrementalNativeCompiler.class);
@@ -51,13 +57,13 @@ public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements C
     private final FileHasher hasher;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
     private final CompilationStateCacheFactory compilationStateCacheFactory;
+    private final ObjectFileCache objectFileCache;
 
-    private final CSourceParser sourceParser = new RegexBackedCSourceParser();
-
-    public IncrementalNativeCompiler(TaskInternal task, FileHasher hasher, CompilationStateCacheFactory compilationStateCacheFactory, Compiler<T> delegateCompiler, NativeToolChain toolChain, DirectoryFileTreeFactory directoryFileTreeFactory) {
+    public IncrementalNativeCompiler(TaskInternal task, FileHasher hasher, CompilationStateCacheFactory compilationStateCacheFactory, @Nullable ObjectFileCache objectFileCache, Compiler<T> delegateCompiler, NativeToolChain toolChain, DirectoryFileTreeFactory directoryFileTreeFactory) {
         this.task = task;
         this.hasher = hasher;
         this.compilationStateCacheFactory = compilationStateCacheFactory;
+        this.objectFileCache = objectFileCache;
         this.delegateCompiler = delegateCompiler;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
         this.importsAreIncludes = Clang.class.isAssignableFrom(toolChain.getClass()) || Gcc.class.isAssignableFrom(toolChain.getClass());
@@ -66,11 +72,15 @@ public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements C
     @Override
     public WorkResult execute(final T spec) {
         PersistentStateCache<CompilationState> compileStateCache = compilationStateCacheFactory.create(task.getPath());
-        DefaultSourceIncludesParser sourceIncludesParser = new DefaultSourceIncludesParser(sourceParser, importsAreIncludes);
+        DefaultSourceIncludesParser sourceIncludesParser = new DefaultSourceIncludesParser(compilationStateCacheFactory.createSourceParser(), importsAreIncludes);
         IncrementalCompileProcessor processor = createProcessor(compileStateCache, sourceIncludesParser, spec.getIncludeRoots());
         IncrementalCompilation compilation = processor.processSourceFiles(spec.getSourceFiles());
 
         spec.setSourceFileIncludeDirectives(mapIncludes(spec.getSourceFiles(), compilation.getFinalState()));
+        if (objectFileCache != null) {
+            spec.setSourceFileInputHashes(hashInputs(spec.getSourceFiles(), compilation.getFinalState()));
+            spec.setObjectFileCache(objectFileCache);
+        }
 
         handleDiscoveredInputs(spec, compilation, spec.getDiscoveredInputRecorder());
 
@@ -114,6 +124,45 @@ public class IncrementalNativeCompiler<T extends NativeCompileSpec> implements C
         });
     }
 
+    /**
+     * Hashes the location and content of each source file and of all of the headers it includes, directly or not. Source files that include a header
+     * that cannot be resolved, such as a header named by a macro, are left out.
+     */
+    protected Map<File, HashCode> hashInputs(Collection<File> sourceFiles, CompilationState compilationState) {
+        Map<File, HashCode> inputHashes = new HashMap<File, HashCode>();
+        for (File sourceFile : sourceFiles) {
+            Map<File, HashCode> inputs = new TreeMap<File, HashCode>();
+            if (collectInputs(sourceFile, compilationState, inputs)) {
+                Hasher hasher = Hashing.md5().newHasher();
+                for (Map.Entry<File, HashCode> entry : inputs.entrySet()) {
+                    String path = entry.getKey().getAbsolutePath();
+                    hasher.putInt(path.length());
+                    hasher.putString(path, Charsets.UTF_8);
+                    hasher.putBytes(entry.getValue().asBytes());
+                }
+                inputHashes.put(sourceFile, hasher.hash());
+            }
+        }
+        return inputHashes;
+    }
+
+    private boolean collectInputs(File file, CompilationState compilationState, Map<File, HashCode> inputs) {
+        if (inputs.containsKey(file)) {
+            return true;
+        }
+        CompilationFileState state = compilationState.getState(file);
+        if (state == null) {
+            return false;
+        }
+        inputs.put(file, state.getHash());
+        for (ResolvedInclude include : state.getResolvedIncludes()) {
+            if (include.isUnknown() || !collectInputs(include.getFile(), compilationState, inputs)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean sourceFilesUseMacroIncludes(Collection<File> files, final CompilationState compilationState) {
         // If we couldn't determine all dependencies of some files due to macros, we have to scan all include directories.
         return CollectionUtils.any(files, new Spec<File>() {
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser;
+
+import com.google.common.collect.Lists;
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.language.nativeplatform.internal.Include;
+import org.gradle.language.nativeplatform.internal.IncludeDirectives;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Finds the include and import directives of a C or C++ source file.
+ *
+ * <p>The directives are recognized by hand rather than using a regular expression, as most lines are not directives and can be discarded after looking at
+ * their first character. A line is a directive when, once comments and line continuations have been removed and the line trimmed, it matches
+ * {@code #\s*(include|import)\s*((<[^>]+>)|("[^"]+")|(\w+))}, ignoring the case of the directive name.</p>
+ */
+public class DefaultCSourceParser implements CSourceParser {
+    private static final String INCLUDE = "include";
+    private static final String IMPORT = "import";
+
+    @Override
+    public IncludeDirectives parseSource(File sourceFile) {
+        return new DefaultIncludeDirectives(parseFile(sourceFile));
+    }
+
+    private List<Include> parseFile(File file) {
+        List<Include> includes = Lists.newArrayList();
+        try {
+            BufferedReader bf = new BufferedReader(new PreprocessingReader(new BufferedReader(new FileReader(file))));
+
+            try {
+                String line;
+                while ((line = bf.readLine()) != null) {
+                    parseLine(line, includes);
+                }
+            } finally {
+                IOUtils.closeQuietly(bf);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return includes;
+    }
+
+    private static void parseLine(String line, List<Include> includes) {
+        // Trim the line, as String.trim() does
+        int pos = 0;
+        int end = line.length();
+        while (pos < end && line.charAt(pos) <= ' ') {
+            pos++;
+        }
+        if (pos == end || line.charAt(pos) != '#') {
+            return;
+        }
+        while (end > pos && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        pos = skipWhitespace(line, pos + 1, end);
+        boolean isImport;
+        if (line.regionMatches(true, pos, INCLUDE, 0, INCLUDE.length())) {
+            isImport = false;
+            pos += INCLUDE.length();
+        } else if (line.regionMatches(true, pos, IMPORT, 0, IMPORT.length())) {
+            // Only a lower case directive is an import
+            isImport = line.startsWith(IMPORT, pos);
+            pos += IMPORT.length();
+        } else {
+            return;
+        }
+        pos = skipWhitespace(line, pos, end);
+        if (pos == end) {
+            return;
+        }
+
+        char first = line.charAt(pos);
+        if (first == '<' || first == '"') {
+            char last = first == '<' ? '>' : '"';
+            // The value must not be empty, and must be closed by the last character of the line
+            if (end - pos < 3 || line.indexOf(last, pos + 1) != end - 1) {
+                return;
+            }
+        } else {
+            for (int i = pos; i < end; i++) {
+                if (!isWordCharacter(line.charAt(i))) {
+                    return;
+                }
+            }
+        }
+        includes.add(DefaultInclude.parse(line.substring(pos, end), isImport));
+    }
+
+    private static int skipWhitespace(String line, int pos, int end) {
+        while (pos < end && isWhitespace(line.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isWhitespace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\013' || ch == '\f' || ch == '\r';
+    }
+
+    private static boolean isWordCharacter(char ch) {
+        return ch >= 'a' && ch <= 'z' || ch >= 'A' && ch <= 'Z' || ch >= '0' && ch <= '9' || ch == '_';
+    }
+}
@@ -17,6 +17,7 @@ package org.gradle.language.nativeplatform.internal.incremental
 
 import com.google.common.collect.ImmutableMap
 import com.google.common.collect.ImmutableSet
+import com.google.common.hash.HashCode
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.TaskOutputsInternal
 import org.gradle.api.internal.changedetection.changes.DiscoveredInputRecorder
@@ -42,7 +43,7 @@ class IncrementalNativeCompilerTest extends Specification {
     def toolChain = Mock(NativeToolChain)
     def task = Mock(TaskInternal)
     def directoryTreeFactory = TestFiles.directoryFileTreeFactory()
-    def compiler = new IncrementalNativeCompiler(task, null, null, delegateCompiler, toolChain, directoryTreeFactory)
+    def compiler = new IncrementalNativeCompiler(task, null, null, null, delegateCompiler, toolChain, directoryTreeFactory)
 
     def outputs = Mock(TaskOutputsInternal)
 
@@ -99,7 +100,7 @@ class IncrementalNativeCompilerTest extends Specification {
     @Unroll
     def "imports are includes for toolchain #tcName"() {
        when:
-       def compiler = new IncrementalNativeCompiler(task, null, null, delegateCompiler, toolChain, directoryTreeFactory)
+       def compiler = new IncrementalNativeCompiler(task, null, null, null, delegateCompiler, toolChain, directoryTreeFactory)
        then:
        compiler.importsAreIncludes
        where:
@@ -160,4 +161,40 @@ class IncrementalNativeCompilerTest extends Specification {
         1 * taskInputs.newInput(notIncludedFile)
         0 * taskInputs._
     }
+
+    def "hashes source files together with the headers they include"() {
+        given:
+        def source1 = temporaryFolder.file("source1")
+        def source2 = temporaryFolder.file("source2")
+        def macroSource = temporaryFolder.file("macroSource")
+        def header = temporaryFolder.file("header")
+        def nestedHeader = temporaryFolder.file("nestedHeader")
+
+        def state = { Map<File, Integer> fileHashes ->
+            new CompilationState(ImmutableSet.of(source1, source2, macroSource), ImmutableMap.copyOf([
+                (source1): fileState(fileHashes[source1], new ResolvedInclude("header", header)),
+                (source2): fileState(fileHashes[source2]),
+                (macroSource): fileState(1, new ResolvedInclude("MACRO", null)),
+                (header): fileState(fileHashes[header], new ResolvedInclude("nestedHeader", nestedHeader), new ResolvedInclude("source1", source1)),
+                (nestedHeader): fileState(fileHashes[nestedHeader])
+            ]))
+        }
+        def sources = [source1, source2, macroSource]
+
+        when:
+        def hashes = compiler.hashInputs(sources, state([(source1): 1, (source2): 1, (header): 2, (nestedHeader): 3]))
+        def sameHashes = compiler.hashInputs(sources, state([(source1): 1, (source2): 1, (header): 2, (nestedHeader): 3]))
+        def changedHeaderHashes = compiler.hashInputs(sources, state([(source1): 1, (source2): 1, (header): 2, (nestedHeader): 4]))
+
+        then:
+        hashes.keySet() == [source1, source2] as Set
+        hashes[source1] != hashes[source2]
+        sameHashes == hashes
+        changedHeaderHashes[source1] != hashes[source1]
+        changedHeaderHashes[source2] == hashes[source2]
+    }
+
+    private static CompilationFileState fileState(int hash, ResolvedInclude... includes) {
+        return new CompilationFileState(HashCode.fromInt(hash), null, ImmutableSet.copyOf(includes))
+    }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.language.nativeplatform.internal.incremental.sourceparser
+
+import com.google.common.hash.HashCode
+import org.gradle.api.internal.hash.FileHasher
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.language.nativeplatform.internal.IncludeDirectives
+import spock.lang.Specification
+
+class CachingCSourceParserTest extends Specification {
+    def delegate = Mock(CSourceParser)
+    def hasher = Mock(FileHasher)
+    def cache = Mock(PersistentIndexedCache)
+    def parser = new CachingCSourceParser(delegate, hasher, cache)
+    def file = new File("source.h")
+    def hash = HashCode.fromInt(123)
+    def directives = Stub(IncludeDirectives)
+
+    def "parses file and caches directives by content hash"() {
+        when:
+        def result = parser.parseSource(file)
+
+        then:
+        result == directives
+
+        and:
+        1 * hasher.hash(file) >> hash
+        1 * cache.get(hash) >> null
+        1 * delegate.parseSource(file) >> directives
+        1 * cache.put(hash, directives)
+        0 * _
+    }
+
+    def "reuses directives of file with the same content"() {
+        when:
+        def result = parser.parseSource(file)
+
+        then:
+        result == directives
+
+        and:
+        1 * hasher.hash(file) >> hash
+        1 * cache.get(hash) >> directives
+        0 * _
+    }
+}
@@ -82,5 +82,10 @@ public class PropertiesToDaemonParametersConverter {
         if (debugEnabledPropertyValue != null) {
             target.setDebug(isTrue(debugEnabledPropertyValue));
         }
+
+        String classDataSharingPropertyValue = properties.get(CLASS_DATA_SHARING_PROPERTY);
+        if (classDataSharingPropertyValue != null) {
+            target.setClassDataSharing(isTrue(classDataSharingPropertyValue));
+        }
     }
 }
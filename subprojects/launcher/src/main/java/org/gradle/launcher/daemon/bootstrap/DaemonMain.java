@@ -45,6 +45,7 @@ import java.io.EOFException;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -138,7 +139,9 @@ public class DaemonMain extends EntryPoint {
 
     protected void daemonStarted(Long pid, String uid, Address address, File daemonLog) {
         //directly printing to the stream to avoid log level filtering.
-        new DaemonStartupCommunication().printDaemonStarted(originalOut, pid, uid, address, daemonLog);
+        // The time since the JVM started, including the time taken to load the classes needed to start the daemon
+        long startupTime = ManagementFactory.getRuntimeMXBean().getUptime();
+        new DaemonStartupCommunication().printDaemonStarted(originalOut, pid, uid, address, daemonLog, startupTime);
         try {
             originalOut.close();
             originalErr.close();
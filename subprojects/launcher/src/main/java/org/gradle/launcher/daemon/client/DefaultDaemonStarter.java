@@ -38,6 +38,7 @@ import org.gradle.launcher.daemon.bootstrap.GradleDaemon;
 import org.gradle.launcher.daemon.configuration.DaemonParameters;
 import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
 import org.gradle.launcher.daemon.registry.DaemonDir;
+import org.gradle.process.internal.ClassDataSharing;
 import org.gradle.process.internal.ExecHandle;
 import org.gradle.process.internal.streams.EncodedStream;
 import org.gradle.util.CollectionUtils;
@@ -97,6 +98,12 @@ public class DefaultDaemonStarter implements DaemonStarter {
 
         List<String> daemonOpts = daemonParameters.getEffectiveJvmArgs();
         daemonArgs.addAll(daemonOpts);
+        if (daemonParameters.isClassDataSharing()) {
+            // Not part of the daemon options, so that daemons started with and without an archive remain compatible
+            ClassDataSharing classDataSharing = new ClassDataSharing(daemonParameters.getGradleUserHomeDir());
+            daemonArgs.addAll(classDataSharing.jvmArgsFor("daemon", daemonArgs.get(0), classpath.getAsFiles()));
+            daemonArgs.add("-D" + ClassDataSharing.ENABLED_PROPERTY + "=true");
+        }
         daemonArgs.add("-cp");
         daemonArgs.add(CollectionUtils.join(File.pathSeparator, classpath.getAsFiles()));
 
@@ -51,6 +51,7 @@ public class DaemonParameters {
     private boolean foreground;
     private boolean stop;
     private boolean status;
+    private boolean classDataSharing;
     private boolean interactive = System.console() != null || Boolean.getBoolean(INTERACTIVE_TOGGLE);
     private JavaInfo jvm = Jvm.current();
 
@@ -190,6 +191,14 @@ public class DaemonParameters {
         this.status = status;
     }
 
+    public boolean isClassDataSharing() {
+        return classDataSharing;
+    }
+
+    public void setClassDataSharing(boolean classDataSharing) {
+        this.classDataSharing = classDataSharing;
+    }
+
     public Map<String, String> getEnvironmentVariables() {
         return envVariables;
     }
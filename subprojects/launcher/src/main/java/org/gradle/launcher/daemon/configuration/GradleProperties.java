@@ -16,6 +16,8 @@
 
 package org.gradle.launcher.daemon.configuration;
 
+import org.gradle.process.internal.ClassDataSharing;
+
 import java.util.Set;
 
 import static com.google.common.collect.Sets.newHashSet;
@@ -33,9 +35,10 @@ public class GradleProperties {
     public static final String PARALLEL_PROPERTY = "org.gradle.parallel";
     public static final String WORKERS_PROPERTY = "org.gradle.workers.max";
     public static final String TASK_OUTPUT_CACHE_PROPERTY = "org.gradle.cache.tasks";
+    public static final String CLASS_DATA_SHARING_PROPERTY = ClassDataSharing.ENABLED_PROPERTY;
 
     public static final Set<String> ALL = newHashSet(IDLE_TIMEOUT_PROPERTY, HEALTH_CHECK_INTERVAL_PROPERTY, DAEMON_BASE_DIR_PROPERTY, JVM_ARGS_PROPERTY,
-            JAVA_HOME_PROPERTY, DAEMON_ENABLED_PROPERTY, DEBUG_MODE_PROPERTY, CONFIGURE_ON_DEMAND_PROPERTY, PARALLEL_PROPERTY, WORKERS_PROPERTY, TASK_OUTPUT_CACHE_PROPERTY);
+            JAVA_HOME_PROPERTY, DAEMON_ENABLED_PROPERTY, DEBUG_MODE_PROPERTY, CONFIGURE_ON_DEMAND_PROPERTY, PARALLEL_PROPERTY, WORKERS_PROPERTY, TASK_OUTPUT_CACHE_PROPERTY, CLASS_DATA_SHARING_PROPERTY);
 
     public static boolean isTrue(Object propertyValue) {
         return propertyValue != null && propertyValue.toString().trim().equalsIgnoreCase("true");
@@ -28,11 +28,17 @@ public class DaemonDiagnostics implements Serializable {
 
     private final Long pid;
     private final File daemonLog;
+    private final Long startupTime;
     private final static int TAIL_SIZE = 20;
 
     public DaemonDiagnostics(File daemonLog, Long pid) {
+        this(daemonLog, pid, null);
+    }
+
+    public DaemonDiagnostics(File daemonLog, Long pid, Long startupTime) {
         this.daemonLog = daemonLog;
         this.pid = pid;
+        this.startupTime = startupTime;
     }
 
     /**
@@ -46,11 +52,20 @@ public class DaemonDiagnostics implements Serializable {
         return daemonLog;
     }
 
+    /**
+     * @return the time in milliseconds between the start of the daemon JVM and the daemon being ready to accept builds. Can be null, it means the
+     * startup time is not known.
+     */
+    public Long getStartupTime() {
+        return startupTime;
+    }
+
     @Override
     public String toString() {
         return "{"
                 + "pid=" + pid
                 + ", daemonLog=" + daemonLog
+                + ", startupTime=" + startupTime
                 + '}';
     }
 
@@ -72,6 +87,7 @@ public class DaemonDiagnostics implements Serializable {
     public String describe() {
         return "Daemon pid: " + pid + "\n"
              + "  log file: " + daemonLog + "\n"
+             + (startupTime == null ? "" : "  startup time: " + startupTime + "ms\n")
              + tailDaemonLog();
     }
 }
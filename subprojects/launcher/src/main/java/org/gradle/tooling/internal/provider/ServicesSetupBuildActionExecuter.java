@@ -16,6 +16,7 @@
 
 package org.gradle.tooling.internal.provider;
 
+import org.gradle.api.internal.GeneratedClassStore;
 import org.gradle.initialization.BuildRequestContext;
 import org.gradle.initialization.SessionLifecycleListener;
 import org.gradle.internal.concurrent.CompositeStoppable;
@@ -41,6 +42,8 @@ public class ServicesSetupBuildActionExecuter implements BuildExecuter {
     public Object execute(BuildAction action, BuildRequestContext requestContext, BuildActionParameters actionParameters, ServiceRegistry contextServices) {
         ServiceRegistry userHomeServices = userHomeServiceRegistry.getServicesFor(action.getStartParameter().getGradleUserHomeDir());
         try {
+            // Attaches the generated classes of the Gradle user home directory to the class generator, until the user home services are closed
+            userHomeServices.get(GeneratedClassStore.class);
             ServiceRegistry buildSessionScopeServices = new BuildSessionScopeServices(userHomeServices, action.getStartParameter(), actionParameters.getInjectedPluginClasspath());
             try {
                 SessionLifecycleListener sessionLifecycleListener = buildSessionScopeServices.get(ListenerManager.class).getBroadcaster(SessionLifecycleListener.class);
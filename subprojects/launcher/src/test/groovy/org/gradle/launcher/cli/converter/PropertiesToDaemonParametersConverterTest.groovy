@@ -148,6 +148,17 @@ class PropertiesToDaemonParametersConverterTest extends Specification {
         false   | false
     }
 
+    def "enables class data sharing when property is specified"() {
+        expect:
+        !params.classDataSharing
+
+        when:
+        converter.convert([(CLASS_DATA_SHARING_PROPERTY): "true"], params)
+
+        then:
+        params.classDataSharing
+    }
+
     def "enable debug mode from JVM args when default debug argument is used"() {
         when:
         converter.convert([
@@ -37,7 +37,7 @@ class DaemonGreeterTest extends Specification {
 another line of output...
 """)
 
-        new DaemonStartupCommunication().printDaemonStarted(printStream, 12, "uid", address, new File("12.log"))
+        new DaemonStartupCommunication().printDaemonStarted(printStream, 12, "uid", address, new File("12.log"), 1500)
         def output = new String(outputStream.toByteArray())
 
         when:
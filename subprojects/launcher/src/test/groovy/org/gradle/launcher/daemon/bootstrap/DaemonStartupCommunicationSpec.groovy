@@ -27,7 +27,7 @@ class DaemonStartupCommunicationSpec extends Specification {
 
     def "can simply communicate diagnostics"() {
         when:
-        def message = message(123, "1234", uuid, 123, addresses, dummyFile)
+        def message = message(123, "1234", uuid, 123, addresses, dummyFile, 1500)
         def startupInfo = comm.readDiagnostics(message)
 
         then:
@@ -38,6 +38,7 @@ class DaemonStartupCommunicationSpec extends Specification {
         startupInfo.pid == 123
         startupInfo.diagnostics.pid == 123
         startupInfo.diagnostics.daemonLog == dummyFile
+        startupInfo.diagnostics.startupTime == 1500
     }
 
     def "null pid is supported"() {
@@ -47,6 +48,7 @@ class DaemonStartupCommunicationSpec extends Specification {
 
         then:
         startupInfo.diagnostics.pid == null
+        startupInfo.diagnostics.startupTime == null
     }
 
     def "knows if a message contains a greeting"() {
@@ -61,11 +63,11 @@ class DaemonStartupCommunicationSpec extends Specification {
         thrown(IllegalArgumentException)
     }
 
-    def message(Long pid, String daemonId, UUID addressId, int port, List<InetAddress> addresses, File logFile) {
+    def message(Long pid, String daemonId, UUID addressId, int port, List<InetAddress> addresses, File logFile, Long startupTime = null) {
         def outputStream = new ByteArrayOutputStream()
         def printStream = new PrintStream(outputStream)
         def address = new MultiChoiceAddress(addressId, port, addresses)
-        comm.printDaemonStarted(printStream, pid, daemonId, address, logFile)
+        comm.printDaemonStarted(printStream, pid, daemonId, address, logFile, startupTime)
         return new String(outputStream.toByteArray())
     }
 }
@@ -48,5 +48,14 @@ class DaemonDiagnosticsTest extends Specification {
         desc.contains "123"
         desc.contains log.name
         desc.contains "hey joe!"
+        !desc.contains("startup time")
+    }
+
+    def "describes the startup time when known"() {
+        given:
+        def diagnostics = new DaemonDiagnostics(temp.file("foo.log"), 123, 1500)
+
+        expect:
+        diagnostics.describe().contains "startup time: 1500ms"
     }
 }
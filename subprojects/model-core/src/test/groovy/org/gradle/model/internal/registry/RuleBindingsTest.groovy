@@ -70,6 +70,23 @@ class RuleBindingsTest extends RegistrySpec {
         rule.subjectBinding.boundTo == node
     }
 
+    def "returns the rules for a node in the order they were added"() {
+        when:
+        def node = node("a")
+        def rule1 = rule("a", ModelNode.State.Mutated)
+        def rule2 = rule("a", ModelNode.State.Mutated)
+        def rule3 = rule("a", ModelNode.State.Mutated)
+        addNode(node)
+        bindings.add(rule2)
+        bindings.add(rule1)
+        bindings.add(rule3)
+
+        then:
+        bindings.getRulesWithSubject(nodeAtState("a", ModelNode.State.Mutated)) as List == [rule2, rule1, rule3]
+        bindings.getRulesWithSubject(nodeAtState("a", ModelNode.State.Finalized)).empty
+        bindings.getRulesWithSubject(nodeAtState("b", ModelNode.State.Mutated)).empty
+    }
+
     def "locates the subject of a rule by-path when subject added after rule"() {
         when:
         def node = node("a")
@@ -27,6 +27,7 @@ import org.gradle.nativeplatform.internal.SharedLibraryBinaryRenderer;
 import org.gradle.nativeplatform.internal.StaticLibraryBinaryRenderer;
 import org.gradle.nativeplatform.internal.resolve.NativeDependencyResolverServices;
 import org.gradle.nativeplatform.platform.internal.NativePlatforms;
+import org.gradle.nativeplatform.toolchain.internal.DefaultObjectFileCache;
 import org.gradle.nativeplatform.toolchain.internal.gcc.version.CompilerMetaDataProviderFactory;
 import org.gradle.nativeplatform.toolchain.internal.msvcpp.DefaultUcrtLocator;
 import org.gradle.nativeplatform.toolchain.internal.msvcpp.DefaultVisualStudioLocator;
@@ -45,6 +46,7 @@ public class NativeBinaryServices implements PluginServiceRegistry {
 
     @Override
     public void registerBuildSessionServices(ServiceRegistration registration) {
+        registration.add(DefaultObjectFileCache.class);
     }
 
     @Override
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.nativeplatform.toolchain.internal;
+
+import com.google.common.hash.HashCode;
+import com.google.common.io.Files;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.UnusedFilesCleanup;
+import org.gradle.internal.Factory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+import static org.gradle.cache.internal.FileLockManager.LockMode.None;
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Keeps the cached object files in a directory in the Gradle user home directory, so that they are shared by all builds and projects.
+ *
+ * <p>Each object file is written to a temporary file before being moved into place, so that concurrent builds never see a partially written object file.
+ * Object files that have not been used for {@value #MAX_UNUSED_DAYS} days are removed when the cache is closed.</p>
+ */
+public class DefaultObjectFileCache implements ObjectFileCache, Closeable {
+    static final int MAX_UNUSED_DAYS = 7;
+
+    private final PersistentCache cache;
+    private final UnusedFilesCleanup cleanup;
+
+    public DefaultObjectFileCache(CacheRepository cacheRepository) {
+        cache = cacheRepository
+            .cache("native-objects")
+            .withDisplayName("native object files")
+            .withLockOptions(mode(None))
+            .open();
+        cleanup = new UnusedFilesCleanup(cache.getBaseDir(), MAX_UNUSED_DAYS);
+    }
+
+    @Override
+    public boolean load(final HashCode key, final File objectFile) {
+        return cache.useCache(new Factory<Boolean>() {
+            @Override
+            public Boolean create() {
+                File cachedFile = getFile(key);
+                if (!cachedFile.isFile()) {
+                    return false;
+                }
+                try {
+                    Files.copy(cachedFile, objectFile);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(String.format("Could not copy cached object file '%s' to '%s'.", cachedFile, objectFile), e);
+                }
+                cleanup.markUsed(cachedFile);
+                return true;
+            }
+        });
+    }
+
+    @Override
+    public void store(final HashCode key, final File objectFile) {
+        cache.useCache(new Runnable() {
+            @Override
+            public void run() {
+                File cachedFile = getFile(key);
+                if (cachedFile.isFile()) {
+                    return;
+                }
+                try {
+                    File tempFile = File.createTempFile(key.toString(), ".tmp", cache.getBaseDir());
+                    Files.copy(objectFile, tempFile);
+                    if (!tempFile.renameTo(cachedFile)) {
+                        // Another build has cached the same object file in the meantime
+                        tempFile.delete();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(String.format("Could not cache object file '%s'.", objectFile), e);
+                }
+            }
+        });
+    }
+
+    private File getFile(HashCode key) {
+        return new File(cache.getBaseDir(), key.toString());
+    }
+
+    @Override
+    public void close() {
+        try {
+            cache.useCache(new Runnable() {
+                @Override
+                public void run() {
+                    cleanup.cleanupIfDue();
+                }
+            });
+        } finally {
+            cache.close();
+        }
+    }
+}
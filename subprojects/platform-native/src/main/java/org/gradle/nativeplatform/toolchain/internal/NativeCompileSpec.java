@@ -16,6 +16,8 @@
 
 package org.gradle.nativeplatform.toolchain.internal;
 
+import com.google.common.hash.HashCode;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.changedetection.changes.DiscoveredInputRecorder;
 import org.gradle.language.nativeplatform.internal.IncludeDirectives;
 import org.gradle.nativeplatform.internal.BinaryToolSpec;
@@ -85,5 +87,20 @@ public interface NativeCompileSpec extends BinaryToolSpec {
 
     DiscoveredInputRecorder getDiscoveredInputRecorder();
 
+    /**
+     * Returns a hash of the location and content of each source file and of all of the headers it includes, for the source files whose headers are all known.
+     */
+    Map<File, HashCode> getSourceFileInputHashes();
+
+    void setSourceFileInputHashes(Map<File, HashCode> map);
+
+    /**
+     * Returns the cache to reuse object files from, or null when object files should not be cached.
+     */
+    @Nullable
+    ObjectFileCache getObjectFileCache();
+
+    void setObjectFileCache(@Nullable ObjectFileCache objectFileCache);
+
     void setDiscoveredInputRecorder(DiscoveredInputRecorder inputs);
 }
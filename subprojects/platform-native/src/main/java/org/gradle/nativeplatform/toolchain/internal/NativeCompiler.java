@@ -16,8 +16,12 @@
 
 package org.gradle.nativeplatform.toolchain.internal;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import org.gradle.api.Action;
 import org.gradle.api.Transformer;
 import org.gradle.api.internal.tasks.SimpleWorkResult;
@@ -37,8 +41,12 @@ import org.gradle.nativeplatform.internal.CompilerOutputFileNamingSchemeFactory;
 import org.gradle.util.CollectionUtils;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public abstract class NativeCompiler<T extends NativeCompileSpec> implements Compiler<T> {
 
@@ -67,14 +75,31 @@ public abstract class NativeCompiler<T extends NativeCompileSpec> implements Com
     @Override
     public WorkResult execute(final T spec) {
         final T transformedSpec = specTransformer.transform(spec);
-        final List<String> genericArgs = getArguments(transformedSpec);
+        final List<String> toolArgs = getToolArguments(transformedSpec);
+        final List<String> genericArgs = new ArrayList<String>(toolArgs);
+        if (useCommandFile) {
+            // Shorten args and write out an options.txt file
+            // This must be called only once per execute()
+            addOptionsFileArgs(genericArgs, transformedSpec.getTempDir());
+        }
 
+        final ObjectFileCache objectFileCache = spec.getObjectFileCache();
+        final Map<HashCode, File> objectFilesToCache = new LinkedHashMap<HashCode, File>();
         final File objectDir = transformedSpec.getObjectFileDir();
         buildOperationProcessor.run(commandLineToolInvocationWorker, new Action<BuildOperationQueue<CommandLineToolInvocation>>() {
             @Override
             public void execute(BuildOperationQueue<CommandLineToolInvocation> buildQueue) {
                 buildQueue.setLogLocation(spec.getOperationLogger().getLogLocation());
                 for (File sourceFile : transformedSpec.getSourceFiles()) {
+                    HashCode cacheKey = objectFileCache == null ? null : getObjectFileCacheKey(toolArgs, sourceFile, spec);
+                    if (cacheKey != null) {
+                        File objectFile = getOutputFileDir(sourceFile, objectDir, objectFileExtension);
+                        if (objectFileCache.load(cacheKey, objectFile)) {
+                            logger.info("Reusing cached object file for {}.", sourceFile);
+                            continue;
+                        }
+                        objectFilesToCache.put(cacheKey, objectFile);
+                    }
                     CommandLineToolInvocation perFileInvocation =
                         createPerFileInvocation(genericArgs, sourceFile, objectDir, spec);
                     buildQueue.add(perFileInvocation);
@@ -82,22 +107,65 @@ public abstract class NativeCompiler<T extends NativeCompileSpec> implements Com
             }
         });
 
+        // All of the invocations have succeeded, otherwise the build operation processor would have failed
+        for (Map.Entry<HashCode, File> entry : objectFilesToCache.entrySet()) {
+            objectFileCache.store(entry.getKey(), entry.getValue());
+        }
+
         return new SimpleWorkResult(!transformedSpec.getSourceFiles().isEmpty());
     }
 
     protected List<String> getArguments(T spec) {
+        List<String> args = getToolArguments(spec);
+        if (useCommandFile) {
+            // Shorten args and write out an options.txt file
+            addOptionsFileArgs(args, spec.getTempDir());
+        }
+        return args;
+    }
+
+    private List<String> getToolArguments(T spec) {
         List<String> args = argsTransformer.transform(spec);
 
         Action<List<String>> userArgTransformer = invocationContext.getArgAction();
         // modifies in place
         userArgTransformer.execute(args);
+        return args;
+    }
 
-        if (useCommandFile) {
-            // Shorten args and write out an options.txt file
-            // This must be called only once per execute()
-            addOptionsFileArgs(args, spec.getTempDir());
+    /**
+     * Returns a key for the object file compiled from the given source file, made from the identity of the compiler, its arguments and the hash of the source
+     * file and of all of the headers it includes. Returns null when the object file cannot be cached, because some included headers are not known or because
+     * a pre-compiled header is used, whose content is not part of the hash.
+     */
+    private HashCode getObjectFileCacheKey(List<String> toolArgs, File sourceFile, T spec) {
+        HashCode inputHash = spec.getSourceFileInputHashes().get(sourceFile);
+        if (inputHash == null || spec.getPreCompiledHeader() != null) {
+            return null;
         }
-        return args;
+        File executable = commandLineToolInvocationWorker.getExecutable();
+        Hasher hasher = Hashing.md5().newHasher();
+        putString(hasher, executable.getAbsolutePath());
+        hasher.putLong(executable.length());
+        hasher.putLong(executable.lastModified());
+        for (File pathEntry : invocationContext.getPath()) {
+            putString(hasher, pathEntry.getAbsolutePath());
+        }
+        // The environment is hashed in key order, as the iteration order of the map is not specified
+        for (Map.Entry<String, String> entry : new TreeMap<String, String>(invocationContext.getEnvironment()).entrySet()) {
+            putString(hasher, entry.getKey());
+            putString(hasher, String.valueOf(entry.getValue()));
+        }
+        for (String arg : Iterables.concat(toolArgs, getSourceArgs(sourceFile))) {
+            putString(hasher, arg);
+        }
+        hasher.putBytes(inputHash.asBytes());
+        return hasher.hash();
+    }
+
+    private static void putString(Hasher hasher, String value) {
+        hasher.putInt(value.length());
+        hasher.putString(value, Charsets.UTF_8);
     }
 
     protected List<String> getSourceArgs(File sourceFile) {
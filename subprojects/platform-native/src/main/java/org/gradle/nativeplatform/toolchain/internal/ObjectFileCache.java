@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.nativeplatform.toolchain.internal;
+
+import com.google.common.hash.HashCode;
+
+import java.io.File;
+
+/**
+ * Caches the object files produced by a compiler, keyed by a hash of all of the inputs of the compilation of a source file.
+ */
+public interface ObjectFileCache {
+    /**
+     * Copies the object file cached with the given key to the given file. Returns false when no object file is cached with this key.
+     */
+    boolean load(HashCode key, File objectFile);
+
+    /**
+     * Caches a copy of the given object file with the given key.
+     */
+    void store(HashCode key, File objectFile);
+}
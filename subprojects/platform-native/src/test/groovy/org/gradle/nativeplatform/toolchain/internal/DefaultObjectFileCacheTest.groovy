@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.nativeplatform.toolchain.internal
+
+import com.google.common.hash.HashCode
+import org.gradle.cache.CacheBuilder
+import org.gradle.cache.CacheRepository
+import org.gradle.cache.PersistentCache
+import org.gradle.internal.Factory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class DefaultObjectFileCacheTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cacheDir = tmpDir.createDir("native-objects")
+    def key = HashCode.fromInt(123)
+    def cache = objectFileCache()
+
+    def "loads the object file stored for a key"() {
+        def objectFile = tmpDir.file("build/main.o").createFile()
+        objectFile.text = "object"
+        def loaded = tmpDir.createDir("other").file("main.o")
+
+        when:
+        cache.store(key, objectFile)
+
+        then:
+        cache.load(key, loaded)
+        loaded.text == "object"
+        !cache.load(HashCode.fromInt(456), tmpDir.file("missing.o"))
+    }
+
+    def "removes object files that have not been used recently when closed"() {
+        def stale = daysOld(cacheDir.file("stale").createFile(), DefaultObjectFileCache.MAX_UNUSED_DAYS + 1)
+        def recent = daysOld(cacheDir.file("recent").createFile(), DefaultObjectFileCache.MAX_UNUSED_DAYS - 1)
+
+        when:
+        cache.close()
+
+        then:
+        !stale.exists()
+        recent.exists()
+    }
+
+    def "keeps object files that have been loaded"() {
+        def objectFile = tmpDir.file("build/main.o").createFile()
+        cache.store(key, objectFile)
+        daysOld(cacheDir.file(key.toString()), DefaultObjectFileCache.MAX_UNUSED_DAYS + 1)
+
+        when:
+        cache.load(key, tmpDir.createDir("other").file("main.o"))
+        cache.close()
+
+        then:
+        cacheDir.file(key.toString()).exists()
+    }
+
+    private DefaultObjectFileCache objectFileCache() {
+        def persistentCache = Stub(PersistentCache) {
+            getBaseDir() >> cacheDir
+            useCache(_ as Factory) >> { Factory factory -> factory.create() }
+            useCache(_ as Runnable) >> { Runnable action -> action.run() }
+        }
+        def cacheBuilder = Stub(CacheBuilder)
+        cacheBuilder.withDisplayName(_) >> cacheBuilder
+        cacheBuilder.withLockOptions(_) >> cacheBuilder
+        cacheBuilder.open() >> persistentCache
+        def cacheRepository = Stub(CacheRepository) {
+            cache("native-objects") >> cacheBuilder
+        }
+        return new DefaultObjectFileCache(cacheRepository)
+    }
+
+    private static TestFile daysOld(TestFile file, int days) {
+        file.lastModified = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days)
+        return file
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.nativeplatform.toolchain.internal
 
+import com.google.common.hash.HashCode
 import org.gradle.api.Action
 import org.gradle.api.internal.file.BaseDirFileResolver
 import org.gradle.api.internal.file.TestFiles
@@ -148,6 +149,77 @@ abstract class NativeCompilerTest extends Specification {
         false           | "options passed on the command line only"
     }
 
+    def "reuses cached object files and caches newly compiled object files"() {
+        given:
+        def compiler = getCompiler()
+        def testDir = tmpDirProvider.testDirectory
+        def objectFileDir = testDir.file("output/objects")
+        def cached = testDir.file("cached.ext")
+        def notCached = testDir.file("notCached.ext")
+        def unknownIncludes = testDir.file("unknownIncludes.ext")
+        def objectFileCache = Mock(ObjectFileCache)
+
+        when:
+        def compileSpec = Stub(getCompileSpecType()) {
+            getTempDir() >> testDir
+            getObjectFileDir() >> objectFileDir
+            getSourceFiles() >> [cached, notCached, unknownIncludes]
+            getSourceFileInputHashes() >> [(cached): HashCode.fromInt(1), (notCached): HashCode.fromInt(2)]
+            getObjectFileCache() >> objectFileCache
+            getOperationLogger() >> Mock(BuildOperationLogger)
+            getPreCompiledHeader() >> null
+            getPrefixHeaderFile() >> null
+            getPreCompiledHeaderObjectFile() >> null
+        }
+
+        and:
+        compiler.execute(compileSpec)
+
+        then:
+        _ * commandLineTool.executable >> testDir.file("compiler")
+        1 * objectFileCache.load(_, { it.name.startsWith("cached") }) >> true
+        1 * objectFileCache.load(_, { it.name.startsWith("notCached") }) >> false
+        2 * commandLineTool.execute(_)
+        1 * objectFileCache.store(_, { it.name.startsWith("notCached") })
+        0 * objectFileCache._
+    }
+
+    def "object file cache key does not depend on the order of the environment variables"() {
+        given:
+        def testDir = tmpDirProvider.testDirectory
+        def sourceFile = testDir.file("source.ext")
+        def objectFileCache = Mock(ObjectFileCache)
+        def keys = []
+
+        when:
+        [["A": "1", "B": "2"], ["B": "2", "A": "1"]].each { Map<String, String> environment ->
+            def invocationContext = new DefaultMutableCommandLineToolContext() {
+                @Override
+                Map<String, String> getEnvironment() {
+                    return environment
+                }
+            }
+            def compileSpec = Stub(getCompileSpecType()) {
+                getTempDir() >> testDir
+                getObjectFileDir() >> testDir.file("output/objects")
+                getSourceFiles() >> [sourceFile]
+                getSourceFileInputHashes() >> [(sourceFile): HashCode.fromInt(1)]
+                getObjectFileCache() >> objectFileCache
+                getOperationLogger() >> Mock(BuildOperationLogger)
+                getPreCompiledHeader() >> null
+                getPrefixHeaderFile() >> null
+                getPreCompiledHeaderObjectFile() >> null
+            }
+            getCompiler(invocationContext, O_EXT, false).execute(compileSpec)
+        }
+
+        then:
+        _ * commandLineTool.executable >> testDir.file("compiler")
+        2 * objectFileCache.load(_, _) >> { HashCode key, File objectFile -> keys << key; true }
+        keys.size() == 2
+        keys[0] == keys[1]
+    }
+
     def "user-supplied arg actions run once per execute"() {
         given:
         def invocationContext = new DefaultMutableCommandLineToolContext()
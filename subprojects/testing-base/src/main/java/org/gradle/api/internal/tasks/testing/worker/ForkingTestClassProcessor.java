@@ -42,12 +42,20 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final Action<WorkerProcessBuilder> buildConfigAction;
     private final ModuleRegistry moduleRegistry;
     private final BuildOperationWorkerRegistry.Operation owner;
+    private final long isolatedForkEvery;
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
     private TestResultProcessor resultProcessor;
     private BuildOperationWorkerRegistry.Completion workerCompletion;
 
     public ForkingTestClassProcessor(WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, BuildOperationWorkerRegistry.Operation owner) {
+        this(workerFactory, processorFactory, options, classPath, buildConfigAction, moduleRegistry, owner, 0);
+    }
+
+    /**
+     * @param isolatedForkEvery When greater than zero, the worker process runs each batch of this many test classes in a fresh ClassLoader, rather than this processor being restarted for each batch.
+     */
+    public ForkingTestClassProcessor(WorkerProcessFactory workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, ModuleRegistry moduleRegistry, BuildOperationWorkerRegistry.Operation owner, long isolatedForkEvery) {
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
         this.options = options;
@@ -55,6 +63,7 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         this.buildConfigAction = buildConfigAction;
         this.moduleRegistry = moduleRegistry;
         this.owner = owner;
+        this.isolatedForkEvery = isolatedForkEvery;
     }
 
     @Override
@@ -73,12 +82,16 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     }
 
     RemoteTestClassProcessor forkProcess() {
-        WorkerProcessBuilder builder = workerFactory.create(new TestWorker(processorFactory));
+        TestWorker testWorker = new TestWorker(processorFactory);
+        WorkerProcessBuilder builder = workerFactory.create(testWorker);
         builder.setBaseName("Gradle Test Executor");
         builder.setImplementationClasspath(getTestWorkerImplementationClasspath());
         builder.applicationClasspath(classPath);
         options.copyTo(builder.getJavaCommand());
         buildConfigAction.execute(builder);
+        if (isolatedForkEvery > 0) {
+            testWorker.isolateForksInProcess(isolatedForkEvery, builder.getApplicationClasspath(), builder.getSharedPackages());
+        }
 
         workerProcess = builder.build();
         workerProcess.start();
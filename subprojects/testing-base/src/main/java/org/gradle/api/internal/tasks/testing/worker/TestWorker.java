@@ -33,27 +33,56 @@ import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.actor.ActorFactory;
 import org.gradle.internal.actor.internal.DefaultActorFactory;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.gradle.internal.classloader.FilteringClassLoader;
 import org.gradle.internal.dispatch.ContextClassLoaderProxy;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.process.internal.worker.WorkerProcessContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.Serializable;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 
 public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClassProcessor, Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestWorker.class);
     public static final String WORKER_ID_SYS_PROPERTY = "org.gradle.test.worker";
     private final WorkerTestClassProcessorFactory factory;
+    private long isolatedForkEvery;
+    private List<File> applicationClasspath;
+    private Set<String> sharedPackages;
     private CountDownLatch completed;
     private TestClassProcessor processor;
     private TestResultProcessor resultProcessor;
+    private WorkerProcessContext workerProcessContext;
+    private ServiceRegistry testServices;
+    private ClassLoader forkClassLoader;
+    private long forkTestCount;
+    private int forkCount;
 
     public TestWorker(WorkerTestClassProcessorFactory factory) {
         this.factory = factory;
     }
 
+    /**
+     * Runs each batch of {@code isolatedForkEvery} test classes in a fresh ClassLoader, instead of requiring a new worker process for each batch.
+     * Only the given shared packages are shared between batches, all other application classes are loaded again for each batch.
+     */
+    public void isolateForksInProcess(long isolatedForkEvery, Collection<File> applicationClasspath, Collection<String> sharedPackages) {
+        this.isolatedForkEvery = isolatedForkEvery;
+        this.applicationClasspath = new ArrayList<File>(applicationClasspath);
+        this.sharedPackages = new LinkedHashSet<String>(sharedPackages);
+    }
+
     @Override
     public void execute(final WorkerProcessContext workerProcessContext) {
         LOGGER.info("{} started executing tests.", workerProcessContext.getDisplayName());
@@ -80,20 +109,67 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
     }
 
     private void startReceivingTests(WorkerProcessContext workerProcessContext, ServiceRegistry testServices) {
+        this.workerProcessContext = workerProcessContext;
+        this.testServices = testServices;
+        processor = createProcessor();
+
+        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
+        serverConnection.useParameterSerializers(TestEventSerializer.create());
+        this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
+        serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
+        serverConnection.connect();
+    }
+
+    private TestClassProcessor createProcessor() {
         TestClassProcessor targetProcessor = factory.create(testServices);
         IdGenerator<Object> idGenerator = testServices.get(IdGenerator.class);
 
+        ClassLoader applicationClassLoader = workerProcessContext.getApplicationClassLoader();
+        if (isolatedForkEvery > 0) {
+            forkClassLoader = createIsolatedClassLoader(applicationClassLoader);
+            applicationClassLoader = forkClassLoader;
+            forkCount++;
+        }
+
         targetProcessor = new WorkerTestClassProcessor(targetProcessor, idGenerator.generateId(),
                 workerProcessContext.getDisplayName(), testServices.get(TimeProvider.class));
         ContextClassLoaderProxy<TestClassProcessor> proxy = new ContextClassLoaderProxy<TestClassProcessor>(
-                TestClassProcessor.class, targetProcessor, workerProcessContext.getApplicationClassLoader());
-        processor = proxy.getSource();
+                TestClassProcessor.class, targetProcessor, applicationClassLoader);
+        return proxy.getSource();
+    }
 
-        ObjectConnection serverConnection = workerProcessContext.getServerConnection();
-        serverConnection.useParameterSerializers(TestEventSerializer.create());
-        this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
-        serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
-        serverConnection.connect();
+    private ClassLoader createIsolatedClassLoader(ClassLoader applicationClassLoader) {
+        FilteringClassLoader.Spec spec = new FilteringClassLoader.Spec();
+        for (String sharedPackage : sharedPackages) {
+            spec.allowPackage(sharedPackage);
+        }
+        // The test framework classes are shared, so the matcher types in their signatures must be shared too
+        spec.allowPackage("org.hamcrest");
+
+        URL[] urls = new URL[applicationClasspath.size()];
+        for (int i = 0; i < urls.length; i++) {
+            try {
+                urls[i] = applicationClasspath.get(i).toURI().toURL();
+            } catch (MalformedURLException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        return new URLClassLoader(urls, new FilteringClassLoader(applicationClassLoader, spec));
+    }
+
+    private void restartFork() {
+        try {
+            processor.stop();
+        } finally {
+            ClassLoaderUtils.tryClose(forkClassLoader);
+            forkClassLoader = null;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        LOGGER.info("{} finished isolated fork {} after {} test classes, heap used: {} MB of {} MB.", workerProcessContext.getDisplayName(), forkCount, forkTestCount,
+            (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024), runtime.maxMemory() / (1024 * 1024));
+        forkTestCount = 0;
+        processor = createProcessor();
+        processor.startProcessing(resultProcessor);
     }
 
     @Override
@@ -105,6 +181,10 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
     @Override
     public void processTestClass(final TestClassRunInfo testClass) {
         Thread.currentThread().setName("Test worker");
+        if (isolatedForkEvery > 0 && forkTestCount == isolatedForkEvery) {
+            restartFork();
+        }
+        forkTestCount++;
         try {
             processor.processTestClass(testClass);
         } finally {
@@ -119,6 +199,7 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
         try {
             processor.stop();
         } finally {
+            ClassLoaderUtils.tryClose(forkClassLoader);
             completed.countDown();
         }
     }
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.specs.Spec
+import spock.lang.Specification
+
+class FilteringTestClassProcessorTest extends Specification {
+    private final TestClassProcessor delegate = Mock()
+    private final TestResultProcessor resultProcessor = Mock()
+    private final processor = new FilteringTestClassProcessor(delegate, { it.startsWith("org.included") } as Spec<String>)
+
+    def "forwards only test classes that satisfy the spec"() {
+        def included = Stub(TestClassRunInfo) { getTestClassName() >> "org.included.SomeTest" }
+        def excluded = Stub(TestClassRunInfo) { getTestClassName() >> "org.excluded.SomeTest" }
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(included)
+        processor.processTestClass(excluded)
+        processor.stop()
+
+        then:
+        1 * delegate.startProcessing(resultProcessor)
+        then:
+        1 * delegate.processTestClass(included)
+        then:
+        1 * delegate.stop()
+        0 * _._
+    }
+}
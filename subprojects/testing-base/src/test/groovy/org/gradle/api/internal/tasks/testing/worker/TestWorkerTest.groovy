@@ -71,4 +71,39 @@ public class TestWorkerTest extends ConcurrentSpec {
         1 * processor.processTestClass(test)
         1 * processor.stop()
     }
+
+    def restartsTestProcessorInFreshClassLoaderWhenIsolatedForkLimitReached() {
+        def processor2 = Mock(TestClassProcessor)
+        def loaders = []
+        worker.isolateForksInProcess(2, [], ["org.junit"])
+        workerContext.applicationClassLoader >> getClass().classLoader
+
+        when:
+        async {
+            worker.execute(workerContext)
+        }
+
+        then:
+        2 * factory.create(_) >>> [processor, processor2]
+        1 * connection.addOutgoing(TestResultProcessor) >> resultProcessor
+        1 * connection.connect() >> {
+            start {
+                worker.startProcessing()
+                3.times { worker.processTestClass(test) }
+                worker.stop()
+            }
+        }
+        1 * processor.startProcessing(_)
+        2 * processor.processTestClass(test) >> { loaders << Thread.currentThread().contextClassLoader }
+        1 * processor.stop()
+        1 * processor2.startProcessing(_)
+        1 * processor2.processTestClass(test) >> { loaders << Thread.currentThread().contextClassLoader }
+        1 * processor2.stop()
+
+        and:
+        loaders.size() == 3
+        loaders[0].is(loaders[1])
+        !loaders[1].is(loaders[2])
+        loaders.every { it instanceof URLClassLoader }
+    }
 }
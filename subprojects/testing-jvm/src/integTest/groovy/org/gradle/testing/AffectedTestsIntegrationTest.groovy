@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.testing
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.DefaultTestExecutionResult
+import org.gradle.integtests.fixtures.LocalBuildCacheFixture
+
+class AffectedTestsIntegrationTest extends AbstractIntegrationSpec implements LocalBuildCacheFixture {
+    def setup() {
+        buildFile << """
+            apply plugin: 'java'
+            repositories { mavenCentral() }
+            dependencies { testCompile "junit:junit:4.12" }
+            test.runOnlyAffectedTests = true
+        """
+        file("src/main/java/Calculator.java") << calculator("a + b")
+        file("src/test/java/CalculatorTest.java") << testClass("CalculatorTest", "org.junit.Assert.assertEquals(3, new Calculator().add(1, 2));")
+        file("src/test/java/OtherTest.java") << testClass("OtherTest", "")
+    }
+
+    def "runs only the tests affected by a changed class and carries forward the other results"() {
+        given:
+        succeeds("test")
+        assertExecuted("CalculatorTest", "OtherTest")
+
+        when:
+        file("src/main/java/Calculator.java").text = calculator("b + a")
+        succeeds("test")
+
+        then:
+        assertExecuted("CalculatorTest")
+        new DefaultTestExecutionResult(testDirectory).assertTestClassesExecuted("CalculatorTest", "OtherTest")
+    }
+
+    def "runs the tests that previously failed"() {
+        given:
+        file("src/main/java/Calculator.java").text = calculator("a - b")
+        fails("test")
+        assertExecuted("CalculatorTest", "OtherTest")
+
+        when:
+        file("src/test/java/OtherTest.java").text = testClass("OtherTest", "int unused = 1;")
+        fails("test")
+
+        then:
+        assertExecuted("CalculatorTest", "OtherTest")
+    }
+
+    def "does not carry forward the results of deleted or renamed test classes"() {
+        given:
+        succeeds("test")
+
+        when:
+        file("src/test/java/OtherTest.java").delete()
+        file("src/test/java/RenamedTest.java") << testClass("RenamedTest", "")
+        succeeds("test")
+
+        then:
+        assertExecuted("RenamedTest")
+        new DefaultTestExecutionResult(testDirectory).assertTestClassesExecuted("CalculatorTest", "RenamedTest")
+    }
+
+    def "runs all tests when the previous results have been removed"() {
+        given:
+        succeeds("test")
+
+        when:
+        file("build/test-results/test/binary").deleteDir()
+        file("src/main/java/Calculator.java").text = calculator("b + a")
+        succeeds("test")
+
+        then:
+        assertExecuted("CalculatorTest", "OtherTest")
+    }
+
+    def "runs only the affected tests after the outputs are restored from the build cache"() {
+        given:
+        withBuildCache().succeeds("test")
+        file("src/main/java/Calculator.java").text = calculator("b + a")
+        withBuildCache().succeeds("test")
+        file("src/main/java/Calculator.java").text = calculator("a + b")
+        withBuildCache().succeeds("test")
+        assert skippedTasks.contains(":test")
+        file("executed.txt").delete()
+
+        when:
+        file("src/main/java/Calculator.java").text = calculator("b + a + 0")
+        withBuildCache().succeeds("test")
+
+        then:
+        assertExecuted("CalculatorTest")
+        new DefaultTestExecutionResult(testDirectory).assertTestClassesExecuted("CalculatorTest", "OtherTest")
+    }
+
+    private void assertExecuted(String... testClasses) {
+        def executed = file("executed.txt")
+        assert (executed.exists() ? executed.readLines() as Set : [] as Set) == testClasses as Set
+        executed.delete()
+    }
+
+    private static String calculator(String expression) {
+        return """
+            public class Calculator {
+                public int add(int a, int b) { return $expression; }
+            }
+        """
+    }
+
+    private static String testClass(String className, String body) {
+        return """
+            import java.io.FileWriter;
+
+            public class $className {
+                @org.junit.Test
+                public void test() throws Exception {
+                    FileWriter writer = new FileWriter("executed.txt", true);
+                    writer.write("$className\\n");
+                    writer.close();
+                    $body
+                }
+            }
+        """
+    }
+}
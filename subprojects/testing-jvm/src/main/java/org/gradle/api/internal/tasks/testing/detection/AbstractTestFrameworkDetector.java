@@ -24,28 +24,33 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.util.internal.Java9ClassReader;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
 public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor> implements TestFrameworkDetector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTestFrameworkDetector.class);
+
     protected static final String TEST_CASE = "junit/framework/TestCase";
     protected static final String GROOVY_TEST_CASE = "groovy/util/GroovyTestCase";
     protected static final String JAVA_LANG_OBJECT = "java/lang/Object";
 
     private List<File> testClassDirectories;
     private final ClassFileExtractionManager classFileExtractionManager;
-    private final Map<File, Boolean> superClasses;
+    private final ConcurrentMap<String, Boolean> superClasses;
+    private final Object publishLock = new Object();
     private TestClassProcessor testClassProcessor;
     private final List<String> knownTestCaseClassNames;
 
@@ -55,15 +60,20 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager) {
         assert classFileExtractionManager != null;
         this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.superClasses = new ConcurrentHashMap<String, Boolean>();
         this.knownTestCaseClassNames = new ArrayList<String>();
         addKnownTestCaseClassNames(TEST_CASE, GROOVY_TEST_CASE);
     }
 
     protected abstract T createClassVisitor();
 
-    protected File getSuperTestClassFile(String superClassName) {
-        prepareClasspath();
+    /**
+     * Reads the given super class, either from the test class directories or from the library jars on the test classpath.
+     *
+     * @return The bytes of the class file, or null when the class is not a candidate or cannot be found.
+     */
+    private byte[] getSuperTestClassBytes(String superClassName) {
+        List<File> testClassDirectories = prepareClasspath();
         if (StringUtils.isEmpty(superClassName)) {
             throw new IllegalArgumentException("superClassName is empty!");
         }
@@ -80,22 +90,22 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         }
 
         if (superTestClassFile != null) {
-            return superTestClassFile;
+            return readClassFile(superTestClassFile);
         } else if (JAVA_LANG_OBJECT.equals(superClassName)) {
             // java.lang.Object found, which is not a test class
             return null;
         } else {
             // super test class file not in test class directories
-            return classFileExtractionManager.getLibraryClassFile(superClassName);
+            return classFileExtractionManager.getLibraryClassBytes(superClassName);
         }
     }
 
-    private void prepareClasspath() {
+    private synchronized List<File> prepareClasspath() {
         if (testClassDirectories != null) {
-            return;
+            return testClassDirectories;
         }
 
-        testClassDirectories = new ArrayList<File>();
+        List<File> testClassDirectories = new ArrayList<File>();
 
         if (testClassesDirectory != null) {
             testClassDirectories.add(testClassesDirectory);
@@ -109,6 +119,9 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
                 }
             }
         }
+
+        this.testClassDirectories = testClassDirectories;
+        return testClassDirectories;
     }
 
     @Override
@@ -122,42 +135,63 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     }
 
     protected TestClassVisitor classVisitor(final File testClassFile) {
+        return classVisitor(readClassFile(testClassFile), testClassFile.getAbsolutePath());
+    }
+
+    private TestClassVisitor classVisitor(byte[] classBytes, String displayName) {
         final TestClassVisitor classVisitor = createClassVisitor();
 
-        InputStream classStream = null;
         try {
-            classStream = new BufferedInputStream(new FileInputStream(testClassFile));
-            final ClassReader classReader = new Java9ClassReader(IOUtils.toByteArray(classStream));
+            final ClassReader classReader = new Java9ClassReader(classBytes);
             classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
         } catch (Throwable e) {
-            throw new GradleException("failed to read class file " + testClassFile.getAbsolutePath(), e);
-        } finally {
-            IOUtils.closeQuietly(classStream);
+            throw new GradleException("failed to read class file " + displayName, e);
         }
 
         return classVisitor;
     }
 
+    private static byte[] readClassFile(File classFile) {
+        InputStream classStream = null;
+        try {
+            classStream = new BufferedInputStream(new FileInputStream(classFile));
+            return IOUtils.toByteArray(classStream);
+        } catch (Throwable e) {
+            throw new GradleException("failed to read class file " + classFile.getAbsolutePath(), e);
+        } finally {
+            IOUtils.closeQuietly(classStream);
+        }
+    }
+
+    /**
+     * Processes a test class file. This method may be called concurrently for different test class files.
+     */
     @Override
     public boolean processTestClass(File testClassFile) {
-        return processTestClass(testClassFile, false);
+        return processTestClass(classVisitor(testClassFile), false);
     }
 
-    protected abstract boolean processTestClass(File testClassFile, boolean superClass);
-
-    protected boolean processSuperClass(File testClassFile) {
-        boolean isTest = false;
+    protected abstract boolean processTestClass(TestClassVisitor classVisitor, boolean superClass);
 
-        Boolean isSuperTest = superClasses.get(testClassFile);
-
-        if (isSuperTest == null) {
-            isTest = processTestClass(testClassFile, true);
+    /**
+     * Determines whether the given super class is a test class. The result is remembered for the whole scan, so that
+     * each super class is read at most once, even when it is shared by many test classes.
+     */
+    protected boolean processSuperClass(String superClassName) {
+        Boolean isSuperTest = superClasses.get(superClassName);
+        if (isSuperTest != null) {
+            return isSuperTest;
+        }
 
-            superClasses.put(testClassFile, isTest);
+        boolean isTest = false;
+        byte[] superClassBytes = getSuperTestClassBytes(superClassName);
+        if (superClassBytes != null) {
+            isTest = processTestClass(classVisitor(superClassBytes, superClassName), true);
         } else {
-            isTest = isSuperTest;
+            LOGGER.debug("test-class-scan : failed to scan parent class {}, could not find the class file", superClassName);
         }
 
+        superClasses.putIfAbsent(superClassName, isTest);
         return isTest;
     }
 
@@ -168,7 +202,9 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     protected void publishTestClass(boolean isTest, TestClassVisitor classVisitor, boolean superClass) {
         if (isTest && !classVisitor.isAbstract() && !superClass) {
             String className = Type.getObjectType(classVisitor.getClassName()).getClassName();
-            testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+            synchronized (publishLock) {
+                testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+            }
         }
     }
 
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.gradle.api.Nullable;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
+import org.gradle.api.internal.hash.FileHasher;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassDependentsAccumulator;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysis;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.FlushableEncoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.time.Timer;
+import org.gradle.internal.time.Timers;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Selects the test classes that are affected by the changes to the test runtime classpath since the previous test execution.
+ *
+ * <p>The class files found in the directories of the classpath are hashed and analysed for their dependencies, using the
+ * same analysis as incremental Java compilation. A test class is affected when it has changed, or when it depends, directly
+ * or transitively, on a class that has changed or was removed. Any other change to the classpath, such as a changed
+ * resource or library, is reported through a changed configuration hash and causes all test classes to be selected.</p>
+ *
+ * <p>The state is stored alongside the binary test results, so that it is restored, cached and deleted together with the results it
+ * describes. When the previous results are missing, the previous state is missing too, and all test classes are selected.</p>
+ */
+public class AffectedTestClassSelector {
+    private static final Logger LOGGER = Logging.getLogger(AffectedTestClassSelector.class);
+    private static final int STATE_VERSION = 1;
+    private static final String STATE_FILE_NAME = "affectedTestClasses.bin";
+
+    private final DirectoryFileTreeFactory directoryFileTreeFactory;
+    private final ClassDependenciesAnalyzer analyzer;
+    private final FileHasher fileHasher;
+    private ClasspathState currentState;
+
+    public AffectedTestClassSelector(DirectoryFileTreeFactory directoryFileTreeFactory, ClassDependenciesAnalyzer analyzer, FileHasher fileHasher) {
+        this.directoryFileTreeFactory = directoryFileTreeFactory;
+        this.analyzer = analyzer;
+        this.fileHasher = fileHasher;
+    }
+
+    /**
+     * Analyses the given classpath and compares it against the state stored by a previous call to {@link #storeState(File)}.
+     * The stored state is discarded, so that an interrupted test execution does not leave stale state behind.
+     *
+     * @param previousResultsDir The directory containing the binary results of the previous test execution.
+     * @param classpath The test runtime classpath.
+     * @param configuration Any other test configuration that should cause all test classes to be selected when it changes.
+     * @return A spec matching the affected test class names, or null when all test classes should be executed.
+     */
+    @Nullable
+    public Spec<String> selectAffectedClasses(File previousResultsDir, Iterable<File> classpath, String configuration) {
+        Timer clock = Timers.startTimer();
+        currentState = analyze(classpath, configuration);
+        File stateFile = new File(previousResultsDir, STATE_FILE_NAME);
+        ClasspathState previousState = readState(stateFile);
+        stateFile.delete();
+        LOGGER.info("Test classpath analysis took {}.", clock.getElapsed());
+
+        if (previousState == null) {
+            LOGGER.info("No previous test classpath analysis is available, all test classes will be executed.");
+            return null;
+        }
+        if (!previousState.configurationHash.equals(currentState.configurationHash)) {
+            LOGGER.info("The test configuration, resources or libraries have changed, all test classes will be executed.");
+            return null;
+        }
+
+        Set<String> changedClasses = new LinkedHashSet<String>();
+        Set<String> removedClasses = new LinkedHashSet<String>();
+        Set<Integer> changedConstants = new HashSet<Integer>();
+        for (Map.Entry<String, HashCode> entry : currentState.classHashes.entrySet()) {
+            HashCode previousHash = previousState.classHashes.get(entry.getKey());
+            if (!entry.getValue().equals(previousHash)) {
+                changedClasses.add(entry.getKey());
+                if (previousHash != null) {
+                    changedConstants.addAll(previousState.analysis.getConstants(entry.getKey()));
+                }
+            }
+        }
+        for (String className : previousState.classHashes.keySet()) {
+            if (!currentState.classHashes.containsKey(className)) {
+                removedClasses.add(className);
+                changedConstants.addAll(previousState.analysis.getConstants(className));
+            }
+        }
+
+        // Dependencies may have been added or removed by the change, so use both the previous and the current analysis
+        DependentsSet currentDependents = new ClassSetAnalysis(currentState.analysis).getRelevantDependents(changedClasses, changedConstants);
+        DependentsSet previousDependents = new ClassSetAnalysis(previousState.analysis).getRelevantDependents(Sets.union(changedClasses, removedClasses), changedConstants);
+        for (DependentsSet dependents : new DependentsSet[]{currentDependents, previousDependents}) {
+            if (dependents.isDependencyToAll()) {
+                LOGGER.info("{}, all test classes will be executed.", dependents.getDescription() != null ? dependents.getDescription() : "A changed class is a dependency of all classes");
+                return null;
+            }
+        }
+
+        final Set<String> affectedClasses = new HashSet<String>();
+        for (String className : changedClasses) {
+            addWithTopLevelClass(className, affectedClasses);
+        }
+        for (String className : currentDependents.getDependentClasses()) {
+            addWithTopLevelClass(className, affectedClasses);
+        }
+        for (String className : previousDependents.getDependentClasses()) {
+            addWithTopLevelClass(className, affectedClasses);
+        }
+        LOGGER.info("{} classes have changed and {} have been removed since the previous test execution, {} classes are affected.", changedClasses.size(), removedClasses.size(), affectedClasses.size());
+        return new Spec<String>() {
+            @Override
+            public boolean isSatisfiedBy(String className) {
+                return affectedClasses.contains(className) || affectedClasses.contains(topLevelClassName(className));
+            }
+        };
+    }
+
+    /**
+     * Returns true when the given class was found by the most recent call to {@link #selectAffectedClasses(File, Iterable, String)}.
+     */
+    public boolean isPresent(String className) {
+        return currentState != null && currentState.classHashes.containsKey(className);
+    }
+
+    /**
+     * Stores the state of the classpath analysed by the most recent call to {@link #selectAffectedClasses(File, Iterable, String)}.
+     * Should be called once the selected test classes have been executed.
+     *
+     * @param resultsDir The directory containing the binary results of the test execution.
+     */
+    public void storeState(File resultsDir) {
+        if (currentState == null) {
+            return;
+        }
+        File stateFile = new File(resultsDir, STATE_FILE_NAME);
+        try {
+            stateFile.getParentFile().mkdirs();
+            OutputStream outputStream = new FileOutputStream(stateFile);
+            try {
+                FlushableEncoder encoder = new KryoBackedEncoder(outputStream);
+                encoder.writeSmallInt(STATE_VERSION);
+                HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
+                hashCodeSerializer.write(encoder, currentState.configurationHash);
+                encoder.writeSmallInt(currentState.classHashes.size());
+                for (Map.Entry<String, HashCode> entry : currentState.classHashes.entrySet()) {
+                    encoder.writeString(entry.getKey());
+                    hashCodeSerializer.write(encoder, entry.getValue());
+                }
+                new ClassSetAnalysisData.Serializer().write(encoder, currentState.analysis);
+                encoder.flush();
+            } finally {
+                outputStream.close();
+            }
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Nullable
+    private ClasspathState readState(File stateFile) {
+        if (!stateFile.isFile()) {
+            return null;
+        }
+        try {
+            InputStream inputStream = new FileInputStream(stateFile);
+            try {
+                Decoder decoder = new KryoBackedDecoder(inputStream);
+                if (decoder.readSmallInt() != STATE_VERSION) {
+                    return null;
+                }
+                HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
+                HashCode configurationHash = hashCodeSerializer.read(decoder);
+                int classCount = decoder.readSmallInt();
+                Map<String, HashCode> classHashes = new LinkedHashMap<String, HashCode>(classCount);
+                for (int i = 0; i < classCount; i++) {
+                    classHashes.put(decoder.readString(), hashCodeSerializer.read(decoder));
+                }
+                ClassSetAnalysisData analysis = new ClassSetAnalysisData.Serializer().read(decoder);
+                return new ClasspathState(configurationHash, classHashes, analysis);
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.info("Could not read the previous test classpath analysis from {}.", stateFile, e);
+            return null;
+        }
+    }
+
+    private ClasspathState analyze(Iterable<File> classpath, String configuration) {
+        final Hasher configurationHasher = Hashing.md5().newHasher();
+        configurationHasher.putString(configuration, Charsets.UTF_8);
+        final Map<String, HashCode> classHashes = new LinkedHashMap<String, HashCode>();
+        final ClassDependentsAccumulator accumulator = new ClassDependentsAccumulator();
+        for (File file : classpath) {
+            configurationHasher.putString(file.getAbsolutePath(), Charsets.UTF_8);
+            if (file.isFile()) {
+                configurationHasher.putBytes(fileHasher.hash(file).asBytes());
+            } else if (file.isDirectory()) {
+                directoryFileTreeFactory.create(file).visit(new FileVisitor() {
+                    @Override
+                    public void visitDir(FileVisitDetails dirDetails) {
+                    }
+
+                    @Override
+                    public void visitFile(FileVisitDetails fileDetails) {
+                        HashCode hash = fileHasher.hash(fileDetails);
+                        if (fileDetails.getName().endsWith(".class")) {
+                            ClassAnalysis classAnalysis = analyzer.getClassAnalysis(hash, fileDetails);
+                            if (!classHashes.containsKey(classAnalysis.getClassName())) {
+                                classHashes.put(classAnalysis.getClassName(), hash);
+                                accumulator.addClass(fileDetails.getFile(), classAnalysis);
+                                return;
+                            }
+                        }
+                        // Resources and shadowed classes are not analysed
+                        configurationHasher.putString(fileDetails.getRelativePath().getPathString(), Charsets.UTF_8);
+                        configurationHasher.putBytes(hash.asBytes());
+                    }
+                });
+            }
+        }
+        return new ClasspathState(configurationHasher.hash(), classHashes, accumulator.getAnalysis());
+    }
+
+    private static void addWithTopLevelClass(String className, Set<String> classNames) {
+        classNames.add(className);
+        classNames.add(topLevelClassName(className));
+    }
+
+    private static String topLevelClassName(String className) {
+        int index = className.indexOf('$');
+        return index < 0 ? className : className.substring(0, index);
+    }
+
+    private static class ClasspathState {
+        private final HashCode configurationHash;
+        private final Map<String, HashCode> classHashes;
+        private final ClassSetAnalysisData analysis;
+
+        private ClasspathState(HashCode configurationHash, Map<String, HashCode> classHashes, ClassSetAnalysisData analysis) {
+            this.configurationHash = configurationHash;
+            this.classHashes = classHashes;
+            this.analysis = analysis;
+        }
+    }
+}
@@ -15,35 +15,39 @@
  */
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.text.StrBuilder;
 import org.gradle.api.GradleException;
-import org.gradle.api.internal.file.DefaultTemporaryFileProvider;
-import org.gradle.api.internal.file.TemporaryFileProvider;
-import org.gradle.internal.Factory;
-import org.gradle.util.JarUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.*;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
- * This class manages class file extraction from library jar files.
+ * This class manages class file extraction from library jar files. Class files are read in place from the jar
+ * files, nothing is extracted to disk.
+ *
+ * <p>Library jars are registered before scanning starts, after which class files can be looked up from multiple threads.</p>
  */
 public class ClassFileExtractionManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClassFileExtractionManager.class);
     private final Map<String, Set<File>> packageJarFilesMappings;
-    private final Map<String, File> extractedJarClasses;
     private final Set<String> unextractableClasses;
-    private final TemporaryFileProvider tempDirProvider;
 
-    public ClassFileExtractionManager(final Factory<File> tempDirFactory) {
-        assert tempDirFactory != null;
-        tempDirProvider = new DefaultTemporaryFileProvider(tempDirFactory);
+    public ClassFileExtractionManager() {
         packageJarFilesMappings = new HashMap<String, Set<File>>();
-        extractedJarClasses = new HashMap<String, File>();
-        unextractableClasses = new TreeSet<String>();
+        unextractableClasses = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     }
 
     /**
@@ -51,7 +55,7 @@ public class ClassFileExtractionManager {
      *
      * @param libraryJar Jar file to add to the index.
      */
-    public void addLibraryJar(final File libraryJar) {
+    public synchronized void addLibraryJar(final File libraryJar) {
         new JarFilePackageLister().listJarPackages(libraryJar, new JarFilePackageListener() {
             public void receivePackage(String packageName) {
                 Set<File> jarFiles = packageJarFilesMappings.get(packageName);
@@ -66,62 +70,70 @@ public class ClassFileExtractionManager {
     }
 
     /**
-     * Retrieve the file that contains the extracted class file. <p/> This method will extract the class file if it is
-     * not extracted yet. Extracted class files are deleted on exit of the Gradle process. The same class is only
-     * extracted once.
+     * Retrieve the content of a class file from the library jars. <p/> The class file is read directly from the jar
+     * entry. Classes that cannot be found are remembered, so each missing class is only looked up once.
      *
-     * @param className Name of the class to extract.
-     * @return File that contains the extracted class file.
+     * @param className Name of the class to read.
+     * @return The bytes of the class file, or null when the class is not contained in any of the library jars.
      */
-    public File getLibraryClassFile(final String className) {
+    public byte[] getLibraryClassBytes(final String className) {
         if (unextractableClasses.contains(className)) {
             return null;
-        } else {
-            if (!extractedJarClasses.containsKey(className)) {
-                if (!extractClassFile(className)) {
-                    unextractableClasses.add(className);
-                }
-            }
-
-            return extractedJarClasses.get(className);
         }
+        byte[] classBytes = readClassFile(className);
+        if (classBytes == null) {
+            unextractableClasses.add(className);
+        }
+        return classBytes;
     }
 
-    private boolean extractClassFile(final String className) {
-        boolean classFileExtracted = false;
-
-        final File extractedClassFile = tempFile();
+    private byte[] readClassFile(final String className) {
         final String classFileName = new StrBuilder().append(className).append(".class").toString();
         final String classNamePackage = classNamePackage(className);
-        final Set<File> packageJarFiles = packageJarFilesMappings.get(classNamePackage);
-
-        File classFileSourceJar = null;
-
-        if (packageJarFiles != null && !packageJarFiles.isEmpty()) {
-            final Iterator<File> packageJarFilesIt = packageJarFiles.iterator();
-
-            while (!classFileExtracted && packageJarFilesIt.hasNext()) {
-                final File jarFile = packageJarFilesIt.next();
+        final Set<File> packageJarFiles;
+        synchronized (this) {
+            packageJarFiles = packageJarFilesMappings.get(classNamePackage);
+        }
 
-                try {
-                    classFileExtracted = JarUtil.extractZipEntry(jarFile, classFileName, extractedClassFile);
+        if (packageJarFiles == null || packageJarFiles.isEmpty()) {
+            // super class not on the classpath - unable to scan parent class
+            return null;
+        }
 
-                    if (classFileExtracted) {
-                        classFileSourceJar = jarFile;
-                    }
-                } catch (IOException e) {
-                    throw new GradleException("failed to extract class file from jar (" + jarFile + ")", e);
-                }
+        final Iterator<File> packageJarFilesIt = packageJarFiles.iterator();
+        while (packageJarFilesIt.hasNext()) {
+            final File jarFile = packageJarFilesIt.next();
+            final byte[] classBytes;
+            try {
+                classBytes = readZipEntry(jarFile, classFileName);
+            } catch (IOException e) {
+                throw new GradleException("failed to read class file from jar (" + jarFile + ")", e);
             }
 
-            if (classFileExtracted) {
-                LOGGER.debug("extracted class {} from {}", className, classFileSourceJar.getName());
-
-                extractedJarClasses.put(className, extractedClassFile);
+            if (classBytes != null) {
+                LOGGER.debug("read class {} from {}", className, jarFile.getName());
+                return classBytes;
             }
-        } // super class not on the classpath - unable to scan parent class
+        }
+        return null;
+    }
 
-        return classFileExtracted;
+    private static byte[] readZipEntry(File jarFile, String entryName) throws IOException {
+        ZipFile zipFile = new ZipFile(jarFile);
+        try {
+            ZipEntry entry = zipFile.getEntry(entryName);
+            if (entry == null) {
+                return null;
+            }
+            InputStream entryStream = zipFile.getInputStream(entry);
+            try {
+                return IOUtils.toByteArray(entryStream);
+            } finally {
+                entryStream.close();
+            }
+        } finally {
+            zipFile.close();
+        }
     }
 
     private String classNamePackage(final String className) {
@@ -133,8 +145,4 @@ public class ClassFileExtractionManager {
             return className.substring(0, lastSlashIndex + 1);
         }
     }
-
-    private File tempFile() {
-        return tempDirProvider.createTemporaryFile("jar_extract_", "_tmp"); // Could throw UncheckedIOException
-    }
 }
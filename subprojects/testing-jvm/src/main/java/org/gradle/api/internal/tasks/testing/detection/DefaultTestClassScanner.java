@@ -16,37 +16,57 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.gradle.api.Action;
 import org.gradle.api.file.EmptyFileVisitor;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
  * a detection or filename scan is performed to find test classes.
+ *
+ * <p>When a build operation processor is provided, candidate class files are inspected concurrently, using the shared build operation
+ * threads and worker leases. Detected test classes are still handed to the test class processor in the order in which the class files
+ * are visited, so that test classes are batched the same way as with a sequential scan.</p>
  */
 public class DefaultTestClassScanner implements Runnable {
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final BuildOperationProcessor buildOperationProcessor;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null);
+    }
+
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, BuildOperationProcessor buildOperationProcessor) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
     @Override
     public void run() {
         if (testFrameworkDetector == null) {
             filenameScan();
-        } else {
+        } else if (buildOperationProcessor == null) {
             detectionScan();
+        } else {
+            parallelDetectionScan();
         }
     }
 
@@ -59,6 +79,21 @@ public class DefaultTestClassScanner implements Runnable {
         });
     }
 
+    private void parallelDetectionScan() {
+        final InputOrderPublisher publisher = new InputOrderPublisher();
+        testFrameworkDetector.startDetection(publisher);
+        buildOperationProcessor.run(new Action<BuildOperationQueue<DetectTestClass>>() {
+            @Override
+            public void execute(final BuildOperationQueue<DetectTestClass> queue) {
+                candidateClassFiles.visit(new ClassFileVisitor() {
+                    public void visitClassFile(FileVisitDetails fileDetails) {
+                        queue.add(publisher.newOperation(fileDetails.getFile()));
+                    }
+                });
+            }
+        });
+    }
+
     private void filenameScan() {
         candidateClassFiles.visit(new ClassFileVisitor() {
             public void visitClassFile(FileVisitDetails fileDetails) {
@@ -81,4 +116,79 @@ public class DefaultTestClassScanner implements Runnable {
 
         public abstract void visitClassFile(FileVisitDetails fileDetails);
     }
+
+    /**
+     * Receives the test classes published by the detector, and passes them on once the detection of all earlier class files has completed.
+     */
+    private class InputOrderPublisher implements TestClassProcessor {
+        private final ThreadLocal<DetectTestClass> currentOperation = new ThreadLocal<DetectTestClass>();
+        private final List<DetectTestClass> operations = new ArrayList<DetectTestClass>();
+        private int nextToPublish;
+
+        synchronized DetectTestClass newOperation(File testClassFile) {
+            DetectTestClass operation = new DetectTestClass(testClassFile, this);
+            operations.add(operation);
+            return operation;
+        }
+
+        void running(DetectTestClass operation) {
+            currentOperation.set(operation);
+        }
+
+        synchronized void completed(DetectTestClass operation) {
+            currentOperation.remove();
+            operation.completed = true;
+            while (nextToPublish < operations.size() && operations.get(nextToPublish).completed) {
+                DetectTestClass next = operations.get(nextToPublish);
+                for (TestClassRunInfo testClass : next.detected) {
+                    testClassProcessor.processTestClass(testClass);
+                }
+                next.detected.clear();
+                nextToPublish++;
+            }
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            // Called by the detector from the thread that is running the operation for the class file
+            currentOperation.get().detected.add(testClass);
+        }
+
+        @Override
+        public void startProcessing(TestResultProcessor resultProcessor) {
+            // Not used by detectors
+        }
+
+        @Override
+        public void stop() {
+            // Not used by detectors
+        }
+    }
+
+    private class DetectTestClass implements RunnableBuildOperation {
+        private final File testClassFile;
+        private final InputOrderPublisher publisher;
+        private final List<TestClassRunInfo> detected = new ArrayList<TestClassRunInfo>(1);
+        private boolean completed;
+
+        DetectTestClass(File testClassFile, InputOrderPublisher publisher) {
+            this.testClassFile = testClassFile;
+            this.publisher = publisher;
+        }
+
+        @Override
+        public void run() {
+            publisher.running(this);
+            try {
+                testFrameworkDetector.processTestClass(testClassFile);
+            } finally {
+                publisher.completed(this);
+            }
+        }
+
+        @Override
+        public String getDescription() {
+            return "Detect tests in " + testClassFile;
+        }
+    }
 }
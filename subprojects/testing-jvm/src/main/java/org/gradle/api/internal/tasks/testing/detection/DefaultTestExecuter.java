@@ -23,13 +23,17 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.processors.FilteringTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.internal.Factory;
 import org.gradle.internal.actor.ActorFactory;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.internal.operations.BuildOperationWorkerRegistry;
 import org.gradle.internal.progress.BuildOperationExecutor;
 import org.gradle.internal.time.TrueTimeProvider;
@@ -47,13 +51,24 @@ public class DefaultTestExecuter implements TestExecuter {
     private final ModuleRegistry moduleRegistry;
     private final BuildOperationWorkerRegistry buildOperationWorkerRegistry;
     private final BuildOperationExecutor buildOperationExecutor;
+    private final BuildOperationProcessor buildOperationProcessor;
+    private final Spec<? super String> testClassSpec;
 
-    public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry, BuildOperationWorkerRegistry buildOperationWorkerRegistry, BuildOperationExecutor buildOperationExecutor) {
+    public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry, BuildOperationWorkerRegistry buildOperationWorkerRegistry, BuildOperationExecutor buildOperationExecutor, BuildOperationProcessor buildOperationProcessor) {
+        this(workerFactory, actorFactory, moduleRegistry, buildOperationWorkerRegistry, buildOperationExecutor, buildOperationProcessor, Specs.satisfyAll());
+    }
+
+    /**
+     * Creates an executer that only executes the detected test classes whose name satisfies the given spec.
+     */
+    public DefaultTestExecuter(WorkerProcessFactory workerFactory, ActorFactory actorFactory, ModuleRegistry moduleRegistry, BuildOperationWorkerRegistry buildOperationWorkerRegistry, BuildOperationExecutor buildOperationExecutor, BuildOperationProcessor buildOperationProcessor, Spec<? super String> testClassSpec) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
         this.moduleRegistry = moduleRegistry;
         this.buildOperationWorkerRegistry = buildOperationWorkerRegistry;
         this.buildOperationExecutor = buildOperationExecutor;
+        this.buildOperationProcessor = buildOperationProcessor;
+        this.testClassSpec = testClassSpec;
     }
 
     @Override
@@ -62,14 +77,19 @@ public class DefaultTestExecuter implements TestExecuter {
         final WorkerTestClassProcessorFactory testInstanceFactory = testFramework.getProcessorFactory();
         final BuildOperationWorkerRegistry.Operation currentOperation = buildOperationWorkerRegistry.getCurrent();
         final Set<File> classpath = ImmutableSet.copyOf(testTask.getClasspath());
+        // When the forked process is reused, it restarts the test framework in a fresh ClassLoader instead of being restarted itself
+        final long isolatedForkEvery = testTask.isReuseForkedJvm() ? testTask.getForkEvery() : 0;
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(workerFactory, testInstanceFactory, testTask,
-                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry, currentOperation);
+                    classpath, testFramework.getWorkerConfigurationAction(), moduleRegistry, currentOperation, isolatedForkEvery);
             }
         };
         Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
+                if (isolatedForkEvery > 0) {
+                    return forkingProcessorFactory.create();
+                }
                 return new RestartEveryNTestClassProcessor(forkingProcessorFactory, testTask.getForkEvery());
             }
         };
@@ -78,15 +98,16 @@ public class DefaultTestExecuter implements TestExecuter {
             reforkingProcessorFactory, actorFactory);
 
         final FileTree testClassFiles = testTask.getCandidateClassFiles();
+        TestClassProcessor detectedClassProcessor = testClassSpec == Specs.SATISFIES_ALL ? processor : new FilteringTestClassProcessor(processor, testClassSpec);
 
         Runnable detector;
         if (testTask.isScanForTestClasses()) {
             TestFrameworkDetector testFrameworkDetector = testTask.getTestFramework().getDetector();
             testFrameworkDetector.setTestClassesDirectory(testTask.getTestClassesDir());
             testFrameworkDetector.setTestClasspath(classpath);
-            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
+            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, detectedClassProcessor, buildOperationProcessor);
         } else {
-            detector = new DefaultTestClassScanner(testClassFiles, null, processor);
+            detector = new DefaultTestClassScanner(testClassFiles, null, detectedClassProcessor);
         }
 
         final Object testTaskOperationId = buildOperationExecutor.getCurrentOperation().getId();
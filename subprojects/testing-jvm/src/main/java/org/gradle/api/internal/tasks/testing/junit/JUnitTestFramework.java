@@ -40,7 +40,7 @@ public class JUnitTestFramework implements TestFramework {
     public JUnitTestFramework(Test testTask, DefaultTestFilter filter) {
         this.filter = filter;
         options = new JUnitOptions();
-        detector = new JUnitDetector(new ClassFileExtractionManager(testTask.getTemporaryDirFactory()));
+        detector = new JUnitDetector(new ClassFileExtractionManager());
     }
 
     @Override
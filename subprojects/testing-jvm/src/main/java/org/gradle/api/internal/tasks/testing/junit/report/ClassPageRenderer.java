@@ -15,9 +15,14 @@
  */
 package org.gradle.api.internal.tasks.testing.junit.report;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import org.gradle.api.Action;
 import org.gradle.internal.ErroringAction;
 import org.gradle.internal.html.SimpleHtmlWriter;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestFailure;
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
 import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.internal.SystemProperties;
@@ -25,6 +30,8 @@ import org.gradle.reporting.CodePanelRenderer;
 import org.gradle.util.GUtil;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 class ClassPageRenderer extends PageRenderer<ClassTestResults> {
     private final CodePanelRenderer codePanelRenderer = new CodePanelRenderer();
@@ -66,11 +73,14 @@ class ClassPageRenderer extends PageRenderer<ClassTestResults> {
 
     @Override
     protected void renderFailures(SimpleHtmlWriter htmlWriter) throws IOException {
+        ListMultimap<String, List<TestFailure>> failuresByTest = loadFailures();
         for (TestResult test : getResults().getFailures()) {
             htmlWriter.startElement("div").attribute("class", "test")
                 .startElement("a").attribute("name", test.getId().toString()).characters("").endElement() //browsers dont understand <a name="..."/>
                 .startElement("h3").attribute("class", test.getStatusClass()).characters(test.getName()).endElement();
-            for (TestFailure failure : test.getFailures()) {
+            List<List<TestFailure>> failuresForName = failuresByTest.get(test.getName());
+            List<TestFailure> failures = failuresForName.isEmpty() ? Collections.<TestFailure>emptyList() : failuresForName.remove(0);
+            for (TestFailure failure : failures) {
                 String message;
                 if (GUtil.isTrue(failure.getMessage()) && !failure.getStackTrace().contains(failure.getMessage())) {
                     message = failure.getMessage() + SystemProperties.getInstance().getLineSeparator() + SystemProperties.getInstance().getLineSeparator() + failure.getStackTrace();
@@ -83,6 +93,21 @@ class ClassPageRenderer extends PageRenderer<ClassTestResults> {
         }
     }
 
+    private ListMultimap<String, List<TestFailure>> loadFailures() {
+        final ListMultimap<String, List<TestFailure>> failuresByTest = ArrayListMultimap.create();
+        resultsProvider.visitClass(getModel().getId(), new Action<TestClassResult>() {
+            @Override
+            public void execute(TestClassResult classResult) {
+                for (TestMethodResult methodResult : classResult.getResults()) {
+                    if (!methodResult.getFailures().isEmpty()) {
+                        failuresByTest.put(methodResult.getName(), methodResult.getFailures());
+                    }
+                }
+            }
+        });
+        return failuresByTest;
+    }
+
     @Override
     protected void registerTabs() {
         addFailuresTab();
@@ -18,7 +18,6 @@ package org.gradle.api.internal.tasks.testing.junit.report;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
 import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
-import org.gradle.api.internal.tasks.testing.junit.result.TestFailure;
 import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
 import org.gradle.api.logging.Logger;
@@ -66,11 +65,9 @@ public class DefaultTestReport implements TestReporter {
                     final TestResult testResult = model.addTest(classResult.getId(), classResult.getClassName(), collectedResult.getName(), collectedResult.getDuration());
                     if (collectedResult.getResultType() == SKIPPED) {
                         testResult.setIgnored();
-                    } else {
-                        List<TestFailure> failures = collectedResult.getFailures();
-                        for (TestFailure failure : failures) {
-                            testResult.addFailure(failure);
-                        }
+                    } else if (!collectedResult.getFailures().isEmpty()) {
+                        // The failure details are read again when rendering the page of the class, rather than held for every class
+                        testResult.setFailed();
                     }
                 }
             }
@@ -15,18 +15,13 @@
  */
 package org.gradle.api.internal.tasks.testing.junit.report;
 
-import org.gradle.api.internal.tasks.testing.junit.result.TestFailure;
-
-import java.util.ArrayList;
-import java.util.List;
-
 import static org.gradle.api.tasks.testing.TestResult.ResultType;
 
 public class TestResult extends TestResultModel implements Comparable<TestResult> {
     private final long duration;
     final ClassTestResults classResults;
-    final List<TestFailure> failures = new ArrayList<TestFailure>();
     final String name;
+    boolean failed;
     boolean ignored;
 
     public TestResult(String name, long duration, ClassTestResults classResults) {
@@ -53,7 +48,7 @@ public class TestResult extends TestResultModel implements Comparable<TestResult
         if (ignored) {
             return ResultType.SKIPPED;
         }
-        return failures.isEmpty() ? ResultType.SUCCESS : ResultType.FAILURE;
+        return failed ? ResultType.FAILURE : ResultType.SUCCESS;
     }
 
     @Override
@@ -70,17 +65,13 @@ public class TestResult extends TestResultModel implements Comparable<TestResult
         return classResults;
     }
 
-    public List<TestFailure> getFailures() {
-        return failures;
-    }
-
     public boolean isIgnored() {
         return ignored;
     }
 
-    public void addFailure(TestFailure failure) {
+    public void setFailed() {
         classResults.failed(this);
-        failures.add(failure);
+        failed = true;
     }
 
     public void setIgnored() {
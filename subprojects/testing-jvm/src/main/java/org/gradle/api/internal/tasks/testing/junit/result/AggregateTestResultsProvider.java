@@ -67,6 +67,26 @@ public class AggregateTestResultsProvider implements TestResultsProvider {
         }
     }
 
+    @Override
+    public void visitClass(final long id, Action<? super TestClassResult> visitor) {
+        final OverlayedIdProxyingTestClassResult[] aggregatedResult = new OverlayedIdProxyingTestClassResult[1];
+        for (DelegateProvider delegateProvider : classOutputProviders.get(id)) {
+            delegateProvider.provider.visitClass(delegateProvider.id, new Action<TestClassResult>() {
+                public void execute(TestClassResult classResult) {
+                    if (aggregatedResult[0] == null) {
+                        aggregatedResult[0] = new OverlayedIdProxyingTestClassResult(id, classResult);
+                    } else {
+                        aggregatedResult[0].addTestClassResult(classResult);
+                    }
+                }
+            });
+        }
+        if (aggregatedResult[0] == null) {
+            throw new IllegalArgumentException(String.format("No results found for test class with id %d.", id));
+        }
+        visitor.execute(aggregatedResult[0]);
+    }
+
     private static class DelegateProvider {
         private final long id;
         private final TestResultsProvider provider;
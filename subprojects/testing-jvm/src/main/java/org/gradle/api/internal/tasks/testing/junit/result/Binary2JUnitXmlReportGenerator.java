@@ -52,10 +52,12 @@ public class Binary2JUnitXmlReportGenerator {
         buildOperationProcessor.run(new Action<BuildOperationQueue<JUnitXmlReportFileGenerator>>() {
             @Override
             public void execute(final BuildOperationQueue<JUnitXmlReportFileGenerator> queue) {
+                // Only the id and name of each class are retained here. Each operation reads the results of its class again, so that the results of
+                // only those classes currently being written are held in memory
                 testResultsProvider.visitClasses(new Action<TestClassResult>() {
                     public void execute(final TestClassResult result) {
                         final File reportFile = new File(testResultsDir, getReportFileName(result));
-                        queue.add(new JUnitXmlReportFileGenerator(result, reportFile, xmlWriter));
+                        queue.add(new JUnitXmlReportFileGenerator(result.getId(), result.getClassName(), reportFile, testResultsProvider, xmlWriter));
                     }
                 });
             }
@@ -69,33 +71,42 @@ public class Binary2JUnitXmlReportGenerator {
     }
 
     private static class JUnitXmlReportFileGenerator implements RunnableBuildOperation {
-        private final TestClassResult result;
+        private final long classId;
+        private final String className;
         private final File reportFile;
+        private final TestResultsProvider testResultsProvider;
         private final JUnitXmlResultWriter xmlWriter;
 
-        public JUnitXmlReportFileGenerator(TestClassResult result, File reportFile, JUnitXmlResultWriter xmlWriter) {
-            this.result = result;
+        public JUnitXmlReportFileGenerator(long classId, String className, File reportFile, TestResultsProvider testResultsProvider, JUnitXmlResultWriter xmlWriter) {
+            this.classId = classId;
+            this.className = className;
             this.reportFile = reportFile;
+            this.testResultsProvider = testResultsProvider;
             this.xmlWriter = xmlWriter;
         }
 
         @Override
         public String getDescription() {
-            return "generating junit xml test report for ".concat(result.getClassName());
+            return "generating junit xml test report for ".concat(className);
         }
 
         @Override
         public void run() {
-            FileOutputStream output = null;
-            try {
-                output = new FileOutputStream(reportFile);
-                xmlWriter.write(result, output);
-                output.close();
-            } catch (Exception e) {
-                throw new GradleException(String.format("Could not write XML test results for %s to file %s.", result.getClassName(), reportFile), e);
-            } finally {
-                IOUtils.closeQuietly(output);
-            }
+            testResultsProvider.visitClass(classId, new Action<TestClassResult>() {
+                @Override
+                public void execute(TestClassResult result) {
+                    FileOutputStream output = null;
+                    try {
+                        output = new FileOutputStream(reportFile);
+                        xmlWriter.write(result, output);
+                        output.close();
+                    } catch (Exception e) {
+                        throw new GradleException(String.format("Could not write XML test results for %s to file %s.", className, reportFile), e);
+                    } finally {
+                        IOUtils.closeQuietly(output);
+                    }
+                }
+            });
         }
     }
 }
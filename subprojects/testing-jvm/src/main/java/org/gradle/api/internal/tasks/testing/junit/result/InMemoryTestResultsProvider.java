@@ -17,13 +17,13 @@
 package org.gradle.api.internal.tasks.testing.junit.result;
 
 import org.gradle.api.Action;
-import org.gradle.api.tasks.testing.TestOutputEvent;
 
-import java.io.IOException;
-import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
 
 public class InMemoryTestResultsProvider extends TestOutputStoreBackedResultsProvider {
     private final Iterable<TestClassResult> results;
+    private Map<Long, TestClassResult> resultsById;
 
     public InMemoryTestResultsProvider(Iterable<TestClassResult> results, TestOutputStore outputStore) {
         super(outputStore);
@@ -31,60 +31,33 @@ public class InMemoryTestResultsProvider extends TestOutputStoreBackedResultsPro
     }
 
     @Override
-    public boolean hasOutput(final long id, final TestOutputEvent.Destination destination) {
-        final boolean[] hasOutput = new boolean[1];
-        withReader(new Action<TestOutputStore.Reader>() {
-            @Override
-            public void execute(TestOutputStore.Reader reader) {
-                hasOutput[0] = reader.hasOutput(id, destination);
-            }
-        });
-        return hasOutput[0];
+    public void visitClasses(final Action<? super TestClassResult> visitor) {
+        for (TestClassResult result : results) {
+            visitor.execute(result);
+        }
     }
 
     @Override
-    public void writeAllOutput(final long id, final TestOutputEvent.Destination destination, final Writer writer) {
-        withReader(new Action<TestOutputStore.Reader>() {
-            @Override
-            public void execute(TestOutputStore.Reader reader) {
-                reader.writeAllOutput(id, destination, writer);
-            }
-        });
+    public void visitClass(long id, Action<? super TestClassResult> visitor) {
+        TestClassResult result = getResultsById().get(id);
+        if (result == null) {
+            throw new IllegalArgumentException(String.format("No results found for test class with id %d.", id));
+        }
+        visitor.execute(result);
     }
 
-    @Override
-    public void writeNonTestOutput(final long id, final TestOutputEvent.Destination destination, final Writer writer) {
-        withReader(new Action<TestOutputStore.Reader>() {
-            @Override
-            public void execute(TestOutputStore.Reader reader) {
-                reader.writeNonTestOutput(id, destination, writer);
+    private synchronized Map<Long, TestClassResult> getResultsById() {
+        if (resultsById == null) {
+            resultsById = new HashMap<Long, TestClassResult>();
+            for (TestClassResult result : results) {
+                resultsById.put(result.getId(), result);
             }
-        });
-    }
-
-    @Override
-    public void writeTestOutput(final long classId, final long testId, final TestOutputEvent.Destination destination, final Writer writer) {
-        withReader(new Action<TestOutputStore.Reader>() {
-            @Override
-            public void execute(TestOutputStore.Reader reader) {
-                reader.writeTestOutput(classId, testId, destination, writer);
-            }
-        });
-    }
-
-    @Override
-    public void visitClasses(final Action<? super TestClassResult> visitor) {
-        for (TestClassResult result : results) {
-            visitor.execute(result);
         }
+        return resultsById;
     }
 
     @Override
     public boolean isHasResults() {
         return results.iterator().hasNext();
     }
-
-    @Override
-    public void close() throws IOException {
-    }
 }
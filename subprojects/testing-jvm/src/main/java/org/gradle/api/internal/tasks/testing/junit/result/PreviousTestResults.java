@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.concurrent.CompositeStoppable;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The binary results of a previous test execution, from which the results of test classes that are not executed again can be carried forward.
+ */
+public class PreviousTestResults {
+    private final File resultsDir;
+    private final List<TestClassResult> results = new ArrayList<TestClassResult>();
+
+    public PreviousTestResults(File resultsDir) {
+        this.resultsDir = resultsDir;
+        TestResultSerializer serializer = new TestResultSerializer(resultsDir);
+        if (serializer.isHasResults()) {
+            serializer.read(new Action<TestClassResult>() {
+                @Override
+                public void execute(TestClassResult result) {
+                    results.add(result);
+                }
+            });
+        }
+    }
+
+    public boolean isHasResults() {
+        return !results.isEmpty();
+    }
+
+    /**
+     * Returns the names of the test classes that had failures.
+     */
+    public Set<String> getFailedClasses() {
+        Set<String> failedClasses = new HashSet<String>();
+        for (TestClassResult result : results) {
+            if (result.getFailuresCount() > 0) {
+                failedClasses.add(result.getClassName());
+            }
+        }
+        return failedClasses;
+    }
+
+    /**
+     * Adds the previous results and output of the classes that match the given spec and have no result yet. The copied results are given ids that
+     * do not clash with the ids of the existing results.
+     */
+    public void copyTo(Map<String, TestClassResult> currentResults, TestOutputStore.Writer outputWriter, Spec<? super String> classNameSpec) {
+        long nextId = 1;
+        for (TestClassResult result : currentResults.values()) {
+            nextId = Math.max(nextId, result.getId() + 1);
+            for (TestMethodResult methodResult : result.getResults()) {
+                nextId = Math.max(nextId, methodResult.getId() + 1);
+            }
+        }
+
+        TestOutputStore.Reader outputReader = new TestOutputStore(resultsDir).reader();
+        try {
+            for (TestClassResult previous : results) {
+                if (currentResults.containsKey(previous.getClassName()) || !classNameSpec.isSatisfiedBy(previous.getClassName())) {
+                    continue;
+                }
+                TestClassResult copy = new TestClassResult(nextId++, previous.getClassName(), previous.getStartTime());
+                copyOutput(outputReader, previous.getId(), 0, outputWriter, copy.getId(), 0);
+                for (TestMethodResult previousMethod : previous.getResults()) {
+                    TestMethodResult methodCopy = new TestMethodResult(nextId++, previousMethod.getName(), previousMethod.getResultType(), previousMethod.getDuration(), previousMethod.getEndTime());
+                    for (TestFailure failure : previousMethod.getFailures()) {
+                        methodCopy.addFailure(failure.getMessage(), failure.getStackTrace(), failure.getExceptionType());
+                    }
+                    copyOutput(outputReader, previous.getId(), previousMethod.getId(), outputWriter, copy.getId(), methodCopy.getId());
+                    copy.add(methodCopy);
+                }
+                currentResults.put(copy.getClassName(), copy);
+            }
+        } finally {
+            CompositeStoppable.stoppable(outputReader).stop();
+        }
+    }
+
+    private static void copyOutput(TestOutputStore.Reader reader, long classId, long testId, TestOutputStore.Writer writer, long newClassId, long newTestId) {
+        for (TestOutputEvent.Destination destination : TestOutputEvent.Destination.values()) {
+            if (!reader.hasOutput(classId, destination)) {
+                continue;
+            }
+            StringWriter output = new StringWriter();
+            if (testId == 0) {
+                reader.writeNonTestOutput(classId, destination, output);
+            } else {
+                reader.writeTestOutput(classId, testId, destination, output);
+            }
+            if (output.getBuffer().length() == 0) {
+                continue;
+            }
+            DefaultTestOutputEvent event = new DefaultTestOutputEvent(destination, output.toString());
+            if (newTestId == 0) {
+                writer.onOutput(newClassId, event);
+            } else {
+                writer.onOutput(newClassId, newTestId, event);
+            }
+        }
+    }
+}
@@ -21,12 +21,13 @@ import com.esotericsoftware.kryo.io.Output;
 import com.google.common.collect.ImmutableMap;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestOutputEvent;
-import org.gradle.internal.io.RandomAccessFileInputStream;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -217,9 +218,15 @@ public class TestOutputStore {
         }
     }
 
+    /**
+     * Reads the output of the tests. The index is loaded once when the reader is created, the output itself is read on demand.
+     *
+     * <p>A reader can be used concurrently by multiple threads, as each read uses its own position in the data file.</p>
+     */
     public class Reader implements Closeable {
         private final Index index;
         private final RandomAccessFile dataFile;
+        private final FileChannel dataChannel;
 
         public Reader() {
             File indexFile = getIndexFile();
@@ -267,6 +274,7 @@ public class TestOutputStore {
                 } catch (FileNotFoundException e) {
                     throw new UncheckedIOException(e);
                 }
+                dataChannel = dataFile.getChannel();
             } else { // no outputs file
                 if (indexFile.exists()) {
                     throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
@@ -274,6 +282,7 @@ public class TestOutputStore {
 
                 index = null;
                 dataFile = null;
+                dataChannel = null;
             }
         }
 
@@ -335,9 +344,8 @@ public class TestOutputStore {
             boolean ignoreTestLevel = !allClassOutput && testId == 0;
 
             try {
-                dataFile.seek(region.start);
                 long maxPos = region.stop - region.start;
-                KryoBackedDecoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(dataFile));
+                KryoBackedDecoder decoder = new KryoBackedDecoder(new RegionInputStream(dataChannel, region.start));
                 while (decoder.getReadPosition() <= maxPos) {
                     boolean readStdout = decoder.readBoolean();
                     long readClassId = decoder.readSmallLong();
@@ -383,6 +391,35 @@ public class TestOutputStore {
         }
     }
 
+    /**
+     * Reads the data file from a given position, without changing the position of the shared channel.
+     */
+    private static class RegionInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+
+        RegionInputStream(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buffer = new byte[1];
+            int nread = read(buffer, 0, 1);
+            return nread < 0 ? -1 : buffer[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int nread = channel.read(ByteBuffer.wrap(bytes, offset, length), position);
+            if (nread > 0) {
+                position += nread;
+            }
+            return nread;
+        }
+    }
+
     // IMPORTANT: return must be closed when done with.
     public Reader reader() {
         return new Reader();
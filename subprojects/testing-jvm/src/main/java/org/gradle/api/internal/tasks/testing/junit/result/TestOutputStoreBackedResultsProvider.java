@@ -16,28 +16,55 @@
 
 package org.gradle.api.internal.tasks.testing.junit.result;
 
-import org.gradle.api.Action;
-import org.gradle.api.UncheckedIOException;
+import org.gradle.api.tasks.testing.TestOutputEvent;
 
 import java.io.IOException;
+import java.io.Writer;
 
+/**
+ * A results provider which reads the test output from a {@link TestOutputStore}. A single reader is opened on first use and shared by all
+ * subsequent calls, including concurrent ones, until the provider is closed.
+ */
 abstract public class TestOutputStoreBackedResultsProvider implements TestResultsProvider {
     private final TestOutputStore outputStore;
+    private TestOutputStore.Reader reader;
 
     public TestOutputStoreBackedResultsProvider(TestOutputStore outputStore) {
         this.outputStore = outputStore;
     }
 
-    protected void withReader(Action<TestOutputStore.Reader> action) {
-        try {
-            TestOutputStore.Reader reader = outputStore.reader();
-            try {
-                action.execute(reader);
-            } finally {
-                reader.close();
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+    private synchronized TestOutputStore.Reader getReader() {
+        if (reader == null) {
+            reader = outputStore.reader();
+        }
+        return reader;
+    }
+
+    @Override
+    public boolean hasOutput(long id, TestOutputEvent.Destination destination) {
+        return getReader().hasOutput(id, destination);
+    }
+
+    @Override
+    public void writeAllOutput(long id, TestOutputEvent.Destination destination, Writer writer) {
+        getReader().writeAllOutput(id, destination, writer);
+    }
+
+    @Override
+    public void writeNonTestOutput(long id, TestOutputEvent.Destination destination, Writer writer) {
+        getReader().writeNonTestOutput(id, destination, writer);
+    }
+
+    @Override
+    public void writeTestOutput(long classId, long testId, TestOutputEvent.Destination destination, Writer writer) {
+        getReader().writeTestOutput(classId, testId, destination, writer);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
         }
     }
 }
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.tasks.testing.junit.result;
 
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestResult;
 import org.gradle.internal.UncheckedException;
@@ -28,6 +29,7 @@ import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
 
 import java.io.*;
 import java.util.Collection;
+import java.util.Map;
 
 public class TestResultSerializer {
     private static final int RESULT_VERSION = 3;
@@ -88,18 +90,44 @@ public class TestResultSerializer {
     }
 
     public void read(Action<? super TestClassResult> visitor) {
+        read(visitor, null);
+    }
+
+    /**
+     * Reads the results of each test class, and records the position of each class in the results file into the given map, keyed by class id.
+     * The results of a class can then be read again using {@link #readClass(long)}.
+     */
+    public void read(Action<? super TestClassResult> visitor, @Nullable Map<Long, Long> classPositions) {
         if (!isHasResults()) {
             return;
         }
         try {
             InputStream inputStream = new FileInputStream(resultsFile);
             try {
-                Decoder decoder = new KryoBackedDecoder(inputStream);
+                KryoBackedDecoder decoder = new KryoBackedDecoder(inputStream);
                 int version = decoder.readSmallInt();
                 if (version != RESULT_VERSION) {
                     throw new IllegalArgumentException(String.format("Unexpected result file version %d found in %s.", version, resultsFile));
                 }
-                readResults(decoder, visitor);
+                readResults(decoder, visitor, classPositions);
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    /**
+     * Reads the results of the test class stored at the given position of the results file.
+     */
+    public TestClassResult readClass(long position) {
+        try {
+            InputStream inputStream = new FileInputStream(resultsFile);
+            try {
+                Decoder decoder = new KryoBackedDecoder(inputStream);
+                decoder.skipBytes(position);
+                return readClassResult(decoder);
             } finally {
                 inputStream.close();
             }
@@ -112,10 +140,14 @@ public class TestResultSerializer {
         return resultsFile.exists() && resultsFile.length() > 0;
     }
 
-    private void readResults(Decoder decoder, Action<? super TestClassResult> visitor) throws ClassNotFoundException, IOException {
+    private void readResults(KryoBackedDecoder decoder, Action<? super TestClassResult> visitor, @Nullable Map<Long, Long> classPositions) throws ClassNotFoundException, IOException {
         int classCount = decoder.readSmallInt();
         for (int i = 0; i < classCount; i++) {
+            long position = decoder.getReadPosition();
             TestClassResult classResult = readClassResult(decoder);
+            if (classPositions != null) {
+                classPositions.put(classResult.getId(), position);
+            }
             visitor.execute(classResult);
         }
     }
@@ -44,6 +44,12 @@ public interface TestResultsProvider extends Closeable {
      */
     void visitClasses(Action<? super TestClassResult> visitor);
 
+    /**
+     * Visits the results of the given test class, reading them again when they are not held in memory. This method must be called only after {@link #visitClasses(org.gradle.api.Action)},
+     * and may be called concurrently for different test classes.
+     */
+    void visitClass(long id, Action<? super TestClassResult> visitor);
+
     boolean hasOutput(long id, TestOutputEvent.Destination destination);
 
     boolean isHasResults();
@@ -18,14 +18,8 @@ package org.gradle.api.internal.tasks.testing.testng;
 import org.gradle.api.internal.tasks.testing.detection.AbstractTestFrameworkDetector;
 import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
 import org.gradle.api.internal.tasks.testing.detection.TestClassVisitor;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.io.File;
 
 class TestNGDetector extends AbstractTestFrameworkDetector<TestNGTestClassDetecter> {
-    private static final Logger LOGGER = LoggerFactory.getLogger(TestNGDetector.class);
-
     TestNGDetector(ClassFileExtractionManager classFileExtractionManager) {
         super(classFileExtractionManager);
     }
@@ -41,22 +35,11 @@ class TestNGDetector extends AbstractTestFrameworkDetector<TestNGTestClassDetect
      * parent class is a test class all the extending classes are marked as test classes.
      */
     @Override
-    protected boolean processTestClass(final File testClassFile, boolean superClass) {
-        final TestClassVisitor classVisitor = classVisitor(testClassFile);
-
+    protected boolean processTestClass(final TestClassVisitor classVisitor, boolean superClass) {
         boolean isTest = classVisitor.isTest();
 
         if (!isTest) {
-            final String superClassName = classVisitor.getSuperClassName();
-
-            final File superClassFile = getSuperTestClassFile(superClassName);
-
-            if (superClassFile != null) {
-                isTest = processSuperClass(superClassFile);
-            } else {
-                LOGGER.debug("test-class-scan : failed to scan parent class {}, could not find the class file",
-                        superClassName);
-            }
+            isTest = processSuperClass(classVisitor.getSuperClassName());
         }
 
         publishTestClass(isTest, classVisitor, superClass);
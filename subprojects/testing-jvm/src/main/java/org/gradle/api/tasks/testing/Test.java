@@ -26,14 +26,20 @@ import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.ClosureBackedAction;
 import org.gradle.api.internal.ConventionTask;
+import org.gradle.api.internal.changedetection.state.CachingFileHasher;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.file.FileResolver;
+import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.CachingClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.DefaultClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.cache.GeneralCompileCaches;
 import org.gradle.api.internal.tasks.options.Option;
 import org.gradle.api.internal.tasks.testing.DefaultTestTaskReports;
 import org.gradle.api.internal.tasks.testing.NoMatchingTestsReporter;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.detection.AffectedTestClassSelector;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
 import org.gradle.api.internal.tasks.testing.detection.TestExecuter;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
@@ -41,7 +47,8 @@ import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
 import org.gradle.api.internal.tasks.testing.junit.report.DefaultTestReport;
 import org.gradle.api.internal.tasks.testing.junit.report.TestReporter;
 import org.gradle.api.internal.tasks.testing.junit.result.Binary2JUnitXmlReportGenerator;
-import org.gradle.api.internal.tasks.testing.junit.result.InMemoryTestResultsProvider;
+import org.gradle.api.internal.tasks.testing.junit.result.BinaryResultBackedTestResultsProvider;
+import org.gradle.api.internal.tasks.testing.junit.result.PreviousTestResults;
 import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestOutputAssociation;
 import org.gradle.api.internal.tasks.testing.junit.result.TestOutputStore;
@@ -62,6 +69,7 @@ import org.gradle.api.logging.LogLevel;
 import org.gradle.api.reporting.DirectoryReport;
 import org.gradle.api.reporting.Reporting;
 import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
 import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Classpath;
 import org.gradle.api.tasks.Input;
@@ -105,6 +113,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import static org.gradle.util.ConfigureUtil.configureUsing;
 
@@ -174,6 +183,8 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
     private TestFramework testFramework;
     private boolean scanForTestClasses = true;
     private long forkEvery;
+    private boolean reuseForkedJvm;
+    private boolean runOnlyAffectedTests;
     private int maxParallelForks = 1;
     private TestReporter testReporter;
     private final TestTaskReports reports;
@@ -595,6 +606,23 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         }
 
         File binaryResultsDir = getBinResultsDir();
+        File previousResultsDir = new File(getTemporaryDir(), "previousResults");
+        PreviousTestResults previousResults = null;
+        AffectedTestClassSelector affectedTestClassSelector = null;
+        Spec<String> testClassSpec = Specs.satisfyAll();
+        if (isRunOnlyAffectedTests()) {
+            getProject().delete(previousResultsDir);
+            if (binaryResultsDir.isDirectory() && binaryResultsDir.renameTo(previousResultsDir)) {
+                previousResults = new PreviousTestResults(previousResultsDir);
+            }
+            affectedTestClassSelector = createAffectedTestClassSelector();
+            Spec<String> affectedTestClasses = affectedTestClassSelector.selectAffectedClasses(previousResultsDir, getClasspath(), describeTestConfiguration());
+            if (affectedTestClasses != null && previousResults != null && previousResults.isHasResults()) {
+                testClassSpec = affectedOrFailedTestClasses(affectedTestClasses, previousResults.getFailedClasses());
+            } else {
+                previousResults = null;
+            }
+        }
         getProject().delete(binaryResultsDir);
         getProject().mkdir(binaryResultsDir);
 
@@ -615,7 +643,7 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         TestResultProcessor resultProcessor = new StateTrackingTestResultProcessor(testListenerInternalBroadcaster.getSource());
 
         if (testExecuter == null) {
-            testExecuter = new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory(), getModuleRegistry(), getServices().get(BuildOperationWorkerRegistry.class), getServices().get(BuildOperationExecutor.class));
+            testExecuter = new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory(), getModuleRegistry(), getServices().get(BuildOperationWorkerRegistry.class), getServices().get(BuildOperationExecutor.class), getBuildOperationProcessor(), testClassSpec);
         }
 
         JavaVersion javaVersion = getJavaVersion();
@@ -625,6 +653,13 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
 
         try {
             testExecuter.execute(this, resultProcessor);
+            if (affectedTestClassSelector != null) {
+                if (previousResults != null) {
+                    previousResults.copyTo(results, outputWriter, unselectedTestClasses(testClassSpec, affectedTestClassSelector));
+                    getProject().delete(previousResultsDir);
+                }
+                affectedTestClassSelector.storeState(binaryResultsDir);
+            }
         } finally {
             testExecuter = null;
             testListenerBroadcaster.removeAll();
@@ -634,8 +669,10 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         }
 
         new TestResultSerializer(binaryResultsDir).write(results.values());
+        // The reports read the results of each class from the binary results as required, rather than keeping the results of all classes in memory
+        results.clear();
 
-        TestResultsProvider testResultsProvider = new InMemoryTestResultsProvider(results.values(), testOutputStore);
+        TestResultsProvider testResultsProvider = new BinaryResultBackedTestResultsProvider(binaryResultsDir);
 
         try {
             if (testReporter == null) {
@@ -668,6 +705,44 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         }
     }
 
+    private AffectedTestClassSelector createAffectedTestClassSelector() {
+        GeneralCompileCaches compileCaches = getServices().get(GeneralCompileCaches.class);
+        CachingClassDependenciesAnalyzer analyzer = new CachingClassDependenciesAnalyzer(new DefaultClassDependenciesAnalyzer(), compileCaches.getClassAnalysisCache());
+        return new AffectedTestClassSelector(getServices().get(DirectoryFileTreeFactory.class), analyzer, getServices().get(CachingFileHasher.class));
+    }
+
+    private String describeTestConfiguration() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(getTestFramework().getClass().getName()).append('\n');
+        builder.append(getTestClassesDir()).append('\n');
+        builder.append(isScanForTestClasses()).append('\n');
+        builder.append(getIncludes()).append('\n');
+        builder.append(getExcludes()).append('\n');
+        builder.append(getFilter().getIncludePatterns()).append('\n');
+        builder.append(getExecutable()).append('\n');
+        builder.append(getAllJvmArgs()).append('\n');
+        builder.append(new TreeMap<String, Object>(getEnvironment())).append('\n');
+        return builder.toString();
+    }
+
+    private static Spec<String> affectedOrFailedTestClasses(final Spec<String> affectedTestClasses, final Set<String> failedTestClasses) {
+        return new Spec<String>() {
+            @Override
+            public boolean isSatisfiedBy(String className) {
+                return failedTestClasses.contains(className) || affectedTestClasses.isSatisfiedBy(className);
+            }
+        };
+    }
+
+    private static Spec<String> unselectedTestClasses(final Spec<String> selectedTestClasses, final AffectedTestClassSelector affectedTestClassSelector) {
+        return new Spec<String>() {
+            @Override
+            public boolean isSatisfiedBy(String className) {
+                return !selectedTestClasses.isSatisfiedBy(className) && affectedTestClassSelector.isPresent(className);
+            }
+        };
+    }
+
     /**
      * Registers a test listener with this task. Consider also the following handy methods for quicker hooking into test execution: {@link #beforeTest(groovy.lang.Closure)}, {@link
      * #afterTest(groovy.lang.Closure)}, {@link #beforeSuite(groovy.lang.Closure)}, {@link #afterSuite(groovy.lang.Closure)} <p> This listener will NOT be notified of tests executed by other tasks. To
@@ -1126,6 +1201,57 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         this.forkEvery = forkEvery == null ? 0 : forkEvery;
     }
 
+    /**
+     * Specifies whether a forked test process is reused when the {@link #getForkEvery()} limit is reached. When {@code true}, each batch of test classes
+     * is executed in a fresh ClassLoader inside the same test process, instead of in a new test process. The classes of the test framework are shared
+     * between the batches. The default value is {@code false}.
+     *
+     * @return Whether the forked test process is reused.
+     * @since 3.5
+     */
+    @Internal
+    @Incubating
+    public boolean isReuseForkedJvm() {
+        return reuseForkedJvm;
+    }
+
+    /**
+     * Sets whether a forked test process is reused when the {@link #getForkEvery()} limit is reached.
+     *
+     * @param reuseForkedJvm Whether the forked test process is reused.
+     * @since 3.5
+     */
+    @Incubating
+    public void setReuseForkedJvm(boolean reuseForkedJvm) {
+        this.reuseForkedJvm = reuseForkedJvm;
+    }
+
+    /**
+     * Specifies whether only the test classes affected by the changes since the previous execution of this task are executed. A test class is affected when
+     * it, or a class that it depends on, has changed. Test classes that failed in the previous execution are always executed, and the results of the
+     * remaining test classes are carried forward into the reports. Any change other than to a class file in a classpath directory causes all test classes
+     * to be executed. The default value is {@code false}.
+     *
+     * @return Whether only the affected test classes are executed.
+     * @since 3.5
+     */
+    @Internal
+    @Incubating
+    public boolean isRunOnlyAffectedTests() {
+        return runOnlyAffectedTests;
+    }
+
+    /**
+     * Sets whether only the test classes affected by the changes since the previous execution of this task are executed.
+     *
+     * @param runOnlyAffectedTests Whether only the affected test classes are executed.
+     * @since 3.5
+     */
+    @Incubating
+    public void setRunOnlyAffectedTests(boolean runOnlyAffectedTests) {
+        this.runOnlyAffectedTests = runOnlyAffectedTests;
+    }
+
     /**
      * Returns the maximum number of forked test processes to execute in parallel. The default value is 1 (no parallel test execution).
      *
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.internal.hash.DefaultFileHasher
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.DefaultClassDependenciesAnalyzer
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+class AffectedTestClassSelectorTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def classesDir = tmpDir.createDir("classes")
+    def resultsDir = tmpDir.createDir("results")
+
+    def "selects all classes when there is no previous state"() {
+        given:
+        writeClass("org/FooTest")
+
+        expect:
+        selector().selectAffectedClasses(resultsDir, [classesDir], "config") == null
+    }
+
+    def "selects all classes when the previous state has been removed with the previous results"() {
+        given:
+        writeClass("org/FooTest")
+        storeState()
+
+        when:
+        resultsDir.deleteDir()
+
+        then:
+        selector().selectAffectedClasses(resultsDir, [classesDir], "config") == null
+    }
+
+    def "selects no classes when nothing has changed"() {
+        given:
+        writeClass("org/Base")
+        writeClass("org/FooTest", "org/Base")
+        storeState()
+
+        when:
+        def selector = selector()
+        def spec = selector.selectAffectedClasses(resultsDir, [classesDir], "config")
+
+        then:
+        spec != null
+        !spec.isSatisfiedBy("org.FooTest")
+        !spec.isSatisfiedBy("org.Base")
+        selector.isPresent("org.FooTest")
+        !selector.isPresent("org.BarTest")
+    }
+
+    def "selects changed classes and the classes that depend on them"() {
+        given:
+        writeClass("org/Base")
+        writeClass("org/FooTest", "org/Base")
+        writeClass("org/FooTest\$Inner", "org/Base")
+        writeClass("org/BarTest")
+        storeState()
+
+        when:
+        writeClass("org/Base", "java/lang/Object", "newField")
+        def spec = selector().selectAffectedClasses(resultsDir, [classesDir], "config")
+
+        then:
+        spec.isSatisfiedBy("org.Base")
+        spec.isSatisfiedBy("org.FooTest")
+        spec.isSatisfiedBy("org.FooTest\$Inner")
+        !spec.isSatisfiedBy("org.BarTest")
+    }
+
+    def "selects the classes that depended on a deleted class"() {
+        given:
+        writeClass("org/Helper")
+        writeClass("org/FooTest", "org/Helper")
+        writeClass("org/BarTest")
+        storeState()
+
+        when:
+        classesDir.file("org/Helper.class").delete()
+        def spec = selector().selectAffectedClasses(resultsDir, [classesDir], "config")
+
+        then:
+        spec.isSatisfiedBy("org.FooTest")
+        !spec.isSatisfiedBy("org.BarTest")
+    }
+
+    def "selects the classes affected by a renamed class"() {
+        given:
+        writeClass("org/Helper")
+        writeClass("org/FooTest", "org/Helper")
+        writeClass("org/BarTest")
+        storeState()
+
+        when:
+        classesDir.file("org/Helper.class").delete()
+        writeClass("org/RenamedHelper")
+        writeClass("org/FooTest", "org/RenamedHelper")
+        def selector = selector()
+        def spec = selector.selectAffectedClasses(resultsDir, [classesDir], "config")
+
+        then:
+        spec.isSatisfiedBy("org.FooTest")
+        spec.isSatisfiedBy("org.RenamedHelper")
+        !spec.isSatisfiedBy("org.BarTest")
+        !selector.isPresent("org.Helper")
+    }
+
+    def "selects all classes when a resource changes"() {
+        given:
+        writeClass("org/FooTest")
+        classesDir.file("org/resource.txt").text = "original"
+        storeState()
+
+        when:
+        classesDir.file("org/resource.txt").text = "changed"
+
+        then:
+        selector().selectAffectedClasses(resultsDir, [classesDir], "config") == null
+    }
+
+    def "selects all classes when the configuration changes"() {
+        given:
+        writeClass("org/FooTest")
+        storeState()
+
+        expect:
+        selector().selectAffectedClasses(resultsDir, [classesDir], "changed config") == null
+    }
+
+    def "discards the previous state when selecting classes"() {
+        given:
+        writeClass("org/FooTest")
+        storeState()
+
+        when:
+        selector().selectAffectedClasses(resultsDir, [classesDir], "config")
+
+        then:
+        selector().selectAffectedClasses(resultsDir, [classesDir], "config") == null
+    }
+
+    private AffectedTestClassSelector selector() {
+        return new AffectedTestClassSelector(TestFiles.directoryFileTreeFactory(), new DefaultClassDependenciesAnalyzer(), new DefaultFileHasher())
+    }
+
+    private void storeState() {
+        def selector = selector()
+        selector.selectAffectedClasses(resultsDir, [classesDir], "config")
+        selector.storeState(resultsDir)
+    }
+
+    private void writeClass(String name, String superName = "java/lang/Object", String fieldName = null) {
+        ClassWriter writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, name, null, superName, null)
+        if (fieldName != null) {
+            writer.visitField(Opcodes.ACC_PUBLIC, fieldName, "I", null, null).visitEnd()
+        }
+        writer.visitEnd()
+        TestFile classFile = classesDir.file(name + ".class")
+        classFile.parentFile.mkdirs()
+        classFile.bytes = writer.toByteArray()
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class ClassFileExtractionManagerTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final manager = new ClassFileExtractionManager()
+
+    def "reads class file from library jar without extracting it"() {
+        def jar = jar("lib.jar", "org/gradle/Foo.class": [1, 2, 3] as byte[])
+        manager.addLibraryJar(jar)
+
+        expect:
+        manager.getLibraryClassBytes("org/gradle/Foo") == [1, 2, 3] as byte[]
+        tmpDir.testDirectory.listFiles() as List == [jar]
+    }
+
+    def "looks for class in each jar containing the package"() {
+        manager.addLibraryJar(jar("a.jar", "org/gradle/Foo.class": [1] as byte[]))
+        manager.addLibraryJar(jar("b.jar", "org/gradle/Bar.class": [2] as byte[]))
+
+        expect:
+        manager.getLibraryClassBytes("org/gradle/Foo") == [1] as byte[]
+        manager.getLibraryClassBytes("org/gradle/Bar") == [2] as byte[]
+    }
+
+    def "returns null for unknown class"() {
+        manager.addLibraryJar(jar("lib.jar", "org/gradle/Foo.class": [1] as byte[]))
+
+        expect:
+        manager.getLibraryClassBytes("org/gradle/Unknown") == null
+        manager.getLibraryClassBytes("org/other/Foo") == null
+    }
+
+    private File jar(String name, Map<String, byte[]> entries) {
+        def jarFile = tmpDir.file(name)
+        def zipStream = new ZipOutputStream(new FileOutputStream(jarFile))
+        try {
+            def packages = [] as Set
+            entries.each { entryName, content ->
+                def packageName = entryName.substring(0, entryName.lastIndexOf('/') + 1)
+                if (packages.add(packageName)) {
+                    zipStream.putNextEntry(new ZipEntry(packageName))
+                    zipStream.closeEntry()
+                }
+                zipStream.putNextEntry(new ZipEntry(entryName))
+                zipStream.write(content)
+                zipStream.closeEntry()
+            }
+        } finally {
+            zipStream.close()
+        }
+        return jarFile
+    }
+}
@@ -20,7 +20,13 @@ package org.gradle.api.internal.tasks.testing.detection
 import org.gradle.api.file.FileTree
 import org.gradle.api.file.FileVisitDetails
 import org.gradle.api.file.FileVisitor
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.DefaultBuildOperationProcessor
+import org.gradle.internal.operations.DefaultBuildOperationQueueFactory
+import org.gradle.internal.operations.DefaultBuildOperationWorkerRegistry
 import org.junit.Test
 import spock.lang.Specification
 
@@ -52,4 +58,68 @@ public class DefaultTestClassScannerTest extends Specification {
 
         0 * _._
     }
+
+    def "passes each class file to test class detector using build operation processor"() {
+        def workerRegistry = new DefaultBuildOperationWorkerRegistry(4)
+        def buildOperationProcessor = new DefaultBuildOperationProcessor(new DefaultBuildOperationQueueFactory(workerRegistry), new DefaultExecutorFactory(), 4)
+        def outerOperation = workerRegistry.operationStart()
+        DefaultTestClassScanner scanner = new DefaultTestClassScanner(files, detector, processor, buildOperationProcessor)
+
+        when:
+        scanner.run()
+
+        then:
+        1 * detector.startDetection(_)
+        1 * files.visit(_) >> { args ->
+            FileVisitor visitor = args[0]
+            visitor.visitFile({new File('class1.class')} as FileVisitDetails)
+            visitor.visitFile({new File('class2.class')} as FileVisitDetails)
+            visitor.visitFile({new File('resource.txt')} as FileVisitDetails)
+        }
+        1 * detector.processTestClass(new File("class1.class"))
+        1 * detector.processTestClass(new File("class2.class"))
+        0 * _._
+
+        cleanup:
+        outerOperation.operationFinish()
+        buildOperationProcessor.stop()
+        workerRegistry.stop()
+    }
+
+    def "passes detected test classes to processor in the order of the class files"() {
+        def workerRegistry = new DefaultBuildOperationWorkerRegistry(4)
+        def buildOperationProcessor = new DefaultBuildOperationProcessor(new DefaultBuildOperationQueueFactory(workerRegistry), new DefaultExecutorFactory(), 4)
+        def outerOperation = workerRegistry.operationStart()
+        DefaultTestClassScanner scanner = new DefaultTestClassScanner(files, detector, processor, buildOperationProcessor)
+        TestClassProcessor publisher = null
+        def received = []
+
+        when:
+        scanner.run()
+
+        then:
+        1 * detector.startDetection(_) >> { args -> publisher = args[0] }
+        1 * files.visit(_) >> { args ->
+            FileVisitor visitor = args[0]
+            (1..8).each { i -> visitor.visitFile({new File("Test${i}.class")} as FileVisitDetails) }
+        }
+        8 * detector.processTestClass(_) >> { File file ->
+            def name = file.name - '.class'
+            if (name == 'Test1') {
+                // Complete the first class file last
+                Thread.sleep(200)
+            }
+            if (name != 'Test5') {
+                publisher.processTestClass(new DefaultTestClassRunInfo(name))
+            }
+            return true
+        }
+        7 * processor.processTestClass(_) >> { TestClassRunInfo testClass -> received << testClass.testClassName }
+        received == ['Test1', 'Test2', 'Test3', 'Test4', 'Test6', 'Test7', 'Test8']
+
+        cleanup:
+        outerOperation.operationFinish()
+        buildOperationProcessor.stop()
+        workerRegistry.stop()
+    }
 }
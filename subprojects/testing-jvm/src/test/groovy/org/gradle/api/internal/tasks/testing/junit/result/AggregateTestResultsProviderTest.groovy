@@ -149,6 +149,33 @@ class AggregateTestResultsProviderTest extends Specification {
         0 * action._
     }
 
+    def "reads the results of a merged class from each provider"() {
+        def action = Mock(Action)
+        def class1 = new TestClassResult(12, 'class-1', 123000)
+            .add(new TestMethodResult(101, 'methodFoo', TestResult.ResultType.SUCCESS, 10, 123456))
+        def class2 = new TestClassResult(14, 'class-1', 122000)
+            .add(new TestMethodResult(101, 'methodFoo', TestResult.ResultType.FAILURE, 100, 123678))
+
+        given:
+        provider1.visitClasses(_) >> { Action a -> a.execute(class1) }
+        provider2.visitClasses(_) >> { Action a -> a.execute(class2) }
+        provider.visitClasses(Stub(Action))
+
+        when:
+        provider.visitClass(1, action)
+
+        then:
+        1 * provider1.visitClass(12, _) >> { long id, Action a -> a.execute(class1) }
+        1 * provider2.visitClass(14, _) >> { long id, Action a -> a.execute(class2) }
+        1 * action.execute(_) >> { TestClassResult r ->
+            assert r.id == 1
+            assert r.className == 'class-1'
+            assert r.startTime == 122000
+            assert r.results*.resultType as Set == [TestResult.ResultType.SUCCESS, TestResult.ResultType.FAILURE] as Set
+        }
+        0 * action._
+    }
+
     def "maps class ids to original id when fetching test output for merged classes"() {
         def writer = Stub(Writer)
         def class1 = Stub(TestClassResult) {
@@ -57,6 +57,8 @@ class Binary2JUnitXmlReportGeneratorSpec extends Specification {
             action.execute(fooTest)
             action.execute(barTest)
         }
+        resultsProvider.visitClass(1, _) >> { long id, Action action -> action.execute(fooTest) }
+        resultsProvider.visitClass(2, _) >> { long id, Action action -> action.execute(barTest) }
 
         when:
         generator.generate()
@@ -79,6 +81,7 @@ class Binary2JUnitXmlReportGeneratorSpec extends Specification {
         resultsProvider.visitClasses(_) >> { Action action ->
             action.execute(fooTest)
         }
+        resultsProvider.visitClass(1, _) >> { long id, Action action -> action.execute(fooTest) }
         generator.xmlWriter.write(fooTest, _) >> { throw new IOException("Boo!") }
 
         when:
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.specs.Spec
+import org.gradle.test.fixtures.file.WorkspaceTest
+
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdErr
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdOut
+import static org.gradle.api.tasks.testing.TestResult.ResultType.FAILURE
+import static org.gradle.api.tasks.testing.TestResult.ResultType.SUCCESS
+
+class PreviousTestResultsSpec extends WorkspaceTest {
+    def previousDir = file("previous").createDir()
+    def currentDir = file("current").createDir()
+
+    def setup() {
+        def writer = new TestOutputStore(previousDir).writer()
+        writer.onOutput(1, new DefaultTestOutputEvent(StdOut, "[class-out]"))
+        writer.onOutput(1, 2, new DefaultTestOutputEvent(StdErr, "[test-err]"))
+        writer.close()
+        def passed = new TestClassResult(1, "org.Passed", 100).add(new TestMethodResult(2, "ok", SUCCESS, 10, 110))
+        def failed = new TestClassResult(3, "org.Failed", 200).add(new TestMethodResult(4, "broken", FAILURE, 10, 210).addFailure("message", "trace", "java.lang.AssertionError"))
+        new TestResultSerializer(previousDir).write([passed, failed])
+    }
+
+    def "reports classes with failures"() {
+        expect:
+        def results = new PreviousTestResults(previousDir)
+        results.hasResults
+        results.failedClasses == ["org.Failed"] as Set
+    }
+
+    def "copies results and output of matching classes that have no current result"() {
+        def current = new TestClassResult(7, "org.Failed", 300).add(new TestMethodResult(8, "broken", SUCCESS, 10, 310))
+        def results = ["org.Failed": current]
+        def store = new TestOutputStore(currentDir)
+        def writer = store.writer()
+
+        when:
+        new PreviousTestResults(previousDir).copyTo(results, writer, { true } as Spec<String>)
+        writer.close()
+
+        then:
+        results.size() == 2
+        results["org.Failed"].is(current)
+
+        def copy = results["org.Passed"]
+        copy.id == 9
+        copy.startTime == 100
+        copy.results.size() == 1
+        copy.results[0].id == 10
+        copy.results[0].name == "ok"
+        copy.results[0].resultType == SUCCESS
+
+        def reader = store.reader()
+        output { reader.writeNonTestOutput(9, StdOut, it) } == "[class-out]"
+        output { reader.writeTestOutput(9, 10, StdErr, it) } == "[test-err]"
+
+        cleanup:
+        reader?.close()
+    }
+
+    def "does not copy classes that do not match the spec"() {
+        def results = [:]
+        def writer = new TestOutputStore(currentDir).writer()
+
+        when:
+        new PreviousTestResults(previousDir).copyTo(results, writer, { it != "org.Passed" } as Spec<String>)
+        writer.close()
+
+        then:
+        results.keySet() == ["org.Failed"] as Set
+        results["org.Failed"].results[0].failures[0].message == "message"
+    }
+
+    private static String output(Closure action) {
+        def writer = new StringWriter()
+        action(writer)
+        return writer.toString()
+    }
+}
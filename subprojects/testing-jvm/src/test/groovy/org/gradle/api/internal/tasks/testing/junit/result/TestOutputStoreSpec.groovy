@@ -145,6 +145,33 @@ class TestOutputStoreSpec extends WorkspaceTest {
         reader.close()
     }
 
+    def "reader can be used by multiple threads concurrently"() {
+        when:
+        def writer = output.writer()
+        100.times { classId ->
+            writer.onOutput(classId + 1, 1, output(StdOut, "[out-${classId + 1}]"))
+            writer.onOutput(classId + 1, 1, output(StdErr, "[err-${classId + 1}]"))
+        }
+        writer.close()
+        def reader = output.reader()
+        def results = Collections.synchronizedMap([:])
+        def threads = (1..4).collect { offset ->
+            Thread.start {
+                for (long classId = offset; classId <= 100; classId += 4) {
+                    results[classId] = collectAllOutput(reader, classId, StdOut) + collectAllOutput(reader, classId, StdErr)
+                }
+            }
+        }
+        threads*.join()
+
+        then:
+        results.size() == 100
+        results.every { classId, text -> text == "[out-${classId}][err-${classId}]" }
+
+        cleanup:
+        reader.close()
+    }
+
     def "can open empty reader"() {
         // neither file
         expect:
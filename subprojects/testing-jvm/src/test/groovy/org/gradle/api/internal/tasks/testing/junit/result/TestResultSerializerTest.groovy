@@ -67,6 +67,30 @@ class TestResultSerializerTest extends Specification {
         readClass2.results.empty
     }
 
+    def "can read the results of a single class using its recorded position"() {
+        def class1 = new TestClassResult(1, 'Class1', 1234)
+        class1.add(new TestMethodResult(1, "method1", TestResult.ResultType.SUCCESS, 100, 2300))
+        def class2 = new TestClassResult(2, 'Class2', 5678)
+        class2.add(new TestMethodResult(2, "method2", TestResult.ResultType.FAILURE, 200, 2700).addFailure("message", "stack-trace", "ExceptionType"))
+        def serializer = new TestResultSerializer(tmp.createDir("results"))
+        serializer.write([class1, class2])
+        def positions = [:]
+
+        when:
+        serializer.read({} as Action, positions)
+        def readClass2 = serializer.readClass(positions[2L])
+        def readClass1 = serializer.readClass(positions[1L])
+
+        then:
+        positions.size() == 2
+        readClass1.className == 'Class1'
+        readClass1.results*.name == ['method1']
+        readClass2.className == 'Class2'
+        readClass2.startTime == 5678
+        readClass2.results*.name == ['method2']
+        readClass2.results[0].failures[0].stackTrace == "stack-trace"
+    }
+
     List<TestClassResult> serialize(Collection<TestClassResult> results) {
         def serializer = new TestResultSerializer(tmp.createDir("results"))
         serializer.write(results)